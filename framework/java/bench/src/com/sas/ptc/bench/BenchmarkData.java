@@ -0,0 +1,140 @@
+package com.sas.ptc.bench;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+
+import javax.xml.stream.XMLStreamException;
+
+import com.sas.ptc.perf.CdiscDataGenerator;
+
+/**
+ * Copyright (c) 2022, SAS Institute Inc., Cary, NC, USA.  All Rights Reserved.
+ * SPDX-License-Identifier: Apache-2.0
+ *
+ * Creates the input files used by the benchmarks. All inputs are generated, so that the benchmarks run offline and
+ * their sizes can be parameterized.
+ */
+public final class BenchmarkData {
+
+    /**
+     * The system property giving the path to the Dataset-XML schema; set by the bench target of build.xml.
+     */
+    public static final String PROPERTY_DATASETXML_SCHEMA = "bench.datasetxml.schema";
+
+    /**
+     * The number of ItemData elements in each generated ItemGroupData element.
+     */
+    public static final int ITEMS_PER_ITEMGROUP = 12;
+
+    /**
+     * The number of ItemGroupData elements generated per subject.
+     */
+    public static final int RECORDS_PER_SUBJECT = 10;
+
+    private static final int BUFFER_SIZE = 8 * 1024;
+
+    private BenchmarkData() {
+    }
+
+    /**
+     * Creates an empty temporary folder.
+     *
+     * @return The folder
+     * @throws IOException If the folder could not be created
+     */
+    public static File createTempFolder() throws IOException {
+        final File folder = File.createTempFile("ptcbench", "");
+        if (!folder.delete() || !folder.mkdir()) {
+            throw new IOException("Unable to create the folder " + folder);
+        }
+
+        return folder;
+    }
+
+    /**
+     * Deletes a folder created by createTempFolder(), and its content.
+     *
+     * @param folder The folder; nothing is done if null
+     */
+    public static void deleteFolder(final File folder) {
+        if (folder == null) {
+            return;
+        }
+        final File[] files = folder.listFiles();
+        if (files != null) {
+            for (final File file : files) {
+                file.delete();
+            }
+        }
+        folder.delete();
+    }
+
+    /**
+     * Writes a Dataset-XML file for a single domain, with CdiscDataGenerator.
+     *
+     * @param xmlFile The file to write
+     * @param itemGroupCount The number of ItemGroupData elements, rounded up to a multiple of RECORDS_PER_SUBJECT
+     * @throws IOException If the file could not be written
+     */
+    public static void writeDatasetXML(final File xmlFile, final int itemGroupCount) throws IOException {
+        final CdiscDataGenerator generator = new CdiscDataGenerator();
+        generator.setSubjectCount((itemGroupCount + RECORDS_PER_SUBJECT - 1) / RECORDS_PER_SUBJECT);
+        generator.setRecordsPerSubject(RECORDS_PER_SUBJECT);
+        generator.setItemCount(ITEMS_PER_ITEMGROUP);
+        try {
+            generator.writeDatasetXML(generator.getDomains().get(0), xmlFile);
+        } catch (final XMLStreamException e) {
+            throw new IOException("Unable to write " + xmlFile, e);
+        }
+    }
+
+    /**
+     * Copies a resource of the benchmark classpath to a file, so that it can be passed by path.
+     *
+     * @param name The absolute name of the resource
+     * @param folder The folder receiving the file
+     * @return The file
+     * @throws IOException If the resource does not exist or could not be copied
+     */
+    public static File copyResource(final String name, final File folder) throws IOException {
+        final InputStream in = BenchmarkData.class.getResourceAsStream(name);
+        if (in == null) {
+            throw new IOException("Resource not found: " + name);
+        }
+        final File file = new File(folder, name.substring(name.lastIndexOf('/') + 1));
+        try {
+            final OutputStream out = new FileOutputStream(file);
+            try {
+                final byte[] buffer = new byte[BUFFER_SIZE];
+                int count;
+                while ((count = in.read(buffer)) > 0) {
+                    out.write(buffer, 0, count);
+                }
+            } finally {
+                out.close();
+            }
+        } finally {
+            in.close();
+        }
+
+        return file;
+    }
+
+    /**
+     * Gets the path to the Dataset-XML schema, from the system property set by the bench target.
+     *
+     * @return The absolute path to the schema
+     * @throws IOException If the system property is not set, or the schema does not exist
+     */
+    public static String getDatasetXMLSchemaPath() throws IOException {
+        final String path = System.getProperty(PROPERTY_DATASETXML_SCHEMA);
+        if ((path == null) || !new File(path).isFile()) {
+            throw new IOException("Set " + PROPERTY_DATASETXML_SCHEMA + " to the path of the Dataset-XML schema.");
+        }
+
+        return new File(path).getAbsolutePath();
+    }
+}
@@ -0,0 +1,62 @@
+package com.sas.ptc.datasetxml;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.xml.sax.helpers.AttributesImpl;
+
+/**
+ * Copyright (c) 2022, SAS Institute Inc., Cary, NC, USA.  All Rights Reserved.
+ * SPDX-License-Identifier: Apache-2.0
+ *
+ * Measures RecordsHandler.createRecord, called once per ItemData element of a Dataset-XML file. In the package of
+ * RecordsHandler, as the class is not public.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class RecordsHandlerBenchmark {
+
+    private static final String[] ITEMDATA_ATTR_NAMES = { RecordsHandler.ATTR_NAME_ITEMOID,
+        RecordsHandler.ATTR_NAME_VALUE };
+
+    /**
+     * The length of the Value attribute.
+     */
+    @Param({ "8", "64", "512" })
+    public int valueLength;
+
+    private RecordsHandler handler;
+    private AttributesImpl attributes;
+
+    @Setup
+    public void setUp() {
+        this.handler = new RecordsHandler();
+        final StringBuilder value = new StringBuilder(" ");
+        for (int i = 0; i < this.valueLength; ++i) {
+            value.append((char) ('A' + (i % 26)));
+        }
+        value.append(' ');
+        this.attributes = new AttributesImpl();
+        this.attributes.addAttribute("", "", RecordsHandler.ATTR_NAME_ITEMOID, "CDATA", "IT.LB.LBORRES");
+        this.attributes.addAttribute("", "", RecordsHandler.ATTR_NAME_VALUE, "CDATA", value.toString());
+    }
+
+    @Benchmark
+    public String createRecord() {
+        return this.handler.createRecord(RecordsHandler.RECORD_ABBREV_ITEMDATA, ITEMDATA_ATTR_NAMES, this.attributes);
+    }
+}
@@ -0,0 +1,89 @@
+package com.sas.ptc.transform.xml.log;
+
+import java.io.OutputStream;
+import java.util.concurrent.TimeUnit;
+
+import javax.xml.parsers.ParserConfigurationException;
+import javax.xml.stream.XMLStreamException;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.w3c.dom.Document;
+import org.xml.sax.SAXParseException;
+
+/**
+ * Copyright (c) 2022, SAS Institute Inc., Cary, NC, USA.  All Rights Reserved.
+ * SPDX-License-Identifier: Apache-2.0
+ *
+ * Measures Log.buildDOM for logs holding mostly validation messages, as written after validating a large document,
+ * and writing the same entries through a LogStreamWriter, as a streaming log does.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class LogBenchmark {
+
+    /**
+     * The number of entries in the log.
+     */
+    @Param({ "10", "1000", "10000" })
+    public int entryCount;
+
+    private Log log;
+
+    @Setup
+    public void setUp() {
+        this.log = new Log("log.xml", Log.LOG_LEVEL_INFO, true, "2022-05-31T16:59:27-04:00");
+        this.log.logInfo("Transform started.");
+        for (int i = 1; i < this.entryCount; ++i) {
+            final SAXParseException ex = new SAXParseException("cvc-attribute.3: The value '" + i
+                + "' of attribute 'ItemGroupDataSeq' on element 'ItemGroupData' is not valid.", null, null, i, 42);
+            this.log.logValidationMessage(LogEntry.SEVERITY_ERROR, ex);
+        }
+    }
+
+    @Benchmark
+    public Document buildDOM() throws ParserConfigurationException {
+        return this.log.buildDOM();
+    }
+
+    @Benchmark
+    public long writeStream() throws XMLStreamException {
+        final CountingOutputStream os = new CountingOutputStream();
+        final LogStreamWriter writer = new LogStreamWriter(os, true);
+        for (final LogEntry entry : this.log.getLogEntryList()) {
+            writer.writeEntry(entry);
+        }
+        writer.close();
+        return os.count;
+    }
+
+    /**
+     * Discards the bytes written, counting them.
+     */
+    private static final class CountingOutputStream extends OutputStream {
+        private long count;
+
+        @Override
+        public void write(final int b) {
+            ++this.count;
+        }
+
+        @Override
+        public void write(final byte[] b, final int off, final int len) {
+            this.count += len;
+        }
+    }
+}
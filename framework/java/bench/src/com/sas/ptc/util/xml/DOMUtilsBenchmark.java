@@ -0,0 +1,63 @@
+package com.sas.ptc.util.xml;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Copyright (c) 2022, SAS Institute Inc., Cary, NC, USA.  All Rights Reserved.
+ * SPDX-License-Identifier: Apache-2.0
+ *
+ * Measures DOMUtils.escapeForXML, used for the header comment of every transform output.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class DOMUtilsBenchmark {
+
+    /**
+     * The length of the string to escape.
+     */
+    @Param({ "16", "256", "4096" })
+    public int length;
+
+    /**
+     * One character in this many is markup that must be escaped; 0 for none.
+     */
+    @Param({ "0", "16" })
+    public int markupInterval;
+
+    private String text;
+
+    @Setup
+    public void setUp() {
+        final String markup = "&\"'<>";
+        final StringBuilder sb = new StringBuilder(this.length);
+        for (int i = 0; i < this.length; ++i) {
+            if ((this.markupInterval > 0) && (i % this.markupInterval == 0)) {
+                sb.append(markup.charAt((i / this.markupInterval) % markup.length()));
+            } else {
+                sb.append((char) ('a' + (i % 26)));
+            }
+        }
+        this.text = sb.toString();
+    }
+
+    @Benchmark
+    public String escapeForXML() {
+        return DOMUtils.escapeForXML(this.text);
+    }
+}
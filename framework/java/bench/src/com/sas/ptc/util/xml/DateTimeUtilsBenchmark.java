@@ -0,0 +1,67 @@
+package com.sas.ptc.util.xml;
+
+import java.text.ParseException;
+import java.util.Date;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Copyright (c) 2022, SAS Institute Inc., Cary, NC, USA.  All Rights Reserved.
+ * SPDX-License-Identifier: Apache-2.0
+ *
+ * Measures the DateTimeUtils conversions, made for the timestamp of every log entry.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class DateTimeUtilsBenchmark {
+
+    /**
+     * The number of timestamps converted per invocation, as for the entries of one log.
+     */
+    @Param({ "1", "100", "1000" })
+    public int count;
+
+    private Date[] dates;
+    private String[] schemaDateTimes;
+
+    @Setup
+    public void setUp() {
+        this.dates = new Date[this.count];
+        this.schemaDateTimes = new String[this.count];
+        final long start = System.currentTimeMillis();
+        for (int i = 0; i < this.count; ++i) {
+            this.dates[i] = new Date(start + i * 1000L);
+            this.schemaDateTimes[i] = DateTimeUtils.javaDateToSchemaDateTime(this.dates[i]);
+        }
+    }
+
+    @Benchmark
+    public void javaDateToSchemaDateTime(final Blackhole bh) {
+        for (final Date date : this.dates) {
+            bh.consume(DateTimeUtils.javaDateToSchemaDateTime(date));
+        }
+    }
+
+    @Benchmark
+    public void schemaDateTimeToJavaDate(final Blackhole bh) throws ParseException {
+        for (final String schemaDateTime : this.schemaDateTimes) {
+            bh.consume(DateTimeUtils.schemaDateTimeToJavaDate(schemaDateTime));
+        }
+    }
+}
@@ -0,0 +1,70 @@
+package com.sas.ptc.util.xml;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.xml.sax.SAXException;
+
+import com.sas.ptc.bench.BenchmarkData;
+
+/**
+ * Copyright (c) 2022, SAS Institute Inc., Cary, NC, USA.  All Rights Reserved.
+ * SPDX-License-Identifier: Apache-2.0
+ *
+ * Measures XMLValidator.doValidate on generated Dataset-XML files, against the Dataset-XML schema of the toolkit. The
+ * compiled schema is cached after the first invocation, so this measures the validation.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class XMLValidatorBenchmark {
+
+    /**
+     * The number of ItemGroupData elements in the document.
+     */
+    @Param({ "100", "1000", "10000" })
+    public int itemGroupCount;
+
+    private File folder;
+    private XMLValidator validator;
+
+    @Setup
+    public void setUp() throws IOException, SAXException {
+        this.folder = BenchmarkData.createTempFolder();
+        final File document = new File(this.folder, "document.xml");
+        BenchmarkData.writeDatasetXML(document, this.itemGroupCount);
+
+        this.validator = new XMLValidator();
+        this.validator.setXmlPath(document.getPath());
+        this.validator.setSchemaPath(BenchmarkData.getDatasetXMLSchemaPath());
+        if (!this.validator.doValidate()) {
+            throw new IllegalStateException("The generated document is not valid.");
+        }
+    }
+
+    @TearDown
+    public void tearDown() {
+        BenchmarkData.deleteFolder(this.folder);
+    }
+
+    @Benchmark
+    public boolean doValidate() throws SAXException, IOException {
+        return this.validator.doValidate();
+    }
+}
@@ -0,0 +1,71 @@
+package com.sas.ptc.util.xml;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+import javax.xml.transform.TransformerException;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.sas.ptc.bench.BenchmarkData;
+
+/**
+ * Copyright (c) 2022, SAS Institute Inc., Cary, NC, USA.  All Rights Reserved.
+ * SPDX-License-Identifier: Apache-2.0
+ *
+ * Measures XSLTransform.doTransform on generated Dataset-XML files, with a stylesheet flattening them to records as an
+ * import does. The compiled stylesheet is cached after the first invocation, so this measures the transformation.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class XSLTransformBenchmark {
+
+    private static final String XSL_RESOURCE = "/com/sas/ptc/util/xml/datasetxml-to-records.xsl";
+
+    /**
+     * The number of ItemGroupData elements in the source.
+     */
+    @Param({ "100", "1000", "10000" })
+    public int itemGroupCount;
+
+    private File folder;
+    private XSLTransform transform;
+
+    @Setup
+    public void setUp() throws IOException {
+        this.folder = BenchmarkData.createTempFolder();
+        final File source = new File(this.folder, "source.xml");
+        BenchmarkData.writeDatasetXML(source, this.itemGroupCount);
+
+        this.transform = new XSLTransform();
+        this.transform.setXsltPath(BenchmarkData.copyResource(XSL_RESOURCE, this.folder).getPath());
+        this.transform.setSourceXmlPath(source.getPath());
+        this.transform.setOutputXmlPath(new File(this.folder, "result.xml").getPath());
+    }
+
+    @TearDown
+    public void tearDown() {
+        BenchmarkData.deleteFolder(this.folder);
+    }
+
+    @Benchmark
+    public void doTransform() throws TransformerException, IOException {
+        this.transform.doTransform();
+    }
+}
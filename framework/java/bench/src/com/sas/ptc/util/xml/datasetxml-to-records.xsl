@@ -0,0 +1,36 @@
+<?xml version="1.0" encoding="UTF-8"?>
+<!--
+  Copyright (c) 2022, SAS Institute Inc., Cary, NC, USA.  All Rights Reserved.
+  SPDX-License-Identifier: Apache-2.0
+
+  Flattens a Dataset-XML file to the record format of ParseXML. Used by XSLTransformBenchmark.
+-->
+<xsl:stylesheet version="1.0" xmlns:xsl="http://www.w3.org/1999/XSL/Transform"
+  xmlns:odm="http://www.cdisc.org/ns/odm/v1.3" xmlns:data="http://www.cdisc.org/ns/Dataset-XML/v1.0">
+
+  <xsl:output method="text"/>
+
+  <xsl:template match="/odm:ODM">
+    <xsl:value-of select="concat('[ODM]', normalize-space(@FileOID), '&#10;')"/>
+    <xsl:apply-templates select="odm:ClinicalData | odm:ReferenceData"/>
+  </xsl:template>
+
+  <xsl:template match="odm:ClinicalData | odm:ReferenceData">
+    <xsl:variable name="abbrev">
+      <xsl:choose>
+        <xsl:when test="self::odm:ClinicalData">[CD]</xsl:when>
+        <xsl:otherwise>[RD]</xsl:otherwise>
+      </xsl:choose>
+    </xsl:variable>
+    <xsl:value-of select="concat($abbrev, @StudyOID, '|', @MetaDataVersionOID, '&#10;')"/>
+    <xsl:apply-templates select="odm:ItemGroupData"/>
+  </xsl:template>
+
+  <xsl:template match="odm:ItemGroupData">
+    <xsl:value-of select="concat('[IG]', @ItemGroupOID, '|', @data:ItemGroupDataSeq, '&#10;')"/>
+    <xsl:for-each select="odm:ItemData">
+      <xsl:value-of select="concat('[]', @ItemOID, '|', @Value, '&#10;')"/>
+    </xsl:for-each>
+  </xsl:template>
+
+</xsl:stylesheet>
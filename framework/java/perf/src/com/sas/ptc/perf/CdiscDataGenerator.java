@@ -0,0 +1,807 @@
+package com.sas.ptc.perf;
+
+import java.io.BufferedOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Random;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import javax.xml.stream.XMLOutputFactory;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamWriter;
+
+/**
+ * Copyright (c) 2022, SAS Institute Inc., Cary, NC, USA.  All Rights Reserved.
+ * SPDX-License-Identifier: Apache-2.0
+ *
+ * Generates synthetic CDISC XML documents of any size, for benchmarks and scale tests: Dataset-XML 1.0 files, one per
+ * domain, an ODM 1.3.2 file holding the ClinicalData of all domains, and the Define-XML 2.0 file describing them. The
+ * documents are valid against the schemas of the toolkit, and consistent with each other: the Dataset-XML files use
+ * the ItemGroupOIDs and ItemOIDs defined in the Define-XML file.
+ * <p>
+ * Each document is written through an XMLStreamWriter as it is generated, so memory use does not depend on its size.
+ * The content depends only on the settings and the seed, and each domain is generated from a random sequence of its
+ * own, so the Dataset-XML files may be written concurrently and are identical to those written one at a time.
+ */
+public class CdiscDataGenerator {
+
+    public static final String FORMAT_DATASETXML = "datasetxml";
+    public static final String FORMAT_ODM = "odm";
+    public static final String FORMAT_DEFINE = "define";
+    public static final String FORMAT_ALL = "all";
+
+    public static final String ODM_FILE_NAME = "odm.xml";
+    public static final String DEFINE_FILE_NAME = "define.xml";
+
+    // namespaces
+    private static final String ODM_NAMESPACE_URI = "http://www.cdisc.org/ns/odm/v1.3";
+    private static final String DATA_NAMESPACE_URI = "http://www.cdisc.org/ns/Dataset-XML/v1.0";
+    private static final String DEF_NAMESPACE_URI = "http://www.cdisc.org/ns/def/v2.0";
+    private static final String XLINK_NAMESPACE_URI = "http://www.w3.org/1999/xlink";
+    private static final String XML_NAMESPACE_URI = "http://www.w3.org/XML/1998/namespace";
+
+    private static final String OUTPUT_ENCODING = "UTF-8";
+    private static final int OUTPUT_BUFFER_SIZE = 256 * 1024;
+    private static final String NEW_LINE = "\n";
+
+    /**
+     * The number of identifier items (STUDYID, DOMAIN, USUBJID and --SEQ) leading each domain.
+     */
+    public static final int KEY_ITEM_COUNT = 4;
+
+    // SDTM domains used first; further domains are named XA, XB, ... ZZ
+    private static final String[] DOMAIN_NAMES = { "DM", "AE", "LB", "VS", "CM", "EX", "MH", "EG", "DS", "QS", "SC",
+        "SU", "PE", "DA", "IE", "FA" };
+    private static final String VALUE_CHARACTERS = "ABCDEFGHIJKLMNOPQRSTUVWXYZ0123456789 ";
+
+    private int subjectCount = 100;
+    private int domainCount = 5;
+    private int itemCount = 12;
+    private int recordsPerSubject = 10;
+    private int maxValueLength = 20;
+    private long seed = 1;
+    private int threadCount = Runtime.getRuntime().availableProcessors();
+    private String studyOID = "STUDY01";
+    private String creationDateTime = "2022-01-01T00:00:00";
+
+    /**
+     * Generates documents.
+     *
+     * @param args [-format datasetxml|odm|define|all] [-subjects n] [-domains n] [-items n] [-records n]
+     *            [-valueLength n] [-seed n] [-threads n] outputFolder
+     */
+    public static void main(final String[] args) {
+        final CdiscDataGenerator generator = new CdiscDataGenerator();
+        String format = FORMAT_ALL;
+        String outputFolder = null;
+        try {
+            for (int i = 0; i < args.length; ++i) {
+                if ("-format".equals(args[i]) && (i + 1 < args.length)) {
+                    format = args[++i];
+                } else if ("-subjects".equals(args[i]) && (i + 1 < args.length)) {
+                    generator.setSubjectCount(Integer.parseInt(args[++i]));
+                } else if ("-domains".equals(args[i]) && (i + 1 < args.length)) {
+                    generator.setDomainCount(Integer.parseInt(args[++i]));
+                } else if ("-items".equals(args[i]) && (i + 1 < args.length)) {
+                    generator.setItemCount(Integer.parseInt(args[++i]));
+                } else if ("-records".equals(args[i]) && (i + 1 < args.length)) {
+                    generator.setRecordsPerSubject(Integer.parseInt(args[++i]));
+                } else if ("-valueLength".equals(args[i]) && (i + 1 < args.length)) {
+                    generator.setMaxValueLength(Integer.parseInt(args[++i]));
+                } else if ("-seed".equals(args[i]) && (i + 1 < args.length)) {
+                    generator.setSeed(Long.parseLong(args[++i]));
+                } else if ("-threads".equals(args[i]) && (i + 1 < args.length)) {
+                    generator.setThreadCount(Integer.parseInt(args[++i]));
+                } else if (!args[i].startsWith("-") && (outputFolder == null)) {
+                    outputFolder = args[i];
+                } else {
+                    outputFolder = null;
+                    break;
+                }
+            }
+        } catch (final NumberFormatException e) {
+            outputFolder = null;
+        }
+        if (outputFolder == null) {
+            System.err.println("Usage: java CdiscDataGenerator [-format datasetxml|odm|define|all] [-subjects n] "
+                + "[-domains n] [-items n] [-records n] [-valueLength n] [-seed n] [-threads n] outputFolder");
+            System.exit(1);
+        }
+
+        final long startTime = System.currentTimeMillis();
+        try {
+            final List<File> files = generator.generate(format, new File(outputFolder));
+            long byteCount = 0;
+            for (final File file : files) {
+                byteCount += file.length();
+            }
+            System.out.println("Generated " + files.size() + " files, " + byteCount + " bytes, in "
+                + (System.currentTimeMillis() - startTime) + " ms.");
+        } catch (final IOException e) {
+            e.printStackTrace();
+            System.exit(1);
+        } catch (final XMLStreamException e) {
+            e.printStackTrace();
+            System.exit(1);
+        }
+    }
+
+    /**
+     * Generates the documents of the given format in a folder, created if needed. The Dataset-XML files are named
+     * after their domain, in lower case, as in the samples of the toolkit.
+     *
+     * @param format FORMAT_DATASETXML, FORMAT_ODM, FORMAT_DEFINE or FORMAT_ALL
+     * @param outputFolder The folder receiving the documents
+     * @return The files written
+     * @throws IOException If a file could not be written, or the format is unknown
+     * @throws XMLStreamException If a document could not be written
+     */
+    public List<File> generate(final String format, final File outputFolder) throws IOException, XMLStreamException {
+        if (!outputFolder.isDirectory() && !outputFolder.mkdirs()) {
+            throw new IOException("Unable to create the folder " + outputFolder);
+        }
+
+        final List<File> files = new ArrayList<File>();
+        final boolean all = FORMAT_ALL.equalsIgnoreCase(format);
+        if (all || FORMAT_DEFINE.equalsIgnoreCase(format)) {
+            final File file = new File(outputFolder, DEFINE_FILE_NAME);
+            writeDefineXML(file);
+            files.add(file);
+        }
+        if (all || FORMAT_ODM.equalsIgnoreCase(format)) {
+            final File file = new File(outputFolder, ODM_FILE_NAME);
+            writeODM(file);
+            files.add(file);
+        }
+        if (all || FORMAT_DATASETXML.equalsIgnoreCase(format)) {
+            files.addAll(writeDatasetXML(outputFolder));
+        } else if (files.isEmpty()) {
+            throw new IOException("Unknown format '" + format + "'.");
+        }
+
+        return files;
+    }
+
+    /**
+     * Writes the Dataset-XML files of all domains, on up to getThreadCount() threads.
+     *
+     * @param outputFolder The folder receiving the files, which must exist
+     * @return The files written
+     * @throws IOException If a file could not be written
+     * @throws XMLStreamException If a document could not be written
+     */
+    public List<File> writeDatasetXML(final File outputFolder) throws IOException, XMLStreamException {
+        final List<String> domains = getDomains();
+        final List<File> files = new ArrayList<File>();
+        for (final String domain : domains) {
+            files.add(new File(outputFolder, getDatasetFileName(domain)));
+        }
+
+        final int threads = Math.min(getThreadCount(), domains.size());
+        if (threads <= 1) {
+            for (int i = 0; i < domains.size(); ++i) {
+                writeDatasetXML(domains.get(i), files.get(i));
+            }
+            return files;
+        }
+
+        final ExecutorService executor = Executors.newFixedThreadPool(threads);
+        try {
+            final List<Future<Void>> futures = new ArrayList<Future<Void>>();
+            for (int i = 0; i < domains.size(); ++i) {
+                final String domain = domains.get(i);
+                final File file = files.get(i);
+                futures.add(executor.submit(() -> {
+                    writeDatasetXML(domain, file);
+                    return null;
+                }));
+            }
+            for (final Future<Void> future : futures) {
+                future.get();
+            }
+        } catch (final InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while writing " + outputFolder, e);
+        } catch (final ExecutionException e) {
+            if (e.getCause() instanceof IOException) {
+                throw (IOException) e.getCause();
+            } else if (e.getCause() instanceof XMLStreamException) {
+                throw (XMLStreamException) e.getCause();
+            }
+            throw new IOException(e.getCause());
+        } finally {
+            executor.shutdownNow();
+        }
+
+        return files;
+    }
+
+    /**
+     * Writes the Dataset-XML file of a single domain: getRecordsPerSubject() records for each subject.
+     *
+     * @param domain The domain, one of getDomains()
+     * @param file The file to write
+     * @throws IOException If the file could not be written
+     * @throws XMLStreamException If the document could not be written
+     */
+    public void writeDatasetXML(final String domain, final File file) throws IOException, XMLStreamException {
+        final OutputStream out = new BufferedOutputStream(new FileOutputStream(file), OUTPUT_BUFFER_SIZE);
+        try {
+            final XMLStreamWriter writer = createWriter(out);
+            startODM(writer, getStudyOID() + "." + domain);
+            writer.writeNamespace("data", DATA_NAMESPACE_URI);
+            writer.writeAttribute("PriorFileOID", getDefineFileOID());
+            writer.writeAttribute(DATA_NAMESPACE_URI, "DatasetXMLVersion", "1.0.0");
+            newLine(writer);
+
+            writer.writeStartElement(ODM_NAMESPACE_URI, "ClinicalData");
+            writer.writeAttribute("StudyOID", getStudyOID());
+            writer.writeAttribute("MetaDataVersionOID", getMetaDataVersionOID());
+            newLine(writer);
+
+            final String[] itemOIDs = getItemOIDs(domain);
+            final Random random = createRandom(domain);
+            final StringBuilder value = new StringBuilder();
+            long seq = 0;
+            for (int subject = 1; subject <= getSubjectCount(); ++subject) {
+                final String usubjid = getUSubjId(subject);
+                for (int record = 1; record <= getRecordsPerSubject(); ++record) {
+                    ++seq;
+                    writer.writeStartElement(ODM_NAMESPACE_URI, "ItemGroupData");
+                    writer.writeAttribute("ItemGroupOID", getItemGroupOID(domain));
+                    writer.writeAttribute(DATA_NAMESPACE_URI, "ItemGroupDataSeq", String.valueOf(seq));
+                    newLine(writer);
+                    writeItemData(writer, itemOIDs[0], getStudyOID());
+                    writeItemData(writer, itemOIDs[1], domain);
+                    writeItemData(writer, itemOIDs[2], usubjid);
+                    writeItemData(writer, itemOIDs[3], String.valueOf(record));
+                    for (int i = KEY_ITEM_COUNT; i < itemOIDs.length; ++i) {
+                        writeItemData(writer, itemOIDs[i], randomValue(random, value));
+                    }
+                    endElement(writer);
+                }
+            }
+
+            endElement(writer);
+            endElement(writer);
+            writer.writeEndDocument();
+            writer.close();
+        } finally {
+            out.close();
+        }
+    }
+
+    /**
+     * Writes an ODM file holding the clinical data of all domains: for each subject a single study event, with a form
+     * per domain holding getRecordsPerSubject() item groups.
+     *
+     * @param file The file to write
+     * @throws IOException If the file could not be written
+     * @throws XMLStreamException If the document could not be written
+     */
+    public void writeODM(final File file) throws IOException, XMLStreamException {
+        final List<String> domains = getDomains();
+        final String[][] itemOIDs = new String[domains.size()][];
+        final Random[] randoms = new Random[domains.size()];
+        for (int d = 0; d < domains.size(); ++d) {
+            itemOIDs[d] = getItemOIDs(domains.get(d));
+            randoms[d] = createRandom(domains.get(d));
+        }
+
+        final OutputStream out = new BufferedOutputStream(new FileOutputStream(file), OUTPUT_BUFFER_SIZE);
+        try {
+            final XMLStreamWriter writer = createWriter(out);
+            startODM(writer, getStudyOID() + ".ODM");
+            newLine(writer);
+
+            writer.writeStartElement(ODM_NAMESPACE_URI, "ClinicalData");
+            writer.writeAttribute("StudyOID", getStudyOID());
+            writer.writeAttribute("MetaDataVersionOID", getMetaDataVersionOID());
+            newLine(writer);
+
+            final StringBuilder value = new StringBuilder();
+            for (int subject = 1; subject <= getSubjectCount(); ++subject) {
+                final String usubjid = getUSubjId(subject);
+                writer.writeStartElement(ODM_NAMESPACE_URI, "SubjectData");
+                writer.writeAttribute("SubjectKey", usubjid);
+                newLine(writer);
+                writer.writeStartElement(ODM_NAMESPACE_URI, "StudyEventData");
+                writer.writeAttribute("StudyEventOID", "SE.BASELINE");
+                newLine(writer);
+                for (int d = 0; d < domains.size(); ++d) {
+                    final String domain = domains.get(d);
+                    writer.writeStartElement(ODM_NAMESPACE_URI, "FormData");
+                    writer.writeAttribute("FormOID", "FO." + domain);
+                    newLine(writer);
+                    for (int record = 1; record <= getRecordsPerSubject(); ++record) {
+                        writer.writeStartElement(ODM_NAMESPACE_URI, "ItemGroupData");
+                        writer.writeAttribute("ItemGroupOID", getItemGroupOID(domain));
+                        writer.writeAttribute("ItemGroupRepeatKey", String.valueOf(record));
+                        newLine(writer);
+                        writeItemData(writer, itemOIDs[d][0], getStudyOID());
+                        writeItemData(writer, itemOIDs[d][1], domain);
+                        writeItemData(writer, itemOIDs[d][2], usubjid);
+                        writeItemData(writer, itemOIDs[d][3], String.valueOf(record));
+                        for (int i = KEY_ITEM_COUNT; i < itemOIDs[d].length; ++i) {
+                            writeItemData(writer, itemOIDs[d][i], randomValue(randoms[d], value));
+                        }
+                        endElement(writer);
+                    }
+                    endElement(writer);
+                }
+                endElement(writer);
+                endElement(writer);
+            }
+
+            endElement(writer);
+            endElement(writer);
+            writer.writeEndDocument();
+            writer.close();
+        } finally {
+            out.close();
+        }
+    }
+
+    /**
+     * Writes the Define-XML file describing the domains, with a def:leaf per domain referring to its Dataset-XML file.
+     *
+     * @param file The file to write
+     * @throws IOException If the file could not be written
+     * @throws XMLStreamException If the document could not be written
+     */
+    public void writeDefineXML(final File file) throws IOException, XMLStreamException {
+        final List<String> domains = getDomains();
+        final OutputStream out = new BufferedOutputStream(new FileOutputStream(file), OUTPUT_BUFFER_SIZE);
+        try {
+            final XMLStreamWriter writer = createWriter(out);
+            startODM(writer, getDefineFileOID());
+            writer.writeNamespace("xlink", XLINK_NAMESPACE_URI);
+            writer.writeNamespace("def", DEF_NAMESPACE_URI);
+            newLine(writer);
+
+            writer.writeStartElement(ODM_NAMESPACE_URI, "Study");
+            writer.writeAttribute("OID", getStudyOID());
+            newLine(writer);
+            writer.writeStartElement(ODM_NAMESPACE_URI, "GlobalVariables");
+            newLine(writer);
+            writeTextElement(writer, "StudyName", getStudyOID());
+            writeTextElement(writer, "StudyDescription", "Synthetic study " + getStudyOID());
+            writeTextElement(writer, "ProtocolName", getStudyOID());
+            endElement(writer);
+
+            writer.writeStartElement(ODM_NAMESPACE_URI, "MetaDataVersion");
+            writer.writeAttribute("OID", getMetaDataVersionOID());
+            writer.writeAttribute("Name", "Study " + getStudyOID() + ", Data Definitions");
+            writer.writeAttribute(DEF_NAMESPACE_URI, "DefineVersion", "2.0.0");
+            writer.writeAttribute(DEF_NAMESPACE_URI, "StandardName", "SDTM-IG");
+            writer.writeAttribute(DEF_NAMESPACE_URI, "StandardVersion", "3.1.2");
+            newLine(writer);
+
+            for (final String domain : domains) {
+                writeItemGroupDef(writer, domain);
+            }
+            writeItemDef(writer, "IT.STUDYID", "STUDYID", "Study Identifier", getStudyOID().length());
+            writeItemDef(writer, "IT.USUBJID", "USUBJID", "Unique Subject Identifier", getUSubjId(getSubjectCount())
+                .length());
+            for (final String domain : domains) {
+                final String[] itemOIDs = getItemOIDs(domain);
+                final String[] itemNames = getItemNames(domain);
+                writeItemDef(writer, itemOIDs[1], itemNames[1], "Domain Abbreviation", domain.length());
+                writeItemDef(writer, itemOIDs[3], itemNames[3], "Sequence Number",
+                    String.valueOf(getRecordsPerSubject()).length());
+                for (int i = KEY_ITEM_COUNT; i < itemOIDs.length; ++i) {
+                    writeItemDef(writer, itemOIDs[i], itemNames[i], "Synthetic Variable " + (i - KEY_ITEM_COUNT + 1),
+                        Math.max(1, getMaxValueLength()));
+                }
+            }
+
+            endElement(writer);
+            endElement(writer);
+            endElement(writer);
+            writer.writeEndDocument();
+            writer.close();
+        } finally {
+            out.close();
+        }
+    }
+
+    private void writeItemGroupDef(final XMLStreamWriter writer, final String domain) throws XMLStreamException {
+        writer.writeStartElement(ODM_NAMESPACE_URI, "ItemGroupDef");
+        writer.writeAttribute("OID", getItemGroupOID(domain));
+        writer.writeAttribute("Domain", domain);
+        writer.writeAttribute("Name", domain);
+        writer.writeAttribute("Repeating", "Yes");
+        writer.writeAttribute("IsReferenceData", "No");
+        writer.writeAttribute("SASDatasetName", domain);
+        writer.writeAttribute("Purpose", "Tabulation");
+        writer.writeAttribute(DEF_NAMESPACE_URI, "Structure", "One record per subject per record number");
+        writer.writeAttribute(DEF_NAMESPACE_URI, "Class", "FINDINGS");
+        writer.writeAttribute(DEF_NAMESPACE_URI, "ArchiveLocationID", "LF." + domain);
+        newLine(writer);
+        writeDescription(writer, "Synthetic Domain " + domain);
+
+        final String[] itemOIDs = getItemOIDs(domain);
+        for (int i = 0; i < itemOIDs.length; ++i) {
+            writer.writeEmptyElement(ODM_NAMESPACE_URI, "ItemRef");
+            writer.writeAttribute("ItemOID", itemOIDs[i]);
+            writer.writeAttribute("OrderNumber", String.valueOf(i + 1));
+            writer.writeAttribute("Mandatory", (i < KEY_ITEM_COUNT) ? "Yes" : "No");
+            if ((i == 0) || (i == 2) || (i == 3)) {
+                writer.writeAttribute("KeySequence", String.valueOf((i == 0) ? 1 : i));
+            }
+            newLine(writer);
+        }
+
+        writer.writeStartElement(DEF_NAMESPACE_URI, "leaf");
+        writer.writeAttribute("ID", "LF." + domain);
+        writer.writeAttribute(XLINK_NAMESPACE_URI, "href", getDatasetFileName(domain));
+        newLine(writer);
+        writer.writeStartElement(DEF_NAMESPACE_URI, "title");
+        writer.writeCharacters(getDatasetFileName(domain));
+        endElement(writer);
+        endElement(writer);
+        endElement(writer);
+    }
+
+    private void writeItemDef(final XMLStreamWriter writer, final String oid, final String name,
+        final String description, final int length) throws XMLStreamException {
+        writer.writeStartElement(ODM_NAMESPACE_URI, "ItemDef");
+        writer.writeAttribute("OID", oid);
+        writer.writeAttribute("Name", name);
+        writer.writeAttribute("DataType", "text");
+        writer.writeAttribute("Length", String.valueOf(length));
+        writer.writeAttribute("SASFieldName", name);
+        newLine(writer);
+        writeDescription(writer, description);
+        writer.writeEmptyElement(DEF_NAMESPACE_URI, "Origin");
+        writer.writeAttribute("Type", "CRF");
+        newLine(writer);
+        endElement(writer);
+    }
+
+    private static void writeDescription(final XMLStreamWriter writer, final String text) throws XMLStreamException {
+        writer.writeStartElement(ODM_NAMESPACE_URI, "Description");
+        newLine(writer);
+        writer.writeStartElement(ODM_NAMESPACE_URI, "TranslatedText");
+        writer.writeAttribute(XML_NAMESPACE_URI, "lang", "en");
+        writer.writeCharacters(text);
+        endElement(writer);
+        endElement(writer);
+    }
+
+    private static void writeTextElement(final XMLStreamWriter writer, final String localName, final String text)
+        throws XMLStreamException {
+        writer.writeStartElement(ODM_NAMESPACE_URI, localName);
+        writer.writeCharacters(text);
+        endElement(writer);
+    }
+
+    private static void writeItemData(final XMLStreamWriter writer, final String itemOID, final String value)
+        throws XMLStreamException {
+        writer.writeEmptyElement(ODM_NAMESPACE_URI, "ItemData");
+        writer.writeAttribute("ItemOID", itemOID);
+        writer.writeAttribute("Value", value);
+        newLine(writer);
+    }
+
+    private static void endElement(final XMLStreamWriter writer) throws XMLStreamException {
+        writer.writeEndElement();
+        newLine(writer);
+    }
+
+    private static void newLine(final XMLStreamWriter writer) throws XMLStreamException {
+        writer.writeCharacters(NEW_LINE);
+    }
+
+    /**
+     * Creates a writer, bound to the prefixes used in the documents, and writes the XML declaration.
+     *
+     * @param out The stream receiving the document
+     * @return The writer
+     * @throws XMLStreamException If the writer could not be created
+     */
+    private static XMLStreamWriter createWriter(final OutputStream out) throws XMLStreamException {
+        final XMLStreamWriter writer = XMLOutputFactory.newInstance().createXMLStreamWriter(out, OUTPUT_ENCODING);
+        writer.setDefaultNamespace(ODM_NAMESPACE_URI);
+        writer.setPrefix("data", DATA_NAMESPACE_URI);
+        writer.setPrefix("def", DEF_NAMESPACE_URI);
+        writer.setPrefix("xlink", XLINK_NAMESPACE_URI);
+        writer.setPrefix("xml", XML_NAMESPACE_URI);
+        writer.writeStartDocument(OUTPUT_ENCODING, "1.0");
+        newLine(writer);
+
+        return writer;
+    }
+
+    /**
+     * Starts the ODM element, with the attributes common to all documents. Further namespaces and attributes may be
+     * written before the first child.
+     */
+    private void startODM(final XMLStreamWriter writer, final String fileOID) throws XMLStreamException {
+        writer.writeStartElement(ODM_NAMESPACE_URI, "ODM");
+        writer.writeDefaultNamespace(ODM_NAMESPACE_URI);
+        writer.writeAttribute("ODMVersion", "1.3.2");
+        writer.writeAttribute("FileType", "Snapshot");
+        writer.writeAttribute("FileOID", fileOID);
+        writer.writeAttribute("CreationDateTime", getCreationDateTime());
+    }
+
+    /**
+     * Creates the random sequence of a domain, so that each domain has the same content however the domains are
+     * generated.
+     */
+    private Random createRandom(final String domain) {
+        return new Random(getSeed() * 31 + domain.hashCode());
+    }
+
+    /**
+     * Generates a value of 1 to getMaxValueLength() characters, neither starting nor ending with a space.
+     */
+    private String randomValue(final Random random, final StringBuilder sb) {
+        final int length = 1 + random.nextInt(Math.max(1, getMaxValueLength()));
+        sb.setLength(0);
+        for (int i = 0; i < length; ++i) {
+            final int bound = ((i == 0) || (i == length - 1)) ? VALUE_CHARACTERS.length() - 1
+                : VALUE_CHARACTERS.length();
+            sb.append(VALUE_CHARACTERS.charAt(random.nextInt(bound)));
+        }
+
+        return sb.toString();
+    }
+
+    /**
+     * Gets the names of the generated domains.
+     *
+     * @return getDomainCount() two-letter domain names
+     */
+    public List<String> getDomains() {
+        final List<String> domains = new ArrayList<String>();
+        for (int i = 0; i < getDomainCount(); ++i) {
+            if (i < DOMAIN_NAMES.length) {
+                domains.add(DOMAIN_NAMES[i]);
+            } else {
+                final int n = i - DOMAIN_NAMES.length;
+                domains.add(new String(new char[] { (char) ('X' + n / 26), (char) ('A' + n % 26) }));
+            }
+        }
+
+        return domains;
+    }
+
+    /**
+     * Gets the variable names of a domain: STUDYID, DOMAIN, USUBJID and --SEQ, then --V001, --V002, ...
+     *
+     * @param domain The domain
+     * @return getItemCount() names, of at most 8 characters
+     */
+    public String[] getItemNames(final String domain) {
+        final String[] names = new String[Math.max(KEY_ITEM_COUNT, getItemCount())];
+        names[0] = "STUDYID";
+        names[1] = "DOMAIN";
+        names[2] = "USUBJID";
+        names[3] = domain + "SEQ";
+        for (int i = KEY_ITEM_COUNT; i < names.length; ++i) {
+            names[i] = String.format(Locale.ROOT, "%sV%03d", domain, i - KEY_ITEM_COUNT + 1);
+        }
+
+        return names;
+    }
+
+    /**
+     * Gets the ItemOIDs of a domain, following the conventions of the toolkit samples.
+     *
+     * @param domain The domain
+     * @return One ItemOID per name of getItemNames()
+     */
+    public String[] getItemOIDs(final String domain) {
+        final String[] names = getItemNames(domain);
+        final String[] oids = new String[names.length];
+        for (int i = 0; i < names.length; ++i) {
+            oids[i] = ((i == 0) || (i == 2)) ? "IT." + names[i] : "IT." + domain + "." + names[i];
+        }
+
+        return oids;
+    }
+
+    /**
+     * Gets the ItemGroupOID of a domain.
+     *
+     * @param domain The domain
+     * @return The ItemGroupOID
+     */
+    public String getItemGroupOID(final String domain) {
+        return "IG." + domain;
+    }
+
+    /**
+     * Gets the name of the Dataset-XML file of a domain.
+     *
+     * @param domain The domain
+     * @return The file name
+     */
+    public String getDatasetFileName(final String domain) {
+        return domain.toLowerCase(Locale.ROOT) + ".xml";
+    }
+
+    private String getUSubjId(final int subject) {
+        return getStudyOID() + "-" + subject;
+    }
+
+    private String getMetaDataVersionOID() {
+        return "MDV." + getStudyOID();
+    }
+
+    private String getDefineFileOID() {
+        return getStudyOID() + ".Define-XML_2.0.0";
+    }
+
+    /**
+     * Gets the number of subjects.
+     *
+     * @return The subject count
+     */
+    public int getSubjectCount() {
+        return subjectCount;
+    }
+
+    /**
+     * Sets the number of subjects. The default is 100.
+     *
+     * @param subjectCount The subject count
+     */
+    public void setSubjectCount(final int subjectCount) {
+        this.subjectCount = subjectCount;
+    }
+
+    /**
+     * Gets the number of domains.
+     *
+     * @return The domain count
+     */
+    public int getDomainCount() {
+        return domainCount;
+    }
+
+    /**
+     * Sets the number of domains.
+     *
+     * @param domainCount The domain count, at most 94
+     */
+    public void setDomainCount(final int domainCount) {
+        this.domainCount = Math.min(domainCount, DOMAIN_NAMES.length + 3 * 26);
+    }
+
+    /**
+     * Gets the number of items per domain.
+     *
+     * @return The item count
+     */
+    public int getItemCount() {
+        return itemCount;
+    }
+
+    /**
+     * Sets the number of items, or variables, per domain, including the KEY_ITEM_COUNT identifiers.
+     *
+     * @param itemCount The item count
+     */
+    public void setItemCount(final int itemCount) {
+        this.itemCount = itemCount;
+    }
+
+    /**
+     * Gets the number of records per subject in each domain.
+     *
+     * @return The record count
+     */
+    public int getRecordsPerSubject() {
+        return recordsPerSubject;
+    }
+
+    /**
+     * Sets the number of records per subject in each domain. The default is 10.
+     *
+     * @param recordsPerSubject The record count
+     */
+    public void setRecordsPerSubject(final int recordsPerSubject) {
+        this.recordsPerSubject = recordsPerSubject;
+    }
+
+    /**
+     * Gets the maximum length of the generated values.
+     *
+     * @return The maximum value length
+     */
+    public int getMaxValueLength() {
+        return maxValueLength;
+    }
+
+    /**
+     * Sets the maximum length of the generated values; each value has a random length between 1 and this.
+     *
+     * @param maxValueLength The maximum value length
+     */
+    public void setMaxValueLength(final int maxValueLength) {
+        this.maxValueLength = maxValueLength;
+    }
+
+    /**
+     * Gets the seed of the random values.
+     *
+     * @return The seed
+     */
+    public long getSeed() {
+        return seed;
+    }
+
+    /**
+     * Sets the seed of the random values. The default is 1.
+     *
+     * @param seed The seed
+     */
+    public void setSeed(final long seed) {
+        this.seed = seed;
+    }
+
+    /**
+     * Gets the number of threads writing Dataset-XML files.
+     *
+     * @return The thread count
+     */
+    public int getThreadCount() {
+        return threadCount;
+    }
+
+    /**
+     * Sets the number of threads writing Dataset-XML files. The default is the number of available processors.
+     *
+     * @param threadCount The thread count
+     */
+    public void setThreadCount(final int threadCount) {
+        this.threadCount = Math.max(1, threadCount);
+    }
+
+    /**
+     * Gets the StudyOID, also used as the STUDYID value and to derive the other OIDs.
+     *
+     * @return The StudyOID
+     */
+    public String getStudyOID() {
+        return studyOID;
+    }
+
+    /**
+     * Sets the StudyOID. The default is STUDY01.
+     *
+     * @param studyOID The StudyOID
+     */
+    public void setStudyOID(final String studyOID) {
+        this.studyOID = studyOID;
+    }
+
+    /**
+     * Gets the CreationDateTime of all documents.
+     *
+     * @return The CreationDateTime
+     */
+    public String getCreationDateTime() {
+        return creationDateTime;
+    }
+
+    /**
+     * Sets the CreationDateTime of all documents, fixed so that the output is reproducible.
+     *
+     * @param creationDateTime The CreationDateTime
+     */
+    public void setCreationDateTime(final String creationDateTime) {
+        this.creationDateTime = creationDateTime;
+    }
+}
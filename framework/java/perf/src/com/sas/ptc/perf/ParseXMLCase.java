@@ -0,0 +1,43 @@
+package com.sas.ptc.perf;
+
+import java.io.File;
+import java.util.Collections;
+import java.util.List;
+
+import com.sas.ptc.datasetxml.ParseXML;
+
+/**
+ * Copyright (c) 2022, SAS Institute Inc., Cary, NC, USA.  All Rights Reserved.
+ * SPDX-License-Identifier: Apache-2.0
+ *
+ * Flattens a Dataset-XML file with ParseXML, using its default engine.
+ */
+class ParseXMLCase extends ThroughputCase {
+
+    private final File output;
+
+    /**
+     * Constructs a case.
+     *
+     * @param id The identifier of the case
+     * @param input The Dataset-XML file
+     * @param output The flat file
+     */
+    ParseXMLCase(final String id, final File input, final File output) {
+        super(id, input);
+        this.output = output;
+    }
+
+    @Override
+    int run() {
+        new ParseXML().parseDatasetXML(getInput().getPath(), this.output.getPath());
+
+        // ParseXML reports errors on standard output only; an empty output means the file could not be parsed
+        return (this.output.length() > 0) ? 0 : 1;
+    }
+
+    @Override
+    List<File> getOutputs() {
+        return Collections.singletonList(this.output);
+    }
+}
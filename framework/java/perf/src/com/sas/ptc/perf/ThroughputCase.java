@@ -0,0 +1,61 @@
+package com.sas.ptc.perf;
+
+import java.io.File;
+import java.util.List;
+
+/**
+ * Copyright (c) 2022, SAS Institute Inc., Cary, NC, USA.  All Rights Reserved.
+ * SPDX-License-Identifier: Apache-2.0
+ *
+ * A single end-to-end run measured by ThroughputSuite: one input document processed by the toolkit into one or more
+ * output files.
+ */
+abstract class ThroughputCase {
+
+    private final String id;
+    private final File input;
+
+    /**
+     * Constructs a case.
+     *
+     * @param id The identifier of the case, used as the key of its results
+     * @param input The input file
+     */
+    ThroughputCase(final String id, final File input) {
+        this.id = id;
+        this.input = input;
+    }
+
+    /**
+     * Runs the case once.
+     *
+     * @return The number of errors reported by the toolkit; 0 if the run succeeded
+     * @throws Exception If the run failed
+     */
+    abstract int run() throws Exception;
+
+    /**
+     * Gets the files written by run().
+     *
+     * @return The output files
+     */
+    abstract List<File> getOutputs();
+
+    /**
+     * Gets the identifier of the case.
+     *
+     * @return The identifier
+     */
+    String getId() {
+        return this.id;
+    }
+
+    /**
+     * Gets the input file.
+     *
+     * @return The input file
+     */
+    File getInput() {
+        return this.input;
+    }
+}
@@ -0,0 +1,158 @@
+package com.sas.ptc.perf;
+
+import java.util.Locale;
+import java.util.Properties;
+
+/**
+ * Copyright (c) 2022, SAS Institute Inc., Cary, NC, USA.  All Rights Reserved.
+ * SPDX-License-Identifier: Apache-2.0
+ *
+ * The measurements of a single ThroughputCase, stored in a properties file under keys of the form caseId.metric.
+ */
+class ThroughputResult {
+
+    static final String METRIC_WALL_MILLIS = "wallMillis";
+    static final String METRIC_CPU_MILLIS = "cpuMillis";
+    static final String METRIC_PEAK_HEAP_BYTES = "peakHeapBytes";
+    static final String METRIC_BYTES_READ = "bytesRead";
+    static final String METRIC_BYTES_WRITTEN = "bytesWritten";
+    static final String METRIC_ERROR_COUNT = "errorCount";
+    static final String METRIC_THROUGHPUT = "throughputMBps";
+
+    private static final double BYTES_PER_MB = 1000d * 1000d;
+    private static final double MILLIS_PER_SECOND = 1000d;
+
+    private final String id;
+    private long wallMillis;
+    private long cpuMillis;
+    private long peakHeapBytes;
+    private long bytesRead;
+    private long bytesWritten;
+    private int errorCount;
+
+    /**
+     * Constructs an empty result.
+     *
+     * @param id The identifier of the case
+     */
+    ThroughputResult(final String id) {
+        this.id = id;
+    }
+
+    /**
+     * Reads a result from a properties file.
+     *
+     * @param id The identifier of the case
+     * @param props The properties
+     * @return The result, or null if the properties hold none for that case
+     */
+    static ThroughputResult fromProperties(final String id, final Properties props) {
+        if (props.getProperty(id + "." + METRIC_WALL_MILLIS) == null) {
+            return null;
+        }
+        final ThroughputResult result = new ThroughputResult(id);
+        result.wallMillis = getLong(props, id, METRIC_WALL_MILLIS);
+        result.cpuMillis = getLong(props, id, METRIC_CPU_MILLIS);
+        result.peakHeapBytes = getLong(props, id, METRIC_PEAK_HEAP_BYTES);
+        result.bytesRead = getLong(props, id, METRIC_BYTES_READ);
+        result.bytesWritten = getLong(props, id, METRIC_BYTES_WRITTEN);
+        result.errorCount = (int) getLong(props, id, METRIC_ERROR_COUNT);
+
+        return result;
+    }
+
+    private static long getLong(final Properties props, final String id, final String metric) {
+        final String value = props.getProperty(id + "." + metric);
+        return (value != null) ? Long.parseLong(value.trim()) : 0;
+    }
+
+    /**
+     * Stores this result in a properties file.
+     *
+     * @param props The properties
+     */
+    void toProperties(final Properties props) {
+        props.setProperty(this.id + "." + METRIC_WALL_MILLIS, String.valueOf(this.wallMillis));
+        props.setProperty(this.id + "." + METRIC_CPU_MILLIS, String.valueOf(this.cpuMillis));
+        props.setProperty(this.id + "." + METRIC_PEAK_HEAP_BYTES, String.valueOf(this.peakHeapBytes));
+        props.setProperty(this.id + "." + METRIC_BYTES_READ, String.valueOf(this.bytesRead));
+        props.setProperty(this.id + "." + METRIC_BYTES_WRITTEN, String.valueOf(this.bytesWritten));
+        props.setProperty(this.id + "." + METRIC_ERROR_COUNT, String.valueOf(this.errorCount));
+        props.setProperty(this.id + "." + METRIC_THROUGHPUT, String.format(Locale.ROOT, "%.3f", getThroughput()));
+    }
+
+    /**
+     * Gets the throughput, as input megabytes (10^6 bytes) processed per second of wall time.
+     *
+     * @return The throughput
+     */
+    double getThroughput() {
+        return this.bytesRead / BYTES_PER_MB / (Math.max(1, this.wallMillis) / MILLIS_PER_SECOND);
+    }
+
+    /**
+     * Adds the measurements of another result to this one, as for a total.
+     *
+     * @param other The other result
+     */
+    void add(final ThroughputResult other) {
+        this.wallMillis += other.wallMillis;
+        this.cpuMillis += other.cpuMillis;
+        this.peakHeapBytes = Math.max(this.peakHeapBytes, other.peakHeapBytes);
+        this.bytesRead += other.bytesRead;
+        this.bytesWritten += other.bytesWritten;
+        this.errorCount += other.errorCount;
+    }
+
+    String getId() {
+        return this.id;
+    }
+
+    long getWallMillis() {
+        return this.wallMillis;
+    }
+
+    void setWallMillis(final long wallMillis) {
+        this.wallMillis = wallMillis;
+    }
+
+    long getCpuMillis() {
+        return this.cpuMillis;
+    }
+
+    void setCpuMillis(final long cpuMillis) {
+        this.cpuMillis = cpuMillis;
+    }
+
+    long getPeakHeapBytes() {
+        return this.peakHeapBytes;
+    }
+
+    void setPeakHeapBytes(final long peakHeapBytes) {
+        this.peakHeapBytes = peakHeapBytes;
+    }
+
+    long getBytesRead() {
+        return this.bytesRead;
+    }
+
+    void setBytesRead(final long bytesRead) {
+        this.bytesRead = bytesRead;
+    }
+
+    long getBytesWritten() {
+        return this.bytesWritten;
+    }
+
+    void setBytesWritten(final long bytesWritten) {
+        this.bytesWritten = bytesWritten;
+    }
+
+    int getErrorCount() {
+        return this.errorCount;
+    }
+
+    void setErrorCount(final int errorCount) {
+        this.errorCount = errorCount;
+    }
+}
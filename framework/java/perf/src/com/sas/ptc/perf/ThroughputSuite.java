@@ -0,0 +1,771 @@
+package com.sas.ptc.perf;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.management.MemoryType;
+import java.lang.management.OperatingSystemMXBean;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+import java.util.Properties;
+import java.util.regex.Pattern;
+import java.util.regex.PatternSyntaxException;
+
+import javax.xml.parsers.DocumentBuilderFactory;
+import javax.xml.parsers.ParserConfigurationException;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.transform.OutputKeys;
+import javax.xml.transform.Transformer;
+import javax.xml.transform.TransformerException;
+import javax.xml.transform.TransformerFactory;
+import javax.xml.transform.dom.DOMSource;
+import javax.xml.transform.stream.StreamResult;
+
+import org.w3c.dom.Document;
+import org.w3c.dom.Element;
+import org.w3c.dom.NodeList;
+import org.xml.sax.SAXException;
+
+import com.sas.ptc.transform.xml.StandardXMLTransformerParams;
+
+/**
+ * Copyright (c) 2022, SAS Institute Inc., Cary, NC, USA.  All Rights Reserved.
+ * SPDX-License-Identifier: Apache-2.0
+ *
+ * An end-to-end throughput regression suite. Runs StandardXMLImporter, StandardXMLExporter and ParseXML over every
+ * sample document of the standards listed in a suite file, and optionally over synthetic documents from
+ * CdiscDataGenerator, recording for each run its wall time, CPU time, peak heap, and bytes read and written. The
+ * results are written to a properties file, and compared with a baseline written by an earlier run with -record: a
+ * case whose throughput dropped by more than the tolerance, or whose error count changed, is a regression, and the
+ * suite then exits with status 1. So does a run without a baseline, unless it records one.
+ * <p>
+ * Each case is run once to warm up and then a number of times, keeping the fastest run, so that the comparison is not
+ * skewed by class loading, compilation of stylesheets and schemas, or the occasional pause. Cases faster than a
+ * minimum wall time are reported but not compared, as their throughput is mostly noise. Baselines are specific to the
+ * machine and JVM they were recorded on.
+ */
+public class ThroughputSuite {
+
+    /**
+     * The identifier of the sum of all cases, compared as a whole.
+     */
+    public static final String TOTAL_ID = "TOTAL";
+
+    public static final double DEFAULT_TOLERANCE = 0.2;
+    public static final int DEFAULT_ITERATIONS = 3;
+    public static final long DEFAULT_MIN_WALL_MILLIS = 100;
+
+    private static final String AVAILABLE_TRANSFORMS_FILE_NAME = "availabletransforms.xml";
+    private static final String SYNTHETIC_FOLDER_NAME = "synthetic";
+    private static final String OUTPUT_FOLDER_NAME = "out";
+    private static final String SAMPLE_SOURCE_FOLDER = "sample/sourcexml";
+    private static final String XML_EXTENSION = ".xml";
+    private static final String LOG_SUFFIX = "_log.xml";
+    private static final String REPORT_FORMAT = "%-64s %9s %9s %8s %9s %9s %9s %9s %8s%n";
+    private static final double BYTES_PER_MB = 1000d * 1000d;
+
+    private File suiteFile;
+    private File standardsFolder;
+    private File workFolder;
+    private File resultsFile;
+    private File baselineFile;
+    private boolean recordingBaseline;
+    private double tolerance = DEFAULT_TOLERANCE;
+    private int iterations = DEFAULT_ITERATIONS;
+    private long minWallMillis = DEFAULT_MIN_WALL_MILLIS;
+    private int syntheticSubjectCount;
+    private Pattern include = Pattern.compile(".*");
+
+    /**
+     * The transforms of the suite file, by standard folder, as [standardName, standardVersion, importXSL, exportXSL,
+     * schema, folder].
+     */
+    private final List<String[]> standards = new ArrayList<String[]>();
+
+    private int failureCount;
+
+    /**
+     * Runs the suite.
+     *
+     * @param args -suite file -standards folder -work folder -results file -baseline file [-record]
+     *            [-tolerance fraction] [-iterations n] [-minWallMillis n] [-synthetic subjects] [-include regex]
+     */
+    public static void main(final String[] args) {
+        final ThroughputSuite suite = new ThroughputSuite();
+        boolean valid = true;
+        try {
+            for (int i = 0; i < args.length; ++i) {
+                final boolean hasValue = i + 1 < args.length;
+                if ("-suite".equals(args[i]) && hasValue) {
+                    suite.setSuiteFile(new File(args[++i]));
+                } else if ("-standards".equals(args[i]) && hasValue) {
+                    suite.setStandardsFolder(new File(args[++i]));
+                } else if ("-work".equals(args[i]) && hasValue) {
+                    suite.setWorkFolder(new File(args[++i]));
+                } else if ("-results".equals(args[i]) && hasValue) {
+                    suite.setResultsFile(new File(args[++i]));
+                } else if ("-baseline".equals(args[i]) && hasValue) {
+                    suite.setBaselineFile(new File(args[++i]));
+                } else if ("-record".equals(args[i])) {
+                    suite.setRecordingBaseline(true);
+                } else if ("-tolerance".equals(args[i]) && hasValue) {
+                    suite.setTolerance(Double.parseDouble(args[++i]));
+                } else if ("-iterations".equals(args[i]) && hasValue) {
+                    suite.setIterations(Integer.parseInt(args[++i]));
+                } else if ("-minWallMillis".equals(args[i]) && hasValue) {
+                    suite.setMinWallMillis(Long.parseLong(args[++i]));
+                } else if ("-synthetic".equals(args[i]) && hasValue) {
+                    suite.setSyntheticSubjectCount(Integer.parseInt(args[++i]));
+                } else if ("-include".equals(args[i]) && hasValue) {
+                    suite.setInclude(Pattern.compile(args[++i]));
+                } else {
+                    valid = false;
+                }
+            }
+        } catch (final NumberFormatException e) {
+            valid = false;
+        } catch (final PatternSyntaxException e) {
+            valid = false;
+        }
+        if (!valid || (suite.getSuiteFile() == null) || (suite.getStandardsFolder() == null)
+            || (suite.getWorkFolder() == null) || (suite.getResultsFile() == null)
+            || (suite.getBaselineFile() == null)) {
+            System.err.println("Usage: java ThroughputSuite -suite file -standards folder -work folder -results file "
+                + "-baseline file [-record] [-tolerance fraction] [-iterations n] [-minWallMillis n] "
+                + "[-synthetic subjects] [-include regex]");
+            System.exit(1);
+        }
+
+        try {
+            if (suite.run() > 0) {
+                System.exit(1);
+            }
+        } catch (final Exception e) {
+            e.printStackTrace();
+            System.exit(1);
+        }
+    }
+
+    /**
+     * Runs all cases, writes the results and, unless recording a baseline, compares them with the baseline.
+     *
+     * @return The number of regressions and failed cases, plus one if there is no baseline; 0 if the suite passed
+     * @throws IOException If the suite file could not be read, or the results could not be written
+     * @throws SAXException If the suite file could not be parsed
+     * @throws ParserConfigurationException If JAXP is not configured. Should never happen.
+     * @throws TransformerException If the transform registry could not be written
+     * @throws XMLStreamException If the synthetic documents could not be generated
+     */
+    public int run() throws IOException, SAXException, ParserConfigurationException, TransformerException,
+        XMLStreamException {
+        this.failureCount = 0;
+        final File outputFolder = new File(getWorkFolder(), OUTPUT_FOLDER_NAME);
+        if (!outputFolder.isDirectory() && !outputFolder.mkdirs()) {
+            throw new IOException("Unable to create the folder " + outputFolder);
+        }
+
+        final List<ThroughputCase> cases = createCases(outputFolder);
+        System.out.println("Running the cases matching " + getInclude() + ", " + getIterations() + " iterations each.");
+
+        final List<ThroughputResult> results = new ArrayList<ThroughputResult>();
+        final ThroughputResult total = new ThroughputResult(TOTAL_ID);
+        for (final ThroughputCase throughputCase : cases) {
+            if (!getInclude().matcher(throughputCase.getId()).matches()) {
+                continue;
+            }
+            final ThroughputResult result = measure(throughputCase);
+            if (result != null) {
+                results.add(result);
+                total.add(result);
+            }
+        }
+        results.add(total);
+
+        final Properties props = new Properties();
+        for (final ThroughputResult result : results) {
+            result.toProperties(props);
+        }
+        store(props, getResultsFile(), "ThroughputSuite results");
+        System.out.println("Results written to " + getResultsFile());
+
+        if (isRecordingBaseline()) {
+            store(props, getBaselineFile(), "ThroughputSuite baseline");
+            System.out.println("Baseline written to " + getBaselineFile());
+            report(results, new Properties());
+            return this.failureCount;
+        }
+
+        final Properties baseline = new Properties();
+        int missingBaselineCount = 0;
+        if (getBaselineFile().isFile()) {
+            final InputStream in = new FileInputStream(getBaselineFile());
+            try {
+                baseline.load(in);
+            } finally {
+                in.close();
+            }
+        } else {
+            // a comparison with nothing must not pass for a clean run
+            missingBaselineCount = 1;
+        }
+
+        final int regressionCount = report(results, baseline);
+        if (missingBaselineCount > 0) {
+            System.out.println("FAILED: no baseline at " + getBaselineFile() + "; record one with -record.");
+        }
+
+        return regressionCount + this.failureCount + missingBaselineCount;
+    }
+
+    /**
+     * Runs a case once to warm up, and then getIterations() times.
+     *
+     * @param throughputCase The case
+     * @return The measurements of the fastest run, or null if the case failed
+     */
+    protected ThroughputResult measure(final ThroughputCase throughputCase) {
+        ThroughputResult best = null;
+        try {
+            for (int i = 0; i <= getIterations(); ++i) {
+                final ThroughputResult result = measureOnce(throughputCase);
+                if ((i > 0) && ((best == null) || (result.getWallMillis() < best.getWallMillis()))) {
+                    best = result;
+                }
+            }
+        } catch (final Exception e) {
+            ++this.failureCount;
+            System.out.println("FAILED " + throughputCase.getId() + ": " + e);
+            return null;
+        }
+
+        return best;
+    }
+
+    /**
+     * Runs a case once.
+     *
+     * @param throughputCase The case
+     * @return The measurements
+     * @throws Exception If the case failed
+     */
+    private ThroughputResult measureOnce(final ThroughputCase throughputCase) throws Exception {
+        final List<MemoryPoolMXBean> heapPools = new ArrayList<MemoryPoolMXBean>();
+        for (final MemoryPoolMXBean pool : ManagementFactory.getMemoryPoolMXBeans()) {
+            if (pool.getType() == MemoryType.HEAP) {
+                heapPools.add(pool);
+            }
+        }
+        System.gc();
+        for (final MemoryPoolMXBean pool : heapPools) {
+            pool.resetPeakUsage();
+        }
+
+        final long cpuStart = getProcessCpuNanos();
+        final long wallStart = System.nanoTime();
+        final int errorCount = throughputCase.run();
+        final long wallNanos = System.nanoTime() - wallStart;
+        final long cpuNanos = getProcessCpuNanos() - cpuStart;
+
+        long peakHeapBytes = 0;
+        for (final MemoryPoolMXBean pool : heapPools) {
+            peakHeapBytes += pool.getPeakUsage().getUsed();
+        }
+        long bytesWritten = 0;
+        for (final File output : throughputCase.getOutputs()) {
+            bytesWritten += output.length();
+        }
+
+        final ThroughputResult result = new ThroughputResult(throughputCase.getId());
+        result.setWallMillis(wallNanos / 1000000);
+        result.setCpuMillis(cpuNanos / 1000000);
+        result.setPeakHeapBytes(peakHeapBytes);
+        result.setBytesRead(throughputCase.getInput().length());
+        result.setBytesWritten(bytesWritten);
+        result.setErrorCount(errorCount);
+
+        return result;
+    }
+
+    /**
+     * Gets the CPU time of the whole process, including garbage collection, or of the current thread where the JVM
+     * does not report it.
+     */
+    private static long getProcessCpuNanos() {
+        final OperatingSystemMXBean os = ManagementFactory.getOperatingSystemMXBean();
+        if (os instanceof com.sun.management.OperatingSystemMXBean) {
+            return ((com.sun.management.OperatingSystemMXBean) os).getProcessCpuTime();
+        }
+
+        return ManagementFactory.getThreadMXBean().getCurrentThreadCpuTime();
+    }
+
+    /**
+     * Prints the results, with the change in throughput against the baseline. A case whose error count differs from
+     * the baseline is a regression whatever its throughput, as an error may stop a transform early and so make it
+     * faster. The total is only compared for throughput, as its error count changes with those of the cases.
+     *
+     * @param results The results, the total last
+     * @param baseline The baseline
+     * @return The number of regressions
+     */
+    private int report(final List<ThroughputResult> results, final Properties baseline) {
+        int regressionCount = 0;
+        System.out.println();
+        System.out.printf(Locale.ROOT, REPORT_FORMAT, "Case", "Wall ms", "CPU ms", "Heap MB", "Read MB", "Written MB",
+            "MB/s", "Base MB/s", "Change");
+        for (final ThroughputResult result : results) {
+            final ThroughputResult base = ThroughputResult.fromProperties(result.getId(), baseline);
+            String baseThroughput = "";
+            String change = "";
+            String verdict = "";
+            String errors = (result.getErrorCount() > 0) ? " (" + result.getErrorCount() + " errors)" : "";
+            if (base != null) {
+                final double ratio = result.getThroughput() / base.getThroughput() - 1;
+                baseThroughput = String.format(Locale.ROOT, "%.2f", base.getThroughput());
+                change = String.format(Locale.ROOT, "%+.0f%%", ratio * 100);
+                final boolean errorCountChanged = !TOTAL_ID.equals(result.getId())
+                    && (result.getErrorCount() != base.getErrorCount());
+                if (errorCountChanged || ((ratio < -getTolerance())
+                    && (TOTAL_ID.equals(result.getId()) || (base.getWallMillis() >= getMinWallMillis())))) {
+                    ++regressionCount;
+                    verdict = " REGRESSION";
+                }
+                if (errorCountChanged) {
+                    errors = " (" + result.getErrorCount() + " errors, " + base.getErrorCount() + " in baseline)";
+                }
+            } else if (!baseline.isEmpty()) {
+                change = "NEW";
+            }
+            System.out.printf(Locale.ROOT, REPORT_FORMAT, result.getId(), result.getWallMillis(),
+                result.getCpuMillis(), String.format(Locale.ROOT, "%.1f", result.getPeakHeapBytes() / BYTES_PER_MB),
+                String.format(Locale.ROOT, "%.2f", result.getBytesRead() / BYTES_PER_MB),
+                String.format(Locale.ROOT, "%.2f", result.getBytesWritten() / BYTES_PER_MB),
+                String.format(Locale.ROOT, "%.2f", result.getThroughput()), baseThroughput, change + verdict + errors);
+        }
+        System.out.println();
+        System.out.println(regressionCount + " regressions (throughput drops beyond a tolerance of "
+            + Math.round(getTolerance() * 100) + "%, or changed error counts), " + this.failureCount
+            + " failed cases.");
+
+        return regressionCount;
+    }
+
+    /**
+     * Creates the cases of the suite file, and of the synthetic documents if any, and writes the transform registry
+     * they use.
+     *
+     * @param outputFolder The folder receiving the outputs of the cases
+     * @return The cases, each import followed by the export of its output
+     */
+    private List<ThroughputCase> createCases(final File outputFolder) throws IOException, SAXException,
+        ParserConfigurationException, TransformerException, XMLStreamException {
+        final DocumentBuilderFactory factory = DocumentBuilderFactory.newInstance();
+        final Element suite = factory.newDocumentBuilder().parse(getSuiteFile()).getDocumentElement();
+        final File availableTransforms = new File(getWorkFolder(), AVAILABLE_TRANSFORMS_FILE_NAME);
+
+        final List<ThroughputCase> cases = new ArrayList<ThroughputCase>();
+        final NodeList standardElements = suite.getElementsByTagName("Standard");
+        for (int i = 0; i < standardElements.getLength(); ++i) {
+            final Element elem = (Element) standardElements.item(i);
+            final String[] standard = { elem.getAttribute("standardName"), elem.getAttribute("standardVersion"),
+                elem.getAttribute("importXSL"), elem.getAttribute("exportXSL"), elem.getAttribute("schema"),
+                elem.getAttribute("folder") };
+            this.standards.add(standard);
+
+            final File sourceFolder = getSourceFolder(standard[5]);
+            for (final File sample : listXMLFiles(new File(sourceFolder, SAMPLE_SOURCE_FOLDER), null)) {
+                addTransformCases(cases, standard, sample, standard[5] + "." + getRelativeId(sourceFolder, sample),
+                    outputFolder, availableTransforms);
+            }
+        }
+
+        final NodeList parseElements = suite.getElementsByTagName("ParseXML");
+        for (int i = 0; i < parseElements.getLength(); ++i) {
+            final Element elem = (Element) parseElements.item(i);
+            final File sourceFolder = getSourceFolder(elem.getAttribute("folder"));
+            final List<String> excluded = Arrays.asList(elem.getAttribute("exclude").trim().split("\\s+"));
+            for (final String sampleFolder : elem.getAttribute("sampleFolders").trim().split("\\s+")) {
+                for (final File sample : listXMLFiles(new File(sourceFolder, sampleFolder), excluded)) {
+                    final String id = "parsexml." + elem.getAttribute("folder") + "."
+                        + getRelativeId(sourceFolder, sample);
+                    cases.add(new ParseXMLCase(id, sample, new File(outputFolder, id + ".txt")));
+                }
+            }
+        }
+
+        if (getSyntheticSubjectCount() > 0) {
+            addSyntheticCases(cases, outputFolder, availableTransforms);
+        }
+
+        writeAvailableTransforms(availableTransforms);
+
+        return cases;
+    }
+
+    /**
+     * Generates the synthetic documents, and adds an ODM 1.3.2 import and export, a Define-XML 2.0.0 import and
+     * export, and a ParseXML case per domain.
+     */
+    private void addSyntheticCases(final List<ThroughputCase> cases, final File outputFolder,
+        final File availableTransforms) throws IOException, XMLStreamException {
+        final File syntheticFolder = new File(getWorkFolder(), SYNTHETIC_FOLDER_NAME);
+        final CdiscDataGenerator generator = new CdiscDataGenerator();
+        generator.setSubjectCount(getSyntheticSubjectCount());
+        System.out.println("Generating synthetic documents for " + getSyntheticSubjectCount() + " subjects.");
+        generator.generate(CdiscDataGenerator.FORMAT_ALL, syntheticFolder);
+
+        final String[] odm = findStandard("ODM", "1.3.2");
+        if (odm != null) {
+            addTransformCases(cases, odm, new File(syntheticFolder, CdiscDataGenerator.ODM_FILE_NAME),
+                "synthetic.odm", outputFolder, availableTransforms);
+        }
+        final String[] define = findStandard("DEFINE-XML", "2.0.0");
+        if (define != null) {
+            addTransformCases(cases, define, new File(syntheticFolder, CdiscDataGenerator.DEFINE_FILE_NAME),
+                "synthetic.define", outputFolder, availableTransforms);
+        }
+        for (final String domain : generator.getDomains()) {
+            final String id = "parsexml.synthetic." + domain.toLowerCase(Locale.ROOT);
+            cases.add(new ParseXMLCase(id, new File(syntheticFolder, generator.getDatasetFileName(domain)),
+                new File(outputFolder, id + ".txt")));
+        }
+    }
+
+    /**
+     * Adds the import of a document, and the export of the SAS XML the import writes.
+     */
+    private void addTransformCases(final List<ThroughputCase> cases, final String[] standard, final File sample,
+        final String sampleId, final File outputFolder, final File availableTransforms) {
+        final File sourceFolder = getSourceFolder(standard[5]);
+        final String importId = "import." + sampleId;
+        final File sasXML = new File(outputFolder, importId + XML_EXTENSION);
+        final StandardXMLTransformerParams importParams = createParams(standard, sourceFolder, availableTransforms);
+        importParams.setImportOrExport(StandardXMLTransformerParams.IMPORT);
+        importParams.setStandardXMLPath(sample.getAbsolutePath());
+        importParams.setSasXMLPath(sasXML.getAbsolutePath());
+        importParams.setLogFilePath(new File(outputFolder, importId + LOG_SUFFIX).getAbsolutePath());
+        cases.add(new TransformCase(importId, importParams));
+
+        final String exportId = "export." + sampleId;
+        final StandardXMLTransformerParams exportParams = createParams(standard, sourceFolder, availableTransforms);
+        exportParams.setImportOrExport(StandardXMLTransformerParams.EXPORT);
+        exportParams.setSasXMLPath(sasXML.getAbsolutePath());
+        exportParams.setStandardXMLPath(new File(outputFolder, exportId + XML_EXTENSION).getAbsolutePath());
+        exportParams.setLogFilePath(new File(outputFolder, exportId + LOG_SUFFIX).getAbsolutePath());
+        cases.add(new TransformCase(exportId, exportParams));
+    }
+
+    private static StandardXMLTransformerParams createParams(final String[] standard, final File sourceFolder,
+        final File availableTransforms) {
+        final StandardXMLTransformerParams params = new StandardXMLTransformerParams();
+        params.setStandardName(standard[0]);
+        params.setStandardVersion(standard[1]);
+        params.setXslBasePath(new File(sourceFolder, "xsl-repository").getAbsolutePath());
+        params.setSchemaBasePath(new File(sourceFolder, "schema-repository").getAbsolutePath());
+        params.setAvailableTransformsFilePath(availableTransforms.getAbsolutePath());
+        params.setCreatingFoldersForOutput(true);
+
+        return params;
+    }
+
+    /**
+     * Writes the transform registry listing the transforms of the suite file, in the format SAS writes on registering
+     * a standard. The paths are relative to the repositories of each standard, set per case.
+     */
+    private void writeAvailableTransforms(final File file) throws ParserConfigurationException, TransformerException {
+        final Document doc = DocumentBuilderFactory.newInstance().newDocumentBuilder().newDocument();
+        final Element root = doc.createElement("AvailableTransforms");
+        doc.appendChild(root);
+        final String[] elementNames = { "StandardName", "StandardVersion", "ImportXSL", "ExportXSL", "Schema" };
+        for (final String[] standard : this.standards) {
+            final Element transform = doc.createElement("Transform");
+            root.appendChild(transform);
+            for (int i = 0; i < elementNames.length; ++i) {
+                final Element elem = doc.createElement(elementNames[i]);
+                elem.appendChild(doc.createTextNode(standard[i]));
+                transform.appendChild(elem);
+            }
+        }
+
+        final Transformer transformer = TransformerFactory.newInstance().newTransformer();
+        transformer.setOutputProperty(OutputKeys.INDENT, "yes");
+        transformer.transform(new DOMSource(doc), new StreamResult(file));
+    }
+
+    private String[] findStandard(final String standardName, final String standardVersion) {
+        for (final String[] standard : this.standards) {
+            if (standard[0].equals(standardName) && standard[1].equals(standardVersion)) {
+                return standard;
+            }
+        }
+
+        return null;
+    }
+
+    private File getSourceFolder(final String standardFolder) {
+        return new File(new File(getStandardsFolder(), standardFolder), "source");
+    }
+
+    /**
+     * Lists the XML files under a folder, recursively, in a stable order.
+     *
+     * @param folder The folder; nothing is listed if it does not exist
+     * @param excluded The names of files not to list; may be null
+     * @return The files
+     */
+    private static List<File> listXMLFiles(final File folder, final List<String> excluded) {
+        final List<File> files = new ArrayList<File>();
+        final File[] children = folder.listFiles();
+        if (children == null) {
+            return files;
+        }
+        Arrays.sort(children);
+        for (final File child : children) {
+            if (child.isDirectory()) {
+                files.addAll(listXMLFiles(child, excluded));
+            } else if (child.getName().toLowerCase(Locale.ROOT).endsWith(XML_EXTENSION)
+                && ((excluded == null) || !excluded.contains(child.getName()))) {
+                files.add(child);
+            }
+        }
+
+        return files;
+    }
+
+    /**
+     * Derives an identifier from the path of a sample relative to the source folder of its standard, without the
+     * sample folder and extension, usable as a properties key and a file name.
+     */
+    private static String getRelativeId(final File sourceFolder, final File sample) {
+        String path = sourceFolder.toURI().relativize(sample.toURI()).getPath();
+        if (path.startsWith("sample/")) {
+            path = path.substring("sample/".length());
+        }
+        if (path.startsWith("sourcexml/")) {
+            path = path.substring("sourcexml/".length());
+        }
+        path = path.substring(0, path.length() - XML_EXTENSION.length());
+
+        return path.replace('/', '.').replaceAll("[^A-Za-z0-9._-]", "_");
+    }
+
+    private static void store(final Properties props, final File file, final String comment) throws IOException {
+        final File folder = file.getAbsoluteFile().getParentFile();
+        if ((folder != null) && !folder.isDirectory() && !folder.mkdirs()) {
+            throw new IOException("Unable to create the folder " + folder);
+        }
+        final OutputStream out = new FileOutputStream(file);
+        try {
+            props.store(out, comment);
+        } finally {
+            out.close();
+        }
+    }
+
+    /**
+     * Gets the suite file, listing the standards and samples to run.
+     *
+     * @return The suite file
+     */
+    public File getSuiteFile() {
+        return suiteFile;
+    }
+
+    /**
+     * Sets the suite file, listing the standards and samples to run.
+     *
+     * @param suiteFile The suite file
+     */
+    public void setSuiteFile(final File suiteFile) {
+        this.suiteFile = suiteFile;
+    }
+
+    /**
+     * Gets the standards folder of the source tree.
+     *
+     * @return The standards folder
+     */
+    public File getStandardsFolder() {
+        return standardsFolder;
+    }
+
+    /**
+     * Sets the standards folder of the source tree.
+     *
+     * @param standardsFolder The standards folder
+     */
+    public void setStandardsFolder(final File standardsFolder) {
+        this.standardsFolder = standardsFolder;
+    }
+
+    /**
+     * Gets the folder receiving the outputs, the transform registry and the synthetic documents.
+     *
+     * @return The work folder
+     */
+    public File getWorkFolder() {
+        return workFolder;
+    }
+
+    /**
+     * Sets the folder receiving the outputs, the transform registry and the synthetic documents.
+     *
+     * @param workFolder The work folder
+     */
+    public void setWorkFolder(final File workFolder) {
+        this.workFolder = workFolder;
+    }
+
+    /**
+     * Gets the properties file receiving the results of this run.
+     *
+     * @return The results file
+     */
+    public File getResultsFile() {
+        return resultsFile;
+    }
+
+    /**
+     * Sets the properties file receiving the results of this run.
+     *
+     * @param resultsFile The results file
+     */
+    public void setResultsFile(final File resultsFile) {
+        this.resultsFile = resultsFile;
+    }
+
+    /**
+     * Gets the properties file holding the baseline.
+     *
+     * @return The baseline file
+     */
+    public File getBaselineFile() {
+        return baselineFile;
+    }
+
+    /**
+     * Sets the properties file holding the baseline.
+     *
+     * @param baselineFile The baseline file
+     */
+    public void setBaselineFile(final File baselineFile) {
+        this.baselineFile = baselineFile;
+    }
+
+    /**
+     * Whether the results of this run replace the baseline, rather than being compared with it.
+     *
+     * @return true if recording a baseline
+     */
+    public boolean isRecordingBaseline() {
+        return recordingBaseline;
+    }
+
+    /**
+     * Sets whether the results of this run replace the baseline, rather than being compared with it.
+     *
+     * @param recordingBaseline true to record a baseline
+     */
+    public void setRecordingBaseline(final boolean recordingBaseline) {
+        this.recordingBaseline = recordingBaseline;
+    }
+
+    /**
+     * Gets the drop in throughput tolerated before a case is a regression.
+     *
+     * @return The tolerance, as a fraction of the baseline throughput
+     */
+    public double getTolerance() {
+        return tolerance;
+    }
+
+    /**
+     * Sets the drop in throughput tolerated before a case is a regression. The default is 0.2.
+     *
+     * @param tolerance The tolerance, as a fraction of the baseline throughput
+     */
+    public void setTolerance(final double tolerance) {
+        this.tolerance = tolerance;
+    }
+
+    /**
+     * Gets the number of measured runs of each case, after the warm-up run.
+     *
+     * @return The iteration count
+     */
+    public int getIterations() {
+        return iterations;
+    }
+
+    /**
+     * Sets the number of measured runs of each case, after the warm-up run. The default is 3.
+     *
+     * @param iterations The iteration count
+     */
+    public void setIterations(final int iterations) {
+        this.iterations = Math.max(1, iterations);
+    }
+
+    /**
+     * Gets the baseline wall time below which a case is not compared.
+     *
+     * @return The minimum wall time, in milliseconds
+     */
+    public long getMinWallMillis() {
+        return minWallMillis;
+    }
+
+    /**
+     * Sets the baseline wall time below which a case is not compared. The default is 100 ms.
+     *
+     * @param minWallMillis The minimum wall time, in milliseconds
+     */
+    public void setMinWallMillis(final long minWallMillis) {
+        this.minWallMillis = minWallMillis;
+    }
+
+    /**
+     * Gets the pattern the identifiers of the cases to run match.
+     *
+     * @return The pattern
+     */
+    public Pattern getInclude() {
+        return include;
+    }
+
+    /**
+     * Sets the pattern the identifiers of the cases to run match, for instance "import\\.cstodm.*". The total is then
+     * that of these cases, and is only comparable with a baseline recorded with the same pattern. An export reads the
+     * output of the import of the same sample, which must then be included too. The default runs all cases.
+     *
+     * @param include The pattern
+     */
+    public void setInclude(final Pattern include) {
+        this.include = include;
+    }
+
+    /**
+     * Gets the number of subjects in the synthetic documents.
+     *
+     * @return The subject count; 0 if no synthetic documents are run
+     */
+    public int getSyntheticSubjectCount() {
+        return syntheticSubjectCount;
+    }
+
+    /**
+     * Sets the number of subjects in the synthetic documents. The default is 0, running none.
+     *
+     * @param syntheticSubjectCount The subject count
+     */
+    public void setSyntheticSubjectCount(final int syntheticSubjectCount) {
+        this.syntheticSubjectCount = syntheticSubjectCount;
+    }
+}
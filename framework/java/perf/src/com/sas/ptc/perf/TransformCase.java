@@ -0,0 +1,47 @@
+package com.sas.ptc.perf;
+
+import java.io.File;
+import java.util.Arrays;
+import java.util.List;
+
+import com.sas.ptc.transform.xml.StandardXMLTransformer;
+import com.sas.ptc.transform.xml.StandardXMLTransformerParams;
+
+/**
+ * Copyright (c) 2022, SAS Institute Inc., Cary, NC, USA.  All Rights Reserved.
+ * SPDX-License-Identifier: Apache-2.0
+ *
+ * Runs an import or export through StandardXMLTransformer, as SAS does.
+ */
+class TransformCase extends ThroughputCase {
+
+    private final StandardXMLTransformerParams params;
+
+    /**
+     * Constructs a case.
+     *
+     * @param id The identifier of the case
+     * @param params The transform parameters
+     */
+    TransformCase(final String id, final StandardXMLTransformerParams params) {
+        super(id, new File(StandardXMLTransformerParams.IMPORT.equals(params.getImportOrExport())
+            ? params.getStandardXMLPath() : params.getSasXMLPath()));
+        this.params = params;
+    }
+
+    @Override
+    int run() throws Exception {
+        final StandardXMLTransformer transformer = StandardXMLTransformer.createTransformer(this.params);
+        transformer.exec();
+
+        return transformer.getErrorCount();
+    }
+
+    @Override
+    List<File> getOutputs() {
+        final File output = new File(StandardXMLTransformerParams.IMPORT.equals(this.params.getImportOrExport())
+            ? this.params.getSasXMLPath() : this.params.getStandardXMLPath());
+
+        return Arrays.asList(output, new File(this.params.getLogFilePath()));
+    }
+}
@@ -0,0 +1,108 @@
+package com.sas.ptc.datasetxml;
+
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.nio.charset.CharsetEncoder;
+import java.nio.charset.CoderResult;
+import java.nio.charset.CodingErrorAction;
+
+/**
+ * Copyright (c) 2022, SAS Institute Inc., Cary, NC, USA.  All Rights Reserved.
+ * SPDX-License-Identifier: Apache-2.0
+ *
+ * Writes records to a file channel, encoding them into a single direct buffer in the default charset, as PrintWriter
+ * would, and counting the bytes written. Unlike a Writer stack, there is no intermediate char buffer, and an open
+ * writer costs only its byte buffer, so that many can be open at once.
+ */
+class ChannelRecordWriter {
+
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    private final FileChannel channel;
+    private final ByteBuffer buffer;
+    private final CharsetEncoder encoder;
+    private long byteCount;
+
+    /**
+     * Creates the file, replacing any existing one.
+     *
+     * @param fileName The path to the file
+     * @throws IOException If the file could not be created
+     */
+    ChannelRecordWriter(final String fileName) throws IOException {
+        this.channel = new FileOutputStream(fileName).getChannel();
+        this.buffer = ByteBuffer.allocateDirect(BUFFER_SIZE);
+        this.encoder = Charset.defaultCharset().newEncoder().onMalformedInput(CodingErrorAction.REPLACE)
+            .onUnmappableCharacter(CodingErrorAction.REPLACE);
+    }
+
+    /**
+     * Writes characters.
+     *
+     * @param cs The characters to write
+     * @throws IOException If the file could not be written
+     */
+    void write(final CharSequence cs) throws IOException {
+        encode(CharBuffer.wrap(cs), false);
+    }
+
+    /**
+     * Writes any characters still buffered, and closes the file.
+     *
+     * @throws IOException If the file could not be written
+     */
+    void close() throws IOException {
+        try {
+            encode(CharBuffer.allocate(0), true);
+            while (this.encoder.flush(this.buffer).isOverflow()) {
+                drain();
+            }
+            drain();
+        } finally {
+            this.channel.close();
+        }
+    }
+
+    /**
+     * Gets the number of bytes written so far; after close(), the size of the file.
+     *
+     * @return The byte count
+     */
+    long getByteCount() {
+        return this.byteCount + this.buffer.position();
+    }
+
+    /**
+     * Encodes characters into the buffer, draining it to the channel whenever it fills.
+     *
+     * @param chars The characters to encode
+     * @param endOfInput true if no more characters follow
+     * @throws IOException If the file could not be written
+     */
+    private void encode(final CharBuffer chars, final boolean endOfInput) throws IOException {
+        while (true) {
+            final CoderResult result = this.encoder.encode(chars, this.buffer, endOfInput);
+            if (!result.isOverflow()) {
+                break;
+            }
+            drain();
+        }
+    }
+
+    /**
+     * Writes the content of the buffer to the channel, and empties it.
+     *
+     * @throws IOException If the file could not be written
+     */
+    private void drain() throws IOException {
+        this.buffer.flip();
+        while (this.buffer.hasRemaining()) {
+            this.byteCount += this.channel.write(this.buffer);
+        }
+        this.buffer.clear();
+    }
+}
@@ -0,0 +1,437 @@
+package com.sas.ptc.datasetxml;
+
+import java.io.BufferedOutputStream;
+import java.io.BufferedReader;
+import java.io.FileInputStream;
+import java.io.FileNotFoundException;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.text.SimpleDateFormat;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import javax.xml.stream.XMLOutputFactory;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamWriter;
+
+/**
+ * Copyright (c) 2022, SAS Institute Inc., Cary, NC, USA.  All Rights Reserved.
+ * SPDX-License-Identifier: Apache-2.0
+ *
+ * Writes a Dataset-XML 1.0 file from a flat file in the record format ParseXML creates: an [ODM]FileOID record, then
+ * [CD] or [RD] records starting each ClinicalData or ReferenceData element, each followed by [IG] records starting
+ * ItemGroupData elements and [] records for their ItemData elements. The flat file is read a line at a time and the
+ * elements written through an XMLStreamWriter as they are read, so memory use does not depend on the size of the
+ * domain. ItemData records having an empty value are not written, as Dataset-XML omits missing values. A value spanning
+ * several lines of the flat file is written with its line breaks, which an XML parser reads back as spaces.
+ * <p>
+ * Several domains may be written concurrently, by adding each with addDomain() and then calling writeDomains().
+ */
+public class DatasetXMLWriter {
+
+    // dataset-xml namespaces and node names not needed by the reader
+    static final String ODM_NAMESPACE_URI = "http://www.cdisc.org/ns/odm/v1.3";
+    static final String DATA_NAMESPACE_URI = "http://www.cdisc.org/ns/Dataset-XML/v1.0";
+    static final String DATA_NAMESPACE_PREFIX = "data";
+    static final String ATTR_NAME_ODMVERSION = "ODMVersion";
+    static final String ATTR_NAME_FILETYPE = "FileType";
+    static final String ATTR_NAME_PRIORFILEOID = "PriorFileOID";
+    static final String ATTR_NAME_CREATIONDATETIME = "CreationDateTime";
+    static final String ATTR_LOCAL_NAME_DATASETXMLVERSION = "DatasetXMLVersion";
+    static final String ATTR_LOCAL_NAME_IGDATASEQ = "ItemGroupDataSeq";
+    static final String ODM_VERSION = "1.3.2";
+    static final String FILE_TYPE_SNAPSHOT = "Snapshot";
+    static final String DATASETXML_VERSION = "1.0.0";
+
+    // toolkit-specific messages
+    private static final String CSTERROR_MSG = "ERROR: [CSTLOG" + "MESSAGE] ";
+
+    private static final String OUTPUT_ENCODING = "UTF-8";
+    private static final int OUTPUT_BUFFER_SIZE = 256 * 1024;
+    private static final int INPUT_BUFFER_SIZE = 64 * 1024;
+    private static final String NEW_LINE = "\n";
+
+    private final List<String[]> domains = new ArrayList<String[]>();
+    private int threadCount = Runtime.getRuntime().availableProcessors();
+    private String priorFileOID;
+    private String creationDateTime;
+    private final AtomicInteger errorCount = new AtomicInteger();
+
+    /**
+     * Writes a Dataset-XML file from a flat file.
+     *
+     * @param txtFile Input flat file.
+     * @param xmlFile Output Dataset-XML file.
+     */
+    public void writeDatasetXML(final String txtFile, final String xmlFile) {
+        try {
+            write(txtFile, xmlFile);
+        } catch (final FileNotFoundException e) {
+            cstError(e);
+        } catch (final IOException e) {
+            cstError(e);
+        } catch (final XMLStreamException e) {
+            cstError(e);
+        } catch (final Throwable t) {
+            cstError(t);
+            t.printStackTrace();
+        }
+    }
+
+    /**
+     * Adds a domain to be written by writeDomains().
+     *
+     * @param txtFile Input flat file.
+     * @param xmlFile Output Dataset-XML file.
+     */
+    public void addDomain(final String txtFile, final String xmlFile) {
+        this.domains.add(new String[] { txtFile, xmlFile });
+    }
+
+    /**
+     * Writes the domains added with addDomain(), on up to getThreadCount() threads, and clears the list. Each domain
+     * is written by one thread, so a failure in one domain does not affect the others.
+     */
+    public void writeDomains() {
+        final int threads = Math.min(getThreadCount(), this.domains.size());
+        if (threads <= 1) {
+            for (final String[] domain : this.domains) {
+                writeDatasetXML(domain[0], domain[1]);
+            }
+            this.domains.clear();
+            return;
+        }
+
+        final ExecutorService executor = Executors.newFixedThreadPool(threads);
+        try {
+            final List<Future<?>> futures = new ArrayList<Future<?>>();
+            for (final String[] domain : this.domains) {
+                futures.add(executor.submit(() -> writeDatasetXML(domain[0], domain[1])));
+            }
+            for (final Future<?> future : futures) {
+                try {
+                    future.get();
+                } catch (final InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    cstError(e);
+                    return;
+                } catch (final ExecutionException e) {
+                    cstError(e.getCause());
+                }
+            }
+        } finally {
+            executor.shutdownNow();
+            this.domains.clear();
+        }
+    }
+
+    /**
+     * Writes a Dataset-XML file from a flat file, reporting errors to the caller.
+     *
+     * @param txtFile The path to the input flat file
+     * @param xmlFile The path to the output Dataset-XML file
+     * @throws IOException If either file could not be opened, or the flat file is not in the expected format
+     * @throws XMLStreamException If the Dataset-XML file could not be written
+     */
+    protected void write(final String txtFile, final String xmlFile) throws IOException, XMLStreamException {
+        // default charset, as used by ParseXML to write the flat file
+        final BufferedReader in = new BufferedReader(new InputStreamReader(new FileInputStream(txtFile)),
+            INPUT_BUFFER_SIZE);
+        try {
+            final OutputStream out = new BufferedOutputStream(new FileOutputStream(xmlFile), OUTPUT_BUFFER_SIZE);
+            try {
+                write(in, txtFile, out);
+            } finally {
+                out.close();
+            }
+        } finally {
+            in.close();
+        }
+    }
+
+    /**
+     * Writes Dataset-XML content from flat file records.
+     *
+     * @param in The flat file records
+     * @param txtFile The name of the flat file, used in error messages
+     * @param out The stream receiving the Dataset-XML content
+     * @throws IOException If the records could not be read, or are not in the expected format
+     * @throws XMLStreamException If the Dataset-XML content could not be written
+     */
+    protected void write(final BufferedReader in, final String txtFile, final OutputStream out)
+        throws IOException, XMLStreamException {
+        final XMLStreamWriter writer = XMLOutputFactory.newInstance().createXMLStreamWriter(out, OUTPUT_ENCODING);
+        try {
+            new RecordsWriter(writer, txtFile).write(in);
+            writer.flush();
+        } finally {
+            writer.close();
+        }
+    }
+
+    /**
+     * Writes the elements of a single flat file, keeping track of which are open.
+     */
+    private class RecordsWriter {
+
+        private final XMLStreamWriter writer;
+        private final String txtFile;
+        private int lineNumber;
+        private boolean inODM;
+        private boolean inContainer;
+        private boolean inItemGroup;
+
+        // the ItemData record read last, held back in case its value continues on the following lines
+        private String itemOID;
+        private final StringBuilder itemValue = new StringBuilder();
+
+        RecordsWriter(final XMLStreamWriter writer, final String txtFile) {
+            this.writer = writer;
+            this.txtFile = txtFile;
+        }
+
+        /**
+         * Writes the document.
+         *
+         * @param in The flat file records
+         * @throws IOException If the records could not be read, or are not in the expected format
+         * @throws XMLStreamException If the Dataset-XML content could not be written
+         */
+        void write(final BufferedReader in) throws IOException, XMLStreamException {
+            this.writer.writeStartDocument(OUTPUT_ENCODING, "1.0");
+            this.writer.writeCharacters(NEW_LINE);
+
+            String line;
+            while ((line = in.readLine()) != null) {
+                ++this.lineNumber;
+                if (line.startsWith(RecordsHandler.RECORD_ABBREV_ITEMDATA)) {
+                    writeItemData();
+                    startItemData(line.substring(RecordsHandler.RECORD_ABBREV_ITEMDATA.length()));
+                } else if (line.startsWith(RecordsHandler.RECORD_ABBREV_ITEMGROUPDATA)) {
+                    writeItemData();
+                    startItemGroupData(line.substring(RecordsHandler.RECORD_ABBREV_ITEMGROUPDATA.length()));
+                } else if (line.startsWith(RecordsHandler.RECORD_ABBREV_CLINICALDATA)) {
+                    writeItemData();
+                    startContainer(RecordsHandler.ELEM_NAME_CLINICALDATA,
+                        line.substring(RecordsHandler.RECORD_ABBREV_CLINICALDATA.length()));
+                } else if (line.startsWith(RecordsHandler.RECORD_ABBREV_REFDATA)) {
+                    writeItemData();
+                    startContainer(RecordsHandler.ELEM_NAME_REFERENCEDATA,
+                        line.substring(RecordsHandler.RECORD_ABBREV_REFDATA.length()));
+                } else if (line.startsWith(RecordsHandler.RECORD_ABBREV_ODM)) {
+                    if (this.inODM) {
+                        throw formatError("Unexpected " + RecordsHandler.RECORD_ABBREV_ODM + " record");
+                    }
+                    startODM(line.substring(RecordsHandler.RECORD_ABBREV_ODM.length()));
+                } else if (this.itemOID != null) {
+                    // a value containing line breaks
+                    this.itemValue.append(NEW_LINE).append(line);
+                } else if (line.length() > 0) {
+                    throw formatError("Unrecognized record");
+                }
+            }
+            writeItemData();
+
+            if (this.inItemGroup) {
+                endElement();
+            }
+            if (this.inContainer) {
+                endElement();
+            }
+            if (this.inODM) {
+                endElement();
+            }
+            this.writer.writeEndDocument();
+        }
+
+        private void startODM(final String fileOID) throws XMLStreamException {
+            this.writer.writeStartElement(RecordsHandler.ELEM_NAME_ODM);
+            this.writer.writeDefaultNamespace(ODM_NAMESPACE_URI);
+            this.writer.writeNamespace(DATA_NAMESPACE_PREFIX, DATA_NAMESPACE_URI);
+            this.writer.writeAttribute(ATTR_NAME_ODMVERSION, ODM_VERSION);
+            this.writer.writeAttribute(ATTR_NAME_FILETYPE, FILE_TYPE_SNAPSHOT);
+            this.writer.writeAttribute(RecordsHandler.ATTR_NAME_FILEOID, fileOID);
+            if (getPriorFileOID() != null) {
+                this.writer.writeAttribute(ATTR_NAME_PRIORFILEOID, getPriorFileOID());
+            }
+            this.writer.writeAttribute(ATTR_NAME_CREATIONDATETIME, (getCreationDateTime() != null)
+                ? getCreationDateTime() : new SimpleDateFormat("yyyy-MM-dd'T'HH:mm:ss").format(new Date()));
+            this.writer.writeAttribute(DATA_NAMESPACE_PREFIX, DATA_NAMESPACE_URI, ATTR_LOCAL_NAME_DATASETXMLVERSION,
+                DATASETXML_VERSION);
+            this.writer.writeCharacters(NEW_LINE);
+            this.inODM = true;
+        }
+
+        private void startContainer(final String elementName, final String record)
+            throws IOException, XMLStreamException {
+            if (!this.inODM) {
+                throw formatError("Missing " + RecordsHandler.RECORD_ABBREV_ODM + " record");
+            }
+            if (this.inItemGroup) {
+                endElement();
+                this.inItemGroup = false;
+            }
+            if (this.inContainer) {
+                endElement();
+            }
+            final int separator = record.indexOf(RecordsHandler.RECORD_SEPARATOR);
+            if (separator < 0) {
+                throw formatError("Missing " + RecordsHandler.ATTR_NAME_MDVOID);
+            }
+            this.writer.writeStartElement(elementName);
+            this.writer.writeAttribute(RecordsHandler.ATTR_NAME_STUDYOID, record.substring(0, separator));
+            this.writer.writeAttribute(RecordsHandler.ATTR_NAME_MDVOID, record.substring(separator + 1));
+            this.writer.writeCharacters(NEW_LINE);
+            this.inContainer = true;
+        }
+
+        private void startItemGroupData(final String record) throws IOException, XMLStreamException {
+            if (!this.inContainer) {
+                throw formatError("Missing " + RecordsHandler.RECORD_ABBREV_CLINICALDATA + " or "
+                    + RecordsHandler.RECORD_ABBREV_REFDATA + " record");
+            }
+            if (this.inItemGroup) {
+                endElement();
+            }
+            // the sequence number is numeric, so the last separator is the one ending the OID
+            final int separator = record.lastIndexOf(RecordsHandler.RECORD_SEPARATOR);
+            if (separator < 0) {
+                throw formatError("Missing " + RecordsHandler.ATTR_NAME_IGDATASEQ);
+            }
+            this.writer.writeStartElement(RecordsHandler.ELEM_NAME_ITEMGROUPDATA);
+            this.writer.writeAttribute(RecordsHandler.ATTR_NAME_ITEMGROUPOID, record.substring(0, separator));
+            this.writer.writeAttribute(DATA_NAMESPACE_PREFIX, DATA_NAMESPACE_URI, ATTR_LOCAL_NAME_IGDATASEQ,
+                record.substring(separator + 1));
+            this.writer.writeCharacters(NEW_LINE);
+            this.inItemGroup = true;
+        }
+
+        private void startItemData(final String record) throws IOException {
+            if (!this.inItemGroup) {
+                throw formatError("Missing " + RecordsHandler.RECORD_ABBREV_ITEMGROUPDATA + " record");
+            }
+            // the OID cannot contain the separator, but the value may
+            final int separator = record.indexOf(RecordsHandler.RECORD_SEPARATOR);
+            if (separator < 0) {
+                throw formatError("Missing " + RecordsHandler.ATTR_NAME_VALUE);
+            }
+            this.itemOID = record.substring(0, separator);
+            this.itemValue.setLength(0);
+            this.itemValue.append(record, separator + 1, record.length());
+        }
+
+        private void writeItemData() throws XMLStreamException {
+            if (this.itemOID == null) {
+                return;
+            }
+            if (this.itemValue.length() > 0) {
+                this.writer.writeEmptyElement(RecordsHandler.ELEM_NAME_ITEMDATA);
+                this.writer.writeAttribute(RecordsHandler.ATTR_NAME_ITEMOID, this.itemOID);
+                this.writer.writeAttribute(RecordsHandler.ATTR_NAME_VALUE, this.itemValue.toString());
+                this.writer.writeCharacters(NEW_LINE);
+            }
+            this.itemOID = null;
+        }
+
+        private void endElement() throws XMLStreamException {
+            this.writer.writeEndElement();
+            this.writer.writeCharacters(NEW_LINE);
+        }
+
+        private IOException formatError(final String message) {
+            return new IOException(message + " at line " + this.lineNumber + " of " + this.txtFile + ".");
+        }
+    }
+
+    /**
+     * Gets the number of threads used by writeDomains().
+     *
+     * @return The thread count
+     */
+    public int getThreadCount() {
+        return threadCount;
+    }
+
+    /**
+     * Sets the number of threads used by writeDomains(). The default is the number of available processors.
+     *
+     * @param threadCount The thread count; 1 writes the domains one after another
+     */
+    public void setThreadCount(final int threadCount) {
+        this.threadCount = Math.max(1, threadCount);
+    }
+
+    /**
+     * Needed for SAS9.1 javaobj.
+     *
+     * @param threadCount The thread count
+     */
+    public void setThreadCountString(final String threadCount) {
+        if (threadCount != null) {
+            setThreadCount(Integer.parseInt(threadCount.trim()));
+        }
+    }
+
+    /**
+     * Gets the PriorFileOID written on the ODM element.
+     *
+     * @return The PriorFileOID, typically the FileOID of the Define-XML file; null if none is written
+     */
+    public String getPriorFileOID() {
+        return priorFileOID;
+    }
+
+    /**
+     * Sets the PriorFileOID written on the ODM element.
+     *
+     * @param priorFileOID The PriorFileOID, typically the FileOID of the Define-XML file; null if none is to be written
+     */
+    public void setPriorFileOID(final String priorFileOID) {
+        this.priorFileOID = priorFileOID;
+    }
+
+    /**
+     * Gets the CreationDateTime written on the ODM element.
+     *
+     * @return The CreationDateTime; null if the time each file is written is used
+     */
+    public String getCreationDateTime() {
+        return creationDateTime;
+    }
+
+    /**
+     * Sets the CreationDateTime written on the ODM element.
+     *
+     * @param creationDateTime The CreationDateTime, in ISO 8601 format; null to use the time each file is written
+     */
+    public void setCreationDateTime(final String creationDateTime) {
+        this.creationDateTime = creationDateTime;
+    }
+
+    /**
+     * Gets the number of files that could not be written, since this instance was created.
+     *
+     * @return The error count
+     */
+    public int getErrorCount() {
+        return this.errorCount.get();
+    }
+
+    /**
+     * Generic error
+     *
+     * @param t
+     */
+    protected void cstError(final Throwable t) {
+        this.errorCount.incrementAndGet();
+        System.out.println(CSTERROR_MSG + t.getMessage());
+    }
+}
@@ -0,0 +1,728 @@
+package com.sas.ptc.datasetxml;
+
+import java.io.BufferedWriter;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStreamWriter;
+import java.io.SequenceInputStream;
+import java.io.Writer;
+import java.net.URI;
+import java.net.URISyntaxException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+
+import com.sas.ptc.util.jfr.FlightRecorderEvents;
+
+/**
+ * Copyright (c) 2022, SAS Institute Inc., Cary, NC, USA.  All Rights Reserved.
+ * SPDX-License-Identifier: Apache-2.0
+ *
+ * Parses a large Dataset-XML file on several threads, producing the same flat file as RecordsStreamParser. A fast byte
+ * scan of the file finds the ClinicalData and ReferenceData containers and the ends of the ItemGroupData elements
+ * within them. Each container is split into chunks of whole item groups, and each chunk is parsed by its own
+ * RecordsStreamParser into a temporary file. The temporary files are then appended to the output in document order.
+ *
+ * The first chunk of each container is wrapped in a copy of the container start tag, so that the container record is
+ * produced exactly where the sequential parser produces it; the other chunks are wrapped in a synthetic element.
+ * Whenever the file does not have the simple structure the scan relies upon (a document type declaration, an encoding
+ * in which markup is not ASCII, item groups outside a container, nested containers), or any chunk fails to parse,
+ * the whole file is parsed sequentially instead, so the output, including error reporting, never differs from that of
+ * the sequential parser.
+ */
+class ParallelRecordsParser {
+
+    /**
+     * Files smaller than this are parsed sequentially, unless configured otherwise.
+     */
+    static final long DEFAULT_MIN_PARALLEL_FILE_SIZE = 32L * 1024 * 1024;
+
+    private static final long MIN_CHUNK_SIZE = 4L * 1024 * 1024;
+    private static final int CHUNKS_PER_THREAD = 4;
+    private static final int SCAN_BUFFER_SIZE = 1024 * 1024;
+    private static final int CHUNK_OUTPUT_BUFFER_SIZE = 256 * 1024;
+    private static final int NAME_BUFFER_SIZE = 32;
+    private static final String CHUNK_ELEMENT_NAME = "ParallelChunk";
+
+    private static final byte[] NAME_ITEMGROUPDATA = ascii(RecordsHandler.ELEM_NAME_ITEMGROUPDATA);
+    private static final byte[] NAME_CLINICALDATA = ascii(RecordsHandler.ELEM_NAME_CLINICALDATA);
+    private static final byte[] NAME_REFERENCEDATA = ascii(RecordsHandler.ELEM_NAME_REFERENCEDATA);
+    private static final byte[] NAME_ODM = ascii(RecordsHandler.ELEM_NAME_ODM);
+
+    private final int threadCount;
+    private final long minParallelFileSize;
+
+    /**
+     * Constructs a parser.
+     *
+     * @param threadCount The number of threads parsing chunks concurrently
+     * @param minParallelFileSize The size, in bytes, below which a file is parsed sequentially
+     */
+    ParallelRecordsParser(final int threadCount, final long minParallelFileSize) {
+        this.threadCount = Math.max(1, threadCount);
+        this.minParallelFileSize = minParallelFileSize;
+    }
+
+    /**
+     * Parses a Dataset-XML file to create a flat file, in parallel where possible.
+     *
+     * @param xmlFile The path or URL of the Dataset-XML file
+     * @param txtFile The path to the output flat file
+     * @throws IOException If either file could not be opened, or the output could not be written
+     * @throws XMLStreamException If the Dataset-XML file is not well-formed
+     */
+    public void parse(final String xmlFile, final String txtFile) throws IOException, XMLStreamException {
+        final File inputFile = toLocalFile(xmlFile);
+        if ((this.threadCount < 2) || (inputFile == null) || !inputFile.isFile()
+            || (inputFile.length() < this.minParallelFileSize) || !parseInParallel(inputFile, new File(txtFile))) {
+            new RecordsStreamParser().parse(xmlFile, txtFile);
+        }
+    }
+
+    /**
+     * Attempts to parse the file in parallel.
+     *
+     * @param inputFile The Dataset-XML file
+     * @param outputFile The output flat file
+     * @return true if the output was produced, false if the file must be parsed sequentially instead
+     * @throws IOException If the output could not be written
+     */
+    protected boolean parseInParallel(final File inputFile, final File outputFile) throws IOException {
+        final String encoding = getAsciiCompatibleEncoding(inputFile);
+        if (encoding == null) {
+            return false;
+        }
+
+        final long chunkSize = Math.max(MIN_CHUNK_SIZE, inputFile.length() / (this.threadCount * CHUNKS_PER_THREAD));
+        final File outputFolder = outputFile.getAbsoluteFile().getParentFile();
+        final List<Chunk> chunks = new ArrayList<>();
+        final List<File> chunkOutputs = new ArrayList<>();
+        final List<Future<?>> results = new ArrayList<>();
+        final ExecutorService executor = Executors.newFixedThreadPool(this.threadCount);
+        final FileInputStream in = new FileInputStream(inputFile);
+        boolean complete = false;
+        try {
+            final FileChannel channel = in.getChannel();
+            final ChunkScanner scanner = new ChunkScanner(channel, chunkSize) {
+                @Override
+                protected void chunkFound(final Chunk chunk) throws IOException {
+                    final File chunkOutput = File.createTempFile("datasetxml.", ".tmp", outputFolder);
+                    chunks.add(chunk);
+                    chunkOutputs.add(chunkOutput);
+                    results.add(executor.submit(() -> parseChunk(inputFile, channel, encoding, chunk, chunkOutput)));
+                }
+            };
+            if (!scanner.scan()) {
+                return false;
+            }
+
+            final byte[] skeletonRecords = parseSkeleton(channel, chunks);
+            for (final Future<?> result : results) {
+                result.get();
+            }
+
+            final FileOutputStream out = new FileOutputStream(outputFile);
+            try {
+                out.write(skeletonRecords);
+                for (final File chunkOutput : chunkOutputs) {
+                    appendFile(chunkOutput, out.getChannel());
+                }
+            } finally {
+                out.close();
+            }
+            complete = true;
+        } catch (final InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (final ExecutionException e) {
+            // a chunk could not be parsed; the sequential parse reports the error, if there is one
+        } catch (final XMLStreamException e) {
+            // the markup outside the chunks is not well-formed; likewise
+        } finally {
+            executor.shutdownNow();
+            awaitTermination(executor);
+            in.close();
+            for (final File chunkOutput : chunkOutputs) {
+                chunkOutput.delete();
+            }
+        }
+
+        return complete;
+    }
+
+    /**
+     * Parses everything in the file but the chunks: the prolog, the root start tag, the container start and end tags
+     * and whatever lies between them. This checks that the markup the chunk parsers do not see is well-formed, and
+     * produces the records written ahead of the first chunk (the ODM record). Since every item group lies within a
+     * chunk, no other record is produced.
+     *
+     * @param channel The Dataset-XML file
+     * @param chunks The chunks, in document order
+     * @return The records, encoded as the output file is encoded
+     * @throws IOException If the file could not be read
+     * @throws XMLStreamException If the markup outside the chunks is not well-formed
+     */
+    private static byte[] parseSkeleton(final FileChannel channel, final List<Chunk> chunks)
+        throws IOException, XMLStreamException {
+        final List<InputStream> gaps = new ArrayList<>();
+        long position = 0L;
+        for (final Chunk chunk : chunks) {
+            gaps.add(new ChunkInputStream(channel, position, chunk.start));
+            position = chunk.end;
+        }
+        gaps.add(new ChunkInputStream(channel, position, channel.size()));
+
+        final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        // default charset, as used by PrintWriter(String)
+        final Writer out = new OutputStreamWriter(bytes);
+        new RecordsStreamParser().parse(new SequenceInputStream(Collections.enumeration(gaps)), null, out);
+        out.close();
+
+        return bytes.toByteArray();
+    }
+
+    /**
+     * Parses a single chunk into a temporary file, emitting a Flight Recorder event for it if a recording is running.
+     *
+     * @param inputFile The Dataset-XML file, named in the event
+     * @param channel The Dataset-XML file
+     * @param encoding The encoding of the file
+     * @param chunk The chunk to be parsed
+     * @param chunkOutput The temporary file receiving the records of the chunk
+     * @return null
+     * @throws IOException If the file could not be read, or the temporary file written
+     * @throws XMLStreamException If the chunk is not well-formed
+     */
+    private static Void parseChunk(final File inputFile, final FileChannel channel, final String encoding,
+        final Chunk chunk, final File chunkOutput) throws IOException, XMLStreamException {
+        final Object event = FlightRecorderEvents.begin(FlightRecorderEvents.PARSE_CHUNK);
+        final byte[] startTag;
+        final byte[] endTag;
+        if (chunk.containerName != null) {
+            final ByteBuffer tag = ByteBuffer.allocate((int) (chunk.containerTagEnd - chunk.containerTagStart));
+            while (tag.hasRemaining()) {
+                if (channel.read(tag, chunk.containerTagStart + tag.position()) < 0) {
+                    throw new EOFException();
+                }
+            }
+            startTag = tag.array();
+            endTag = ascii("</" + chunk.containerName + ">");
+        } else {
+            startTag = ascii("<" + CHUNK_ELEMENT_NAME + ">");
+            endTag = ascii("</" + CHUNK_ELEMENT_NAME + ">");
+        }
+
+        final List<InputStream> parts = Arrays.asList(
+            new ByteArrayInputStream(ascii("<?xml version=\"1.0\" encoding=\"" + encoding + "\"?>")),
+            new ByteArrayInputStream(startTag), new ChunkInputStream(channel, chunk.start, chunk.end),
+            new ByteArrayInputStream(endTag));
+
+        // default charset, as used by PrintWriter(String)
+        final Writer out = new BufferedWriter(new OutputStreamWriter(new FileOutputStream(chunkOutput)),
+            CHUNK_OUTPUT_BUFFER_SIZE);
+        final RecordsStreamParser parser = new RecordsStreamParser();
+        try {
+            parser.parse(new SequenceInputStream(Collections.enumeration(parts)), null, out);
+        } finally {
+            out.close();
+        }
+        FlightRecorderEvents.commit(event, inputFile.getPath(), null, null, chunk.end - chunk.start,
+            chunkOutput.length(), parser.getItemGroupCount());
+
+        return null;
+    }
+
+    /**
+     * Appends the content of a file to the output.
+     *
+     * @param chunkOutput The file to be appended
+     * @param out The output
+     * @throws IOException If either file could not be accessed
+     */
+    private static void appendFile(final File chunkOutput, final FileChannel out) throws IOException {
+        final FileInputStream in = new FileInputStream(chunkOutput);
+        try {
+            final FileChannel source = in.getChannel();
+            final long size = source.size();
+            long position = 0L;
+            while (position < size) {
+                position += source.transferTo(position, size - position, out);
+            }
+        } finally {
+            in.close();
+        }
+    }
+
+    /**
+     * Waits for the chunk parsers to stop, so that their temporary files can be deleted.
+     *
+     * @param executor The executor running the chunk parsers, already shut down
+     */
+    private static void awaitTermination(final ExecutorService executor) {
+        try {
+            while (!executor.awaitTermination(1L, TimeUnit.SECONDS)) {
+                // parsers stop promptly once interrupted, as their reads of the file then fail
+            }
+        } catch (final InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Gets the encoding of the file, provided markup is encoded as ASCII in it, so that the byte scan can find it.
+     *
+     * @param inputFile The Dataset-XML file
+     * @return The encoding, or null if the file is not in an ASCII-compatible encoding or could not be read
+     */
+    private static String getAsciiCompatibleEncoding(final File inputFile) {
+        String encoding = null;
+        try {
+            final InputStream in = new FileInputStream(inputFile);
+            try {
+                final XMLStreamReader reader = XMLInputFactory.newInstance().createXMLStreamReader(in);
+                encoding = reader.getEncoding();
+                reader.close();
+            } finally {
+                in.close();
+            }
+        } catch (final IOException e) {
+            return null;
+        } catch (final XMLStreamException e) {
+            return null;
+        }
+        if ((encoding == null) || !Charset.isSupported(encoding)) {
+            return null;
+        }
+
+        final String name = Charset.forName(encoding).name().toUpperCase();
+        if (name.equals("UTF-8") || name.equals("US-ASCII") || name.startsWith("ISO-8859-")
+            || name.startsWith("WINDOWS-125")) {
+            return name;
+        }
+
+        return null;
+    }
+
+    /**
+     * Gets the local file referred to by a path or a file: URL.
+     *
+     * @param xmlFile The path or URL
+     * @return The file, or null if the URL is not a file: URL
+     */
+    private static File toLocalFile(final String xmlFile) {
+        if (xmlFile.regionMatches(true, 0, "file:", 0, 5)) {
+            try {
+                return new File(new URI(xmlFile.replace(" ", "%20")));
+            } catch (final URISyntaxException e) {
+                return null;
+            } catch (final IllegalArgumentException e) {
+                return null;
+            }
+        } else if (xmlFile.indexOf("://") > 0) {
+            return null;
+        }
+
+        return new File(xmlFile);
+    }
+
+    /**
+     * Encodes markup known to be ASCII.
+     *
+     * @param s The markup
+     * @return The ASCII bytes
+     */
+    private static byte[] ascii(final String s) {
+        return s.getBytes(StandardCharsets.US_ASCII);
+    }
+
+    /**
+     * A range of the file holding whole item groups of a single container.
+     */
+    static final class Chunk {
+        private final long start;
+        private final long end;
+        private final String containerName;
+        private final long containerTagStart;
+        private final long containerTagEnd;
+
+        /**
+         * Constructs a chunk.
+         *
+         * @param start The offset of the first byte of the chunk
+         * @param end The offset just past the last byte of the chunk
+         * @param containerName The name of the container, if this is its first chunk; null otherwise
+         * @param containerTagStart The offset of the container start tag
+         * @param containerTagEnd The offset just past the container start tag
+         */
+        Chunk(final long start, final long end, final String containerName, final long containerTagStart,
+            final long containerTagEnd) {
+            this.start = start;
+            this.end = end;
+            this.containerName = containerName;
+            this.containerTagStart = containerTagStart;
+            this.containerTagEnd = containerTagEnd;
+        }
+    }
+
+    /**
+     * Finds the chunks of a Dataset-XML file, by scanning its bytes for tags. Comments, processing instructions and
+     * CDATA sections are skipped, and quoted attribute values are honored when looking for the end of a tag.
+     */
+    abstract static class ChunkScanner {
+        private final FileChannel channel;
+        private final long chunkSize;
+        private final ByteBuffer buffer;
+        private final byte[] name;
+        private int nameLength;
+        private long offset;
+
+        private boolean rootFound;
+
+        private String containerName;
+        private long containerTagStart;
+        private long containerTagEnd;
+        private long chunkStart;
+        private boolean firstChunk;
+
+        /**
+         * Constructs a scanner.
+         *
+         * @param channel The Dataset-XML file
+         * @param chunkSize The size, in bytes, at which a chunk is ended at the next item group end
+         */
+        ChunkScanner(final FileChannel channel, final long chunkSize) {
+            this.channel = channel;
+            this.chunkSize = chunkSize;
+            this.buffer = ByteBuffer.allocate(SCAN_BUFFER_SIZE);
+            this.buffer.flip();
+            this.name = new byte[NAME_BUFFER_SIZE];
+        }
+
+        /**
+         * Called for each chunk, in document order, as soon as it has been found.
+         *
+         * @param chunk The chunk
+         */
+        protected abstract void chunkFound(Chunk chunk) throws IOException;
+
+        /**
+         * Scans the whole file.
+         *
+         * @return true if the file was split into chunks, false if it must be parsed sequentially
+         * @throws IOException If the file could not be read
+         */
+        boolean scan() throws IOException {
+            int b;
+            while ((b = read()) >= 0) {
+                if (b != '<') {
+                    continue;
+                }
+                final long tagStart = this.offset - 1;
+                b = read();
+                if (b == '!') {
+                    if (!skipDeclaration()) {
+                        return false;
+                    }
+                } else if (b == '?') {
+                    skipPast('?', '>');
+                } else if (b == '/') {
+                    readName(read());
+                    final boolean isItemGroup = nameEquals(NAME_ITEMGROUPDATA);
+                    final boolean isContainer = nameEquals(NAME_CLINICALDATA) || nameEquals(NAME_REFERENCEDATA);
+                    if (skipTag() < 0) {
+                        return false;
+                    }
+                    if (isItemGroup) {
+                        itemGroupEnded();
+                    } else if (isContainer && (this.containerName != null)) {
+                        if (!this.containerName.equals(getName())) {
+                            return false;
+                        }
+                        containerEnded(tagStart);
+                    }
+                } else {
+                    readName(b);
+                    final boolean isItemGroup = nameEquals(NAME_ITEMGROUPDATA);
+                    final boolean isContainer = nameEquals(NAME_CLINICALDATA) || nameEquals(NAME_REFERENCEDATA);
+                    final boolean isODM = nameEquals(NAME_ODM);
+                    final String containerTagName = isContainer ? getName() : null;
+                    final int tagEnd = skipTag();
+                    if (tagEnd < 0) {
+                        return false;
+                    }
+                    final boolean isEmpty = (tagEnd == '/');
+                    if (!this.rootFound) {
+                        if (isEmpty) {
+                            return false;
+                        }
+                        this.rootFound = true;
+                    } else if (isODM) {
+                        return false;
+                    } else if (isItemGroup) {
+                        if (this.containerName == null) {
+                            return false;
+                        }
+                        if (isEmpty) {
+                            itemGroupEnded();
+                        }
+                    } else if (isContainer) {
+                        if (this.containerName != null) {
+                            return false;
+                        }
+                        if (!isEmpty) {
+                            this.containerName = containerTagName;
+                            this.containerTagStart = tagStart;
+                            this.containerTagEnd = this.offset;
+                            this.chunkStart = this.offset;
+                            this.firstChunk = true;
+                        }
+                    }
+                }
+            }
+
+            return this.rootFound && (this.containerName == null);
+        }
+
+        /**
+         * Gets the name just read.
+         *
+         * @return The name
+         */
+        private String getName() {
+            return new String(this.name, 0, this.nameLength, StandardCharsets.US_ASCII);
+        }
+
+        /**
+         * Ends the current chunk after the item group just ended, if the chunk has reached the chunk size.
+         *
+         * @throws IOException If the chunk could not be submitted
+         */
+        private void itemGroupEnded() throws IOException {
+            if ((this.containerName != null) && (this.offset - this.chunkStart >= this.chunkSize)) {
+                endChunk(this.offset);
+            }
+        }
+
+        /**
+         * Ends the last chunk of the current container.
+         *
+         * @param containerEndTagStart The offset of the container end tag
+         * @throws IOException If the chunk could not be submitted
+         */
+        private void containerEnded(final long containerEndTagStart) throws IOException {
+            endChunk(containerEndTagStart);
+            this.containerName = null;
+        }
+
+        /**
+         * Reports the chunk ending at the given offset, and starts the next one there.
+         *
+         * @param end The offset just past the last byte of the chunk
+         * @throws IOException If the chunk could not be submitted
+         */
+        private void endChunk(final long end) throws IOException {
+            if (this.firstChunk) {
+                chunkFound(new Chunk(this.chunkStart, end, this.containerName, this.containerTagStart,
+                    this.containerTagEnd));
+                this.firstChunk = false;
+            } else {
+                chunkFound(new Chunk(this.chunkStart, end, null, 0L, 0L));
+            }
+            this.chunkStart = end;
+        }
+
+        /**
+         * Skips a comment or CDATA section, just past the "&lt;!".
+         *
+         * @return false if the markup is a document type declaration, which may declare entities the chunk parsers
+         *         would not know
+         * @throws IOException If the file could not be read
+         */
+        private boolean skipDeclaration() throws IOException {
+            final int b = read();
+            if (b == '-') {
+                skipPast('-', '-', '>');
+                return true;
+            } else if (b == '[') {
+                skipPast(']', ']', '>');
+                return true;
+            }
+
+            return false;
+        }
+
+        /**
+         * Reads a tag name, up to the first character that cannot be part of it.
+         *
+         * @param first The first byte of the name
+         * @throws IOException If the file could not be read
+         */
+        private void readName(final int first) throws IOException {
+            this.nameLength = 0;
+            int b = first;
+            while ((b >= 0) && (b != '>') && (b != '/') && (b > ' ')) {
+                if (this.nameLength < this.name.length) {
+                    this.name[this.nameLength++] = (byte) b;
+                }
+                b = read();
+            }
+            // let skipTag see the character that ended the name
+            if (b >= 0) {
+                unread();
+            }
+        }
+
+        /**
+         * Determines whether the name just read is the given name.
+         *
+         * @param candidate The name, in ASCII
+         * @return true if the names are equal
+         */
+        private boolean nameEquals(final byte[] candidate) {
+            if (candidate.length != this.nameLength) {
+                return false;
+            }
+            for (int i = 0; i < candidate.length; ++i) {
+                if (candidate[i] != this.name[i]) {
+                    return false;
+                }
+            }
+
+            return true;
+        }
+
+        /**
+         * Skips to just past the end of the current tag, honoring quoted attribute values.
+         *
+         * @return The character preceding the closing '&gt;' ('/' for an empty-element tag), or -1 at end of file
+         * @throws IOException If the file could not be read
+         */
+        private int skipTag() throws IOException {
+            int previous = 0;
+            int b;
+            while ((b = read()) >= 0) {
+                if ((b == '"') || (b == '\'')) {
+                    final int quote = b;
+                    while (((b = read()) >= 0) && (b != quote)) {
+                        // skip the attribute value
+                    }
+                } else if (b == '>') {
+                    return previous;
+                }
+                previous = b;
+            }
+
+            return -1;
+        }
+
+        /**
+         * Skips to just past the given sequence of bytes.
+         *
+         * @param sequence The bytes ending the construct being skipped
+         * @throws IOException If the file could not be read
+         */
+        private void skipPast(final int... sequence) throws IOException {
+            int matched = 0;
+            int b;
+            while ((matched < sequence.length) && ((b = read()) >= 0)) {
+                if (b == sequence[matched]) {
+                    ++matched;
+                } else if (b == sequence[0]) {
+                    // for example, the third '-' of "--->"
+                    matched = ((matched > 0) && (sequence[matched - 1] == b)) ? matched : 1;
+                } else {
+                    matched = 0;
+                }
+            }
+        }
+
+        /**
+         * Reads the next byte of the file.
+         *
+         * @return The byte, or -1 at end of file
+         * @throws IOException If the file could not be read
+         */
+        private int read() throws IOException {
+            if (!this.buffer.hasRemaining()) {
+                this.buffer.clear();
+                final int n = this.channel.read(this.buffer, this.offset);
+                this.buffer.flip();
+                if (n <= 0) {
+                    return -1;
+                }
+            }
+            ++this.offset;
+
+            return this.buffer.get() & 0xFF;
+        }
+
+        /**
+         * Steps back over the byte just read.
+         */
+        private void unread() {
+            this.buffer.position(this.buffer.position() - 1);
+            --this.offset;
+        }
+    }
+
+    /**
+     * Reads a range of a file by positional reads, so that any number of threads may read the same channel at once.
+     */
+    static final class ChunkInputStream extends InputStream {
+        private final FileChannel channel;
+        private final long end;
+        private long position;
+
+        /**
+         * Constructs a stream over a range of the file.
+         *
+         * @param channel The file
+         * @param start The offset of the first byte
+         * @param end The offset just past the last byte
+         */
+        ChunkInputStream(final FileChannel channel, final long start, final long end) {
+            this.channel = channel;
+            this.position = start;
+            this.end = end;
+        }
+
+        @Override
+        public int read() throws IOException {
+            final byte[] b = new byte[1];
+            return (read(b, 0, 1) < 0) ? -1 : (b[0] & 0xFF);
+        }
+
+        @Override
+        public int read(final byte[] b, final int off, final int len) throws IOException {
+            if (this.position >= this.end) {
+                return -1;
+            }
+            final int n = this.channel.read(ByteBuffer.wrap(b, off, (int) Math.min(len, this.end - this.position)),
+                this.position);
+            if (n > 0) {
+                this.position += n;
+            }
+
+            return n;
+        }
+    }
+}
@@ -1,11 +1,13 @@
 package com.sas.ptc.datasetxml;
 
+import java.io.File;
 import java.io.FileNotFoundException;
 import java.io.UnsupportedEncodingException;
 
 import javax.xml.parsers.ParserConfigurationException;
 import javax.xml.parsers.SAXParser;
 import javax.xml.parsers.SAXParserFactory;
+import javax.xml.stream.XMLStreamException;
 
 import org.xml.sax.SAXException;
 import org.xml.sax.SAXParseException;
@@ -19,10 +21,29 @@ import org.xml.sax.XMLReader;
  */
 public class ParseXML {
 
+    /**
+     * The default engine, a SAX parser with RecordsHandler.
+     */
+    public static final String ENGINE_SAX = "SAX";
+
+    /**
+     * A StAX engine, producing the same output with far less allocation per record.
+     */
+    public static final String ENGINE_STAX = "STAX";
+
+    /**
+     * The StAX engine, parsing large files in chunks on several threads.
+     */
+    public static final String ENGINE_PARALLEL = "PARALLEL";
+
     // toolkit-specific messages
     private static final String CSTERROR_MSG = "ERROR: [CSTLOG" + "MESSAGE] ";
     private static final String CSTERROR_ENCODING = "Unsupported Encoding: ";
 
+    private String engine = ENGINE_SAX;
+    private int threadCount = Runtime.getRuntime().availableProcessors();
+    private long minParallelFileSize = ParallelRecordsParser.DEFAULT_MIN_PARALLEL_FILE_SIZE;
+
     /**
      * Parses a Dataset-XML file to create a flat file.
      *
@@ -30,6 +51,10 @@ public class ParseXML {
      * @param txtFile Output flat file.
      */
     public void parseDatasetXML(final String xmlFile, final String txtFile) {
+        if (ENGINE_STAX.equalsIgnoreCase(getEngine()) || ENGINE_PARALLEL.equalsIgnoreCase(getEngine())) {
+            parseDatasetXMLStreaming(xmlFile, txtFile);
+            return;
+        }
 
         XMLReader reader = null;
         SAXParser parser = null;
@@ -82,6 +107,136 @@ public class ParseXML {
         }
     }
 
+    /**
+     * Parses a Dataset-XML file to create a flat file, using the StAX engine, in parallel if so configured.
+     *
+     * @param xmlFile Dataset-XML file.
+     * @param txtFile Output flat file.
+     */
+    protected void parseDatasetXMLStreaming(final String xmlFile, final String txtFile) {
+        try {
+            if (ENGINE_PARALLEL.equalsIgnoreCase(getEngine())) {
+                new ParallelRecordsParser(getThreadCount(), getMinParallelFileSize()).parse(xmlFile, txtFile);
+            } else {
+                new RecordsStreamParser().parse(xmlFile, txtFile);
+            }
+        } catch (final FileNotFoundException e) {
+            cstError(e);
+        } catch (final UnsupportedEncodingException e) {
+            cstError(e, CSTERROR_ENCODING);
+        } catch (final XMLStreamException e) {
+            cstStreamError(e);
+        } catch (final Throwable t) {
+            cstError(t);
+            t.printStackTrace();
+        }
+    }
+
+    /**
+     * Parses a Dataset-XML file to create one flat file per ItemGroupOID in the given folder, named after the
+     * ItemGroupOID, together with a manifest (manifest.txt) giving the name, record count and size of each file. Each
+     * file has the layout of the single flat file, restricted to one ItemGroupOID. The StAX engine is always used.
+     *
+     * @param xmlFile Dataset-XML file.
+     * @param outputFolder Output folder, created if needed.
+     */
+    public void parseDatasetXMLShards(final String xmlFile, final String outputFolder) {
+        final File folder = new File(outputFolder);
+        if (!folder.isDirectory() && !folder.mkdirs()) {
+            System.out.println(CSTERROR_MSG + "Unable to create the folder " + outputFolder);
+            return;
+        }
+
+        try {
+            new RecordsStreamParser().parseShards(xmlFile, folder);
+        } catch (final FileNotFoundException e) {
+            cstError(e);
+        } catch (final UnsupportedEncodingException e) {
+            cstError(e, CSTERROR_ENCODING);
+        } catch (final XMLStreamException e) {
+            cstStreamError(e);
+        } catch (final Throwable t) {
+            cstError(t);
+            t.printStackTrace();
+        }
+    }
+
+    /**
+     * Gets the engine used to parse Dataset-XML files.
+     *
+     * @return ENGINE_SAX, ENGINE_STAX or ENGINE_PARALLEL
+     */
+    public String getEngine() {
+        return engine;
+    }
+
+    /**
+     * Sets the engine used to parse Dataset-XML files. Both engines produce identical output.
+     *
+     * @param engine ENGINE_SAX (the default), ENGINE_STAX or ENGINE_PARALLEL; null selects the default
+     */
+    public void setEngine(final String engine) {
+        this.engine = (engine != null) ? engine : ENGINE_SAX;
+    }
+
+    /**
+     * Gets the number of threads used by the parallel engine.
+     *
+     * @return The thread count
+     */
+    public int getThreadCount() {
+        return threadCount;
+    }
+
+    /**
+     * Sets the number of threads used by the parallel engine. The default is the number of available processors.
+     *
+     * @param threadCount The thread count; 1 parses sequentially
+     */
+    public void setThreadCount(final int threadCount) {
+        this.threadCount = Math.max(1, threadCount);
+    }
+
+    /**
+     * Needed for SAS9.1 javaobj.
+     *
+     * @param threadCount The thread count
+     */
+    public void setThreadCountString(final String threadCount) {
+        if (threadCount != null) {
+            setThreadCount(Integer.parseInt(threadCount.trim()));
+        }
+    }
+
+    /**
+     * Gets the size below which the parallel engine parses a file sequentially, as splitting it would not pay.
+     *
+     * @return The minimum file size for parallel parsing, in bytes
+     */
+    public long getMinParallelFileSize() {
+        return minParallelFileSize;
+    }
+
+    /**
+     * Sets the size below which the parallel engine parses a file sequentially. The default is 32 MB.
+     *
+     * @param minParallelFileSize The minimum file size for parallel parsing, in bytes
+     */
+    public void setMinParallelFileSize(final long minParallelFileSize) {
+        this.minParallelFileSize = minParallelFileSize;
+    }
+
+    /**
+     * Needed for SAS9.1 javaobj.
+     *
+     * @param minParallelFileSize The minimum file size for parallel parsing, in bytes
+     */
+    public void setMinParallelFileSizeString(final String minParallelFileSize) {
+        if (minParallelFileSize != null) {
+            setMinParallelFileSize(Long.parseLong(minParallelFileSize.trim()));
+        }
+    }
+
     /**
      * Generic error
      *
@@ -91,6 +246,16 @@ public class ParseXML {
         cstError(t, null);
     }
 
+    /**
+     * StAX error, whose message spans several lines while the toolkit reads one line per message
+     *
+     * @param e
+     */
+    protected void cstStreamError(final XMLStreamException e) {
+        final String msg = (e.getMessage() != null) ? e.getMessage().replaceAll("\\s*[\\r\\n]+\\s*", " ") : null;
+        System.out.println(CSTERROR_MSG + msg);
+    }
+
     /**
      * Error with a specific sub-message
      *
@@ -0,0 +1,35 @@
+package com.sas.ptc.datasetxml;
+
+import java.io.IOException;
+
+/**
+ * Copyright (c) 2022, SAS Institute Inc., Cary, NC, USA.  All Rights Reserved.
+ * SPDX-License-Identifier: Apache-2.0
+ *
+ * Receives the records produced by RecordsStreamParser, already formatted and terminated by line separators. The
+ * character sequences passed in are reused by the parser, so they must be consumed before each method returns.
+ */
+interface RecordSink {
+
+    /**
+     * Receives the ODM record, as soon as the ODM element starts.
+     *
+     * @param record The ODM record
+     * @throws IOException If the record could not be written
+     */
+    void odmRecord(CharSequence record) throws IOException;
+
+    /**
+     * Receives the records of an ItemGroupData element, at its end. The records of any ItemData elements preceding it
+     * within the same container are included.
+     *
+     * @param records The ItemGroupData record followed by its ItemData records
+     * @param itemGroupOID The (trimmed) ItemGroupOID of the ItemGroupData element, or null if it has none
+     * @param containerNumber The 1-based position of the enclosing ClinicalData or ReferenceData element among all such
+     *            elements in the document, or 0 if there is none
+     * @param containerRecord The record of the enclosing container; empty if there is none
+     * @throws IOException If the records could not be written
+     */
+    void itemGroupEnded(CharSequence records, String itemGroupOID, int containerNumber, CharSequence containerRecord)
+        throws IOException;
+}
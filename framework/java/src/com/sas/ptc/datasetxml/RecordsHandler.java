@@ -18,26 +18,26 @@ import org.xml.sax.helpers.DefaultHandler;
 class RecordsHandler extends DefaultHandler {
 
     // dataset-xml node names
-    private static final String ELEM_NAME_ODM = "ODM";
-    private static final String ELEM_NAME_CLINICALDATA = "ClinicalData";
-    private static final String ELEM_NAME_REFERENCEDATA = "ReferenceData";
-    private static final String ELEM_NAME_ITEMGROUPDATA = "ItemGroupData";
-    private static final String ELEM_NAME_ITEMDATA = "ItemData";
-    private static final String ATTR_NAME_FILEOID = "FileOID";
-    private static final String ATTR_NAME_STUDYOID = "StudyOID";
-    private static final String ATTR_NAME_MDVOID = "MetaDataVersionOID";
-    private static final String ATTR_NAME_ITEMGROUPOID = "ItemGroupOID";
-    private static final String ATTR_NAME_ITEMOID = "ItemOID";
-    private static final String ATTR_NAME_VALUE = "Value";
-    private static final String ATTR_NAME_IGDATASEQ = "data:ItemGroupDataSeq";
+    static final String ELEM_NAME_ODM = "ODM";
+    static final String ELEM_NAME_CLINICALDATA = "ClinicalData";
+    static final String ELEM_NAME_REFERENCEDATA = "ReferenceData";
+    static final String ELEM_NAME_ITEMGROUPDATA = "ItemGroupData";
+    static final String ELEM_NAME_ITEMDATA = "ItemData";
+    static final String ATTR_NAME_FILEOID = "FileOID";
+    static final String ATTR_NAME_STUDYOID = "StudyOID";
+    static final String ATTR_NAME_MDVOID = "MetaDataVersionOID";
+    static final String ATTR_NAME_ITEMGROUPOID = "ItemGroupOID";
+    static final String ATTR_NAME_ITEMOID = "ItemOID";
+    static final String ATTR_NAME_VALUE = "Value";
+    static final String ATTR_NAME_IGDATASEQ = "data:ItemGroupDataSeq";
 
     // CSTK record format
-    private static final String RECORD_SEPARATOR = "|";
-    private static final String RECORD_ABBREV_ITEMDATA = "[]";
-    private static final String RECORD_ABBREV_ITEMGROUPDATA = "[IG]";
-    private static final String RECORD_ABBREV_CLINICALDATA = "[CD]";
-    private static final String RECORD_ABBREV_REFDATA = "[RD]";
-    private static final String RECORD_ABBREV_ODM = "[ODM]";
+    static final String RECORD_SEPARATOR = "|";
+    static final String RECORD_ABBREV_ITEMDATA = "[]";
+    static final String RECORD_ABBREV_ITEMGROUPDATA = "[IG]";
+    static final String RECORD_ABBREV_CLINICALDATA = "[CD]";
+    static final String RECORD_ABBREV_REFDATA = "[RD]";
+    static final String RECORD_ABBREV_ODM = "[ODM]";
 
     private final List<String> records = new ArrayList<>();
     private String filePath;
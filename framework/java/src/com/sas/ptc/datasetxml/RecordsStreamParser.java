@@ -0,0 +1,298 @@
+package com.sas.ptc.datasetxml;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.net.MalformedURLException;
+import java.net.URL;
+
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+
+/**
+ * Copyright (c) 2022, SAS Institute Inc., Cary, NC, USA.  All Rights Reserved.
+ * SPDX-License-Identifier: Apache-2.0
+ *
+ * A StAX alternative to RecordsHandler, producing byte-identical output. Records are appended to a single reusable
+ * buffer rather than built as one String per element, and written through a large buffered writer, so the cost per
+ * ItemData element is little more than reading its attribute values.
+ *
+ * As with RecordsHandler, the records of a ClinicalData or ReferenceData element and of each ItemGroupData element are
+ * held back until the end of that ItemGroupData element, so a container having no ItemGroupData produces no output.
+ * Element and attribute names are matched as written in the document, without namespace processing.
+ */
+class RecordsStreamParser {
+
+    private static final int INPUT_BUFFER_SIZE = 64 * 1024;
+    private static final int OUTPUT_BUFFER_SIZE = 256 * 1024;
+    private static final int INITIAL_RECORDS_CAPACITY = 8 * 1024;
+
+    /**
+     * The same line separator PrintWriter.println uses.
+     */
+    private final String lineSeparator = System.getProperty("line.separator");
+
+    /**
+     * The records pending the end of the current ItemGroupData element; reused across item groups.
+     */
+    private final StringBuilder records = new StringBuilder(INITIAL_RECORDS_CAPACITY);
+
+    /**
+     * The record of the current ClinicalData or ReferenceData element.
+     */
+    private final StringBuilder containerRecord = new StringBuilder();
+
+    private int containerNumber;
+    private String itemGroupOID;
+    private long itemGroupCount;
+
+    /**
+     * Parses a Dataset-XML file to create a flat file.
+     *
+     * @param xmlFile The path or URL of the Dataset-XML file
+     * @param txtFile The path to the output flat file
+     * @throws IOException If either file could not be opened, or the output could not be written
+     * @throws XMLStreamException If the Dataset-XML file is not well-formed
+     */
+    public void parse(final String xmlFile, final String txtFile) throws IOException, XMLStreamException {
+        // default charset, as used by PrintWriter(String)
+        final Writer out = new BufferedWriter(new OutputStreamWriter(new FileOutputStream(txtFile)),
+            OUTPUT_BUFFER_SIZE);
+        try {
+            final InputStream in = new BufferedInputStream(openInput(xmlFile), INPUT_BUFFER_SIZE);
+            try {
+                parse(in, xmlFile, out);
+            } finally {
+                in.close();
+            }
+        } finally {
+            out.close();
+        }
+    }
+
+    /**
+     * Parses a Dataset-XML file to create one flat file per ItemGroupOID, and a manifest of those files.
+     *
+     * @param xmlFile The path or URL of the Dataset-XML file
+     * @param outputFolder The folder receiving the flat files and the manifest, which must exist
+     * @throws IOException If the Dataset-XML file could not be opened, or the output could not be written
+     * @throws XMLStreamException If the Dataset-XML file is not well-formed
+     */
+    public void parseShards(final String xmlFile, final File outputFolder) throws IOException, XMLStreamException {
+        final ShardedRecordSink sink = new ShardedRecordSink(outputFolder);
+        final InputStream in = new BufferedInputStream(openInput(xmlFile), INPUT_BUFFER_SIZE);
+        try {
+            parse(in, xmlFile, sink);
+        } finally {
+            try {
+                in.close();
+            } finally {
+                sink.close();
+            }
+        }
+    }
+
+    /**
+     * Parses a Dataset-XML stream, writing the records to the given writer.
+     *
+     * @param in The Dataset-XML content
+     * @param systemId The system ID of the content, used in error messages; may be null
+     * @param out The writer receiving the records
+     * @throws IOException If the output could not be written
+     * @throws XMLStreamException If the Dataset-XML content is not well-formed
+     */
+    public void parse(final InputStream in, final String systemId, final Writer out)
+        throws IOException, XMLStreamException {
+        parse(in, systemId, new WriterRecordSink(out));
+    }
+
+    /**
+     * Parses a Dataset-XML stream, passing the records to the given sink.
+     *
+     * @param in The Dataset-XML content
+     * @param systemId The system ID of the content, used in error messages; may be null
+     * @param sink The sink receiving the records
+     * @throws IOException If the sink could not write the records
+     * @throws XMLStreamException If the Dataset-XML content is not well-formed
+     */
+    public void parse(final InputStream in, final String systemId, final RecordSink sink)
+        throws IOException, XMLStreamException {
+        final XMLInputFactory factory = XMLInputFactory.newInstance();
+        factory.setProperty(XMLInputFactory.IS_NAMESPACE_AWARE, Boolean.FALSE);
+        final XMLStreamReader reader = factory.createXMLStreamReader(systemId, in);
+        this.records.setLength(0);
+        this.containerRecord.setLength(0);
+        this.containerNumber = 0;
+        this.itemGroupOID = null;
+        this.itemGroupCount = 0;
+        try {
+            while (reader.hasNext()) {
+                final int event = reader.next();
+                if (event == XMLStreamConstants.START_ELEMENT) {
+                    startElement(reader, sink);
+                } else if ((event == XMLStreamConstants.END_ELEMENT)
+                    && isElement(reader, RecordsHandler.ELEM_NAME_ITEMGROUPDATA)) {
+                    sink.itemGroupEnded(this.records, this.itemGroupOID, this.containerNumber, this.containerRecord);
+                    this.records.setLength(0);
+                    ++this.itemGroupCount;
+                }
+            }
+        } finally {
+            reader.close();
+        }
+    }
+
+    /**
+     * Gets the number of ItemGroupData elements in the content last parsed.
+     *
+     * @return The number of item groups
+     */
+    public long getItemGroupCount() {
+        return itemGroupCount;
+    }
+
+    /**
+     * Handles the start of an element.
+     *
+     * @param reader The reader, positioned at a START_ELEMENT event
+     * @param sink The sink receiving the records
+     * @throws IOException If the sink could not write the records
+     */
+    protected void startElement(final XMLStreamReader reader, final RecordSink sink) throws IOException {
+        if (isElement(reader, RecordsHandler.ELEM_NAME_ITEMDATA)) {
+            appendRecord(this.records, reader, RecordsHandler.RECORD_ABBREV_ITEMDATA, RecordsHandler.ATTR_NAME_ITEMOID,
+                RecordsHandler.ATTR_NAME_VALUE);
+        } else if (isElement(reader, RecordsHandler.ELEM_NAME_ITEMGROUPDATA)) {
+            final String oid = getAttributeValue(reader, RecordsHandler.ATTR_NAME_ITEMGROUPOID);
+            this.itemGroupOID = (oid != null) ? oid.trim() : null;
+            appendRecord(this.records, reader, RecordsHandler.RECORD_ABBREV_ITEMGROUPDATA,
+                RecordsHandler.ATTR_NAME_ITEMGROUPOID, RecordsHandler.ATTR_NAME_IGDATASEQ);
+        } else if (isElement(reader, RecordsHandler.ELEM_NAME_CLINICALDATA)) {
+            startContainer(reader, RecordsHandler.RECORD_ABBREV_CLINICALDATA);
+        } else if (isElement(reader, RecordsHandler.ELEM_NAME_REFERENCEDATA)) {
+            startContainer(reader, RecordsHandler.RECORD_ABBREV_REFDATA);
+        } else if (isElement(reader, RecordsHandler.ELEM_NAME_ODM)) {
+            // the ODM record is written at once, ahead of anything pending
+            final int pendingLength = this.records.length();
+            this.records.append(RecordsHandler.RECORD_ABBREV_ODM);
+            appendTrimmed(this.records, getAttributeValue(reader, RecordsHandler.ATTR_NAME_FILEOID));
+            this.records.append(this.lineSeparator);
+            sink.odmRecord(this.records.subSequence(pendingLength, this.records.length()));
+            this.records.setLength(pendingLength);
+        }
+    }
+
+    /**
+     * Handles the start of a ClinicalData or ReferenceData element, discarding any records pending.
+     *
+     * @param reader The reader, positioned at a START_ELEMENT event
+     * @param recordAbbrev The CSTK element abbreviation
+     */
+    private void startContainer(final XMLStreamReader reader, final String recordAbbrev) {
+        this.records.setLength(0);
+        this.containerRecord.setLength(0);
+        ++this.containerNumber;
+        appendRecord(this.containerRecord, reader, recordAbbrev, RecordsHandler.ATTR_NAME_STUDYOID,
+            RecordsHandler.ATTR_NAME_MDVOID);
+    }
+
+    /**
+     * Appends a record with two fields.
+     *
+     * @param sb The buffer to append to
+     * @param reader The reader, positioned at a START_ELEMENT event
+     * @param recordAbbrev The CSTK element abbreviation
+     * @param attrName1 The name of the attribute supplying the first field
+     * @param attrName2 The name of the attribute supplying the second field
+     */
+    private void appendRecord(final StringBuilder sb, final XMLStreamReader reader, final String recordAbbrev,
+        final String attrName1, final String attrName2) {
+        sb.append(recordAbbrev);
+        appendTrimmed(sb, getAttributeValue(reader, attrName1));
+        sb.append(RecordsHandler.RECORD_SEPARATOR);
+        appendTrimmed(sb, getAttributeValue(reader, attrName2));
+        sb.append(this.lineSeparator);
+    }
+
+    /**
+     * Appends a value without its leading and trailing whitespace, as String.trim() defines it, but without creating
+     * the trimmed String.
+     *
+     * @param sb The buffer to append to
+     * @param value The value; nothing is appended if null
+     */
+    private static void appendTrimmed(final StringBuilder sb, final String value) {
+        if (value == null) {
+            return;
+        }
+        int start = 0;
+        int end = value.length();
+        while ((start < end) && (value.charAt(start) <= ' ')) {
+            ++start;
+        }
+        while ((end > start) && (value.charAt(end - 1) <= ' ')) {
+            --end;
+        }
+        sb.append(value, start, end);
+    }
+
+    /**
+     * Determines whether the current element has the given name, as written in the document. A prefixed element never
+     * matches an unprefixed name.
+     *
+     * @param reader The reader, positioned at a START_ELEMENT or END_ELEMENT event
+     * @param name The unprefixed element name
+     * @return true if the element has that name
+     */
+    private static boolean isElement(final XMLStreamReader reader, final String name) {
+        final String prefix = reader.getPrefix();
+        return ((prefix == null) || (prefix.length() == 0)) && name.equals(reader.getLocalName());
+    }
+
+    /**
+     * Gets the value of the attribute having the given name, as written in the document.
+     *
+     * @param reader The reader, positioned at a START_ELEMENT event
+     * @param qName The attribute name, including any prefix
+     * @return The attribute value, or null if the element has no such attribute
+     */
+    private static String getAttributeValue(final XMLStreamReader reader, final String qName) {
+        for (int i = 0; i < reader.getAttributeCount(); ++i) {
+            final String prefix = reader.getAttributePrefix(i);
+            final String localName = reader.getAttributeLocalName(i);
+            if ((prefix == null) || (prefix.length() == 0)) {
+                if (qName.equals(localName)) {
+                    return reader.getAttributeValue(i);
+                }
+            } else if ((qName.length() == prefix.length() + 1 + localName.length()) && qName.startsWith(prefix)
+                && (qName.charAt(prefix.length()) == ':') && qName.endsWith(localName)) {
+                return reader.getAttributeValue(i);
+            }
+        }
+
+        return null;
+    }
+
+    /**
+     * Opens the Dataset-XML file, given either as a URL, such as file:///path, or as a file path.
+     *
+     * @param xmlFile The URL or path of the file
+     * @return A stream of the file content
+     * @throws IOException If the file could not be opened
+     */
+    private static InputStream openInput(final String xmlFile) throws IOException {
+        try {
+            return new URL(xmlFile).openStream();
+        } catch (final MalformedURLException e) {
+            return new FileInputStream(new File(xmlFile));
+        }
+    }
+}
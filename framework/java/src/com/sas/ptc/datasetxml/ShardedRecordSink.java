@@ -0,0 +1,162 @@
+package com.sas.ptc.datasetxml;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Copyright (c) 2022, SAS Institute Inc., Cary, NC, USA.  All Rights Reserved.
+ * SPDX-License-Identifier: Apache-2.0
+ *
+ * Writes the records of each ItemGroupOID to a flat file of its own, so that each domain can be read back without
+ * scanning the records of all others. Each shard has the same layout as the single flat file: the ODM record, then for
+ * each container the container record followed by the records of the item groups of that ItemGroupOID.
+ * <p>
+ * On close, a manifest is written listing, for each shard, the ItemGroupOID, the file name, the number of
+ * ItemGroupData elements and the file size in bytes, as [SHARD]ItemGroupOID|FileName|ItemGroupCount|ByteCount records.
+ */
+class ShardedRecordSink implements RecordSink {
+
+    /**
+     * The name of the manifest file within the output folder.
+     */
+    static final String MANIFEST_FILE_NAME = "manifest.txt";
+
+    static final String RECORD_ABBREV_SHARD = "[SHARD]";
+
+    private static final String SHARD_FILE_EXTENSION = ".txt";
+
+    private final String lineSeparator = System.getProperty("line.separator");
+    private final File outputFolder;
+    private final Map<String, Shard> shards = new LinkedHashMap<String, Shard>();
+    private final Set<String> fileNames = new HashSet<String>();
+    private String odmRecord;
+
+    /**
+     * A single shard file.
+     */
+    private static class Shard {
+        private final String fileName;
+        private final ChannelRecordWriter writer;
+        private int lastContainerNumber;
+        private long itemGroupCount;
+
+        Shard(final String fileName, final ChannelRecordWriter writer) {
+            this.fileName = fileName;
+            this.writer = writer;
+        }
+    }
+
+    /**
+     * Constructs a sink writing to the given folder, which must exist.
+     *
+     * @param outputFolder The folder receiving the shards and the manifest
+     */
+    ShardedRecordSink(final File outputFolder) {
+        this.outputFolder = outputFolder;
+        this.fileNames.add(MANIFEST_FILE_NAME);
+    }
+
+    @Override
+    public void odmRecord(final CharSequence record) throws IOException {
+        this.odmRecord = record.toString();
+    }
+
+    @Override
+    public void itemGroupEnded(final CharSequence records, final String itemGroupOID, final int containerNumber,
+        final CharSequence containerRecord) throws IOException {
+        final String key = (itemGroupOID != null) ? itemGroupOID : "";
+        Shard shard = this.shards.get(key);
+        if (shard == null) {
+            shard = openShard(key);
+        }
+        if (containerNumber != shard.lastContainerNumber) {
+            shard.writer.write(containerRecord);
+            shard.lastContainerNumber = containerNumber;
+        }
+        shard.writer.write(records);
+        ++shard.itemGroupCount;
+    }
+
+    /**
+     * Closes all shards, and writes the manifest.
+     *
+     * @throws IOException If a shard or the manifest could not be written
+     */
+    void close() throws IOException {
+        IOException closeException = null;
+        for (final Shard shard : this.shards.values()) {
+            try {
+                shard.writer.close();
+            } catch (final IOException e) {
+                if (closeException == null) {
+                    closeException = e;
+                }
+            }
+        }
+        if (closeException != null) {
+            throw closeException;
+        }
+
+        final ChannelRecordWriter manifest = new ChannelRecordWriter(
+            new File(this.outputFolder, MANIFEST_FILE_NAME).getPath());
+        try {
+            final StringBuilder sb = new StringBuilder();
+            for (final Map.Entry<String, Shard> entry : this.shards.entrySet()) {
+                final Shard shard = entry.getValue();
+                sb.setLength(0);
+                sb.append(RECORD_ABBREV_SHARD).append(entry.getKey());
+                sb.append(RecordsHandler.RECORD_SEPARATOR).append(shard.fileName);
+                sb.append(RecordsHandler.RECORD_SEPARATOR).append(shard.itemGroupCount);
+                sb.append(RecordsHandler.RECORD_SEPARATOR).append(shard.writer.getByteCount());
+                sb.append(this.lineSeparator);
+                manifest.write(sb);
+            }
+        } finally {
+            manifest.close();
+        }
+    }
+
+    /**
+     * Opens the shard of an ItemGroupOID not seen before, starting it with the ODM record.
+     *
+     * @param itemGroupOID The ItemGroupOID
+     * @return The shard
+     * @throws IOException If the shard file could not be created
+     */
+    private Shard openShard(final String itemGroupOID) throws IOException {
+        final String fileName = getFileName(itemGroupOID);
+        final Shard shard = new Shard(fileName,
+            new ChannelRecordWriter(new File(this.outputFolder, fileName).getPath()));
+        this.shards.put(itemGroupOID, shard);
+        if (this.odmRecord != null) {
+            shard.writer.write(this.odmRecord);
+        }
+
+        return shard;
+    }
+
+    /**
+     * Derives a file name from an ItemGroupOID, replacing characters that are not safe in file names on all platforms,
+     * and adding a suffix where that name, ignoring case, is already taken.
+     *
+     * @param itemGroupOID The ItemGroupOID
+     * @return The file name, unique within the output folder
+     */
+    private String getFileName(final String itemGroupOID) {
+        String baseName = itemGroupOID.replaceAll("[^A-Za-z0-9._-]", "_");
+        if (baseName.length() == 0) {
+            baseName = "_";
+        }
+        String fileName = baseName + SHARD_FILE_EXTENSION;
+        for (int i = 2; !this.fileNames.add(fileName.toLowerCase(Locale.ROOT)); ++i) {
+            fileName = baseName + "_" + i + SHARD_FILE_EXTENSION;
+        }
+
+        return fileName;
+    }
+}
@@ -0,0 +1,41 @@
+package com.sas.ptc.datasetxml;
+
+import java.io.IOException;
+import java.io.Writer;
+
+/**
+ * Copyright (c) 2022, SAS Institute Inc., Cary, NC, USA.  All Rights Reserved.
+ * SPDX-License-Identifier: Apache-2.0
+ *
+ * Writes all records to a single flat file, in the order RecordsHandler writes them: each container record is written
+ * just ahead of the records of the first ItemGroupData element ending within that container.
+ */
+class WriterRecordSink implements RecordSink {
+
+    private final Writer out;
+    private int lastContainerNumber;
+
+    /**
+     * Constructs a sink writing to the given writer.
+     *
+     * @param out The writer receiving the records
+     */
+    WriterRecordSink(final Writer out) {
+        this.out = out;
+    }
+
+    @Override
+    public void odmRecord(final CharSequence record) throws IOException {
+        this.out.append(record);
+    }
+
+    @Override
+    public void itemGroupEnded(final CharSequence records, final String itemGroupOID, final int containerNumber,
+        final CharSequence containerRecord) throws IOException {
+        if (containerNumber != this.lastContainerNumber) {
+            this.out.append(containerRecord);
+            this.lastContainerNumber = containerNumber;
+        }
+        this.out.append(records);
+    }
+}
@@ -5,8 +5,11 @@ import java.io.FileInputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
 import java.util.Iterator;
 import java.util.List;
+import java.util.Map;
 
 import javax.xml.parsers.ParserConfigurationException;
 
@@ -38,6 +41,13 @@ public class AvailableTransforms {
      */
     private final List<StandardTransformInfo> transformInfoList;
 
+    /**
+     * The transforms most recently read from each AvailableTransforms file, keyed by canonical path. Long-running
+     * processes, such as StandardXMLTransformService, create a new instance for every transform, and would otherwise
+     * re-read the file each time.
+     */
+    private static final Map<String, CachedTransformInfoList> TRANSFORMS_FILE_CACHE = new HashMap<>();
+
     private StandardXMLTransformerParams params;
 
     /**
@@ -152,8 +162,54 @@ public class AvailableTransforms {
      * @throws IOException
      */
     protected void readAvailableTransformsFile() throws ParserConfigurationException, SAXException, IOException {
+        final File f = new File(getParams().getAvailableTransformsFilePath()).getCanonicalFile();
+        final long lastModified = f.lastModified();
+        final List<StandardTransformInfo> cachedList = getCachedTransformInfoList(f.getPath(), lastModified);
+        if (cachedList != null) {
+            this.transformInfoList.addAll(cachedList);
+            return;
+        }
+
         final Document doc = getAvailableTransformsDocument();
         populateAvailableTransforms(doc);
+        putCachedTransformInfoList(f.getPath(), lastModified, this.transformInfoList);
+    }
+
+    /**
+     * Gets the transforms last read from the AvailableTransforms file at the given path, provided the file has not been
+     * modified since.
+     * 
+     * @param canonicalPath The canonical path to the AvailableTransforms file
+     * @param lastModified The current modification time of the file
+     * @return The transforms read from the file, or null if the file has not been read or has since been modified
+     */
+    private static List<StandardTransformInfo> getCachedTransformInfoList(final String canonicalPath,
+        final long lastModified) {
+        synchronized (TRANSFORMS_FILE_CACHE) {
+            final CachedTransformInfoList cached = TRANSFORMS_FILE_CACHE.get(canonicalPath);
+            if ((cached != null) && (lastModified != 0L) && (cached.lastModified == lastModified)) {
+                return cached.transformInfoList;
+            }
+        }
+
+        return null;
+    }
+
+    /**
+     * Records the transforms read from the AvailableTransforms file at the given path, so that other instances within
+     * this JVM need not read the file again until it is modified.
+     * 
+     * @param canonicalPath The canonical path to the AvailableTransforms file
+     * @param lastModified The modification time of the file when it was read
+     * @param transformInfoList The transforms read from the file
+     */
+    private static void putCachedTransformInfoList(final String canonicalPath, final long lastModified,
+        final List<StandardTransformInfo> transformInfoList) {
+        if (lastModified != 0L) {
+            synchronized (TRANSFORMS_FILE_CACHE) {
+                TRANSFORMS_FILE_CACHE.put(canonicalPath, new CachedTransformInfoList(lastModified, transformInfoList));
+            }
+        }
     }
 
     /**
@@ -237,4 +293,18 @@ public class AvailableTransforms {
     protected void setParams(final StandardXMLTransformerParams params) {
         this.params = params;
     }
+
+    /**
+     * The transforms read from an AvailableTransforms file, together with the modification time of the file when it was
+     * read. The StandardTransformInfo objects are shared by every instance reading the same file, and are not modified.
+     */
+    private static final class CachedTransformInfoList {
+        private final long lastModified;
+        private final List<StandardTransformInfo> transformInfoList;
+
+        CachedTransformInfoList(final long lastModified, final List<StandardTransformInfo> transformInfoList) {
+            this.lastModified = lastModified;
+            this.transformInfoList = Collections.unmodifiableList(new ArrayList<>(transformInfoList));
+        }
+    }
 }
@@ -1,5 +1,7 @@
 package com.sas.ptc.transform.xml;
 
+import java.util.Locale;
+
 import org.w3c.dom.Element;
 
 import com.sas.ptc.util.xml.DOMUtils;
@@ -28,6 +30,32 @@ public class StandardTransformInfo {
     private static final String EXPORT_XSL_LOCATION_ELEMENT_NAME = "ExportXSL";
     private static final String SCHEMA_LOCATION_ELEMENT_NAME = "Schema";
     private static final String DEFAULT_STYLESHEET_ELEMENT_NAME = "DefaultStylesheet";
+    private static final String IMPORT_ENGINE_ELEMENT_NAME = "ImportEngine";
+
+    /**
+     * The import engine running the whole document through the import XSL; the default.
+     */
+    public static final String XSL_ENGINE = "xsl";
+
+    /**
+     * The import engine reading the ClinicalData of an ODM 1.3 document with a streaming parser, and the rest of the
+     * document with the import XSL. The rows it writes from the ClinicalData have the columns of the import XSL of
+     * ODM 1.3.0, 1.3.1 or 1.3.2, according to the standard version; it does not run customizations of that XSL.
+     */
+    public static final String STREAMING_ENGINE = "streaming";
+
+    /**
+     * The import engine transforming the ClinicalData of an ODM 1.3 document with the import XSL a few subjects at a
+     * time, and the rest of the document as a whole.
+     */
+    public static final String CHUNKED_ENGINE = "chunked";
+
+    /**
+     * The import engine chosen before each import from the memory available: for ODM 1.3, the first of XSL_ENGINE,
+     * CHUNKED_ENGINE and STREAMING_ENGINE estimated to fit, STREAMING_ENGINE excepted for ODM 1.3.0; for other
+     * standards, and for any if planningMemory is false, XSL_ENGINE.
+     */
+    public static final String AUTO_ENGINE = "auto";
 
     private String standardName;
     private String standardVersion;
@@ -35,6 +63,7 @@ public class StandardTransformInfo {
     private String exportXSLSubPath;
     private String schemaSubPath;
     private String defaultStylesheet;
+    private String importEngine;
 
     /**
      * Constructs an instance based on an element in the XML format for specifying the set of transforms available to
@@ -49,6 +78,7 @@ public class StandardTransformInfo {
         setExportXSLSubPath(DOMUtils.getFirstSubelementValue(transformElement, EXPORT_XSL_LOCATION_ELEMENT_NAME));
         setSchemaSubPath(DOMUtils.getFirstSubelementValue(transformElement, SCHEMA_LOCATION_ELEMENT_NAME));
         setDefaultStylesheet(DOMUtils.getFirstSubelementValue(transformElement, DEFAULT_STYLESHEET_ELEMENT_NAME));
+        setImportEngine(DOMUtils.getFirstSubelementValue(transformElement, IMPORT_ENGINE_ELEMENT_NAME));
     }
 
     /**
@@ -199,6 +229,26 @@ public class StandardTransformInfo {
         this.defaultStylesheet = defaultStylesheet;
     }
 
+    /**
+     * The engine importing a standard XML file: XSL_ENGINE, STREAMING_ENGINE, CHUNKED_ENGINE or AUTO_ENGINE, from the
+     * optional ImportEngine element.
+     * 
+     * @return The import engine, XSL_ENGINE if none is given
+     */
+    public String getImportEngine() {
+        return ((importEngine == null) || (importEngine.trim().length() == 0)) ? XSL_ENGINE
+            : importEngine.trim().toLowerCase(Locale.ENGLISH);
+    }
+
+    /**
+     * Sets the engine importing a standard XML file.
+     * 
+     * @param importEngine The import engine, or null for XSL_ENGINE
+     */
+    public void setImportEngine(final String importEngine) {
+        this.importEngine = importEngine;
+    }
+
     /**
      * Returns a string containing the identifying standard name and version.
      * 
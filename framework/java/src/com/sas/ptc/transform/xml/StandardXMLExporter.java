@@ -3,12 +3,32 @@ package com.sas.ptc.transform.xml;
 import java.io.File;
 import java.io.IOException;
 import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
 
 import javax.xml.parsers.ParserConfigurationException;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.transform.TransformerException;
+import javax.xml.validation.Schema;
 
 import org.xml.sax.SAXException;
 
+import com.sas.ptc.transform.xml.cache.ExportManifest;
+import com.sas.ptc.transform.xml.log.ValidationErrorHandler;
+import com.sas.ptc.transform.xml.metrics.PhaseMetrics;
+import com.sas.ptc.transform.xml.metrics.TransformMetrics;
+import com.sas.ptc.transform.xml.plan.EnginePlan;
+import com.sas.ptc.transform.xml.plan.EnginePlanner;
+import com.sas.ptc.util.ContentDigest;
 import com.sas.ptc.util.FileUtils;
+import com.sas.ptc.util.xml.SchemaCache;
+import com.sas.ptc.util.xml.SectionTemplatesCache;
+import com.sas.ptc.util.xml.SectionedXSLTransform;
+import com.sas.ptc.util.xml.TemplatesCache;
 import com.sas.ptc.util.xml.XSLTransform;
 
 /**
@@ -19,6 +39,20 @@ import com.sas.ptc.util.xml.XSLTransform;
  */
 public class StandardXMLExporter extends StandardXMLTransformer {
 
+    /**
+     * The suffix added to the path of the output to name the manifest of an incremental export.
+     */
+    public static final String MANIFEST_FILE_SUFFIX = ".manifest";
+
+    /**
+     * The parameters that cannot change the output of an export, and so are not inputs of an incremental export.
+     */
+    private static final List<String> NON_OUTPUT_PARAMETERS = Arrays.asList("creatingFoldersForOutput",
+        "logFilePath", "logLevel", "streamingLog", "aggregatingValidationMessages", "maxValidationMillis",
+        "metricsFilePath", "registeringMetricsMBeans", "flightRecordingFilePath", "flightRecordingSettings",
+        "validationCachePath", "validationCacheMaxBytes", "validationCacheMaxAgeDays", "overridingLogTimestampDate",
+        "logTimestampDateOverrideValue", "exportSections", "exportThreads", "planningMemory");
+
     /**
      * Constructs an exporter configured to the provided parameters.
      * 
@@ -37,11 +71,16 @@ public class StandardXMLExporter extends StandardXMLTransformer {
      */
     @Override
     public void exec() {
+        resetEnginePlan();
+        setOutputProduced(false);
+        initMetrics();
         initLog();
 
         if (getParams().isCreatingFoldersForOutput()) {
             createOutputFolders();
         }
+        openLog();
+        startFlightRecording();
 
         try {
             getLog().logInfo("Transform starting.");
@@ -49,7 +88,20 @@ public class StandardXMLExporter extends StandardXMLTransformer {
             getLog().logParameters(getParams());
 
             final boolean paramsValid = validateParameters();
-            if (paramsValid) {
+            final ExportManifest manifest = paramsValid ? createExportManifest() : null;
+            final boolean upToDate = (manifest != null) && isExportUpToDate(manifest);
+            if (upToDate) {
+                setOutputProduced(true);
+                getLog().logInfo("The export was skipped, as its inputs and output are unchanged since the export "
+                    + "recorded in " + getExportManifestFile() + ".");
+            } else if (paramsValid && getParams().isValidatingStandardXML() && getParams().isValidatingInline()
+                && !getParams().isValidatingXMLOnly()) {
+                final String schemaPath = getFullValidatingSchemaPath();
+                if (schemaPath != null) {
+                    runValidatingTransform(getTransformInputPath(),
+                        getAvailableTransforms().getXSLFileToInvoke(getParams()), getTransformOutputPath(), schemaPath);
+                }
+            } else if (paramsValid) {
                 if (!getParams().isValidatingXMLOnly()) {
                     runTransform(getTransformInputPath(), getAvailableTransforms().getXSLFileToInvoke(getParams()),
                         getTransformOutputPath());
@@ -68,8 +120,15 @@ public class StandardXMLExporter extends StandardXMLTransformer {
                     }
                 }
             }
+
+            if ((manifest != null) && !upToDate) {
+                writeExportManifest(manifest);
+            }
         } catch (final Throwable t) {
             getLog().logError(t);
+        } finally {
+            // stopped here, as writeLog would, so that a failure to write the log cannot leave it running
+            stopFlightRecording();
         }
 
         try {
@@ -79,6 +138,296 @@ public class StandardXMLExporter extends StandardXMLTransformer {
         }
     }
 
+    /**
+     * Runs the XML transformation, validating the output against the schema as it is written. The output file is not
+     * re-read for validation. If the schema cannot be compiled, the transform is run without validation. The output is
+     * written to a temporary file alongside the result file, and replaces the result file only if the transform
+     * completed, and the output was valid or failOnValidationError is false; if the validation reaches the configured
+     * maximum number of errors or time, the transform is stopped and its incomplete output discarded.
+     * 
+     * @param sourcePath The absolute path to the source XML file.
+     * @param xslPath The absolute path to the XSL file describing the transform.
+     * @param resultPath The absolute path to the desired results file.
+     * @param schemaPath The W3C XML Schema file against which the output will be validated.
+     */
+    protected void runValidatingTransform(final String sourcePath, final String xslPath, final String resultPath,
+        final String schemaPath) {
+        getLog().logParameter("XML File to Validate", resultPath);
+        getLog().logParameter("Schema being validated against", schemaPath);
+
+        final Schema schema = getInlineValidatingSchema(schemaPath);
+        if (schema == null) {
+            runTransform(sourcePath, xslPath, resultPath);
+            return;
+        }
+        if (!planTransform(sourcePath)) {
+            return;
+        }
+
+        final File resultFile = new File(resultPath).getAbsoluteFile();
+        final ValidationErrorHandler errorHandler = createValidationErrorHandler();
+        File tempFile = null;
+        boolean completed = false;
+        try {
+            tempFile = File.createTempFile(resultFile.getName() + ".", ".tmp", resultFile.getParentFile());
+
+            final XSLTransform tformer = createXSLTransform();
+            tformer.setSourceXmlPath(sourcePath);
+            tformer.setXsltPath(xslPath);
+            tformer.setOutputXmlPath(tempFile.getPath());
+
+            configureTransformer(tformer);
+
+            final long startTime = System.currentTimeMillis();
+            compileStylesheet(tformer);
+            errorHandler.startTimer();
+            final PhaseMetrics phase = getMetrics().start(TransformMetrics.TRANSFORM, sourcePath);
+            try {
+                tformer.doResultValidatingTransform(schema, errorHandler);
+            } finally {
+                stopTransformPhase(phase, tformer);
+            }
+            final long finishTime = System.currentTimeMillis();
+            completed = true;
+
+            getLog().logInfo("Transform complete.");
+            getLog().logInfo("Transform time: " + (finishTime - startTime) + " ms.");
+            getLog().logInfo("Stylesheet cache: " + TemplatesCache.getInstance() + ".");
+            logValidationOutcome(errorHandler);
+        } catch (final TransformerException e) {
+            if (errorHandler.isLimitReached()) {
+                // the error handler stopped the transform, and has already logged why
+                getLog().logWarning("The transform output was discarded because validation was stopped.");
+                logValidationOutcome(errorHandler);
+            } else {
+                getLog().logError(e);
+                errorHandler.flush();
+            }
+        } catch (final IOException e) {
+            getLog().logError(e);
+            errorHandler.flush();
+        }
+
+        if (tempFile != null) {
+            try {
+                if (completed && (errorHandler.isValid() || !getParams().getFailOnValidationError())) {
+                    Files.move(tempFile.toPath(), resultFile.toPath(), StandardCopyOption.REPLACE_EXISTING);
+                    setOutputProduced(true);
+                } else {
+                    if (completed) {
+                        getLog().logWarning(
+                            "The transform output was discarded because the document failed validation.");
+                    }
+                    Files.deleteIfExists(tempFile.toPath());
+                }
+            } catch (final IOException e) {
+                getLog().logError(e);
+            }
+        }
+    }
+
+    /**
+     * Estimates the memory the export needs, and, if export sections are set, chooses how many of them can be
+     * transformed concurrently, or whether the document is to be transformed as a whole.
+     * 
+     * @param planner The planner, for the memory available
+     * @param source The SAS XML file
+     * @return The plan
+     */
+    @Override
+    protected EnginePlan createEnginePlan(final EnginePlanner planner, final File source) {
+        return planner.planExport(source, getExportSections().size(), getParams().getExportThreads());
+    }
+
+    /**
+     * Creates the object running the XSL transformation: one transforming the export sections concurrently, if any
+     * are set, with the number of threads chosen by planTransform, unless it chose to transform the document as a
+     * whole.
+     * 
+     * @return A new, unconfigured XSLTransform object
+     */
+    @Override
+    protected XSLTransform createXSLTransform() {
+        final List<String> sections = getExportSections();
+        final EnginePlan plan = getEnginePlan();
+        if (sections.isEmpty() || ((plan != null) && !EnginePlanner.SECTIONED_ENGINE.equals(plan.getEngine()))) {
+            return super.createXSLTransform();
+        }
+
+        final SectionedXSLTransform tformer = new SectionedXSLTransform();
+        tformer.setSections(sections);
+        tformer.setThreadCount((plan != null) ? plan.getThreadCount() : getParams().getExportThreads());
+
+        return tformer;
+    }
+
+    /**
+     * Gets the names of the export section templates set by the exportSections parameter.
+     * 
+     * @return The names of the section templates, or an empty list if the document is transformed as a whole
+     */
+    protected List<String> getExportSections() {
+        final String exportSections = getParams().getExportSections();
+        if ((exportSections == null) || (exportSections.trim().length() == 0)) {
+            return Collections.emptyList();
+        }
+
+        return Arrays.asList(exportSections.trim().split("\\s+"));
+    }
+
+    /**
+     * Gets the manifest file of an incremental export, next to its output.
+     * 
+     * @return The manifest file
+     */
+    protected File getExportManifestFile() {
+        return new File(getTransformOutputPath() + MANIFEST_FILE_SUFFIX).getAbsoluteFile();
+    }
+
+    /**
+     * Creates the manifest of an incremental export, holding the digests of its declared inputs: the code, the
+     * parameters that may change the output, the available transforms file, the source and any custom display
+     * stylesheet. Any failure to digest them is logged as a warning, and the export is then not incremental.
+     * 
+     * @return The manifest, or null if the export is not incremental
+     */
+    protected ExportManifest createExportManifest() {
+        if (!getParams().isIncrementalExport() || getParams().isValidatingXMLOnly()) {
+            return null;
+        }
+
+        final ExportManifest manifest = new ExportManifest();
+        try {
+            manifest.addValue(ExportManifest.CODE, ExportManifest.getCodeDigest());
+            manifest.addValue(ExportManifest.PARAMETERS, getOutputParametersDigest());
+            manifest.addFile(ExportManifest.AVAILABLE_TRANSFORMS,
+                new File(getParams().getAvailableTransformsFilePath()));
+            manifest.addFile(ExportManifest.SOURCE, new File(getTransformInputPath()));
+            final String customStylesheetPath = getParams().getCustomStylesheetPath();
+            if (getParams().isCreatingDisplayStylesheet() && (customStylesheetPath != null)
+                && (customStylesheetPath.length() > 0)) {
+                manifest.addFile(ExportManifest.CUSTOM_STYLESHEET, new File(customStylesheetPath));
+            }
+        } catch (final IOException e) {
+            getLog().logWarning("The export is not incremental: " + e.getMessage());
+            return null;
+        }
+
+        return manifest;
+    }
+
+    /**
+     * Digests the parameters that may change the output of the export. Unless overridingCreationDate is true, the
+     * creation date override value is left out as well, since the creation date is then not an input.
+     * 
+     * @return The digest of the parameters
+     */
+    private String getOutputParametersDigest() {
+        final ContentDigest digest = new ContentDigest();
+        for (final Map.Entry<String, String> param : getParams().getConfigParams().entrySet()) {
+            final String name = param.getKey();
+            if (NON_OUTPUT_PARAMETERS.contains(name)
+                || ("creationDateOverrideValue".equals(name) && !getParams().isOverridingCreationDate())) {
+                continue;
+            }
+            digest.update(name);
+            digest.update(param.getValue());
+        }
+
+        return digest.toHexString();
+    }
+
+    /**
+     * Checks the manifest of the last export against the declared inputs of this one, and the files it recorded
+     * against their current contents. Which input changed, if any did, is logged.
+     * 
+     * @param manifest The manifest of this export, holding its declared inputs
+     * @return Whether the export can be skipped
+     */
+    protected boolean isExportUpToDate(final ExportManifest manifest) {
+        final File manifestFile = getExportManifestFile();
+        final PhaseMetrics phase = getMetrics().start(TransformMetrics.MANIFEST_CHECK, manifestFile.getPath());
+        try {
+            final ExportManifest recorded = ExportManifest.read(manifestFile);
+            if (recorded == null) {
+                getLog().logInfo("The export is run, as no export was recorded in " + manifestFile + ".");
+                return false;
+            }
+            final String change = manifest.findChange(recorded);
+            if (change != null) {
+                getLog().logInfo("The export is run, as its " + change + " changed since the last export.");
+                return false;
+            }
+
+            return true;
+        } catch (final IOException e) {
+            getLog().logWarning("The export manifest could not be read: " + e.getMessage());
+        } catch (final XMLStreamException e) {
+            getLog().logWarning("The export manifest could not be read: " + e.getMessage());
+        } finally {
+            phase.stop(TransformMetrics.getFileLength(manifestFile.getPath()), 0);
+        }
+
+        return false;
+    }
+
+    /**
+     * Completes the manifest with the stylesheets and schema documents read and the files written, and writes it. If
+     * errors were logged, no manifest is written and any earlier one is deleted, so that the next export runs again.
+     * 
+     * @param manifest The manifest of this export, holding its declared inputs
+     */
+    protected void writeExportManifest(final ExportManifest manifest) {
+        final File manifestFile = getExportManifestFile();
+        try {
+            if (getLog().getErrorCount() > 0) {
+                if (manifestFile.delete()) {
+                    getLog().logInfo("The export manifest was deleted, as errors were logged.");
+                }
+                return;
+            }
+
+            final String xslPath = getAvailableTransforms().getXSLFileToInvoke(getParams());
+            final List<String> sections = getExportSections();
+            final List<File> stylesheets = sections.isEmpty() ? TemplatesCache.getInstance().getDependencies(xslPath)
+                : SectionTemplatesCache.getInstance(sections).getDependencies(xslPath);
+            if (stylesheets.isEmpty()) {
+                manifestFile.delete();
+                return;
+            }
+            for (final File stylesheet : stylesheets) {
+                manifest.addFile(ExportManifest.STYLESHEET, stylesheet);
+            }
+            if (getParams().isValidatingStandardXML()) {
+                final String schemaPath = getFullValidatingSchemaPath();
+                final List<File> schemas = (schemaPath == null) ? null
+                    : SchemaCache.getInstance().getDependencies(schemaPath);
+                if ((schemas == null) || schemas.isEmpty()) {
+                    manifestFile.delete();
+                    return;
+                }
+                for (final File schema : schemas) {
+                    manifest.addFile(ExportManifest.SCHEMA, schema);
+                }
+            }
+            manifest.addFile(ExportManifest.OUTPUT, new File(getTransformOutputPath()));
+            final String stylesheetName = getParams().getOutputStylesheetName();
+            if (getParams().isCreatingDisplayStylesheet() && (stylesheetName != null)
+                && (stylesheetName.trim().length() > 0)) {
+                manifest.addFile(ExportManifest.OUTPUT,
+                    new File(new File(getTransformOutputPath()).getAbsoluteFile().getParentFile(), stylesheetName));
+            }
+
+            manifest.write(manifestFile);
+        } catch (final TransformNotFoundException e) {
+            getLog().logWarning("The export manifest could not be written: " + e.getMessage());
+        } catch (final IOException e) {
+            getLog().logWarning("The export manifest could not be written: " + e.getMessage());
+        } catch (final XMLStreamException e) {
+            getLog().logWarning("The export manifest could not be written: " + e.getMessage());
+        }
+    }
+
     /**
      * Gets the path to the output file for the transform, regardless of whether the transform is a standards import or
      * export.
@@ -130,6 +479,7 @@ public class StandardXMLExporter extends StandardXMLTransformer {
      * Method createDisplayStylesheet.
      */
     protected void createDisplayStylesheet() {
+        final PhaseMetrics phase = getMetrics().start(TransformMetrics.STYLESHEET_COPY);
 
         final String customSourcePath = getParams().getCustomStylesheetPath();
         if ((customSourcePath == null) || (customSourcePath.length() == 0)) {
@@ -141,6 +491,14 @@ public class StandardXMLExporter extends StandardXMLTransformer {
                 createCustomStylesheet(sourceFile);
             }
         }
+
+        long copiedLength = 0;
+        final String destName = getParams().getOutputStylesheetName();
+        if ((destName != null) && (destName.trim().length() > 0)) {
+            final File outputFolder = new File(getParams().getStandardXMLPath()).getParentFile();
+            copiedLength = new File(outputFolder, destName).length();
+        }
+        phase.stop(copiedLength, copiedLength);
     }
 
     /**
@@ -1,10 +1,31 @@
 package com.sas.ptc.transform.xml;
 
+import java.io.File;
 import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
 
 import javax.xml.parsers.ParserConfigurationException;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.transform.TransformerException;
+import javax.xml.validation.Schema;
 
 import org.xml.sax.SAXException;
+import org.xml.sax.SAXParseException;
+
+import com.sas.ptc.transform.xml.log.ValidationErrorHandler;
+import com.sas.ptc.transform.xml.metrics.PhaseMetrics;
+import com.sas.ptc.transform.xml.metrics.TransformMetrics;
+import com.sas.ptc.transform.xml.odm.ClinicalDataChunkedTransform;
+import com.sas.ptc.transform.xml.odm.ClinicalDataStreamingTransform;
+import com.sas.ptc.transform.xml.plan.EnginePlan;
+import com.sas.ptc.transform.xml.plan.EnginePlanner;
+import com.sas.ptc.util.TimeLimitExceededException;
+import com.sas.ptc.util.xml.TemplatesCache;
+import com.sas.ptc.util.xml.XSLTransform;
 
 /**
  * Copyright (c) 2022, SAS Institute Inc., Cary, NC, USA.  All Rights Reserved.
@@ -14,6 +35,16 @@ import org.xml.sax.SAXException;
  */
 public class StandardXMLImporter extends StandardXMLTransformer {
 
+    /**
+     * The name of the standard whose ClinicalData the chunked and streaming import engines split.
+     */
+    private static final String ODM_STANDARD_NAME = "ODM";
+
+    /**
+     * The versions of ODM whose documents the chunked and streaming import engines split.
+     */
+    private static final List<String> SPLIT_ODM_VERSIONS = Arrays.asList("1.3.0", "1.3.1", "1.3.2");
+
     /**
      * Constructs an importer configured to the provided parameters.
      * 
@@ -31,44 +62,243 @@ public class StandardXMLImporter extends StandardXMLTransformer {
      */
     @Override
     public void exec() throws TransformNotFoundException {
+        resetEnginePlan();
+        setOutputProduced(false);
+        initMetrics();
         initLog();
 
         if (getParams().isCreatingFoldersForOutput()) {
             createOutputFolders();
         }
+        openLog();
+        startFlightRecording();
 
-        getLog().logInfo("Transform starting.");
-        getLog().logInfo("Using JRE: " + System.getProperty("java.home"));
-        getLog().logParameters(getParams());
-        boolean isValid = true;
-
-        if (getParams().isValidatingStandardXML()) {
-            final String schemaPath = getFullValidatingSchemaPath();
-            if (schemaPath != null) {
-                try {
-                    validateStandardXML(getTransformInputPath(), schemaPath);
-                } catch (final SAXException e) {
-                    isValid = false;
-                    getLog().logError(e);
-                } catch (final IOException e) {
-                    isValid = false;
-                    getLog().logError(e);
+        try {
+            getLog().logInfo("Transform starting.");
+            getLog().logInfo("Using JRE: " + System.getProperty("java.home"));
+            getLog().logParameters(getParams());
+            boolean isValid = true;
+
+            if (getParams().isValidatingStandardXML() && getParams().isValidatingInline()
+                && !getParams().isValidatingXMLOnly()) {
+                final String schemaPath = getFullValidatingSchemaPath();
+                if (schemaPath != null) {
+                    runValidatingTransform(getTransformInputPath(),
+                        getAvailableTransforms().getXSLFileToInvoke(getParams()), getTransformOutputPath(), schemaPath);
+                }
+            } else {
+                if (getParams().isValidatingStandardXML()) {
+                    final String schemaPath = getFullValidatingSchemaPath();
+                    if (schemaPath != null) {
+                        try {
+                            isValid = validateStandardXML(getTransformInputPath(), schemaPath);
+                        } catch (final SAXException e) {
+                            isValid = false;
+                            getLog().logError(e);
+                        } catch (final IOException e) {
+                            isValid = false;
+                            getLog().logError(e);
+                        }
+                    }
+                }
+
+                if (isValid || (!isValid && !getParams().getFailOnValidationError())) {
+                    if (!getParams().isValidatingXMLOnly()) {
+                        runTransform(getTransformInputPath(), getAvailableTransforms().getXSLFileToInvoke(getParams()),
+                            getTransformOutputPath());
+                    }
                 }
             }
+
+            try {
+                writeLog();
+            } catch (final ParserConfigurationException e) {
+                e.printStackTrace();
+            }
+        } finally {
+            // a failure before the log is written must not leave the recording running
+            stopFlightRecording();
+        }
+    }
+
+    /**
+     * Runs the XML transformation, validating the source file against the schema in the same pass. The source file is
+     * read only once. The output is written to a temporary file alongside the result file, and replaces the result
+     * file only if the source was valid or failOnValidationError is false; otherwise it is discarded.
+     * 
+     * @param sourcePath The absolute path to the source XML file.
+     * @param xslPath The absolute path to the XSL file describing the transform.
+     * @param resultPath The absolute path to the desired results file.
+     * @param schemaPath The W3C XML Schema file against which the source will be validated.
+     */
+    protected void runValidatingTransform(final String sourcePath, final String xslPath, final String resultPath,
+        final String schemaPath) {
+        getLog().logParameter("XML File to Validate", sourcePath);
+        getLog().logParameter("Schema being validated against", schemaPath);
+
+        final Schema schema = getInlineValidatingSchema(schemaPath);
+        if (schema == null) {
+            // without a schema, fall back to the behavior of a failed separate validation pass
+            if (!getParams().getFailOnValidationError()) {
+                runTransform(sourcePath, xslPath, resultPath);
+            }
+            return;
+        }
+        if (!planTransform(sourcePath)) {
+            return;
+        }
+
+        final File resultFile = new File(resultPath).getAbsoluteFile();
+        final ValidationErrorHandler errorHandler = createValidationErrorHandler();
+        File tempFile = null;
+        boolean completed = false;
+        try {
+            tempFile = File.createTempFile(resultFile.getName() + ".", ".tmp", resultFile.getParentFile());
+
+            final XSLTransform tformer = createXSLTransform();
+            tformer.setSourceXmlPath(sourcePath);
+            tformer.setXsltPath(xslPath);
+            tformer.setOutputXmlPath(tempFile.getPath());
+
+            configureTransformer(tformer);
+
+            final long startTime = System.currentTimeMillis();
+            compileStylesheet(tformer);
+            errorHandler.startTimer();
+            tformer.setSourceTimeLimitMillis(errorHandler.getRemainingTimeMillis());
+            final PhaseMetrics phase = getMetrics().start(TransformMetrics.TRANSFORM, sourcePath);
+            try {
+                tformer.doSourceValidatingTransform(schema, errorHandler);
+            } finally {
+                stopTransformPhase(phase, tformer);
+            }
+            final long finishTime = System.currentTimeMillis();
+            completed = true;
+
+            getLog().logInfo("Transform complete.");
+            getLog().logInfo("Transform time: " + (finishTime - startTime) + " ms.");
+            getLog().logInfo("Stylesheet cache: " + TemplatesCache.getInstance() + ".");
+        } catch (final SAXParseException e) {
+            // a well-formedness error, or a validation limit reached, already reported to the error handler
+        } catch (final SAXException e) {
+            getLog().logError(e);
+        } catch (final TransformerException e) {
+            getLog().logError(e);
+        } catch (final TimeLimitExceededException e) {
+            errorHandler.timeLimitReached();
+        } catch (final IOException e) {
+            getLog().logError(e);
         }
 
-        if (isValid || (!isValid && !getParams().getFailOnValidationError())) {
-            if (!getParams().isValidatingXMLOnly()) {
-                runTransform(getTransformInputPath(), getAvailableTransforms().getXSLFileToInvoke(getParams()),
-                    getTransformOutputPath());
+        logValidationOutcome(errorHandler);
+
+        if (tempFile != null) {
+            try {
+                if (completed && (errorHandler.isValid() || !getParams().getFailOnValidationError())) {
+                    Files.move(tempFile.toPath(), resultFile.toPath(), StandardCopyOption.REPLACE_EXISTING);
+                    setOutputProduced(true);
+                } else {
+                    if (completed) {
+                        getLog().logWarning(
+                            "The transform output was discarded because the document failed validation.");
+                    }
+                    Files.deleteIfExists(tempFile.toPath());
+                }
+            } catch (final IOException e) {
+                getLog().logError(e);
             }
         }
+    }
+
+    /**
+     * Estimates the memory the import engine given by the AvailableTransforms file needs, or, if it gives the auto
+     * engine, chooses the first of the engines of the standard, as given by getAutoImportEngines, estimated to fit.
+     * 
+     * @param planner The planner, for the memory available
+     * @param source The standard XML file
+     * @return The plan
+     * @throws IOException If the source could not be read
+     * @throws XMLStreamException If the source had to be read, and is not well-formed
+     */
+    @Override
+    protected EnginePlan createEnginePlan(final EnginePlanner planner, final File source)
+        throws IOException, XMLStreamException {
+        String engine = StandardTransformInfo.XSL_ENGINE;
+        try {
+            engine = getCurrentTransformInfo().getImportEngine();
+        } catch (final TransformNotFoundException e) {
+            // the transform is then not run
+        }
+        final List<String> engines = StandardTransformInfo.AUTO_ENGINE.equals(engine)
+            ? getAutoImportEngines(getParams().getStandardName(), getParams().getStandardVersion())
+            : Collections.singletonList(engine);
+
+        return planner.planImport(source, engines, getParams().getImportChunkSubjects(),
+            getParams().getImportThreads());
+    }
+
+    /**
+     * Gets the engines the auto import engine chooses among for a standard, in order of preference. The chunked and
+     * streaming engines split ODM 1.3 documents only; the streaming engine, which writes the rows of the ClinicalData
+     * itself rather than with the import XSL, is left out for ODM 1.3.0. Other standards are imported with the XSL
+     * engine.
+     * 
+     * @param standardName The name of the standard
+     * @param standardVersion The version of the standard
+     * @return The engines
+     */
+    protected static List<String> getAutoImportEngines(final String standardName, final String standardVersion) {
+        final String version = (standardVersion == null) ? "" : standardVersion.trim();
+        if ((standardName == null) || !ODM_STANDARD_NAME.equalsIgnoreCase(standardName.trim())
+            || !SPLIT_ODM_VERSIONS.contains(version)) {
+            return Collections.singletonList(StandardTransformInfo.XSL_ENGINE);
+        }
+        if (ClinicalDataStreamingTransform.ODM_1_3_0_VERSION.equals(version)) {
+            return Arrays.asList(StandardTransformInfo.XSL_ENGINE, StandardTransformInfo.CHUNKED_ENGINE);
+        }
 
+        return Arrays.asList(StandardTransformInfo.XSL_ENGINE, StandardTransformInfo.CHUNKED_ENGINE,
+            StandardTransformInfo.STREAMING_ENGINE);
+    }
+
+    /**
+     * Creates the object running the XSL transformation: one reading the ClinicalData elements with a streaming parser,
+     * if the AvailableTransforms file gives the streaming import engine for the standard, or one transforming them a
+     * chunk of subjects at a time, if it gives the chunked import engine. If it gives the auto engine, the engine is
+     * the one chosen by planTransform, or the XSL engine if the transform was not planned.
+     * 
+     * @return A new, unconfigured XSLTransform object
+     */
+    @Override
+    protected XSLTransform createXSLTransform() {
+        String engine = StandardTransformInfo.XSL_ENGINE;
         try {
-            writeLog();
-        } catch (final ParserConfigurationException e) {
-            e.printStackTrace();
+            engine = getCurrentTransformInfo().getImportEngine();
+        } catch (final TransformNotFoundException e) {
+            // the transform is then not run
+        }
+        if (getEnginePlan() != null) {
+            engine = getEnginePlan().getEngine();
+        } else if (StandardTransformInfo.AUTO_ENGINE.equals(engine)) {
+            engine = StandardTransformInfo.XSL_ENGINE;
+        }
+        getLog().logInfo("Import engine: " + engine + ".");
+        if (StandardTransformInfo.STREAMING_ENGINE.equals(engine)) {
+            final ClinicalDataStreamingTransform tformer = new ClinicalDataStreamingTransform();
+            tformer.setStandardVersion(getParams().getStandardVersion());
+            return tformer;
         }
+        if (StandardTransformInfo.CHUNKED_ENGINE.equals(engine)) {
+            final ClinicalDataChunkedTransform tformer = new ClinicalDataChunkedTransform();
+            tformer.setSubjectsPerChunk(getParams().getImportChunkSubjects());
+            tformer.setThreadCount(getParams().getImportThreads());
+            return tformer;
+        }
+        if (!StandardTransformInfo.XSL_ENGINE.equals(engine)) {
+            getLog().logWarning("The import engine " + engine + " is unknown; the import XSL is used.");
+        }
+
+        return super.createXSLTransform();
     }
 
     /**
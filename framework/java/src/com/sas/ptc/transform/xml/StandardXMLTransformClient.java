@@ -0,0 +1,351 @@
+package com.sas.ptc.transform.xml;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.net.ConnectException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import javax.xml.parsers.ParserConfigurationException;
+
+import org.xml.sax.SAXException;
+
+/**
+ * Copyright (c) 2022, SAS Institute Inc., Cary, NC, USA.  All Rights Reserved.
+ * SPDX-License-Identifier: Apache-2.0
+ *
+ * Submits a transform to a StandardXMLTransformService running on the local machine. The client has the same
+ * constructor and exec() method as StandardXMLImporter and StandardXMLExporter, so it can be substituted for either in
+ * a SAS javaobj declaration. If no service is listening, or use of the service has been disabled, the transform is run
+ * in the calling JVM instead, exactly as StandardXMLTransformer.createTransformer would run it.
+ * <p>
+ * The client authenticates with the token the service wrote to its token file, so only the owner of the service can
+ * submit transforms to it. Relative paths among the parameters are resolved against the working folder of the calling
+ * JVM before they are sent, and the parameters the transform changed are copied back, as they would be if it ran in
+ * the calling JVM.
+ */
+public class StandardXMLTransformClient {
+
+    private static final int CONNECT_TIMEOUT_MILLIS = 1000;
+
+    private final StandardXMLTransformerParams params;
+    private int port;
+    private String tokenFilePath;
+    private boolean usingService;
+
+    private boolean ranInService;
+    private String status;
+    private int errorCount;
+    private int warningCount;
+    private long elapsedTime;
+    private long serviceTime;
+
+    /**
+     * Constructs a client for the given transform, to be submitted to a service on the default port.
+     *
+     * @param params The parameters of the transform
+     */
+    public StandardXMLTransformClient(final StandardXMLTransformerParams params) {
+        this.params = params;
+        this.port = StandardXMLTransformService.DEFAULT_PORT;
+        this.usingService = true;
+    }
+
+    /**
+     * Runs the transform, in the service if one is listening and in this JVM otherwise. The log is written to the path
+     * given in the parameters in either case.
+     *
+     * @throws TransformNotFoundException If the transform specified by the parameters was not found among the set of
+     *             transforms available to the system
+     * @throws IOException If an error occurred while accessing files, or while communicating with the service
+     */
+    public void exec() throws TransformNotFoundException, IOException {
+        final long startTime = System.currentTimeMillis();
+        try {
+            this.ranInService = false;
+            if (isUsingService()) {
+                this.ranInService = execInService();
+            }
+            if (!this.ranInService) {
+                execLocally();
+            }
+        } finally {
+            this.elapsedTime = System.currentTimeMillis() - startTime;
+        }
+    }
+
+    /**
+     * Submits the transform to the service, and waits for it to complete.
+     *
+     * @return false if no service is listening, true if the service ran the transform
+     * @throws TransformNotFoundException If the service did not know the transform specified by the parameters
+     * @throws IOException If the service could not run the transform, rejected the token, or the connection failed
+     *             after it was made
+     */
+    protected boolean execInService() throws TransformNotFoundException, IOException {
+        final File tokenFile = getTokenFile();
+        if (!tokenFile.isFile()) {
+            // a service writes its token file when it starts, and deletes it when it stops
+            return false;
+        }
+        final byte[] token = StandardXMLTransformService.readToken(tokenFile);
+
+        final Socket socket = new Socket();
+        try {
+            try {
+                socket.connect(new InetSocketAddress(InetAddress.getLoopbackAddress(), getPort()),
+                    CONNECT_TIMEOUT_MILLIS);
+            } catch (final ConnectException e) {
+                return false;
+            }
+
+            final DataOutputStream out = new DataOutputStream(new BufferedOutputStream(socket.getOutputStream()));
+            final Map<String, String> sentParams = getAbsoluteConfigParams();
+            StandardXMLTransformService.writeToken(out, token);
+            StandardXMLTransformService.writeString(out, StandardXMLTransformService.REQUEST_EXEC);
+            StandardXMLTransformService.writeParams(out, sentParams);
+            out.flush();
+
+            final DataInputStream in = new DataInputStream(new BufferedInputStream(socket.getInputStream()));
+            this.status = StandardXMLTransformService.readString(in);
+            if (StandardXMLTransformService.STATUS_UNAUTHORIZED.equals(this.status)) {
+                throw new IOException("The service rejected the token in '" + tokenFile.getAbsolutePath() + "'.");
+            }
+            this.errorCount = in.readInt();
+            this.warningCount = in.readInt();
+            this.serviceTime = in.readLong();
+            final String message = StandardXMLTransformService.readString(in);
+            copyChangedParams(sentParams, StandardXMLTransformService.readParams(in));
+
+            if (StandardXMLTransformService.STATUS_TRANSFORM_NOT_FOUND.equals(this.status)) {
+                throw new TransformNotFoundException(this.params.getStandardName(), this.params.getStandardVersion(),
+                    getAvailableTransforms());
+            } else if (message.length() > 0) {
+                throw new IOException(message);
+            }
+        } finally {
+            socket.close();
+        }
+
+        return true;
+    }
+
+    /**
+     * Gets the parameters to send to the service, with relative paths resolved against the working folder of this JVM,
+     * which the service does not share.
+     *
+     * @return The parameters, by name
+     */
+    private Map<String, String> getAbsoluteConfigParams() {
+        final Map<String, String> configParams = new LinkedHashMap<>(this.params.getConfigParams());
+        for (final Map.Entry<String, String> param : configParams.entrySet()) {
+            if (StandardXMLTransformService.PATH_PARAMETERS.contains(param.getKey())
+                && (param.getValue().trim().length() > 0)) {
+                param.setValue(new File(param.getValue().trim()).getAbsolutePath());
+            }
+        }
+
+        return configParams;
+    }
+
+    /**
+     * Sets the parameters the transform changed in the service, such as a custom stylesheet path it cleared, on the
+     * parameters of this client. The parameters it left alone keep their value, relative paths included.
+     *
+     * @param sentParams The parameters sent to the service
+     * @param jobParams The parameters of the transform after it ran
+     */
+    private void copyChangedParams(final Map<String, String> sentParams, final Map<String, String> jobParams) {
+        for (final Map.Entry<String, String> param : sentParams.entrySet()) {
+            if (!jobParams.containsKey(param.getKey())) {
+                // only a string parameter can lose its value
+                this.params.setConfigParam(param.getKey(), null);
+            }
+        }
+        for (final Map.Entry<String, String> param : jobParams.entrySet()) {
+            if (!param.getValue().equals(sentParams.get(param.getKey()))) {
+                this.params.setConfigParam(param.getKey(), param.getValue());
+            }
+        }
+    }
+
+    /**
+     * Runs the transform in this JVM.
+     *
+     * @throws TransformNotFoundException If the transform specified by the parameters was not found among the set of
+     *             transforms available to the system
+     * @throws IOException If an error occurred while accessing files
+     */
+    protected void execLocally() throws TransformNotFoundException, IOException {
+        final long startTime = System.currentTimeMillis();
+        final StandardXMLTransformer transformer = StandardXMLTransformer.createTransformer(this.params);
+        try {
+            transformer.exec();
+        } finally {
+            this.serviceTime = System.currentTimeMillis() - startTime;
+            this.errorCount = transformer.getErrorCount();
+            this.warningCount = transformer.getWarningCount();
+            this.status = (this.errorCount > 0) ? StandardXMLTransformService.STATUS_FAILED
+                : StandardXMLTransformService.STATUS_SUCCESS;
+        }
+    }
+
+    /**
+     * Gets the transforms known to this JVM, to describe a transform the service did not find.
+     *
+     * @return The available transforms, as read from the file given in the parameters
+     */
+    private AvailableTransforms getAvailableTransforms() {
+        final AvailableTransforms availableTransforms = new AvailableTransforms(this.params);
+        try {
+            availableTransforms.init();
+        } catch (final ParserConfigurationException e) {
+            // the list is only used to describe the failure
+        } catch (final SAXException e) {
+            // the list is only used to describe the failure
+        } catch (final IOException e) {
+            // the list is only used to describe the failure
+        }
+
+        return availableTransforms;
+    }
+
+    /**
+     * Gets the local port on which the service is expected to listen.
+     *
+     * @return The service port
+     */
+    public int getPort() {
+        return port;
+    }
+
+    /**
+     * Sets the local port on which the service is expected to listen.
+     *
+     * @param port The service port
+     */
+    public void setPort(final int port) {
+        this.port = port;
+    }
+
+    /**
+     * Needed for SAS9.1 javaobj.
+     *
+     * @param port The service port
+     */
+    public void setPortString(final String port) {
+        if (port != null) {
+            this.port = Integer.parseInt(port.trim());
+        }
+    }
+
+    /**
+     * Gets the file holding the token of the service.
+     *
+     * @return The token file
+     */
+    public File getTokenFile() {
+        return (this.tokenFilePath != null) ? new File(this.tokenFilePath)
+            : StandardXMLTransformService.getDefaultTokenFile();
+    }
+
+    /**
+     * Sets the path of the file holding the token of the service. The default is that of a service started without
+     * -tokenFile.
+     *
+     * @param tokenFilePath The path of the token file, or null for the default
+     */
+    public void setTokenFilePath(final String tokenFilePath) {
+        this.tokenFilePath = tokenFilePath;
+    }
+
+    /**
+     * Whether the transform is submitted to the service, when one is listening. The default is true.
+     *
+     * @return false if the transform is always run in this JVM
+     */
+    public boolean isUsingService() {
+        return usingService;
+    }
+
+    /**
+     * Sets whether the transform is submitted to the service, when one is listening.
+     *
+     * @param usingService false if the transform is always to be run in this JVM
+     */
+    public void setUsingService(final boolean usingService) {
+        this.usingService = usingService;
+    }
+
+    /**
+     * Needed for SAS9.1 javaobj.
+     *
+     * @param usingService false if the transform is always to be run in this JVM
+     */
+    public void setUsingServiceString(final String usingService) {
+        if (usingService != null) {
+            this.usingService = Boolean.valueOf(usingService).booleanValue();
+        }
+    }
+
+    /**
+     * Whether the last call to exec() ran the transform in the service.
+     *
+     * @return true if the service ran the transform, false if it was run in this JVM
+     */
+    public boolean isRanInService() {
+        return ranInService;
+    }
+
+    /**
+     * Gets the outcome of the last call to exec().
+     *
+     * @return StandardXMLTransformService.STATUS_SUCCESS, STATUS_FAILED or STATUS_TRANSFORM_NOT_FOUND
+     */
+    public String getStatus() {
+        return status;
+    }
+
+    /**
+     * Gets the number of errors logged by the last transform.
+     *
+     * @return The error count
+     */
+    public int getErrorCount() {
+        return errorCount;
+    }
+
+    /**
+     * Gets the number of warnings logged by the last transform.
+     *
+     * @return The warning count
+     */
+    public int getWarningCount() {
+        return warningCount;
+    }
+
+    /**
+     * Gets the latency of the last call to exec(), as seen by the caller.
+     *
+     * @return The elapsed time, in milliseconds
+     */
+    public long getElapsedTime() {
+        return elapsedTime;
+    }
+
+    /**
+     * Gets the time spent running the last transform, excluding the cost of submitting it to the service.
+     *
+     * @return The transform time, in milliseconds
+     */
+    public long getServiceTime() {
+        return serviceTime;
+    }
+}
@@ -0,0 +1,620 @@
+package com.sas.ptc.transform.xml;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.net.SocketException;
+import java.net.SocketTimeoutException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.attribute.PosixFilePermissions;
+import java.security.MessageDigest;
+import java.security.SecureRandom;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicLong;
+
+import com.sas.ptc.util.xml.SchemaCache;
+import com.sas.ptc.util.xml.TemplatesCache;
+
+/**
+ * Copyright (c) 2022, SAS Institute Inc., Cary, NC, USA.  All Rights Reserved.
+ * SPDX-License-Identifier: Apache-2.0
+ *
+ * A resident transform service, to which StandardXMLTransformClient submits jobs over a local socket. Running every
+ * transform in one long-lived JVM keeps classes loaded and compiled stylesheets, schemas and the AvailableTransforms
+ * registry warm between calls, so that only the first job for a given standard pays for compiling them. The service
+ * listens on the loopback interface only, and runs each job exactly as StandardXMLTransformer.createTransformer would,
+ * writing the job's log to the path given in its parameters.
+ * <p>
+ * As any local user can connect to a loopback port, the service writes a random token to a file only its owner can
+ * read, and serves a connection only if the client first sends that token; otherwise it answers STATUS_UNAUTHORIZED
+ * and closes the connection. A request is then the string REQUEST_EXEC followed by the number of parameters and, for
+ * each, its name and value as in a transform configuration file. The paths among them must be absolute, as the service
+ * does not share the working folder of its clients. The response is the job status, error count, warning count, the
+ * time in milliseconds the service spent on the job, a message (empty unless the job could not be run), and the
+ * parameters of the job after it ran, in the form of the request. REQUEST_STATUS returns a description of the service,
+ * and REQUEST_SHUTDOWN stops it. All strings are written by writeString, as a length and UTF-8 bytes. A connection
+ * left idle between requests for longer than the idle timeout is closed, so that idle clients cannot hold every worker.
+ */
+public class StandardXMLTransformService {
+
+    /**
+     * The port on which the service listens unless told otherwise.
+     */
+    public static final int DEFAULT_PORT = 48731;
+
+    /**
+     * The file holding the token of the service unless told otherwise, in the home folder of its owner.
+     */
+    public static final String DEFAULT_TOKEN_FILE_NAME = ".sas.cdisc.transforms.token";
+
+    /**
+     * The parameters holding paths, which are made absolute by the client and must be absolute for the service.
+     */
+    public static final List<String> PATH_PARAMETERS = Arrays.asList("sasXMLPath", "standardXMLPath", "xslBasePath",
+        "schemaBasePath", "availableTransformsFilePath", "logFilePath", "customStylesheetPath", "validationCachePath",
+        "transletJarPath", "metricsFilePath", "flightRecordingFilePath");
+
+    public static final String REQUEST_EXEC = "EXEC";
+    public static final String REQUEST_STATUS = "STATUS";
+    public static final String REQUEST_SHUTDOWN = "SHUTDOWN";
+
+    public static final String STATUS_SUCCESS = "SUCCESS";
+    public static final String STATUS_FAILED = "FAILED";
+    public static final String STATUS_TRANSFORM_NOT_FOUND = "TRANSFORM NOT FOUND";
+    public static final String STATUS_UNAUTHORIZED = "UNAUTHORIZED";
+
+    /**
+     * The longest string accepted by readString, so that a corrupt length cannot exhaust the heap.
+     */
+    private static final int MAX_STRING_BYTES = 64 * 1024 * 1024;
+
+    /**
+     * The time a client has to send its token once connected.
+     */
+    private static final int TOKEN_TIMEOUT_MILLIS = 10000;
+
+    /**
+     * The time a client may leave its connection idle between requests unless told otherwise.
+     */
+    public static final int DEFAULT_IDLE_TIMEOUT_MILLIS = 60000;
+
+    private static final int TOKEN_BYTES = 32;
+
+    private final int port;
+    private final int threadCount;
+    private int idleTimeoutMillis;
+    private File tokenFile;
+    private byte[] token;
+    private final AtomicLong jobCount;
+    private final AtomicLong totalJobTime;
+    private ServerSocket serverSocket;
+    private ExecutorService executor;
+
+    /**
+     * Constructs a service that runs jobs on as many threads as there are available processors.
+     *
+     * @param port The local port to listen on
+     */
+    public StandardXMLTransformService(final int port) {
+        this(port, Runtime.getRuntime().availableProcessors());
+    }
+
+    /**
+     * Constructs a service.
+     *
+     * @param port The local port to listen on
+     * @param threadCount The maximum number of jobs run concurrently
+     */
+    public StandardXMLTransformService(final int port, final int threadCount) {
+        this.port = port;
+        this.threadCount = Math.max(1, threadCount);
+        this.tokenFile = getDefaultTokenFile();
+        this.idleTimeoutMillis = DEFAULT_IDLE_TIMEOUT_MILLIS;
+        this.jobCount = new AtomicLong();
+        this.totalJobTime = new AtomicLong();
+    }
+
+    /**
+     * Starts the service, and returns when it is shut down. With -status or -shutdown, sends that request to a running
+     * service instead, and prints the response.
+     *
+     * @param args [-port n] [-threads n] [-tokenFile path] [-idleTimeout millis] [-status | -shutdown]
+     */
+    public static void main(final String[] args) {
+        int port = DEFAULT_PORT;
+        int threadCount = Runtime.getRuntime().availableProcessors();
+        File tokenFile = getDefaultTokenFile();
+        int idleTimeoutMillis = DEFAULT_IDLE_TIMEOUT_MILLIS;
+        String request = null;
+        for (int i = 0; i < args.length; ++i) {
+            if ("-port".equals(args[i]) && (i + 1 < args.length)) {
+                port = Integer.parseInt(args[++i]);
+            } else if ("-threads".equals(args[i]) && (i + 1 < args.length)) {
+                threadCount = Integer.parseInt(args[++i]);
+            } else if ("-tokenFile".equals(args[i]) && (i + 1 < args.length)) {
+                tokenFile = new File(args[++i]);
+            } else if ("-idleTimeout".equals(args[i]) && (i + 1 < args.length)) {
+                idleTimeoutMillis = Integer.parseInt(args[++i]);
+            } else if ("-status".equals(args[i])) {
+                request = REQUEST_STATUS;
+            } else if ("-shutdown".equals(args[i])) {
+                request = REQUEST_SHUTDOWN;
+            } else {
+                System.err.println("Usage: java StandardXMLTransformService [-port n] [-threads n] "
+                    + "[-tokenFile path] [-idleTimeout millis] [-status | -shutdown]");
+                System.exit(1);
+            }
+        }
+
+        try {
+            if (request != null) {
+                System.out.println(sendRequest(port, tokenFile, request));
+            } else {
+                final StandardXMLTransformService service = new StandardXMLTransformService(port, threadCount);
+                service.setTokenFile(tokenFile);
+                service.setIdleTimeoutMillis(idleTimeoutMillis);
+                service.run();
+            }
+        } catch (final IOException e) {
+            e.printStackTrace();
+            System.exit(1);
+        }
+    }
+
+    /**
+     * Sends a request taking no arguments, such as REQUEST_STATUS or REQUEST_SHUTDOWN, to a running service.
+     *
+     * @param port The local port on which the service listens
+     * @param tokenFile The file holding the token of the service
+     * @param request The request
+     * @return The response of the service
+     * @throws IOException If no service is listening, the token could not be read or was rejected, or the connection
+     *             failed
+     */
+    public static String sendRequest(final int port, final File tokenFile, final String request) throws IOException {
+        final byte[] token = readToken(tokenFile);
+        final Socket socket = new Socket(InetAddress.getLoopbackAddress(), port);
+        try {
+            final DataOutputStream out = new DataOutputStream(new BufferedOutputStream(socket.getOutputStream()));
+            writeToken(out, token);
+            writeString(out, request);
+            out.flush();
+
+            final String response = readString(new DataInputStream(socket.getInputStream()));
+            if (STATUS_UNAUTHORIZED.equals(response)) {
+                throw new IOException("The service rejected the token in '" + tokenFile.getAbsolutePath() + "'.");
+            }
+            return response;
+        } finally {
+            socket.close();
+        }
+    }
+
+    /**
+     * Gets the file holding the token of a service unless told otherwise.
+     *
+     * @return DEFAULT_TOKEN_FILE_NAME in the home folder of the user
+     */
+    public static File getDefaultTokenFile() {
+        return new File(System.getProperty("user.home"), DEFAULT_TOKEN_FILE_NAME);
+    }
+
+    /**
+     * Reads the token a service wrote to its token file.
+     *
+     * @param tokenFile The token file
+     * @return The token
+     * @throws IOException If the file could not be read
+     */
+    static byte[] readToken(final File tokenFile) throws IOException {
+        return Files.readAllBytes(tokenFile.toPath());
+    }
+
+    /**
+     * Writes the token a connection starts with.
+     *
+     * @param out The stream to the service
+     * @param token The token
+     * @throws IOException If the token could not be written
+     */
+    static void writeToken(final DataOutputStream out, final byte[] token) throws IOException {
+        out.writeInt(token.length);
+        out.write(token);
+    }
+
+    /**
+     * Writes a string as its length in bytes and its UTF-8 bytes, which, unlike DataOutputStream.writeUTF, allows
+     * strings of more than 64 KB.
+     *
+     * @param out The stream
+     * @param s The string
+     * @throws IOException If the string could not be written
+     */
+    static void writeString(final DataOutputStream out, final String s) throws IOException {
+        final byte[] bytes = s.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    /**
+     * Reads a string written by writeString.
+     *
+     * @param in The stream
+     * @return The string
+     * @throws IOException If the string could not be read, or its length is invalid
+     */
+    static String readString(final DataInputStream in) throws IOException {
+        return new String(readBytes(in), StandardCharsets.UTF_8);
+    }
+
+    private static byte[] readBytes(final DataInputStream in) throws IOException {
+        final int length = in.readInt();
+        if ((length < 0) || (length > MAX_STRING_BYTES)) {
+            throw new IOException("Invalid string length " + length + ".");
+        }
+        final byte[] bytes = new byte[length];
+        in.readFully(bytes);
+
+        return bytes;
+    }
+
+    /**
+     * Writes parameters as their number and, for each, its name and value.
+     *
+     * @param out The stream
+     * @param configParams The parameters, by name
+     * @throws IOException If the parameters could not be written
+     */
+    static void writeParams(final DataOutputStream out, final Map<String, String> configParams) throws IOException {
+        out.writeInt(configParams.size());
+        for (final Map.Entry<String, String> param : configParams.entrySet()) {
+            writeString(out, param.getKey());
+            writeString(out, param.getValue());
+        }
+    }
+
+    /**
+     * Reads parameters written by writeParams.
+     *
+     * @param in The stream
+     * @return The parameters, by name, in the order written
+     * @throws IOException If the parameters could not be read
+     */
+    static Map<String, String> readParams(final DataInputStream in) throws IOException {
+        final Map<String, String> configParams = new LinkedHashMap<>();
+        final int paramCount = in.readInt();
+        for (int i = 0; i < paramCount; ++i) {
+            final String name = readString(in);
+            configParams.put(name, readString(in));
+        }
+
+        return configParams;
+    }
+
+    /**
+     * Listens for requests until the service is shut down. Each connection is handled on a worker thread, so a client
+     * may submit one job at a time per connection while other clients are served concurrently.
+     *
+     * @throws IOException If the service could not listen on its port
+     */
+    public void run() throws IOException {
+        this.serverSocket = new ServerSocket(this.port, 0, InetAddress.getLoopbackAddress());
+        try {
+            this.token = createToken();
+        } catch (final IOException e) {
+            this.serverSocket.close();
+            throw e;
+        }
+        this.executor = Executors.newFixedThreadPool(this.threadCount);
+        System.out.println("StandardXMLTransformService listening on " + this.serverSocket.getLocalSocketAddress()
+            + ", token in " + this.tokenFile.getAbsolutePath());
+
+        try {
+            while (!this.serverSocket.isClosed()) {
+                final Socket socket;
+                try {
+                    socket = this.serverSocket.accept();
+                } catch (final SocketException e) {
+                    // the server socket was closed by a shutdown request
+                    break;
+                }
+                this.executor.execute(() -> handleConnection(socket));
+            }
+        } finally {
+            this.executor.shutdown();
+            if (!this.serverSocket.isClosed()) {
+                this.serverSocket.close();
+            }
+            Files.deleteIfExists(this.tokenFile.toPath());
+        }
+    }
+
+    /**
+     * Writes a new random token to the token file, readable and writable by the owner of the service only. On file
+     * systems without POSIX permissions, the file is restricted to its owner as far as java.io.File allows.
+     *
+     * @return The token
+     * @throws IOException If the token file could not be written
+     */
+    private byte[] createToken() throws IOException {
+        final byte[] random = new byte[TOKEN_BYTES];
+        new SecureRandom().nextBytes(random);
+        final StringBuilder sb = new StringBuilder();
+        for (final byte b : random) {
+            sb.append(String.format("%02x", Integer.valueOf(b & 0xff)));
+        }
+        final byte[] newToken = sb.toString().getBytes(StandardCharsets.US_ASCII);
+
+        // the file is created anew, so that it never has broader permissions while holding the token
+        Files.deleteIfExists(this.tokenFile.toPath());
+        if (this.tokenFile.toPath().getFileSystem().supportedFileAttributeViews().contains("posix")) {
+            Files.createFile(this.tokenFile.toPath(),
+                PosixFilePermissions.asFileAttribute(PosixFilePermissions.fromString("rw-------")));
+        } else {
+            Files.createFile(this.tokenFile.toPath());
+            this.tokenFile.setReadable(false, false);
+            this.tokenFile.setWritable(false, false);
+            this.tokenFile.setReadable(true, true);
+            this.tokenFile.setWritable(true, true);
+        }
+        Files.write(this.tokenFile.toPath(), newToken);
+
+        return newToken;
+    }
+
+    /**
+     * Reads the token a connection starts with, and checks it against that of the service.
+     *
+     * @param socket The client connection
+     * @param in The stream from the client
+     * @return Whether the client sent the token of the service in time
+     * @throws IOException If the token could not be read
+     */
+    private boolean isAuthorized(final Socket socket, final DataInputStream in) throws IOException {
+        socket.setSoTimeout(TOKEN_TIMEOUT_MILLIS);
+        try {
+            return MessageDigest.isEqual(this.token, readBytes(in));
+        } catch (final SocketTimeoutException e) {
+            return false;
+        } finally {
+            // a connection holds a worker thread, so an idle one is closed rather than kept open indefinitely
+            socket.setSoTimeout(this.idleTimeoutMillis);
+        }
+    }
+
+    /**
+     * Stops accepting requests. Jobs already running are allowed to complete.
+     */
+    public void shutdown() {
+        try {
+            if (this.serverSocket != null) {
+                this.serverSocket.close();
+            }
+        } catch (final IOException e) {
+            e.printStackTrace();
+        }
+    }
+
+    /**
+     * Answers STATUS_UNAUTHORIZED to a client that did not send the token, and discards what else it sent until it
+     * closes the connection, so that the answer is not lost to a connection reset.
+     */
+    private static void reject(final Socket socket, final DataInputStream in, final DataOutputStream out)
+        throws IOException {
+        writeString(out, STATUS_UNAUTHORIZED);
+        out.flush();
+        socket.shutdownOutput();
+        socket.setSoTimeout(TOKEN_TIMEOUT_MILLIS);
+        try {
+            while (in.read() >= 0) {
+                // discarded
+            }
+        } catch (final SocketTimeoutException e) {
+            // the client did not close the connection in time
+        }
+    }
+
+    /**
+     * Serves the requests sent over a single connection, until the client closes it or leaves it idle for longer than
+     * the idle timeout.
+     *
+     * @param socket The client connection
+     */
+    protected void handleConnection(final Socket socket) {
+        try {
+            final DataInputStream in = new DataInputStream(new BufferedInputStream(socket.getInputStream()));
+            final DataOutputStream out = new DataOutputStream(new BufferedOutputStream(socket.getOutputStream()));
+            if (!isAuthorized(socket, in)) {
+                reject(socket, in, out);
+                return;
+            }
+            while (true) {
+                final String request;
+                try {
+                    request = readString(in);
+                } catch (final IOException e) {
+                    // the client closed the connection, or left it idle
+                    break;
+                }
+
+                if (REQUEST_EXEC.equals(request)) {
+                    final StandardXMLTransformerParams params = new StandardXMLTransformerParams();
+                    for (final Map.Entry<String, String> param : readParams(in).entrySet()) {
+                        params.setConfigParam(param.getKey(), param.getValue());
+                    }
+                    runJob(params, out);
+                } else if (REQUEST_STATUS.equals(request)) {
+                    writeString(out, toString());
+                } else if (REQUEST_SHUTDOWN.equals(request)) {
+                    writeString(out, toString());
+                    out.flush();
+                    shutdown();
+                    break;
+                } else {
+                    writeString(out, "Unknown request '" + request + "'.");
+                }
+                out.flush();
+            }
+        } catch (final IOException e) {
+            e.printStackTrace();
+        } finally {
+            try {
+                socket.close();
+            } catch (final IOException e) {
+                e.printStackTrace();
+            }
+        }
+    }
+
+    /**
+     * Runs a single job, and writes its outcome and its parameters, as the job left them, to the client. A job whose
+     * paths are not all absolute is not run.
+     *
+     * @param params The parameters of the job
+     * @param out The stream to the client
+     * @throws IOException If the response could not be written
+     */
+    protected void runJob(final StandardXMLTransformerParams params, final DataOutputStream out) throws IOException {
+        final long startTime = System.currentTimeMillis();
+        String status = STATUS_SUCCESS;
+        String message = "";
+        int errorCount = 0;
+        int warningCount = 0;
+        final boolean registeringMetricsMBeans = params.isRegisteringMetricsMBeans();
+        try {
+            final String relativePath = getRelativePathParameter(params);
+            if (relativePath != null) {
+                throw new IOException("The parameter " + relativePath + " is not an absolute path, which the service "
+                    + "cannot resolve against the working folder of the client.");
+            }
+            // the service is long-lived, so the phase metrics of its jobs are always available over JMX
+            params.setRegisteringMetricsMBeans(true);
+            final StandardXMLTransformer transformer = StandardXMLTransformer.createTransformer(params);
+            transformer.exec();
+            errorCount = transformer.getErrorCount();
+            warningCount = transformer.getWarningCount();
+            if (errorCount > 0) {
+                status = STATUS_FAILED;
+            }
+        } catch (final TransformNotFoundException e) {
+            status = STATUS_TRANSFORM_NOT_FOUND;
+            message = e.getMessage();
+        } catch (final Exception e) {
+            status = STATUS_FAILED;
+            message = (e.getMessage() != null) ? e.getMessage() : e.toString();
+        } finally {
+            params.setRegisteringMetricsMBeans(registeringMetricsMBeans);
+        }
+        final long jobTime = System.currentTimeMillis() - startTime;
+
+        final long jobNumber = this.jobCount.incrementAndGet();
+        this.totalJobTime.addAndGet(jobTime);
+        System.out.println("Job " + jobNumber + ": " + params.getImportOrExport() + " " + params.getStandardName()
+            + " " + params.getStandardVersion() + ", " + status + ", " + jobTime + " ms.");
+
+        writeString(out, status);
+        out.writeInt(errorCount);
+        out.writeInt(warningCount);
+        out.writeLong(jobTime);
+        writeString(out, message);
+        writeParams(out, params.getConfigParams());
+    }
+
+    /**
+     * Finds a path parameter that is set, but not to an absolute path.
+     *
+     * @param params The parameters of a job
+     * @return The name of the first such parameter, or null if there is none
+     */
+    private static String getRelativePathParameter(final StandardXMLTransformerParams params) {
+        for (final Map.Entry<String, String> param : params.getConfigParams().entrySet()) {
+            final String value = param.getValue().trim();
+            if (PATH_PARAMETERS.contains(param.getKey()) && (value.length() > 0) && !new File(value).isAbsolute()) {
+                return param.getKey();
+            }
+        }
+
+        return null;
+    }
+
+    /**
+     * Gets the file to which the service writes its token.
+     *
+     * @return The token file
+     */
+    public File getTokenFile() {
+        return tokenFile;
+    }
+
+    /**
+     * Sets the file to which the service writes its token when it starts. The default is DEFAULT_TOKEN_FILE_NAME in
+     * the home folder of the user; services on different ports need different files.
+     *
+     * @param tokenFile The token file
+     */
+    public void setTokenFile(final File tokenFile) {
+        this.tokenFile = tokenFile;
+    }
+
+    /**
+     * Gets the time a client may leave its connection idle between requests before the service closes it.
+     *
+     * @return The idle timeout, in milliseconds
+     */
+    public int getIdleTimeoutMillis() {
+        return idleTimeoutMillis;
+    }
+
+    /**
+     * Sets the time a client may leave its connection idle between requests before the service closes it, freeing the
+     * worker thread serving it for the jobs of other clients. The default is DEFAULT_IDLE_TIMEOUT_MILLIS.
+     *
+     * @param idleTimeoutMillis The idle timeout, in milliseconds; must be positive
+     */
+    public void setIdleTimeoutMillis(final int idleTimeoutMillis) {
+        if (idleTimeoutMillis <= 0) {
+            throw new IllegalArgumentException("The idle timeout must be positive.");
+        }
+        this.idleTimeoutMillis = idleTimeoutMillis;
+    }
+
+    /**
+     * Gets the number of jobs run since the service started.
+     *
+     * @return The job count
+     */
+    public long getJobCount() {
+        return this.jobCount.get();
+    }
+
+    /**
+     * Returns a description of the service, including job counts and the state of the compiled artifact caches.
+     *
+     * @return A string containing details of this instance
+     */
+    @Override
+    public String toString() {
+        final long jobs = getJobCount();
+        final StringBuffer sb = new StringBuffer();
+        sb.append("Jobs run: ").append(jobs);
+        if (jobs > 0) {
+            sb.append(", mean job time: ").append(this.totalJobTime.get() / jobs).append(" ms");
+        }
+        sb.append("; stylesheet cache: ").append(TemplatesCache.getInstance());
+        sb.append("; schema cache: ").append(SchemaCache.getInstance());
+
+        return sb.toString();
+    }
+}
@@ -3,17 +3,36 @@ package com.sas.ptc.transform.xml;
 import java.io.File;
 import java.io.FileNotFoundException;
 import java.io.IOException;
+import java.util.ArrayList;
 import java.util.Calendar;
+import java.util.Collections;
 import java.util.Date;
+import java.util.List;
 
 import javax.xml.parsers.ParserConfigurationException;
+import javax.xml.stream.XMLStreamException;
 import javax.xml.transform.TransformerException;
+import javax.xml.validation.Schema;
 
 import org.xml.sax.SAXException;
 
+import com.sas.ptc.transform.xml.cache.ValidationResult;
+import com.sas.ptc.transform.xml.cache.ValidationResultCache;
+import com.sas.ptc.transform.xml.log.AggregatingValidationErrorHandler;
 import com.sas.ptc.transform.xml.log.Log;
+import com.sas.ptc.transform.xml.log.LogRecording;
 import com.sas.ptc.transform.xml.log.ValidationErrorHandler;
+import com.sas.ptc.transform.xml.metrics.PhaseMetrics;
+import com.sas.ptc.transform.xml.metrics.TransformMetrics;
+import com.sas.ptc.transform.xml.plan.EnginePlan;
+import com.sas.ptc.transform.xml.plan.EnginePlanner;
+import com.sas.ptc.util.TimeLimitExceededException;
+import com.sas.ptc.util.jfr.FlightRecorderEvents;
 import com.sas.ptc.util.xml.DateTimeUtils;
+import com.sas.ptc.util.xml.SchemaCache;
+import com.sas.ptc.util.xml.SectionTemplatesCache;
+import com.sas.ptc.util.xml.TemplatesCache;
+import com.sas.ptc.util.xml.TransletJar;
 import com.sas.ptc.util.xml.XMLValidator;
 import com.sas.ptc.util.xml.XSLTransform;
 
@@ -38,6 +57,31 @@ public abstract class StandardXMLTransformer {
      */
     private AvailableTransforms availableTransforms;
 
+    /**
+     * The metrics of the phases of the current execution.
+     */
+    private TransformMetrics metrics = new TransformMetrics();
+
+    /**
+     * The phases run at construction, reported with the first execution.
+     */
+    private final List<PhaseMetrics> setupPhases = new ArrayList<>();
+
+    /**
+     * The Flight Recorder recording of the current execution, if one was requested.
+     */
+    private Object flightRecording;
+
+    /**
+     * The engine chosen for the memory available, once the transform is planned.
+     */
+    private EnginePlan enginePlan;
+
+    /**
+     * Whether the most recent execution wrote its result file.
+     */
+    private boolean outputProduced;
+
     protected static final int FILENAME_RANDOM_RANGE = 100000;
 
     /**
@@ -79,7 +123,11 @@ public abstract class StandardXMLTransformer {
      */
     protected StandardXMLTransformer(final StandardXMLTransformerParams params) {
         this.params = params;
+        if (params.getConfigParseMetrics() != null) {
+            this.setupPhases.add(params.getConfigParseMetrics());
+        }
 
+        final PhaseMetrics phase = PhaseMetrics.start(TransformMetrics.REGISTRY_LOAD);
         this.availableTransforms = new AvailableTransforms(params);
         try {
             this.availableTransforms.init();
@@ -89,6 +137,9 @@ public abstract class StandardXMLTransformer {
             getLog().logError(e);
         } catch (final IOException e) {
             getLog().logError(e);
+        } finally {
+            phase.stop(TransformMetrics.getFileLength(params.getAvailableTransformsFilePath()), 0);
+            this.setupPhases.add(phase);
         }
     }
 
@@ -112,6 +163,15 @@ public abstract class StandardXMLTransformer {
             }
         }
 
+        // create metrics folder
+        if (getParams().getMetricsFilePath() != null) {
+            final File metricsFolder = new File(getParams().getMetricsFilePath()).getAbsoluteFile().getParentFile();
+            if (!metricsFolder.exists() && !metricsFolder.mkdirs()) {
+                getLog().logWarning("Folder '" + metricsFolder.getAbsolutePath()
+                    + "' does not exist and could not be created. The metrics file will not be written.");
+            }
+        }
+
         // create output folder
         final File outputFolder = new File(getTransformOutputPath()).getParentFile();
         if (!outputFolder.exists()) {
@@ -126,12 +186,69 @@ public abstract class StandardXMLTransformer {
         return true;
     }
 
+    /**
+     * Starts collecting the metrics of an execution. The first execution also reports the parsing of the configuration
+     * file and the loading of the transform registry, done at construction.
+     */
+    protected void initMetrics() {
+        this.metrics = new TransformMetrics(getParams().getStandardName(), getParams().getStandardVersion());
+        for (final PhaseMetrics phase : this.setupPhases) {
+            this.metrics.add(phase);
+        }
+        this.setupPhases.clear();
+    }
+
     /**
      * Initializes the log to be used by the transformer.
      */
     protected void initLog() {
         setLog(new Log(getParams().getLogFilePath(), getParams().getLogLevel(),
-            getParams().isOverridingLogTimestampDate(), getParams().getLogTimestampDateOverrideValue()));
+            getParams().isOverridingLogTimestampDate(), getParams().getLogTimestampDateOverrideValue(),
+            getParams().isStreamingLog()));
+    }
+
+    /**
+     * Opens the log once its folder exists, so that a streaming log is written from then on.
+     */
+    protected void openLog() {
+        getLog().open();
+    }
+
+    /**
+     * Starts a Flight Recorder recording of the execution, if a recording file was specified. A failure to start it is
+     * logged as a warning, and the transform runs without it.
+     */
+    protected void startFlightRecording() {
+        final String recordingPath = getParams().getFlightRecordingFilePath();
+        if ((recordingPath == null) || (recordingPath.trim().length() == 0)) {
+            return;
+        }
+
+        try {
+            this.flightRecording = FlightRecorderEvents.startRecording(getParams().getFlightRecordingSettings());
+            getLog().logInfo("Flight recording started.");
+        } catch (final IOException e) {
+            getLog().logWarning("The flight recording could not be started: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Stops the Flight Recorder recording of the execution, if one was started, and writes it to the recording file.
+     */
+    protected void stopFlightRecording() {
+        if (this.flightRecording == null) {
+            return;
+        }
+
+        final String recordingPath = getParams().getFlightRecordingFilePath();
+        try {
+            FlightRecorderEvents.dumpRecording(this.flightRecording, recordingPath);
+            getLog().logInfo("Flight recording written to '" + recordingPath + "'.");
+        } catch (final IOException e) {
+            getLog().logError(e);
+        } finally {
+            this.flightRecording = null;
+        }
     }
 
     /**
@@ -185,12 +302,14 @@ public abstract class StandardXMLTransformer {
     }
 
     /**
-     * Sets the parameters to be used for transform execution.
+     * Sets the parameters to be used for transform execution. The engine planned for the previous parameters, if any,
+     * is forgotten.
      * 
      * @param params The transformation parameters
      */
     public void setParams(final StandardXMLTransformerParams params) {
         this.params = params;
+        resetEnginePlan();
     }
 
     /**
@@ -201,7 +320,11 @@ public abstract class StandardXMLTransformer {
      * @param resultPath The absolute path to the desired results file.
      */
     public void runTransform(final String sourcePath, final String xslPath, final String resultPath) {
-        final XSLTransform tformer = new XSLTransform();
+        if (!planTransform(sourcePath)) {
+            return;
+        }
+
+        final XSLTransform tformer = createXSLTransform();
         tformer.setSourceXmlPath(sourcePath);
         tformer.setXsltPath(xslPath);
         tformer.setOutputXmlPath(resultPath);
@@ -210,11 +333,19 @@ public abstract class StandardXMLTransformer {
 
         try {
             final long startTime = System.currentTimeMillis();
-            tformer.doTransform();
+            compileStylesheet(tformer);
+            final PhaseMetrics phase = getMetrics().start(TransformMetrics.TRANSFORM, sourcePath);
+            try {
+                tformer.doTransform();
+            } finally {
+                stopTransformPhase(phase, tformer);
+            }
             final long finishTime = System.currentTimeMillis();
 
+            setOutputProduced(true);
             getLog().logInfo("Transform complete.");
             getLog().logInfo("Transform time: " + (finishTime - startTime) + " ms.");
+            getLog().logInfo("Stylesheet cache: " + TemplatesCache.getInstance() + ".");
         } catch (final FileNotFoundException e) {
             getLog().logError(e);
         } catch (final TransformerException e) {
@@ -224,6 +355,138 @@ public abstract class StandardXMLTransformer {
         }
     }
 
+    /**
+     * Chooses the engine of the transform from the memory it is estimated to need, unless planningMemory is false, and
+     * logs the estimate. The transform is planned once; createXSLTransform then creates the engine chosen. If no engine
+     * is estimated to fit in the memory available, an error is logged, and the transform is not to be run. If the
+     * estimate cannot be made, a warning is logged, and the transform is run as configured.
+     * 
+     * @param sourcePath The absolute path to the source XML file.
+     * @return Whether the transform is to be run
+     */
+    protected boolean planTransform(final String sourcePath) {
+        if (!getParams().isPlanningMemory()) {
+            return true;
+        }
+        if (this.enginePlan == null) {
+            try {
+                this.enginePlan = createEnginePlan(new EnginePlanner(), new File(sourcePath));
+            } catch (final IOException e) {
+                getLog().logWarning("The memory needed by the transform could not be estimated: " + e.getMessage());
+                return true;
+            } catch (final XMLStreamException e) {
+                getLog().logWarning("The memory needed by the transform could not be estimated: " + e.getMessage());
+                return true;
+            }
+            getLog().logInfo("Memory estimate: " + this.enginePlan + ".");
+            if (!this.enginePlan.isFitting()) {
+                getLog().logError("The transform was not run, as it needs an estimated "
+                    + EnginePlan.toMegabytes(this.enginePlan.getEstimatedBytes()) + " of memory, and only "
+                    + EnginePlan.toMegabytes(this.enginePlan.getAvailableBytes()) + " are available. Raise the "
+                    + "maximum heap size of the Java VM, or choose an engine needing less memory.");
+            }
+        }
+
+        return this.enginePlan.isFitting();
+    }
+
+    /**
+     * Estimates the memory the engines available to the transform need, and chooses one.
+     * 
+     * @param planner The planner, for the memory available
+     * @param source The source XML file
+     * @return The plan
+     * @throws IOException If the source could not be read
+     * @throws XMLStreamException If the source had to be read, and is not well-formed
+     */
+    protected abstract EnginePlan createEnginePlan(EnginePlanner planner, File source)
+        throws IOException, XMLStreamException;
+
+    /**
+     * Forgets the engine planned for the previous execution, so that the next is planned for its own source and the
+     * memory then available. Called at the start of each execution.
+     */
+    protected void resetEnginePlan() {
+        this.enginePlan = null;
+    }
+
+    /**
+     * Gets the engine chosen for the memory available.
+     * 
+     * @return The plan, or null if the transform was not planned, or could not be
+     */
+    protected EnginePlan getEnginePlan() {
+        return enginePlan;
+    }
+
+    /**
+     * Creates the object running the XSL transformation. This implementation transforms the document as a whole.
+     * 
+     * @return A new, unconfigured XSLTransform object
+     */
+    protected XSLTransform createXSLTransform() {
+        return new XSLTransform();
+    }
+
+    /**
+     * Compiles the stylesheet ahead of the transform, unless it is already in the stylesheet cache, so that compiling
+     * it is measured as a phase of its own.
+     * 
+     * @param tformer The XSLTransform object that will run the transform, its XSLT path set
+     * @throws TransformerException If the stylesheet could not be compiled
+     * @throws IOException If the stylesheet path could not be resolved
+     */
+    protected void compileStylesheet(final XSLTransform tformer) throws TransformerException, IOException {
+        configureTransletJar();
+        final String xslPath = tformer.getXsltPath();
+        final PhaseMetrics phase = getMetrics().start(TransformMetrics.STYLESHEET_COMPILE, xslPath);
+        try {
+            tformer.compileStylesheet();
+        } finally {
+            phase.stop(TransformMetrics.getFileLength(xslPath), 0);
+        }
+    }
+
+    /**
+     * Sets the jar from which the stylesheet cache loads precompiled stylesheets: the one at transletJarPath, or else
+     * the default one, if it exists. A jar that cannot be read, or was compiled for another Java version, is logged,
+     * and stylesheets are then compiled from source.
+     */
+    protected void configureTransletJar() {
+        final String path = getParams().getTransletJarPath();
+        final boolean pathGiven = (path != null) && (path.trim().length() > 0);
+        final File file = pathGiven ? new File(path) : TransletJar.getDefaultFile();
+        if (pathGiven && !file.isFile()) {
+            getLog().logWarning("The translet jar " + file + " does not exist.");
+        }
+
+        try {
+            TemplatesCache.getInstance().setTransletJarFile(((file != null) && file.isFile()) ? file : null);
+            final TransletJar jar = TemplatesCache.getInstance().getTransletJar();
+            if ((jar != null) && !jar.isCompatible()) {
+                getLog().logInfo("The translets of " + jar.getFile() + " were compiled by another Java version or "
+                    + "TransformerFactory, and are not used.");
+            }
+        } catch (final IOException e) {
+            getLog().logWarning("The translet jar " + file + " could not be read: " + e.getMessage());
+        } catch (final XMLStreamException e) {
+            getLog().logWarning("The translet jar " + file + " could not be read: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Stops the transform phase, and adds the serialization of the output, measured by the transform as it wrote its
+     * output file, as a phase nested in it.
+     * 
+     * @param phase The transform phase
+     * @param tformer The XSLTransform object that ran the transform
+     */
+    protected void stopTransformPhase(final PhaseMetrics phase, final XSLTransform tformer) {
+        phase.stop(TransformMetrics.getFileLength(tformer.getSourceXmlPath()), tformer.getResultByteCount());
+        getMetrics().add(new PhaseMetrics(TransformMetrics.SERIALIZATION, tformer.getResultWriteNanos(),
+            PhaseMetrics.UNAVAILABLE, PhaseMetrics.UNAVAILABLE, 0, tformer.getResultByteCount()));
+    }
+
     /**
      * Method configureTransformer.
      * 
@@ -262,15 +525,19 @@ public abstract class StandardXMLTransformer {
     }
 
     /**
-     * Validates the XML file produced.
+     * Validates the XML file produced. The validation is stopped early if it reaches the configured maximum number of
+     * errors or time limit, in which case the document is deemed not valid. If a validation cache is configured, the
+     * result of an earlier validation of the same contents is replayed instead, and the result of a new validation is
+     * stored unless it was stopped by the time limit.
      * 
      * @param xmlFilePath The XML file to be validated.
      * @param schemaPath The W3C XML Schema file against which the XML will be validated.
+     * @return Whether the document was found to be valid
      * @throws SAXException
      * @throws IOException
      * @throws TransformerException
      */
-    public void validateStandardXML(final String xmlFilePath, final String schemaPath)
+    public boolean validateStandardXML(final String xmlFilePath, final String schemaPath)
         throws SAXException, IOException {
         // set up and perform validation on the output
         final XMLValidator validator = new XMLValidator();
@@ -280,16 +547,215 @@ public abstract class StandardXMLTransformer {
         getLog().logParameter("XML File to Validate", xmlFilePath);
         getLog().logParameter("Schema being validated against", schemaPath);
 
+        final PhaseMetrics schemaPhase = getMetrics().start(TransformMetrics.SCHEMA_COMPILE, schemaPath);
+        final Schema schema;
+        try {
+            schema = validator.getSchema();
+        } finally {
+            schemaPhase.stop(TransformMetrics.getFileLength(schemaPath), 0);
+        }
+
+        final ValidationResultCache cache = getValidationResultCache();
+        final String cacheKey = (cache == null) ? null : getValidationCacheKey(xmlFilePath, schemaPath, schema);
+        if (cacheKey != null) {
+            final ValidationResult cached = getCachedValidationResult(cache, cacheKey);
+            if (cached != null) {
+                getLog().logInfo("The validation result was replayed from the validation cache.");
+                getLog().replay(cached.getLogRecording());
+                logValidationOutcome(cached.isValid());
+                return cached.isValid();
+            }
+        }
+
         ValidationErrorHandler errorHandler = null;
-        errorHandler = new ValidationErrorHandler(getLog());
+        errorHandler = createValidationErrorHandler();
         validator.setErrorHandler(errorHandler);
-        validator.doValidate();
-        final boolean success = errorHandler.isValid();
+        final LogRecording recording = (cacheKey == null) ? null : cache.createRecording();
+        if (cacheKey != null) {
+            getLog().startRecording(recording);
+        }
+        final PhaseMetrics phase = getMetrics().start(TransformMetrics.VALIDATION, xmlFilePath);
+        try {
+            errorHandler.startTimer();
+            validator.setTimeLimitMillis(errorHandler.getRemainingTimeMillis());
+            validator.doValidate();
+        } catch (final TimeLimitExceededException e) {
+            errorHandler.timeLimitReached();
+        } finally {
+            phase.stop(TransformMetrics.getFileLength(xmlFilePath), 0);
+            errorHandler.flush();
+            if (cacheKey != null) {
+                getLog().stopRecording();
+            }
+        }
+        logValidationOutcome(errorHandler);
+
+        final boolean stoppedByTimeLimit = errorHandler.isLimitReached() && (errorHandler.getTimeLimitMillis() > 0);
+        if ((cacheKey != null) && recording.isTruncated()) {
+            getLog().logInfo("The validation result was not cached, as its log is larger than a cache entry can be.");
+        } else if ((cacheKey != null) && !stoppedByTimeLimit) {
+            putCachedValidationResult(cache, cacheKey, new ValidationResult(errorHandler.isValid(), recording));
+        }
+
+        return errorHandler.isValid();
+    }
+
+    /**
+     * Gets the cache of validation results, if one is configured.
+     * 
+     * @return The cache, or null if validation results are not cached
+     */
+    protected ValidationResultCache getValidationResultCache() {
+        final String cachePath = getParams().getValidationCachePath();
+        if ((cachePath == null) || (cachePath.trim().length() == 0)) {
+            return null;
+        }
+
+        return new ValidationResultCache(new File(cachePath), getParams().getValidationCacheMaxBytes(),
+            getParams().getValidationCacheMaxAgeDays());
+    }
+
+    /**
+     * Computes the key of a validation in the validation cache, from the contents of the document and of the schema
+     * set, the validator implementation and the settings changing what the error handler logs. Any failure is logged
+     * as a warning, and the validation is then not cached.
+     * 
+     * @param xmlFilePath The XML file to be validated
+     * @param schemaPath The top-level schema file
+     * @param schema The compiled schema
+     * @return The key, or null if it could not be computed
+     */
+    protected String getValidationCacheKey(final String xmlFilePath, final String schemaPath, final Schema schema) {
+        final StringBuffer settings = new StringBuffer();
+        settings.append(schema.getClass().getName()).append(' ');
+        settings.append(schema.getClass().getPackage().getImplementationVersion()).append(' ');
+        settings.append(System.getProperty("java.version")).append(' ');
+        settings.append(getParams().isAggregatingValidationMessages()).append(' ');
+        settings.append(getParams().getMaxValidationErrors());
+
+        final PhaseMetrics phase = getMetrics().start(TransformMetrics.CONTENT_DIGEST, xmlFilePath);
+        List<File> schemaFiles = null;
+        try {
+            schemaFiles = SchemaCache.getInstance().getDependencies(schemaPath);
+            if (schemaFiles.isEmpty()) {
+                schemaFiles = Collections.singletonList(new File(schemaPath));
+            }
+            return ValidationResultCache.getKey(new File(xmlFilePath), schemaFiles, settings.toString());
+        } catch (final IOException e) {
+            getLog().logWarning("The validation cache is not used: " + e.getMessage());
+        } finally {
+            long bytesIn = TransformMetrics.getFileLength(xmlFilePath);
+            if (schemaFiles != null) {
+                for (final File schemaFile : schemaFiles) {
+                    bytesIn += schemaFile.length();
+                }
+            }
+            phase.stop(bytesIn, 0);
+        }
+
+        return null;
+    }
+
+    private ValidationResult getCachedValidationResult(final ValidationResultCache cache, final String key) {
+        try {
+            return cache.get(key);
+        } catch (final IOException e) {
+            getLog().logWarning("The validation cache could not be read: " + e.getMessage());
+        } catch (final XMLStreamException e) {
+            getLog().logWarning("The validation cache could not be read: " + e.getMessage());
+        }
+
+        return null;
+    }
+
+    private void putCachedValidationResult(final ValidationResultCache cache, final String key,
+        final ValidationResult result) {
+        try {
+            cache.put(key, result);
+        } catch (final IOException e) {
+            getLog().logWarning("The validation cache could not be written: " + e.getMessage());
+        } catch (final XMLStreamException e) {
+            getLog().logWarning("The validation cache could not be written: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Gets the compiled schema to be used for validating in the same pass as the transform. Any failure to compile the
+     * schema is logged.
+     * 
+     * @param schemaPath The W3C XML Schema file against which the XML will be validated.
+     * @return The compiled schema, or null if it could not be compiled
+     */
+    protected Schema getInlineValidatingSchema(final String schemaPath) {
+        final XMLValidator validator = new XMLValidator();
+        validator.setSchemaPath(schemaPath);
+        final PhaseMetrics phase = getMetrics().start(TransformMetrics.SCHEMA_COMPILE, schemaPath);
+        try {
+            return validator.getSchema();
+        } catch (final SAXException e) {
+            getLog().logError(e);
+        } catch (final IOException e) {
+            getLog().logError(e);
+        } finally {
+            phase.stop(TransformMetrics.getFileLength(schemaPath), 0);
+        }
+
+        return null;
+    }
+
+    /**
+     * Creates the error handler receiving the errors and warnings of a schema validation, aggregating them if so
+     * configured, and stopping the validation at the configured maximum number of errors and time limit.
+     * 
+     * @return The error handler
+     */
+    protected ValidationErrorHandler createValidationErrorHandler() {
+        final ValidationErrorHandler errorHandler;
+        if (getParams().isAggregatingValidationMessages()) {
+            errorHandler = new AggregatingValidationErrorHandler(getLog());
+        } else {
+            errorHandler = new ValidationErrorHandler(getLog());
+        }
+        errorHandler.setMaxErrorCount(getParams().getMaxValidationErrors());
+        errorHandler.setTimeLimitMillis(getParams().getMaxValidationMillis());
+
+        return errorHandler;
+    }
+
+    /**
+     * Logs the outcome of a schema validation, as tracked by the error handler that received its errors and warnings,
+     * after any messages the handler held back.
+     * 
+     * @param errorHandler The error handler used during validation
+     */
+    protected void logValidationOutcome(final ValidationErrorHandler errorHandler) {
+        errorHandler.flush();
+        logValidationOutcome(errorHandler.isValid());
+    }
+
+    /**
+     * Logs the outcome of a schema validation.
+     * 
+     * @param success Whether the document was found to be valid
+     */
+    protected void logValidationOutcome(final boolean success) {
         if (success) {
             getLog().logInfo("The document validated successfully");
         } else {
             getLog().logWarning("Document validation failed");
         }
+        getLog().logInfo("Schema cache: " + SchemaCache.getInstance() + ".");
+    }
+
+    /**
+     * Discards all compiled stylesheets and schemas held in the process-wide caches, so that they are recompiled from
+     * disk on next use. Entries are recompiled automatically when their files change; this is only needed to release
+     * memory or to force a reload.
+     */
+    public void invalidateCompiledCaches() {
+        TemplatesCache.getInstance().invalidateAll();
+        SectionTemplatesCache.invalidateAllInstances();
+        SchemaCache.getInstance().invalidateAll();
     }
 
     /**
@@ -339,6 +805,44 @@ public abstract class StandardXMLTransformer {
         return currentTransform.getFullSchemaPath(getParams().getSchemaBasePath());
     }
 
+    /**
+     * Whether the most recent execution of this transformer left a current result file: one it wrote or, for an
+     * incremental export, one found up to date. Output discarded because the document failed validation does not
+     * count.
+     * 
+     * @return true if the result file is current
+     */
+    public boolean isOutputProduced() {
+        return this.outputProduced;
+    }
+
+    /**
+     * Records whether the current execution wrote its result file.
+     * 
+     * @param outputProduced true once the result file has been written
+     */
+    protected void setOutputProduced(final boolean outputProduced) {
+        this.outputProduced = outputProduced;
+    }
+
+    /**
+     * Gets the number of errors logged during the most recent execution of this transformer.
+     * 
+     * @return The number of errors and fatal errors logged, or 0 if the transformer has not been executed
+     */
+    public int getErrorCount() {
+        return (getLog() == null) ? 0 : getLog().getErrorCount();
+    }
+
+    /**
+     * Gets the number of warnings logged during the most recent execution of this transformer.
+     * 
+     * @return The number of warnings logged, or 0 if the transformer has not been executed
+     */
+    public int getWarningCount() {
+        return (getLog() == null) ? 0 : getLog().getWarningCount();
+    }
+
     /**
      * Method getLog.
      * 
@@ -358,13 +862,52 @@ public abstract class StandardXMLTransformer {
     }
 
     /**
-     * Method writeLog.
+     * Gets the metrics of the phases of the current or latest execution.
+     * 
+     * @return The metrics of the phases
+     */
+    public TransformMetrics getMetrics() {
+        return metrics;
+    }
+
+    /**
+     * Method writeLog. Any flight recording is written, and the metrics of the phases are logged, first; writing the
+     * log is itself measured, and reported only by reportMetrics.
      * 
      * @throws TransformerException
      * @throws ParserConfigurationException
      */
     protected void writeLog() throws ParserConfigurationException {
-        getLog().write();
+        stopFlightRecording();
+        getMetrics().log(getLog());
+        final PhaseMetrics phase = getMetrics().start(TransformMetrics.LOG_WRITE);
+        try {
+            getLog().write();
+        } finally {
+            phase.stop(0, TransformMetrics.getFileLength(getParams().getLogFilePath()));
+            reportMetrics();
+        }
+    }
+
+    /**
+     * Writes the metrics of the phases to the metrics file, if one was specified, and adds them to the statistics
+     * registered as MBeans, if so configured. As the log is already written, failures are reported on standard error.
+     */
+    protected void reportMetrics() {
+        final String metricsFilePath = getParams().getMetricsFilePath();
+        if ((metricsFilePath != null) && (metricsFilePath.trim().length() > 0)) {
+            try {
+                getMetrics().write(new File(metricsFilePath));
+            } catch (final IOException e) {
+                e.printStackTrace();
+            } catch (final XMLStreamException e) {
+                e.printStackTrace();
+            }
+        }
+
+        if (getParams().isRegisteringMetricsMBeans()) {
+            getMetrics().publish();
+        }
     }
 
     /**
@@ -0,0 +1,618 @@
+package com.sas.ptc.transform.xml;
+
+import java.io.File;
+import java.io.FileFilter;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import javax.xml.parsers.ParserConfigurationException;
+
+import org.w3c.dom.Document;
+import org.w3c.dom.Element;
+import org.xml.sax.SAXException;
+
+import com.sas.ptc.util.StringUtils;
+import com.sas.ptc.util.xml.DOMUtils;
+import com.sas.ptc.util.xml.SchemaCache;
+import com.sas.ptc.util.xml.TemplatesCache;
+
+/**
+ * Copyright (c) 2022, SAS Institute Inc., Cary, NC, USA.  All Rights Reserved.
+ * SPDX-License-Identifier: Apache-2.0
+ *
+ * Runs a batch of transforms on a bounded pool of worker threads. Each job is an independent StandardXMLTransformer,
+ * configured by its own StandardXMLTransformerParams and writing its own log. All jobs share the process-wide caches of
+ * compiled stylesheets and schemas, so each distinct stylesheet and schema is compiled only once per batch. On
+ * completion, the outcome and timing of every job may be written to a summary file.
+ */
+public class StandardXMLTransformerBatch {
+
+    /**
+     * The status of a job that ran to completion without logging any errors.
+     */
+    public static final String STATUS_SUCCESS = "SUCCESS";
+
+    /**
+     * The status of a job that logged errors, or could not be run at all.
+     */
+    public static final String STATUS_FAILED = "FAILED";
+
+    private static final String ROOT_ELEMENT_NAME = "TABLE";
+    private static final String JOB_ELEMENT_NAME = "TransformJob";
+    private static final String CONFIG_FILE_EXTENSION = ".xml";
+    private static final String DEFAULT_LOG_SUFFIX = "_log.xml";
+
+    private final List<StandardXMLTransformerParams> jobs;
+    private final List<String> jobSources;
+    private int threadCount;
+    private String summaryFilePath;
+
+    /**
+     * Constructs an empty batch, to be run on as many threads as there are available processors.
+     */
+    public StandardXMLTransformerBatch() {
+        this(Runtime.getRuntime().availableProcessors());
+    }
+
+    /**
+     * Constructs an empty batch.
+     *
+     * @param threadCount The maximum number of jobs run concurrently
+     */
+    public StandardXMLTransformerBatch(final int threadCount) {
+        this.jobs = new ArrayList<>();
+        this.jobSources = new ArrayList<>();
+        setThreadCount(threadCount);
+    }
+
+    /**
+     * Runs a batch of transforms described by configuration files.
+     *
+     * @param args [-threads n] [-summary summaryFilePath] configFileOrFolder...
+     */
+    public static void main(final String[] args) {
+        final StandardXMLTransformerBatch batch = new StandardXMLTransformerBatch();
+        try {
+            for (int i = 0; i < args.length; ++i) {
+                if ("-threads".equals(args[i])) {
+                    if ((i + 1 == args.length) || !isPositiveInteger(args[i + 1])) {
+                        exitWithUsage();
+                    }
+                    batch.setThreadCount(Integer.parseInt(args[++i]));
+                } else if ("-summary".equals(args[i])) {
+                    if (i + 1 == args.length) {
+                        exitWithUsage();
+                    }
+                    batch.setSummaryFilePath(args[++i]);
+                } else if (new File(args[i]).isDirectory()) {
+                    batch.addConfigFolder(args[i]);
+                } else {
+                    batch.addConfigFile(args[i]);
+                }
+            }
+        } catch (final ParserConfigurationException e) {
+            e.printStackTrace();
+            System.exit(1);
+        } catch (final SAXException e) {
+            e.printStackTrace();
+            System.exit(1);
+        } catch (final IOException e) {
+            e.printStackTrace();
+            System.exit(1);
+        }
+
+        if (batch.getJobCount() == 0) {
+            exitWithUsage();
+        }
+
+        final List<JobResult> results = batch.exec();
+        int failures = 0;
+        for (final JobResult result : results) {
+            System.out.println(result);
+            if (!result.isSuccessful()) {
+                ++failures;
+            }
+        }
+        System.out.println(results.size() + " jobs run, " + failures + " failed.");
+        System.exit(failures == 0 ? 0 : 1);
+    }
+
+    /**
+     * Whether the given command line argument is a thread count.
+     *
+     * @param arg The argument
+     * @return true if the argument is a decimal integer of at least 1
+     */
+    private static boolean isPositiveInteger(final String arg) {
+        try {
+            return Integer.parseInt(arg) >= 1;
+        } catch (final NumberFormatException e) {
+            return false;
+        }
+    }
+
+    /**
+     * Prints the command line usage and exits with a failure status.
+     */
+    private static void exitWithUsage() {
+        System.err.println("Usage: java StandardXMLTransformerBatch [-threads n] [-summary summaryFilePath] "
+            + "configFileOrFolder...");
+        System.exit(1);
+    }
+
+    /**
+     * Adds a job to the batch.
+     *
+     * @param params The parameters of the transform to be run
+     */
+    public void addJob(final StandardXMLTransformerParams params) {
+        addJob(params, null);
+    }
+
+    /**
+     * Adds a job, described by a configuration file in the format read by StandardXMLTransformerParams, to the batch.
+     *
+     * @param configFilePath The path to the configuration file
+     * @throws ParserConfigurationException If the JRE is misconfigured for XML parsing
+     * @throws SAXException If the configuration file is not well-formed XML
+     * @throws IOException If the configuration file could not be read
+     */
+    public void addConfigFile(final String configFilePath)
+        throws ParserConfigurationException, SAXException, IOException {
+        addJob(new StandardXMLTransformerParams(configFilePath), configFilePath);
+    }
+
+    /**
+     * Adds a job for each configuration file (having the .xml extension) in the given folder, in file name order. The
+     * folder is not searched recursively.
+     *
+     * @param configFolderPath The path to the folder of configuration files
+     * @throws ParserConfigurationException If the JRE is misconfigured for XML parsing
+     * @throws SAXException If a configuration file is not well-formed XML
+     * @throws IOException If a configuration file could not be read
+     */
+    public void addConfigFolder(final String configFolderPath)
+        throws ParserConfigurationException, SAXException, IOException {
+        final File[] configFiles = new File(configFolderPath).listFiles(new FileFilter() {
+            @Override
+            public boolean accept(final File f) {
+                return f.isFile() && f.getName().toLowerCase().endsWith(CONFIG_FILE_EXTENSION);
+            }
+        });
+        // if the folder does not exist, listFiles returns null
+        if (configFiles != null) {
+            Arrays.sort(configFiles);
+            for (final File configFile : configFiles) {
+                addConfigFile(configFile.getAbsolutePath());
+            }
+        }
+    }
+
+    /**
+     * Runs every job in the batch, and waits for all of them to complete. Jobs that have no log file path of their own
+     * are given one alongside their output file, so that every job keeps a separate log. If a summary file path has
+     * been set, the summary is written once all jobs have completed.
+     *
+     * @return The result of each job, in the order in which the jobs were added
+     */
+    public List<JobResult> exec() {
+        final ExecutorService executor = Executors.newFixedThreadPool(Math.min(getThreadCount(),
+            Math.max(1, this.jobs.size())), new WorkerThreadFactory());
+        final List<Future<JobResult>> futures = new ArrayList<>();
+        final long startTime = System.currentTimeMillis();
+        try {
+            for (int i = 0; i < this.jobs.size(); ++i) {
+                final int jobNumber = i + 1;
+                final StandardXMLTransformerParams params = this.jobs.get(i);
+                final String source = this.jobSources.get(i);
+                futures.add(executor.submit(() -> runJob(jobNumber, params, source)));
+            }
+        } finally {
+            executor.shutdown();
+        }
+
+        final List<JobResult> results = new ArrayList<>();
+        for (int i = 0; i < futures.size(); ++i) {
+            try {
+                results.add(futures.get(i).get());
+            } catch (final InterruptedException e) {
+                Thread.currentThread().interrupt();
+                results.add(new JobResult(i + 1, this.jobs.get(i), this.jobSources.get(i), 0L, e));
+            } catch (final ExecutionException e) {
+                results.add(new JobResult(i + 1, this.jobs.get(i), this.jobSources.get(i), 0L, e.getCause()));
+            }
+        }
+        final long finishTime = System.currentTimeMillis();
+
+        if (getSummaryFilePath() != null) {
+            try {
+                writeSummary(results, finishTime - startTime);
+            } catch (final ParserConfigurationException e) {
+                e.printStackTrace();
+            } catch (final IOException e) {
+                e.printStackTrace();
+            }
+        }
+
+        return results;
+    }
+
+    /**
+     * Runs a single job on the current thread.
+     *
+     * @param jobNumber The 1-based position of the job in the batch
+     * @param params The parameters of the job
+     * @param source The configuration file the job was read from, or null
+     * @return The result of the job
+     */
+    protected JobResult runJob(final int jobNumber, final StandardXMLTransformerParams params, final String source) {
+        if (params.getLogFilePath() == null) {
+            params.setLogFilePath(getDefaultLogFilePath(params));
+        }
+
+        final long startTime = System.currentTimeMillis();
+        try {
+            final StandardXMLTransformer transformer = StandardXMLTransformer.createTransformer(params);
+            transformer.exec();
+            return new JobResult(jobNumber, params, source, System.currentTimeMillis() - startTime,
+                transformer.getErrorCount(), transformer.getWarningCount(), transformer.isOutputProduced());
+        } catch (final Throwable t) {
+            return new JobResult(jobNumber, params, source, System.currentTimeMillis() - startTime, t);
+        }
+    }
+
+    /**
+     * Gets the log file path given to a job that has none of its own: the output file path, with the extension replaced
+     * by a log suffix.
+     *
+     * @param params The parameters of the job
+     * @return A log file path alongside the output file
+     */
+    protected String getDefaultLogFilePath(final StandardXMLTransformerParams params) {
+        String outputPath = StandardXMLTransformerParams.IMPORT.equals(params.getImportOrExport())
+            ? params.getSasXMLPath() : params.getStandardXMLPath();
+        if (outputPath == null) {
+            return null;
+        }
+        final int extensionIndex = outputPath.lastIndexOf('.');
+        if (extensionIndex > Math.max(outputPath.lastIndexOf('/'), outputPath.lastIndexOf('\\'))) {
+            outputPath = outputPath.substring(0, extensionIndex);
+        }
+
+        return outputPath + DEFAULT_LOG_SUFFIX;
+    }
+
+    /**
+     * Writes the summary of a completed batch, one TransformJob row per job, in the same table format as the transform
+     * log.
+     *
+     * @param results The results of the jobs
+     * @param batchTime The elapsed time of the whole batch, in milliseconds
+     * @throws ParserConfigurationException If the JRE is misconfigured for XML processing
+     * @throws IOException If the summary file could not be written
+     */
+    protected void writeSummary(final List<JobResult> results, final long batchTime)
+        throws ParserConfigurationException, IOException {
+        final Document doc = DOMUtils.createNewDocument();
+        final Element rootElement = doc.createElement(ROOT_ELEMENT_NAME);
+        doc.appendChild(rootElement);
+
+        for (final JobResult result : results) {
+            final Element jobElement = doc.createElement(JOB_ELEMENT_NAME);
+            rootElement.appendChild(jobElement);
+            appendValue(jobElement, "JobNumber", String.valueOf(result.getJobNumber()));
+            appendValue(jobElement, "ConfigFile", result.getSource());
+            appendValue(jobElement, "ImportOrExport", result.getParams().getImportOrExport());
+            appendValue(jobElement, "StandardName", result.getParams().getStandardName());
+            appendValue(jobElement, "StandardVersion", result.getParams().getStandardVersion());
+            appendValue(jobElement, "StandardXMLPath", result.getParams().getStandardXMLPath());
+            appendValue(jobElement, "SasXMLPath", result.getParams().getSasXMLPath());
+            appendValue(jobElement, "LogFilePath", result.getParams().getLogFilePath());
+            appendValue(jobElement, "Status", result.getStatus());
+            appendValue(jobElement, "ErrorCount", String.valueOf(result.getErrorCount()));
+            appendValue(jobElement, "WarningCount", String.valueOf(result.getWarningCount()));
+            appendValue(jobElement, "ElapsedTime", String.valueOf(result.getElapsedTime()));
+            appendValue(jobElement, "Message", result.getMessage());
+        }
+
+        final Element batchElement = doc.createElement("TransformBatch");
+        rootElement.appendChild(batchElement);
+        appendValue(batchElement, "JobCount", String.valueOf(results.size()));
+        appendValue(batchElement, "ThreadCount", String.valueOf(getThreadCount()));
+        appendValue(batchElement, "ElapsedTime", String.valueOf(batchTime));
+        appendValue(batchElement, "StylesheetCache", TemplatesCache.getInstance().toString());
+        appendValue(batchElement, "SchemaCache", SchemaCache.getInstance().toString());
+
+        DOMUtils.writeDOM(doc, getSummaryFilePath());
+    }
+
+    /**
+     * Appends a child element with the given text content.
+     *
+     * @param parent The parent element
+     * @param name The name of the child element
+     * @param value The text content; no text is added if null
+     */
+    private static void appendValue(final Element parent, final String name, final String value) {
+        final Element child = parent.getOwnerDocument().createElement(name);
+        parent.appendChild(child);
+        if (value != null) {
+            DOMUtils.setText(child, value);
+        }
+    }
+
+    /**
+     * Adds a job to the batch, recording where it was read from.
+     *
+     * @param params The parameters of the transform to be run
+     * @param source The configuration file the job was read from, or null
+     */
+    private void addJob(final StandardXMLTransformerParams params, final String source) {
+        this.jobs.add(params);
+        this.jobSources.add(source);
+    }
+
+    /**
+     * Gets the number of jobs in the batch.
+     *
+     * @return The number of jobs
+     */
+    public int getJobCount() {
+        return this.jobs.size();
+    }
+
+    /**
+     * Gets the maximum number of jobs run concurrently.
+     *
+     * @return The number of worker threads
+     */
+    public int getThreadCount() {
+        return threadCount;
+    }
+
+    /**
+     * Sets the maximum number of jobs run concurrently.
+     *
+     * @param threadCount The number of worker threads; values below 1 are treated as 1
+     */
+    public void setThreadCount(final int threadCount) {
+        this.threadCount = Math.max(1, threadCount);
+    }
+
+    /**
+     * Needed for SAS9.1 javaobj.
+     *
+     * @param threadCount The number of worker threads
+     */
+    public void setThreadCountString(final String threadCount) {
+        if (threadCount != null) {
+            setThreadCount(Integer.parseInt(threadCount.trim()));
+        }
+    }
+
+    /**
+     * Gets the path to the file to which the batch summary is written.
+     *
+     * @return The summary file path, or null if no summary is written
+     */
+    public String getSummaryFilePath() {
+        return summaryFilePath;
+    }
+
+    /**
+     * Sets the path to the file to which the batch summary is written.
+     *
+     * @param summaryFilePath The summary file path, or null if no summary is to be written
+     */
+    public void setSummaryFilePath(final String summaryFilePath) {
+        this.summaryFilePath = summaryFilePath;
+    }
+
+    /**
+     * Names the worker threads, so that they can be identified in thread dumps.
+     */
+    private static final class WorkerThreadFactory implements ThreadFactory {
+        private final AtomicInteger threadNumber = new AtomicInteger();
+
+        @Override
+        public Thread newThread(final Runnable r) {
+            final Thread t = new Thread(r, "StandardXMLTransformerBatch-" + this.threadNumber.incrementAndGet());
+            t.setDaemon(true);
+            return t;
+        }
+    }
+
+    /**
+     * The outcome of one job in a batch.
+     */
+    public static class JobResult {
+        private final int jobNumber;
+        private final StandardXMLTransformerParams params;
+        private final String source;
+        private final long elapsedTime;
+        private final int errorCount;
+        private final int warningCount;
+        private final boolean outputProduced;
+        private final Throwable failure;
+
+        /**
+         * Constructs the result of a job that ran to completion.
+         *
+         * @param jobNumber The 1-based position of the job in the batch
+         * @param params The parameters of the job
+         * @param source The configuration file the job was read from, or null
+         * @param elapsedTime The elapsed time of the job, in milliseconds
+         * @param errorCount The number of errors logged by the job
+         * @param warningCount The number of warnings logged by the job
+         * @param outputProduced Whether the job wrote its result file
+         */
+        JobResult(final int jobNumber, final StandardXMLTransformerParams params, final String source,
+            final long elapsedTime, final int errorCount, final int warningCount, final boolean outputProduced) {
+            this.jobNumber = jobNumber;
+            this.params = params;
+            this.source = source;
+            this.elapsedTime = elapsedTime;
+            this.errorCount = errorCount;
+            this.warningCount = warningCount;
+            this.outputProduced = outputProduced;
+            this.failure = null;
+        }
+
+        /**
+         * Constructs the result of a job that could not be run to completion.
+         *
+         * @param jobNumber The 1-based position of the job in the batch
+         * @param params The parameters of the job
+         * @param source The configuration file the job was read from, or null
+         * @param elapsedTime The elapsed time of the job, in milliseconds
+         * @param failure The cause of the failure
+         */
+        JobResult(final int jobNumber, final StandardXMLTransformerParams params, final String source,
+            final long elapsedTime, final Throwable failure) {
+            this.jobNumber = jobNumber;
+            this.params = params;
+            this.source = source;
+            this.elapsedTime = elapsedTime;
+            this.errorCount = 1;
+            this.warningCount = 0;
+            this.outputProduced = false;
+            this.failure = failure;
+        }
+
+        /**
+         * Gets the 1-based position of the job in the batch.
+         *
+         * @return The job number
+         */
+        public int getJobNumber() {
+            return jobNumber;
+        }
+
+        /**
+         * Gets the parameters of the job.
+         *
+         * @return The job parameters
+         */
+        public StandardXMLTransformerParams getParams() {
+            return params;
+        }
+
+        /**
+         * Gets the configuration file the job was read from.
+         *
+         * @return The configuration file path, or null if the job was added as a parameters object
+         */
+        public String getSource() {
+            return source;
+        }
+
+        /**
+         * Gets the elapsed time of the job.
+         *
+         * @return The elapsed time, in milliseconds
+         */
+        public long getElapsedTime() {
+            return elapsedTime;
+        }
+
+        /**
+         * Gets the number of errors logged by the job.
+         *
+         * @return The error count
+         */
+        public int getErrorCount() {
+            return errorCount;
+        }
+
+        /**
+         * Gets the number of warnings logged by the job.
+         *
+         * @return The warning count
+         */
+        public int getWarningCount() {
+            return warningCount;
+        }
+
+        /**
+         * Whether the job wrote its result file. Output discarded because the document failed validation does not
+         * count.
+         *
+         * @return true if the result file was written
+         */
+        public boolean isOutputProduced() {
+            return outputProduced;
+        }
+
+        /**
+         * Whether the job ran to completion without logging any errors and, unless it only validated, wrote its result
+         * file.
+         *
+         * @return true if the job succeeded
+         */
+        public boolean isSuccessful() {
+            return (this.failure == null) && (this.errorCount == 0)
+                && (this.outputProduced || this.params.isValidatingXMLOnly());
+        }
+
+        /**
+         * Gets the status of the job.
+         *
+         * @return STATUS_SUCCESS or STATUS_FAILED
+         */
+        public String getStatus() {
+            return isSuccessful() ? STATUS_SUCCESS : STATUS_FAILED;
+        }
+
+        /**
+         * Gets a description of the failure that prevented the job from running to completion.
+         *
+         * @return The failure message, or null if the job ran to completion
+         */
+        public String getMessage() {
+            if (this.failure == null) {
+                return null;
+            }
+
+            return (this.failure.getMessage() != null) ? this.failure.getMessage() : this.failure.toString();
+        }
+
+        /**
+         * Returns a one-line description of the job outcome.
+         *
+         * @return A string containing details of this instance
+         */
+        @Override
+        public String toString() {
+            final StringBuffer sb = new StringBuffer();
+            sb.append("Job ").append(getJobNumber());
+            if (getSource() != null) {
+                sb.append(" (").append(getSource()).append(')');
+            }
+            sb.append(": ").append(getStatus()).append(", ").append(getErrorCount()).append(" errors, ")
+                .append(getWarningCount()).append(" warnings, ").append(getElapsedTime()).append(" ms.");
+            if (getMessage() != null) {
+                sb.append(StringUtils.NEWLINE).append("    ").append(getMessage());
+            }
+
+            return sb.toString();
+        }
+    }
+
+    /**
+     * Gets the parameters of the jobs in the batch.
+     *
+     * @return An unmodifiable view of the job parameters, in the order in which the jobs were added
+     */
+    public List<StandardXMLTransformerParams> getJobs() {
+        return Collections.unmodifiableList(this.jobs);
+    }
+}
@@ -2,6 +2,11 @@ package com.sas.ptc.transform.xml;
 
 import java.io.File;
 import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
 
 import javax.xml.parsers.ParserConfigurationException;
 
@@ -10,8 +15,11 @@ import org.w3c.dom.Element;
 import org.w3c.dom.NodeList;
 import org.xml.sax.SAXException;
 
+import com.sas.ptc.transform.xml.cache.ValidationResultCache;
 import com.sas.ptc.transform.xml.log.Log;
 import com.sas.ptc.transform.xml.log.LogEntry;
+import com.sas.ptc.transform.xml.metrics.PhaseMetrics;
+import com.sas.ptc.transform.xml.metrics.TransformMetrics;
 import com.sas.ptc.util.xml.DOMUtils;
 
 /**
@@ -26,6 +34,7 @@ public class StandardXMLTransformerParams {
     private static final String DEFAULT_ENCODING = "UTF-8";
     private static final String DEFAULT_CREATION_OVERRIDE = "2008-05-24T16:31:25-04:00";
     private static final String DEFAULT_LOG_OVERRIDE = "2008-05-24T16:31:25-04:00";
+    private static final String DEFAULT_FLIGHT_RECORDING_SETTINGS = "profile";
 
     private static final String DEFAULT_HEADER_COMMENT_TEXT = "Produced from SAS data using the SAS Clinical Standards Toolkit";
 
@@ -61,6 +70,28 @@ public class StandardXMLTransformerParams {
     private boolean validatingStandardXML;
     private boolean validatingXMLOnly;
     private boolean failOnValidationError;
+    private boolean validatingInline;
+    private int maxValidationErrors;
+    private long maxValidationMillis;
+    private String validationCachePath;
+    private long validationCacheMaxBytes;
+    private int validationCacheMaxAgeDays;
+    private boolean incrementalExport;
+    private String transletJarPath;
+    private String exportSections;
+    private int exportThreads;
+    private int importChunkSubjects;
+    private int importThreads;
+    private boolean planningMemory;
+
+    private boolean streamingLog;
+    private boolean aggregatingValidationMessages;
+
+    private String metricsFilePath;
+    private boolean registeringMetricsMBeans;
+    private String flightRecordingFilePath;
+    private String flightRecordingSettings;
+    private PhaseMetrics configParseMetrics;
 
     private boolean overridingCreationDate;
     private String creationDateOverrideValue;
@@ -68,6 +99,8 @@ public class StandardXMLTransformerParams {
     private boolean overridingLogTimestampDate;
     private String logTimestampDateOverrideValue;
 
+    private final List<String> parameterErrors = new ArrayList<>();
+
     /**
      * Construct an instance containing the appropriate default values where applicable.
      */
@@ -82,6 +115,10 @@ public class StandardXMLTransformerParams {
         this.failOnValidationError = false;
         this.logLevel = Log.LOG_LEVEL_WARNING;
         this.creatingFoldersForOutput = true;
+        this.flightRecordingSettings = DEFAULT_FLIGHT_RECORDING_SETTINGS;
+        this.validationCacheMaxBytes = ValidationResultCache.DEFAULT_MAX_BYTES;
+        this.validationCacheMaxAgeDays = ValidationResultCache.DEFAULT_MAX_AGE_DAYS;
+        this.planningMemory = true;
     }
 
     /**
@@ -96,9 +133,12 @@ public class StandardXMLTransformerParams {
     public StandardXMLTransformerParams(final String pathToConfigFile)
         throws ParserConfigurationException, SAXException, IOException {
         this();
+        final PhaseMetrics phase = PhaseMetrics.start(TransformMetrics.CONFIG_PARSE);
         final File f = new File(pathToConfigFile);
         final Document document = DOMUtils.getDocument(f);
         populateConfig(document);
+        phase.stop(f.length(), 0);
+        this.configParseMetrics = phase;
     }
 
     /**
@@ -145,13 +185,18 @@ public class StandardXMLTransformerParams {
         // adjust paths for:
         // sasXMLPath, xslBasePath, standardXMLPath, schemaBasePath,
         // extensionBasePath
-        // customStylesheetPath, logFilePath
+        // customStylesheetPath, logFilePath, metricsFilePath, flightRecordingFilePath, validationCachePath,
+        // transletJarPath
         this.sasXMLPath = adjustPathProperty(workspaceRootFolder, this.sasXMLPath);
         this.xslBasePath = adjustPathProperty(workspaceRootFolder, this.xslBasePath);
         this.standardXMLPath = adjustPathProperty(workspaceRootFolder, this.standardXMLPath);
         this.schemaBasePath = adjustPathProperty(workspaceRootFolder, this.schemaBasePath);
         this.customStylesheetPath = adjustPathProperty(workspaceRootFolder, this.customStylesheetPath);
         this.logFilePath = adjustPathProperty(workspaceRootFolder, this.logFilePath);
+        this.metricsFilePath = adjustPathProperty(workspaceRootFolder, this.metricsFilePath);
+        this.flightRecordingFilePath = adjustPathProperty(workspaceRootFolder, this.flightRecordingFilePath);
+        this.validationCachePath = adjustPathProperty(workspaceRootFolder, this.validationCachePath);
+        this.transletJarPath = adjustPathProperty(workspaceRootFolder, this.transletJarPath);
         this.availableTransformsFilePath = adjustPathProperty(workspaceRootFolder, this.availableTransformsFilePath);
     }
 
@@ -171,6 +216,56 @@ public class StandardXMLTransformerParams {
         return result;
     }
 
+    /**
+     * Parses the value of an integer parameter. A value that is not a number is recorded among the parameter errors,
+     * logged when the transform starts, and the current value is kept.
+     * 
+     * @param paramName The name of the parameter, as used in the configuration file
+     * @param paramValue The value given
+     * @param currentValue The value kept if the value given is not a number
+     * @return The value of the parameter
+     */
+    private int parseIntParam(final String paramName, final String paramValue, final int currentValue) {
+        try {
+            return Integer.parseInt(paramValue.trim());
+        } catch (final NumberFormatException e) {
+            addParameterError(paramName, paramValue, String.valueOf(currentValue));
+            return currentValue;
+        }
+    }
+
+    /**
+     * Parses the value of a long integer parameter, as parseIntParam does.
+     * 
+     * @param paramName The name of the parameter, as used in the configuration file
+     * @param paramValue The value given
+     * @param currentValue The value kept if the value given is not a number
+     * @return The value of the parameter
+     */
+    private long parseLongParam(final String paramName, final String paramValue, final long currentValue) {
+        try {
+            return Long.parseLong(paramValue.trim());
+        } catch (final NumberFormatException e) {
+            addParameterError(paramName, paramValue, String.valueOf(currentValue));
+            return currentValue;
+        }
+    }
+
+    private void addParameterError(final String paramName, final String paramValue, final String currentValue) {
+        this.parameterErrors.add("The value '" + paramValue + "' of the parameter " + paramName
+            + " is not a valid number; the value " + currentValue + " is used instead.");
+    }
+
+    /**
+     * Gets the errors found in the values given to the parameters, such as a number that could not be parsed. The
+     * parameters keep their previous value, and the errors are logged when the transform starts.
+     * 
+     * @return The error messages, in the order found
+     */
+    public List<String> getParameterErrors() {
+        return Collections.unmodifiableList(this.parameterErrors);
+    }
+
     /**
      * A testing utility that populates the transform params from an XML file representing a transform configuration.
      * 
@@ -180,56 +275,174 @@ public class StandardXMLTransformerParams {
         final NodeList paramElements = doc.getElementsByTagName("Param");
         for (int i = 0; i < paramElements.getLength(); ++i) {
             final Element param = (Element) paramElements.item(i);
-            final String paramName = param.getAttribute("name");
-            final String paramValue = param.getAttribute("value");
-
-            if ("sasXMLPath".equals(paramName)) {
-                this.sasXMLPath = paramValue;
-            } else if ("xslBasePath".equals(paramName)) {
-                this.xslBasePath = paramValue;
-            } else if ("standardXMLPath".equals(paramName)) {
-                this.standardXMLPath = paramValue;
-            } else if ("standardName".equals(paramName)) {
-                this.standardName = paramValue;
-            } else if ("standardVersion".equals(paramName)) {
-                this.standardVersion = paramValue;
-            } else if ("sasXMLPath".equals(paramName)) {
-                this.sasXMLPath = paramValue;
-            } else if ("creatingDisplayStylesheet".equals(paramName)) {
-                this.creatingDisplayStylesheet = Boolean.valueOf(paramValue).booleanValue();
-            } else if ("customStylesheetPath".equals(paramName)) {
-                this.customStylesheetPath = paramValue;
-            } else if ("outputStylesheetName".equals(paramName)) {
-                this.outputStylesheetName = paramValue;
-            } else if ("validatingStandardXML".equals(paramName)) {
-                this.validatingStandardXML = Boolean.valueOf(paramValue).booleanValue();
-            } else if ("schemaBasePath".equals(paramName)) {
-                this.schemaBasePath = paramValue;
-            } else if ("importOrExport".equals(paramName)) {
-                this.importOrExport = paramValue;
-            } else if ("outputEncoding".equals(paramName)) {
-                this.outputEncoding = paramValue;
-            } else if ("overridingCreationDate".equals(paramName)) {
-                this.overridingCreationDate = Boolean.valueOf(paramValue).booleanValue();
-            } else if ("creationDateOverrideValue".equals(paramName)) {
-                this.creationDateOverrideValue = paramValue;
-            } else if ("logFilePath".equals(paramName)) {
-                this.logFilePath = paramValue;
-            } else if ("overridingLogTimestampDate".equals(paramName)) {
-                this.overridingLogTimestampDate = Boolean.valueOf(paramValue).booleanValue();
-            } else if ("logTimestampDateOverrideValue".equals(paramName)) {
-                this.logTimestampDateOverrideValue = paramValue;
-            } else if ("headerCommentText".equals(paramName)) {
-                this.headerCommentText = paramValue;
-            } else if ("failOnValidationError".equals(paramName)) {
-                this.failOnValidationError = Boolean.valueOf(paramValue).booleanValue();
-            } else if ("availableTransformsFilePath".equals(paramName)) {
-                this.availableTransformsFilePath = paramValue;
-            } else if ("logLevel".equals(paramName)) {
-                this.logLevel = LogEntry.getLogLevel(paramValue);
-            } else if ("validatingXMLOnly".equals(paramName)) {
-                this.validatingXMLOnly = Boolean.valueOf(paramValue).booleanValue();
-            }
+            setConfigParam(param.getAttribute("name"), param.getAttribute("value"));
+        }
+    }
+
+    /**
+     * Sets a single parameter, given by the name and value it would have in a transform configuration file. Unknown
+     * parameter names are ignored.
+     * 
+     * @param paramName The name of the parameter, as used in the configuration file
+     * @param paramValue The value of the parameter, as used in the configuration file
+     */
+    public void setConfigParam(final String paramName, final String paramValue) {
+        if ("sasXMLPath".equals(paramName)) {
+            this.sasXMLPath = paramValue;
+        } else if ("xslBasePath".equals(paramName)) {
+            this.xslBasePath = paramValue;
+        } else if ("standardXMLPath".equals(paramName)) {
+            this.standardXMLPath = paramValue;
+        } else if ("standardName".equals(paramName)) {
+            this.standardName = paramValue;
+        } else if ("standardVersion".equals(paramName)) {
+            this.standardVersion = paramValue;
+        } else if ("sasXMLPath".equals(paramName)) {
+            this.sasXMLPath = paramValue;
+        } else if ("creatingDisplayStylesheet".equals(paramName)) {
+            this.creatingDisplayStylesheet = Boolean.valueOf(paramValue).booleanValue();
+        } else if ("customStylesheetPath".equals(paramName)) {
+            this.customStylesheetPath = paramValue;
+        } else if ("outputStylesheetName".equals(paramName)) {
+            this.outputStylesheetName = paramValue;
+        } else if ("validatingStandardXML".equals(paramName)) {
+            this.validatingStandardXML = Boolean.valueOf(paramValue).booleanValue();
+        } else if ("schemaBasePath".equals(paramName)) {
+            this.schemaBasePath = paramValue;
+        } else if ("importOrExport".equals(paramName)) {
+            this.importOrExport = paramValue;
+        } else if ("outputEncoding".equals(paramName)) {
+            this.outputEncoding = paramValue;
+        } else if ("overridingCreationDate".equals(paramName)) {
+            this.overridingCreationDate = Boolean.valueOf(paramValue).booleanValue();
+        } else if ("creationDateOverrideValue".equals(paramName)) {
+            this.creationDateOverrideValue = paramValue;
+        } else if ("logFilePath".equals(paramName)) {
+            this.logFilePath = paramValue;
+        } else if ("overridingLogTimestampDate".equals(paramName)) {
+            this.overridingLogTimestampDate = Boolean.valueOf(paramValue).booleanValue();
+        } else if ("logTimestampDateOverrideValue".equals(paramName)) {
+            this.logTimestampDateOverrideValue = paramValue;
+        } else if ("headerCommentText".equals(paramName)) {
+            this.headerCommentText = paramValue;
+        } else if ("failOnValidationError".equals(paramName)) {
+            this.failOnValidationError = Boolean.valueOf(paramValue).booleanValue();
+        } else if ("availableTransformsFilePath".equals(paramName)) {
+            this.availableTransformsFilePath = paramValue;
+        } else if ("logLevel".equals(paramName)) {
+            this.logLevel = LogEntry.getLogLevel(paramValue);
+        } else if ("validatingXMLOnly".equals(paramName)) {
+            this.validatingXMLOnly = Boolean.valueOf(paramValue).booleanValue();
+        } else if ("validatingInline".equals(paramName)) {
+            this.validatingInline = Boolean.valueOf(paramValue).booleanValue();
+        } else if ("maxValidationErrors".equals(paramName)) {
+            this.maxValidationErrors = parseIntParam(paramName, paramValue, this.maxValidationErrors);
+        } else if ("maxValidationMillis".equals(paramName)) {
+            this.maxValidationMillis = parseLongParam(paramName, paramValue, this.maxValidationMillis);
+        } else if ("validationCachePath".equals(paramName)) {
+            this.validationCachePath = paramValue;
+        } else if ("validationCacheMaxBytes".equals(paramName)) {
+            this.validationCacheMaxBytes = parseLongParam(paramName, paramValue, this.validationCacheMaxBytes);
+        } else if ("validationCacheMaxAgeDays".equals(paramName)) {
+            this.validationCacheMaxAgeDays = parseIntParam(paramName, paramValue, this.validationCacheMaxAgeDays);
+        } else if ("incrementalExport".equals(paramName)) {
+            this.incrementalExport = Boolean.valueOf(paramValue).booleanValue();
+        } else if ("transletJarPath".equals(paramName)) {
+            this.transletJarPath = paramValue;
+        } else if ("exportSections".equals(paramName)) {
+            this.exportSections = paramValue;
+        } else if ("exportThreads".equals(paramName)) {
+            this.exportThreads = parseIntParam(paramName, paramValue, this.exportThreads);
+        } else if ("importChunkSubjects".equals(paramName)) {
+            this.importChunkSubjects = parseIntParam(paramName, paramValue, this.importChunkSubjects);
+        } else if ("importThreads".equals(paramName)) {
+            this.importThreads = parseIntParam(paramName, paramValue, this.importThreads);
+        } else if ("planningMemory".equals(paramName)) {
+            this.planningMemory = Boolean.valueOf(paramValue).booleanValue();
+        } else if ("streamingLog".equals(paramName)) {
+            this.streamingLog = Boolean.valueOf(paramValue).booleanValue();
+        } else if ("aggregatingValidationMessages".equals(paramName)) {
+            this.aggregatingValidationMessages = Boolean.valueOf(paramValue).booleanValue();
+        } else if ("metricsFilePath".equals(paramName)) {
+            this.metricsFilePath = paramValue;
+        } else if ("registeringMetricsMBeans".equals(paramName)) {
+            this.registeringMetricsMBeans = Boolean.valueOf(paramValue).booleanValue();
+        } else if ("flightRecordingFilePath".equals(paramName)) {
+            this.flightRecordingFilePath = paramValue;
+        } else if ("flightRecordingSettings".equals(paramName)) {
+            this.flightRecordingSettings = paramValue;
+        } else if ("creatingFoldersForOutput".equals(paramName)) {
+            this.creatingFoldersForOutput = Boolean.valueOf(paramValue).booleanValue();
+        }
+    }
+
+    /**
+     * Gets the current values of all parameters, by the names they would have in a transform configuration file.
+     * Parameters having no value are omitted. Setting each returned entry on a new instance, via setConfigParam,
+     * reproduces this instance.
+     * 
+     * @return The parameter values, keyed by parameter name
+     */
+    public Map<String, String> getConfigParams() {
+        final Map<String, String> configParams = new LinkedHashMap<>();
+        putConfigParam(configParams, "importOrExport", this.importOrExport);
+        putConfigParam(configParams, "standardName", this.standardName);
+        putConfigParam(configParams, "standardVersion", this.standardVersion);
+        putConfigParam(configParams, "sasXMLPath", this.sasXMLPath);
+        putConfigParam(configParams, "standardXMLPath", this.standardXMLPath);
+        putConfigParam(configParams, "xslBasePath", this.xslBasePath);
+        putConfigParam(configParams, "schemaBasePath", this.schemaBasePath);
+        putConfigParam(configParams, "availableTransformsFilePath", this.availableTransformsFilePath);
+        putConfigParam(configParams, "creatingFoldersForOutput", String.valueOf(this.creatingFoldersForOutput));
+        putConfigParam(configParams, "logFilePath", this.logFilePath);
+        putConfigParam(configParams, "logLevel", LogEntry.getLogLevelName(this.logLevel));
+        putConfigParam(configParams, "headerCommentText", this.headerCommentText);
+        putConfigParam(configParams, "outputEncoding", this.outputEncoding);
+        putConfigParam(configParams, "creatingDisplayStylesheet", String.valueOf(this.creatingDisplayStylesheet));
+        putConfigParam(configParams, "customStylesheetPath", this.customStylesheetPath);
+        putConfigParam(configParams, "outputStylesheetName", this.outputStylesheetName);
+        putConfigParam(configParams, "validatingStandardXML", String.valueOf(this.validatingStandardXML));
+        putConfigParam(configParams, "validatingXMLOnly", String.valueOf(this.validatingXMLOnly));
+        putConfigParam(configParams, "failOnValidationError", String.valueOf(this.failOnValidationError));
+        putConfigParam(configParams, "validatingInline", String.valueOf(this.validatingInline));
+        putConfigParam(configParams, "maxValidationErrors", String.valueOf(this.maxValidationErrors));
+        putConfigParam(configParams, "maxValidationMillis", String.valueOf(this.maxValidationMillis));
+        putConfigParam(configParams, "validationCachePath", this.validationCachePath);
+        putConfigParam(configParams, "validationCacheMaxBytes", String.valueOf(this.validationCacheMaxBytes));
+        putConfigParam(configParams, "validationCacheMaxAgeDays", String.valueOf(this.validationCacheMaxAgeDays));
+        putConfigParam(configParams, "incrementalExport", String.valueOf(this.incrementalExport));
+        putConfigParam(configParams, "transletJarPath", this.transletJarPath);
+        putConfigParam(configParams, "exportSections", this.exportSections);
+        putConfigParam(configParams, "exportThreads", String.valueOf(this.exportThreads));
+        putConfigParam(configParams, "importChunkSubjects", String.valueOf(this.importChunkSubjects));
+        putConfigParam(configParams, "importThreads", String.valueOf(this.importThreads));
+        putConfigParam(configParams, "planningMemory", String.valueOf(this.planningMemory));
+        putConfigParam(configParams, "streamingLog", String.valueOf(this.streamingLog));
+        putConfigParam(configParams, "aggregatingValidationMessages",
+            String.valueOf(this.aggregatingValidationMessages));
+        putConfigParam(configParams, "metricsFilePath", this.metricsFilePath);
+        putConfigParam(configParams, "registeringMetricsMBeans", String.valueOf(this.registeringMetricsMBeans));
+        putConfigParam(configParams, "flightRecordingFilePath", this.flightRecordingFilePath);
+        putConfigParam(configParams, "flightRecordingSettings", this.flightRecordingSettings);
+        putConfigParam(configParams, "overridingCreationDate", String.valueOf(this.overridingCreationDate));
+        putConfigParam(configParams, "creationDateOverrideValue", this.creationDateOverrideValue);
+        putConfigParam(configParams, "overridingLogTimestampDate", String.valueOf(this.overridingLogTimestampDate));
+        putConfigParam(configParams, "logTimestampDateOverrideValue", this.logTimestampDateOverrideValue);
+
+        return configParams;
+    }
+
+    /**
+     * Adds a parameter value to the given map, unless the value is null.
+     * 
+     * @param configParams The parameter values, keyed by parameter name
+     * @param paramName The name of the parameter
+     * @param paramValue The value of the parameter
+     */
+    private static void putConfigParam(final Map<String, String> configParams, final String paramName,
+        final String paramValue) {
+        if (paramValue != null) {
+            configParams.put(paramName, paramValue);
         }
     }
 
@@ -446,6 +659,203 @@ public class StandardXMLTransformerParams {
         return this.validatingXMLOnly;
     }
 
+    /**
+     * Whether schema validation of the standards XML file is performed in the same pass as the transform, rather than
+     * in a separate pass over the file. false by default. On import, the input file is then parsed only once; if it is
+     * found to be invalid and failOnValidationError is true, the transform output is discarded. On export, the output
+     * is validated while it is being written, and is not read back from disk.
+     * 
+     * @return Whether validation is performed in the same pass as the transform
+     */
+    public boolean isValidatingInline() {
+        return validatingInline;
+    }
+
+    /**
+     * Sets whether schema validation of the standards XML file is performed in the same pass as the transform, rather
+     * than in a separate pass over the file.
+     * 
+     * @param validatingInline Whether validation is performed in the same pass as the transform
+     */
+    public void setValidatingInline(final boolean validatingInline) {
+        this.validatingInline = validatingInline;
+    }
+
+    /**
+     * Needed for SAS9.1 javaobj.
+     * 
+     * @param validatingInline true or false
+     */
+    public void setValidatingInlineString(final String validatingInline) {
+        if (validatingInline != null) {
+            this.validatingInline = Boolean.valueOf(validatingInline).booleanValue();
+        }
+    }
+
+    /**
+     * Whether log entries are written to the log file as they are logged, rather than kept in memory until the end of
+     * the transform. The log file is the same either way.
+     * 
+     * @return Whether the log is streamed
+     */
+    public boolean isStreamingLog() {
+        return streamingLog;
+    }
+
+    /**
+     * Sets whether log entries are written to the log file as they are logged, rather than kept in memory until the
+     * end of the transform. Streaming keeps memory use constant when validation reports many errors.
+     * 
+     * @param streamingLog Whether the log is streamed
+     */
+    public void setStreamingLog(final boolean streamingLog) {
+        this.streamingLog = streamingLog;
+    }
+
+    /**
+     * Needed for SAS9.1 javaobj.
+     * 
+     * @param streamingLog true or false
+     */
+    public void setStreamingLogString(final String streamingLog) {
+        if (streamingLog != null) {
+            this.streamingLog = Boolean.valueOf(streamingLog).booleanValue();
+        }
+    }
+
+    /**
+     * Whether schema validation messages are grouped by message, each group logged once with its count and first
+     * locations, rather than logged one by one.
+     * 
+     * @return Whether validation messages are aggregated
+     */
+    public boolean isAggregatingValidationMessages() {
+        return aggregatingValidationMessages;
+    }
+
+    /**
+     * Sets whether schema validation messages are grouped by message, each group logged once with its count and first
+     * locations, rather than logged one by one.
+     * 
+     * @param aggregatingValidationMessages Whether validation messages are aggregated
+     */
+    public void setAggregatingValidationMessages(final boolean aggregatingValidationMessages) {
+        this.aggregatingValidationMessages = aggregatingValidationMessages;
+    }
+
+    /**
+     * Needed for SAS9.1 javaobj.
+     * 
+     * @param aggregatingValidationMessages true or false
+     */
+    public void setAggregatingValidationMessagesString(final String aggregatingValidationMessages) {
+        if (aggregatingValidationMessages != null) {
+            this.aggregatingValidationMessages = Boolean.valueOf(aggregatingValidationMessages).booleanValue();
+        }
+    }
+
+    /**
+     * The absolute path to the file to which the metrics of each phase of the transform are written, or null if they
+     * are not written to a file.
+     * 
+     * @return The absolute path to the metrics file
+     */
+    public String getMetricsFilePath() {
+        return metricsFilePath;
+    }
+
+    /**
+     * Sets the absolute path to the file to which the metrics of each phase of the transform are written: wall-clock
+     * time, CPU time, heap allocation and bytes read and written. Null, the default, writes no metrics file.
+     * 
+     * @param metricsFilePath The absolute path to the metrics file
+     */
+    public void setMetricsFilePath(final String metricsFilePath) {
+        this.metricsFilePath = metricsFilePath;
+    }
+
+    /**
+     * Whether the metrics of each phase of the transform are added to the process-wide statistics registered as JMX
+     * MBeans.
+     * 
+     * @return Whether the metrics are published as MBeans
+     */
+    public boolean isRegisteringMetricsMBeans() {
+        return registeringMetricsMBeans;
+    }
+
+    /**
+     * Sets whether the metrics of each phase of the transform are added to the process-wide statistics registered as
+     * JMX MBeans. Meant for long-lived processes running many transforms, which can then be monitored with any JMX
+     * console.
+     * 
+     * @param registeringMetricsMBeans Whether the metrics are published as MBeans
+     */
+    public void setRegisteringMetricsMBeans(final boolean registeringMetricsMBeans) {
+        this.registeringMetricsMBeans = registeringMetricsMBeans;
+    }
+
+    /**
+     * Needed for SAS9.1 javaobj.
+     * 
+     * @param registeringMetricsMBeans true or false
+     */
+    public void setRegisteringMetricsMBeansString(final String registeringMetricsMBeans) {
+        if (registeringMetricsMBeans != null) {
+            this.registeringMetricsMBeans = Boolean.valueOf(registeringMetricsMBeans).booleanValue();
+        }
+    }
+
+    /**
+     * The absolute path to the file to which a JDK Flight Recorder recording of the transform is written, or null if
+     * no recording is made.
+     * 
+     * @return The absolute path to the recording file
+     */
+    public String getFlightRecordingFilePath() {
+        return flightRecordingFilePath;
+    }
+
+    /**
+     * Sets the absolute path to the file to which a JDK Flight Recorder recording of the transform is written, for
+     * offline profiling with JDK Mission Control. The recording is started once the log is opened, and written before
+     * the log is. Null, the default, makes no recording. Needs a JVM with the Flight Recorder: Java 11 or later, or
+     * Java 8 from update 262.
+     * 
+     * @param flightRecordingFilePath The absolute path to the recording file
+     */
+    public void setFlightRecordingFilePath(final String flightRecordingFilePath) {
+        this.flightRecordingFilePath = flightRecordingFilePath;
+    }
+
+    /**
+     * The Flight Recorder configuration used for the recording of the transform.
+     * 
+     * @return The name of a predefined configuration, or the path to a configuration file
+     */
+    public String getFlightRecordingSettings() {
+        return flightRecordingSettings;
+    }
+
+    /**
+     * Sets the Flight Recorder configuration used for the recording of the transform: the name of a predefined
+     * configuration, "default" or "profile", or the path to a configuration file. The default is "profile".
+     * 
+     * @param flightRecordingSettings The name of a predefined configuration, or the path to a configuration file
+     */
+    public void setFlightRecordingSettings(final String flightRecordingSettings) {
+        this.flightRecordingSettings = flightRecordingSettings;
+    }
+
+    /**
+     * Gets the metrics of the parsing of the configuration file these parameters were read from.
+     * 
+     * @return The metrics of the parsing, or null if the parameters were not read from a file
+     */
+    public PhaseMetrics getConfigParseMetrics() {
+        return configParseMetrics;
+    }
+
     /**
      * Needed for SAS9.1 javaobj.
      */
@@ -619,8 +1029,9 @@ public class StandardXMLTransformerParams {
 
     /**
      * Sets whether or not the transform should proceed if the document to be processed was schema-validated and found
-     * to be not valid.
-     * 
+     * to be not valid. On export, where the output is validated, it only applies to inline validation: an output
+     * found not valid is then discarded.
+     *
      * @param failOnValidationError True if the transformation should not continue if the input document was found to be
      *            invalid against its schema, false if the transform should continue regardless
      */
@@ -639,6 +1050,355 @@ public class StandardXMLTransformerParams {
         }
     }
 
+    /**
+     * The number of schema validation errors after which the validation is stopped and the document deemed not valid.
+     * 
+     * @return The maximum number of validation errors, or 0 if there is none
+     */
+    public int getMaxValidationErrors() {
+        return maxValidationErrors;
+    }
+
+    /**
+     * Sets the number of schema validation errors after which the validation is stopped and the document deemed not
+     * valid, so that a badly broken document is not read to its end. The default, 0, sets no maximum.
+     * 
+     * @param maxValidationErrors The maximum number of validation errors, or 0 for none
+     */
+    public void setMaxValidationErrors(final int maxValidationErrors) {
+        this.maxValidationErrors = maxValidationErrors;
+    }
+
+    /**
+     * Needed for SAS9.1 javaobj.
+     * 
+     * @param maxValidationErrors The maximum number of validation errors
+     */
+    public void setMaxValidationErrorsString(final String maxValidationErrors) {
+        if (maxValidationErrors != null) {
+            this.maxValidationErrors = parseIntParam("maxValidationErrors", maxValidationErrors,
+                this.maxValidationErrors);
+        }
+    }
+
+    /**
+     * The time after which the schema validation is stopped and the document deemed not valid.
+     * 
+     * @return The time limit, in milliseconds, or 0 if there is none
+     */
+    public long getMaxValidationMillis() {
+        return maxValidationMillis;
+    }
+
+    /**
+     * Sets the time after which the schema validation is stopped and the document deemed not valid. When validating
+     * inline, the time taken by the transform is counted as well, since it reads the document as it is validated. The
+     * default, 0, sets no limit.
+     * 
+     * @param maxValidationMillis The time limit, in milliseconds, or 0 for none
+     */
+    public void setMaxValidationMillis(final long maxValidationMillis) {
+        this.maxValidationMillis = maxValidationMillis;
+    }
+
+    /**
+     * Needed for SAS9.1 javaobj.
+     * 
+     * @param maxValidationMillis The time limit, in milliseconds
+     */
+    public void setMaxValidationMillisString(final String maxValidationMillis) {
+        if (maxValidationMillis != null) {
+            this.maxValidationMillis = parseLongParam("maxValidationMillis", maxValidationMillis,
+                this.maxValidationMillis);
+        }
+    }
+
+    /**
+     * The absolute path to the folder of the cache of validation results, or null if results are not cached.
+     * 
+     * @return The absolute path to the validation cache folder
+     */
+    public String getValidationCachePath() {
+        return validationCachePath;
+    }
+
+    /**
+     * Sets the absolute path to the folder of the cache of validation results. When set, a separate validation pass
+     * whose document and schema set have the same contents as one validated before, with the same validation settings,
+     * replays the stored verdict and log entries instead of parsing the document. The folder may be shared by
+     * concurrent processes. Null, the default, caches nothing.
+     * 
+     * @param validationCachePath The absolute path to the validation cache folder
+     */
+    public void setValidationCachePath(final String validationCachePath) {
+        this.validationCachePath = validationCachePath;
+    }
+
+    /**
+     * The maximum total size of the cache of validation results.
+     * 
+     * @return The maximum size, in bytes
+     */
+    public long getValidationCacheMaxBytes() {
+        return validationCacheMaxBytes;
+    }
+
+    /**
+     * Sets the maximum total size of the cache of validation results, beyond which the least recently used results are
+     * evicted. The default is 64 MB.
+     * 
+     * @param validationCacheMaxBytes The maximum size, in bytes
+     */
+    public void setValidationCacheMaxBytes(final long validationCacheMaxBytes) {
+        this.validationCacheMaxBytes = validationCacheMaxBytes;
+    }
+
+    /**
+     * Needed for SAS9.1 javaobj.
+     * 
+     * @param validationCacheMaxBytes The maximum size, in bytes
+     */
+    public void setValidationCacheMaxBytesString(final String validationCacheMaxBytes) {
+        if (validationCacheMaxBytes != null) {
+            this.validationCacheMaxBytes = parseLongParam("validationCacheMaxBytes", validationCacheMaxBytes,
+                this.validationCacheMaxBytes);
+        }
+    }
+
+    /**
+     * The number of days after which an unused validation result is evicted from the cache.
+     * 
+     * @return The maximum age, in days
+     */
+    public int getValidationCacheMaxAgeDays() {
+        return validationCacheMaxAgeDays;
+    }
+
+    /**
+     * Sets the number of days after which an unused validation result is evicted from the cache. The default is 30.
+     * 
+     * @param validationCacheMaxAgeDays The maximum age, in days
+     */
+    public void setValidationCacheMaxAgeDays(final int validationCacheMaxAgeDays) {
+        this.validationCacheMaxAgeDays = validationCacheMaxAgeDays;
+    }
+
+    /**
+     * Needed for SAS9.1 javaobj.
+     * 
+     * @param validationCacheMaxAgeDays The maximum age, in days
+     */
+    public void setValidationCacheMaxAgeDaysString(final String validationCacheMaxAgeDays) {
+        if (validationCacheMaxAgeDays != null) {
+            this.validationCacheMaxAgeDays = parseIntParam("validationCacheMaxAgeDays", validationCacheMaxAgeDays,
+                this.validationCacheMaxAgeDays);
+        }
+    }
+
+    /**
+     * Whether an export is skipped when its inputs and output are unchanged since the last export recorded in its
+     * manifest.
+     * 
+     * @return Whether the export is incremental
+     */
+    public boolean isIncrementalExport() {
+        return incrementalExport;
+    }
+
+    /**
+     * Sets whether an export is skipped when its inputs and output are unchanged since the last export recorded in its
+     * manifest. An incremental export records, in a manifest file next to its output, the digests of the code, of the
+     * parameters affecting the output, of the available transforms file, of the source, of the stylesheets and schema
+     * documents read, and of the files written; an export finding them all unchanged does nothing. The manifest is
+     * only written by an export logging no errors, a valid one if validating.
+     * <p>
+     * Unless overridingCreationDate is true, the creation date is not an input: a skipped export keeps the output, and
+     * so the creation date, of the export that wrote it. The default is false.
+     * 
+     * @param incrementalExport Whether the export is incremental
+     */
+    public void setIncrementalExport(final boolean incrementalExport) {
+        this.incrementalExport = incrementalExport;
+    }
+
+    /**
+     * Needed for SAS9.1 javaobj.
+     * 
+     * @param incrementalExport true or false
+     */
+    public void setIncrementalExportString(final String incrementalExport) {
+        if (incrementalExport != null) {
+            this.incrementalExport = Boolean.valueOf(incrementalExport).booleanValue();
+        }
+    }
+
+    /**
+     * The absolute path to the jar of precompiled stylesheets, or null if the default one is used.
+     * 
+     * @return The absolute path to the translet jar
+     */
+    public String getTransletJarPath() {
+        return transletJarPath;
+    }
+
+    /**
+     * Sets the absolute path to the jar of stylesheets precompiled into XSLTC translets (ant translets). A stylesheet
+     * is loaded from the jar when it holds a translet compiled, by the same Java version, from the current contents of
+     * all its files; it is compiled from source otherwise. Null, the default, uses the sas.cdisc.translets.jar next to
+     * the toolkit jar, if there is one. The jar is shared by all transforms of the JVM.
+     * 
+     * @param transletJarPath The absolute path to the translet jar
+     */
+    public void setTransletJarPath(final String transletJarPath) {
+        this.transletJarPath = transletJarPath;
+    }
+
+    /**
+     * The names of the templates of the export stylesheet producing the sections of the document transformed
+     * concurrently, separated by white space, or null if the document is transformed as a whole.
+     * 
+     * @return The names of the section templates
+     */
+    public String getExportSections() {
+        return exportSections;
+    }
+
+    /**
+     * Sets the names, separated by white space, of the templates of the export stylesheet producing independent
+     * sections of the document, such as "Study AdminData ReferenceData ClinicalData Association" for ODM. Each section
+     * is then transformed on a thread of its own, and spliced into the rest of the document, with the same output.
+     * Each section template must be called by the template rule of the document element, with that element as the
+     * context node, and without parameters. As each transform parses the source, the memory needed grows with the
+     * number of sections transformed at once. Null, the default, transforms the document as a whole.
+     * 
+     * @param exportSections The names of the section templates
+     */
+    public void setExportSections(final String exportSections) {
+        this.exportSections = exportSections;
+    }
+
+    /**
+     * The maximum number of export sections transformed concurrently.
+     * 
+     * @return The thread count, or 0 if it is the number of available processors
+     */
+    public int getExportThreads() {
+        return exportThreads;
+    }
+
+    /**
+     * Sets the maximum number of export sections transformed concurrently, besides the rest of the document. The
+     * default, 0, is the number of available processors.
+     * 
+     * @param exportThreads The thread count, or 0 for the number of available processors
+     */
+    public void setExportThreads(final int exportThreads) {
+        this.exportThreads = exportThreads;
+    }
+
+    /**
+     * Needed for SAS9.1 javaobj.
+     * 
+     * @param exportThreads The thread count
+     */
+    public void setExportThreadsString(final String exportThreads) {
+        if (exportThreads != null) {
+            this.exportThreads = parseIntParam("exportThreads", exportThreads, this.exportThreads);
+        }
+    }
+
+    /**
+     * The maximum number of SubjectData elements transformed at once by the chunked import engine.
+     * 
+     * @return The number of SubjectData elements, or 0 if it is the default of the engine
+     */
+    public int getImportChunkSubjects() {
+        return importChunkSubjects;
+    }
+
+    /**
+     * Sets the maximum number of SubjectData elements transformed at once by the chunked import engine. The memory the
+     * import needs grows with it, and with the number of import threads. The default, 0, is 100 subjects.
+     * 
+     * @param importChunkSubjects The number of SubjectData elements, or 0 for the default of the engine
+     */
+    public void setImportChunkSubjects(final int importChunkSubjects) {
+        this.importChunkSubjects = importChunkSubjects;
+    }
+
+    /**
+     * Needed for SAS9.1 javaobj.
+     * 
+     * @param importChunkSubjects The number of SubjectData elements
+     */
+    public void setImportChunkSubjectsString(final String importChunkSubjects) {
+        if (importChunkSubjects != null) {
+            this.importChunkSubjects = parseIntParam("importChunkSubjects", importChunkSubjects,
+                this.importChunkSubjects);
+        }
+    }
+
+    /**
+     * The maximum number of chunks of subjects transformed concurrently by the chunked import engine.
+     * 
+     * @return The thread count, or 0 if it is the number of available processors
+     */
+    public int getImportThreads() {
+        return importThreads;
+    }
+
+    /**
+     * Sets the maximum number of chunks of subjects transformed concurrently by the chunked import engine, besides the
+     * rest of the document. The default, 0, is the number of available processors.
+     * 
+     * @param importThreads The thread count, or 0 for the number of available processors
+     */
+    public void setImportThreads(final int importThreads) {
+        this.importThreads = importThreads;
+    }
+
+    /**
+     * Needed for SAS9.1 javaobj.
+     * 
+     * @param importThreads The thread count
+     */
+    public void setImportThreadsString(final String importThreads) {
+        if (importThreads != null) {
+            this.importThreads = parseIntParam("importThreads", importThreads, this.importThreads);
+        }
+    }
+
+    /**
+     * Whether the memory the transform needs is estimated before it is run, to choose its engine, and to fail at once
+     * if it would not fit in the memory available.
+     * 
+     * @return Whether the transform is planned
+     */
+    public boolean isPlanningMemory() {
+        return planningMemory;
+    }
+
+    /**
+     * Sets whether the memory the transform needs is estimated before it is run. The default is true; if false, the
+     * transform is run with the engine configured, and the auto import engine is the XSL engine.
+     * 
+     * @param planningMemory Whether the transform is planned
+     */
+    public void setPlanningMemory(final boolean planningMemory) {
+        this.planningMemory = planningMemory;
+    }
+
+    /**
+     * Needed for SAS9.1 javaobj.
+     * 
+     * @param planningMemory true or false
+     */
+    public void setPlanningMemoryString(final String planningMemory) {
+        if (planningMemory != null) {
+            this.planningMemory = Boolean.valueOf(planningMemory).booleanValue();
+        }
+    }
+
     /**
      * Gets the minimum level of log messages to produce. All messages at the given severity and higher will be
      * produced.
@@ -0,0 +1,152 @@
+package com.sas.ptc.transform.xml;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+import javax.xml.parsers.ParserConfigurationException;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.transform.TransformerConfigurationException;
+
+import org.xml.sax.SAXException;
+
+import com.sas.ptc.util.xml.TransletBuilder;
+
+/**
+ * Copyright (c) 2022, SAS Institute Inc., Cary, NC, USA.  All Rights Reserved.
+ * SPDX-License-Identifier: Apache-2.0
+ *
+ * Precompiles the import and export stylesheets listed in an AvailableTransforms file into XSLTC translets, to be
+ * packaged into the translet jar from which TemplatesCache loads them (ant translets). A stylesheet is looked up in
+ * each XSL repository folder in turn, so that the xsl-repository folders of the standards source tree can stand in for
+ * the merged one of a global library; stylesheets found in none are skipped.
+ */
+public class TransletCompiler {
+
+    private final File availableTransformsFile;
+    private final List<File> xslBaseFolders;
+    private final File destinationFolder;
+
+    /**
+     * Constructor for TransletCompiler.
+     *
+     * @param availableTransformsFile The AvailableTransforms file listing the stylesheets
+     * @param xslBaseFolders The XSL repository folders, searched in order
+     * @param destinationFolder The folder to which the class files and the index are written
+     */
+    public TransletCompiler(final File availableTransformsFile, final List<File> xslBaseFolders,
+        final File destinationFolder) {
+        this.availableTransformsFile = availableTransformsFile;
+        this.xslBaseFolders = xslBaseFolders;
+        this.destinationFolder = destinationFolder;
+    }
+
+    /**
+     * Precompiles stylesheets into translets.
+     *
+     * @param args -availableTransforms file -xslBasePath folder[{path.separator}folder...] -destination folder
+     */
+    public static void main(final String[] args) {
+        String availableTransformsPath = null;
+        final List<File> xslBaseFolders = new ArrayList<>();
+        String destinationPath = null;
+        for (int i = 0; i + 1 < args.length; ++i) {
+            if ("-availableTransforms".equals(args[i])) {
+                availableTransformsPath = args[++i];
+            } else if ("-xslBasePath".equals(args[i])) {
+                for (final String path : args[++i].split(File.pathSeparator)) {
+                    if (path.trim().length() > 0) {
+                        xslBaseFolders.add(new File(path.trim()));
+                    }
+                }
+            } else if ("-destination".equals(args[i])) {
+                destinationPath = args[++i];
+            }
+        }
+        if ((availableTransformsPath == null) || xslBaseFolders.isEmpty() || (destinationPath == null)) {
+            System.err.println("Usage: java TransletCompiler -availableTransforms file "
+                + "-xslBasePath folder[" + File.pathSeparator + "folder...] -destination folder");
+            System.exit(1);
+        }
+
+        final TransletCompiler compiler = new TransletCompiler(new File(availableTransformsPath), xslBaseFolders,
+            new File(destinationPath));
+        try {
+            System.out.println(compiler.exec() + " stylesheets precompiled to " + destinationPath + ".");
+        } catch (final ParserConfigurationException e) {
+            e.printStackTrace();
+            System.exit(1);
+        } catch (final SAXException e) {
+            e.printStackTrace();
+            System.exit(1);
+        } catch (final IOException e) {
+            e.printStackTrace();
+            System.exit(1);
+        } catch (final TransformerConfigurationException e) {
+            e.printStackTrace();
+            System.exit(1);
+        } catch (final XMLStreamException e) {
+            e.printStackTrace();
+            System.exit(1);
+        }
+    }
+
+    /**
+     * Compiles every import and export stylesheet of the AvailableTransforms file found in an XSL repository folder,
+     * and writes the index of the translets.
+     *
+     * @return The number of stylesheets compiled
+     * @throws ParserConfigurationException If the XML parser is misconfigured
+     * @throws SAXException If the AvailableTransforms file is not well-formed XML
+     * @throws IOException If a file could not be read or written
+     * @throws TransformerConfigurationException If a stylesheet could not be compiled
+     * @throws XMLStreamException If the index could not be written
+     */
+    public int exec() throws ParserConfigurationException, SAXException, IOException,
+        TransformerConfigurationException, XMLStreamException {
+        final StandardXMLTransformerParams params = new StandardXMLTransformerParams();
+        params.setAvailableTransformsFilePath(this.availableTransformsFile.getPath());
+        final AvailableTransforms availableTransforms = new AvailableTransforms(params);
+        availableTransforms.init();
+
+        final Set<String> names = new LinkedHashSet<>();
+        for (final StandardTransformInfo info : availableTransforms.getTransformInfoList()) {
+            addName(names, info.getImportXSLSubPath());
+            addName(names, info.getExportXSLSubPath());
+        }
+
+        final TransletBuilder builder = new TransletBuilder(this.destinationFolder);
+        for (final String name : names) {
+            final File stylesheet = findStylesheet(name);
+            if (stylesheet == null) {
+                System.out.println("Skipped " + name + ", found in no XSL repository folder.");
+            } else {
+                System.out.println("Compiling " + stylesheet + ".");
+                builder.add(name, stylesheet);
+            }
+        }
+        builder.writeIndex();
+
+        return builder.size();
+    }
+
+    private static void addName(final Set<String> names, final String name) {
+        if ((name != null) && (name.trim().length() > 0)) {
+            names.add(name.trim());
+        }
+    }
+
+    private File findStylesheet(final String name) {
+        for (final File folder : this.xslBaseFolders) {
+            final File stylesheet = new File(folder, name);
+            if (stylesheet.isFile()) {
+                return stylesheet;
+            }
+        }
+
+        return null;
+    }
+}
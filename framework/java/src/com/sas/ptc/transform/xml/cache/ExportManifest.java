@@ -0,0 +1,285 @@
+package com.sas.ptc.transform.xml.cache;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.URISyntaxException;
+import java.security.CodeSource;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLOutputFactory;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+import javax.xml.stream.XMLStreamWriter;
+
+import com.sas.ptc.util.ContentDigest;
+
+/**
+ * Copyright (c) 2022, SAS Institute Inc., Cary, NC, USA.  All Rights Reserved.
+ * SPDX-License-Identifier: Apache-2.0
+ *
+ * The digests of the inputs and outputs of an export, recorded next to its output so that a later export with the
+ * same inputs can be skipped. Entries are of two sorts:
+ * <ul>
+ * <li>Declared inputs (the code, the parameters, the source and the like) are known before the export runs; they must
+ * be the same, path and digest, for the export to be skipped.</li>
+ * <li>Tracked files (the stylesheets and schema documents read, and the files written) are only known once the export
+ * has run; the files recorded must still have the same digest for the export to be skipped. As the files a stylesheet
+ * or schema pulls in are named in files already recorded, they cannot change unless a recorded digest does.</li>
+ * </ul>
+ * The manifest file holds an EXPORT_MANIFEST element with one ENTRY element per entry, whose attributes are its type,
+ * the path of its file, if any, and its digest.
+ */
+public class ExportManifest {
+
+    public static final String CODE = "code";
+    public static final String PARAMETERS = "parameters";
+    public static final String AVAILABLE_TRANSFORMS = "availableTransforms";
+    public static final String SOURCE = "source";
+    public static final String CUSTOM_STYLESHEET = "customStylesheet";
+    public static final String STYLESHEET = "stylesheet";
+    public static final String SCHEMA = "schema";
+    public static final String OUTPUT = "output";
+
+    private static final List<String> TRACKED_TYPES = Arrays.asList(STYLESHEET, SCHEMA, OUTPUT);
+
+    private static final String FORMAT_VERSION = "1";
+    private static final String ROOT_ELEMENT_NAME = "EXPORT_MANIFEST";
+    private static final String ENTRY_ELEMENT_NAME = "ENTRY";
+    private static final String ENCODING = "UTF-8";
+
+    private static String codeDigest;
+
+    private final List<Entry> entries = new ArrayList<>();
+
+    /**
+     * Adds an entry for a value other than a file, such as the parameters.
+     *
+     * @param type The type of the entry
+     * @param digest The digest of the value
+     */
+    public void addValue(final String type, final String digest) {
+        this.entries.add(new Entry(type, null, digest));
+    }
+
+    /**
+     * Adds an entry for a file, digesting its contents. A missing file is recorded with no digest.
+     *
+     * @param type The type of the entry
+     * @param file The file
+     * @throws IOException If the file could not be read
+     */
+    public void addFile(final String type, final File file) throws IOException {
+        final File absoluteFile = file.getAbsoluteFile();
+        this.entries.add(new Entry(type, absoluteFile.getPath(), digest(absoluteFile)));
+    }
+
+    /**
+     * Compares the manifest of an earlier export to this one, holding the declared inputs of the export about to run,
+     * and checks that the tracked files recorded by the earlier export are unchanged.
+     *
+     * @param recorded The manifest of the earlier export
+     * @return null if the export can be skipped, or else the type of the first entry found to differ
+     * @throws IOException If a tracked file could not be read
+     */
+    public String findChange(final ExportManifest recorded) throws IOException {
+        final List<Entry> declared = getDeclaredEntries();
+        final List<Entry> recordedDeclared = recorded.getDeclaredEntries();
+        for (int i = 0; i < declared.size(); ++i) {
+            if ((i >= recordedDeclared.size()) || !declared.get(i).equals(recordedDeclared.get(i))) {
+                return declared.get(i).type;
+            }
+        }
+        if (recordedDeclared.size() > declared.size()) {
+            return recordedDeclared.get(declared.size()).type;
+        }
+
+        boolean outputRecorded = false;
+        for (final Entry entry : recorded.entries) {
+            if (TRACKED_TYPES.contains(entry.type)) {
+                outputRecorded |= OUTPUT.equals(entry.type);
+                if ((entry.path == null)
+                    || !String.valueOf(entry.digest).equals(String.valueOf(digest(new File(entry.path))))) {
+                    return entry.type;
+                }
+            }
+        }
+
+        return outputRecorded ? null : OUTPUT;
+    }
+
+    private List<Entry> getDeclaredEntries() {
+        final List<Entry> declared = new ArrayList<>();
+        for (final Entry entry : this.entries) {
+            if (!TRACKED_TYPES.contains(entry.type)) {
+                declared.add(entry);
+            }
+        }
+
+        return declared;
+    }
+
+    /**
+     * Gets a digest standing for the version of the code running the export: that of the jar file, or of the class
+     * folder, the transformer classes were loaded from. It is computed once per JVM.
+     *
+     * @return The code digest
+     * @throws IOException If the code could not be read
+     */
+    public static synchronized String getCodeDigest() throws IOException {
+        if (codeDigest == null) {
+            final ContentDigest digest = new ContentDigest();
+            final Package codePackage = ExportManifest.class.getPackage();
+            digest.update((codePackage == null) ? null : codePackage.getImplementationVersion());
+            final CodeSource codeSource = ExportManifest.class.getProtectionDomain().getCodeSource();
+            if ((codeSource != null) && (codeSource.getLocation() != null)) {
+                try {
+                    updateTree(digest, new File(codeSource.getLocation().toURI()));
+                } catch (final URISyntaxException e) {
+                    digest.update(codeSource.getLocation().toString());
+                } catch (final IllegalArgumentException e) {
+                    // not a file location: only the implementation version stands for the code
+                    digest.update(codeSource.getLocation().toString());
+                }
+            }
+            codeDigest = digest.toHexString();
+        }
+
+        return codeDigest;
+    }
+
+    private static void updateTree(final ContentDigest digest, final File file) throws IOException {
+        if (file.isDirectory()) {
+            final File[] children = file.listFiles();
+            if (children != null) {
+                Arrays.sort(children);
+                for (final File child : children) {
+                    digest.update(child.getName());
+                    updateTree(digest, child);
+                }
+            }
+        } else if (file.isFile()) {
+            digest.update(file);
+        }
+    }
+
+    private static String digest(final File file) throws IOException {
+        return file.isFile() ? new ContentDigest().update(file).toHexString() : null;
+    }
+
+    /**
+     * Reads a manifest file.
+     *
+     * @param file The manifest file
+     * @return The manifest, or null if the file does not exist or is of another format version
+     * @throws IOException If the file could not be read
+     * @throws XMLStreamException If the file is not well-formed
+     */
+    public static ExportManifest read(final File file) throws IOException, XMLStreamException {
+        if (!file.isFile()) {
+            return null;
+        }
+
+        final InputStream is = new BufferedInputStream(new FileInputStream(file));
+        try {
+            final XMLStreamReader reader = XMLInputFactory.newInstance().createXMLStreamReader(is);
+            final ExportManifest manifest = new ExportManifest();
+            while (reader.hasNext()) {
+                if (reader.next() != XMLStreamConstants.START_ELEMENT) {
+                    continue;
+                }
+                if (ROOT_ELEMENT_NAME.equals(reader.getLocalName())) {
+                    if (!FORMAT_VERSION.equals(reader.getAttributeValue(null, "version"))) {
+                        return null;
+                    }
+                } else if (ENTRY_ELEMENT_NAME.equals(reader.getLocalName())) {
+                    manifest.entries.add(new Entry(reader.getAttributeValue(null, "type"),
+                        reader.getAttributeValue(null, "path"), reader.getAttributeValue(null, "digest")));
+                }
+            }
+            reader.close();
+
+            return manifest;
+        } finally {
+            is.close();
+        }
+    }
+
+    /**
+     * Writes the manifest to a file, in UTF-8.
+     *
+     * @param file The manifest file
+     * @throws IOException If the file could not be written
+     * @throws XMLStreamException If the manifest could not be serialized
+     */
+    public void write(final File file) throws IOException, XMLStreamException {
+        final OutputStream os = new BufferedOutputStream(new FileOutputStream(file));
+        try {
+            final XMLStreamWriter writer = XMLOutputFactory.newInstance().createXMLStreamWriter(os, ENCODING);
+            writer.writeStartDocument(ENCODING, "1.0");
+            writer.writeCharacters("\n");
+            writer.writeStartElement(ROOT_ELEMENT_NAME);
+            writer.writeAttribute("version", FORMAT_VERSION);
+            for (final Entry entry : this.entries) {
+                writer.writeCharacters("\n    ");
+                writer.writeEmptyElement(ENTRY_ELEMENT_NAME);
+                writer.writeAttribute("type", entry.type);
+                if (entry.path != null) {
+                    writer.writeAttribute("path", entry.path);
+                }
+                if (entry.digest != null) {
+                    writer.writeAttribute("digest", entry.digest);
+                }
+            }
+            writer.writeCharacters("\n");
+            writer.writeEndElement();
+            writer.writeCharacters("\n");
+            writer.writeEndDocument();
+            writer.close();
+        } finally {
+            os.close();
+        }
+    }
+
+    /**
+     * An entry: its type, the path of its file, if any, and its digest.
+     */
+    private static final class Entry {
+        private final String type;
+        private final String path;
+        private final String digest;
+
+        Entry(final String type, final String path, final String digest) {
+            this.type = type;
+            this.path = path;
+            this.digest = digest;
+        }
+
+        @Override
+        public boolean equals(final Object o) {
+            if (!(o instanceof Entry)) {
+                return false;
+            }
+            final Entry other = (Entry) o;
+
+            return String.valueOf(this.type).equals(String.valueOf(other.type))
+                && String.valueOf(this.path).equals(String.valueOf(other.path))
+                && String.valueOf(this.digest).equals(String.valueOf(other.digest));
+        }
+
+        @Override
+        public int hashCode() {
+            return String.valueOf(this.type).hashCode() ^ String.valueOf(this.path).hashCode()
+                ^ String.valueOf(this.digest).hashCode();
+        }
+    }
+}
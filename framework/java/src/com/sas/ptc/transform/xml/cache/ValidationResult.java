@@ -0,0 +1,45 @@
+package com.sas.ptc.transform.xml.cache;
+
+import com.sas.ptc.transform.xml.log.LogRecording;
+
+/**
+ * Copyright (c) 2022, SAS Institute Inc., Cary, NC, USA.  All Rights Reserved.
+ * SPDX-License-Identifier: Apache-2.0
+ *
+ * The outcome of a schema validation, as kept by a ValidationResultCache: whether the document was valid, and the log
+ * entries the validation produced.
+ */
+public class ValidationResult {
+
+    private final boolean valid;
+    private final LogRecording logRecording;
+
+    /**
+     * Constructor for ValidationResult.
+     *
+     * @param valid Whether the document was valid
+     * @param logRecording The log entries the validation produced
+     */
+    public ValidationResult(final boolean valid, final LogRecording logRecording) {
+        this.valid = valid;
+        this.logRecording = logRecording;
+    }
+
+    /**
+     * Whether the document was valid.
+     *
+     * @return Whether the document was valid
+     */
+    public boolean isValid() {
+        return valid;
+    }
+
+    /**
+     * Gets the log entries the validation produced, to be replayed into the log of a job reusing the result.
+     *
+     * @return The log entries
+     */
+    public LogRecording getLogRecording() {
+        return logRecording;
+    }
+}
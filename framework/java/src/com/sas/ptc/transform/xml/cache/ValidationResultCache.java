@@ -0,0 +1,301 @@
+package com.sas.ptc.transform.xml.cache;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLOutputFactory;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+import javax.xml.stream.XMLStreamWriter;
+
+import com.sas.ptc.transform.xml.log.LogEntry;
+import com.sas.ptc.transform.xml.log.LogRecording;
+import com.sas.ptc.transform.xml.log.XMLValidationLogEntry;
+import com.sas.ptc.util.ContentDigest;
+
+/**
+ * Copyright (c) 2022, SAS Institute Inc., Cary, NC, USA.  All Rights Reserved.
+ * SPDX-License-Identifier: Apache-2.0
+ *
+ * An on-disk cache of schema validation results, so that a document validated unchanged against an unchanged schema
+ * set is not parsed again, by this process or any other sharing the cache folder. Results are keyed by a digest of the
+ * contents of the document and of every schema document of the set, together with the validator settings; neither
+ * file names nor modification times play a part, so a copied or touched file still hits.
+ * <p>
+ * Each result is a file of the cache folder, named after its key, holding a VALIDATION_RESULT element whose valid
+ * attribute is the verdict, with one ENTRY element per log entry, which keeps the severity, origin, scope, location
+ * and message of the entry. Results are written to a temporary file first and
+ * then moved into place, so that readers never see a partial result. The modification time of a result file is the
+ * time it was last used: results unused for longer than the maximum age are evicted, then the least recently used ones
+ * until the cache fits in its maximum size. Eviction runs after each result is stored.
+ */
+public class ValidationResultCache {
+
+    public static final long DEFAULT_MAX_BYTES = 64L * 1024 * 1024;
+    public static final int DEFAULT_MAX_AGE_DAYS = 30;
+
+    /**
+     * The maximum number of log entries of a result.
+     */
+    public static final int MAX_RESULT_ENTRIES = 10000;
+
+    /**
+     * The maximum size of a result, as a fraction of the maximum size of the cache, so that storing one does not
+     * evict most others, nor itself.
+     */
+    private static final int MAX_RESULT_SHARE = 4;
+
+    private static final String FORMAT_VERSION = "2";
+    private static final String RESULT_FILE_SUFFIX = ".xml";
+    private static final String TEMP_FILE_SUFFIX = ".tmp";
+    private static final String ROOT_ELEMENT_NAME = "VALIDATION_RESULT";
+    private static final String ENTRY_ELEMENT_NAME = "ENTRY";
+    private static final String ENCODING = "UTF-8";
+    private static final long MILLIS_PER_DAY = 24L * 60 * 60 * 1000;
+
+    private final File folder;
+    private final long maxBytes;
+    private final long maxAgeMillis;
+
+    /**
+     * Constructor for ValidationResultCache.
+     *
+     * @param folder The cache folder, created if needed
+     * @param maxBytes The maximum total size of the result files, in bytes
+     * @param maxAgeDays The number of days after which an unused result is evicted
+     */
+    public ValidationResultCache(final File folder, final long maxBytes, final int maxAgeDays) {
+        this.folder = folder.getAbsoluteFile();
+        this.maxBytes = maxBytes;
+        this.maxAgeMillis = maxAgeDays * MILLIS_PER_DAY;
+    }
+
+    /**
+     * Computes the key of the validation of a document.
+     *
+     * @param xmlFile The document validated
+     * @param schemaFiles Every schema document of the schema set, the top-level one first
+     * @param validatorSettings The validator implementation and the settings that change what it reports
+     * @return The key, a string of hexadecimal digits
+     * @throws IOException If the document or a schema document could not be read
+     */
+    public static String getKey(final File xmlFile, final List<File> schemaFiles, final String validatorSettings)
+        throws IOException {
+        final ContentDigest digest = new ContentDigest();
+        digest.update(FORMAT_VERSION);
+        digest.update(validatorSettings);
+        digest.update(schemaFiles.size());
+        for (final File schemaFile : schemaFiles) {
+            digest.update(schemaFile);
+        }
+        digest.update(xmlFile);
+
+        return digest.toHexString();
+    }
+
+    /**
+     * Creates a recording of the log of a validation, limited to what a result of this cache may hold. A result whose
+     * recording is truncated is not to be stored.
+     *
+     * @return A new recording
+     */
+    public LogRecording createRecording() {
+        return new LogRecording(MAX_RESULT_ENTRIES, this.maxBytes / MAX_RESULT_SHARE);
+    }
+
+    /**
+     * Gets the result stored under a key, marking it as used.
+     *
+     * @param key The key of the validation
+     * @return The result, or null if there is none
+     * @throws IOException If the result file could not be read
+     * @throws XMLStreamException If the result file is not a well-formed result
+     */
+    public ValidationResult get(final String key) throws IOException, XMLStreamException {
+        final File file = getResultFile(key);
+        if (!file.isFile()) {
+            return null;
+        }
+
+        final ValidationResult result = read(file);
+        file.setLastModified(System.currentTimeMillis());
+
+        return result;
+    }
+
+    /**
+     * Stores a result under a key, replacing any stored before, then evicts old and excess results.
+     *
+     * @param key The key of the validation
+     * @param result The result
+     * @throws IOException If the result file could not be written
+     * @throws XMLStreamException If the result could not be serialized
+     */
+    public void put(final String key, final ValidationResult result) throws IOException, XMLStreamException {
+        if (!this.folder.isDirectory() && !this.folder.mkdirs() && !this.folder.isDirectory()) {
+            throw new IOException("The validation cache folder " + this.folder + " could not be created.");
+        }
+
+        final File tempFile = File.createTempFile(key + ".", TEMP_FILE_SUFFIX, this.folder);
+        try {
+            write(tempFile, result);
+            try {
+                Files.move(tempFile.toPath(), getResultFile(key).toPath(), StandardCopyOption.ATOMIC_MOVE);
+            } catch (final AtomicMoveNotSupportedException e) {
+                Files.move(tempFile.toPath(), getResultFile(key).toPath(), StandardCopyOption.REPLACE_EXISTING);
+            }
+        } finally {
+            Files.deleteIfExists(tempFile.toPath());
+        }
+
+        evict();
+    }
+
+    /**
+     * Deletes the results unused for longer than the maximum age, including temporary files left behind, then the
+     * least recently used results until the cache fits in its maximum size. Files another process is using and cannot
+     * be deleted are skipped.
+     */
+    public void evict() {
+        final File[] files = this.folder.listFiles();
+        if (files == null) {
+            return;
+        }
+
+        final long oldest = System.currentTimeMillis() - this.maxAgeMillis;
+        final List<File> kept = new ArrayList<>();
+        long totalBytes = 0;
+        for (final File file : files) {
+            final String name = file.getName();
+            if (!file.isFile() || !(name.endsWith(RESULT_FILE_SUFFIX) || name.endsWith(TEMP_FILE_SUFFIX))) {
+                continue;
+            }
+            if (file.lastModified() < oldest) {
+                file.delete();
+            } else if (name.endsWith(RESULT_FILE_SUFFIX)) {
+                kept.add(file);
+                totalBytes += file.length();
+            }
+        }
+
+        final File[] byLastUse = kept.toArray(new File[kept.size()]);
+        Arrays.sort(byLastUse, new Comparator<File>() {
+            @Override
+            public int compare(final File f1, final File f2) {
+                return Long.compare(f1.lastModified(), f2.lastModified());
+            }
+        });
+        for (int i = 0; (i < byLastUse.length) && (totalBytes > this.maxBytes); ++i) {
+            final long length = byLastUse[i].length();
+            if (byLastUse[i].delete()) {
+                totalBytes -= length;
+            }
+        }
+    }
+
+    /**
+     * Gets the cache folder.
+     *
+     * @return The cache folder
+     */
+    public File getFolder() {
+        return folder;
+    }
+
+    private File getResultFile(final String key) {
+        return new File(this.folder, key + RESULT_FILE_SUFFIX);
+    }
+
+    private static void write(final File file, final ValidationResult result) throws IOException, XMLStreamException {
+        final OutputStream os = new BufferedOutputStream(new FileOutputStream(file));
+        try {
+            final XMLStreamWriter writer = XMLOutputFactory.newInstance().createXMLStreamWriter(os, ENCODING);
+            writer.writeStartDocument(ENCODING, "1.0");
+            writer.writeCharacters("\n");
+            writer.writeStartElement(ROOT_ELEMENT_NAME);
+            writer.writeAttribute("valid", String.valueOf(result.isValid()));
+            final LogRecording recording = result.getLogRecording();
+            for (int i = 0; i < recording.size(); ++i) {
+                final LogEntry entry = recording.getEntry(i);
+                writer.writeCharacters("\n    ");
+                writer.writeStartElement(ENTRY_ELEMENT_NAME);
+                writer.writeAttribute("severity", entry.getSeverity());
+                writer.writeAttribute("origin", entry.getOrigin());
+                writer.writeAttribute("scope", entry.getScope());
+                if (entry instanceof XMLValidationLogEntry) {
+                    final XMLValidationLogEntry validationEntry = (XMLValidationLogEntry) entry;
+                    writer.writeAttribute("lineNumber", String.valueOf(validationEntry.getLineNumber()));
+                    writer.writeAttribute("columnNumber", String.valueOf(validationEntry.getColumnNumber()));
+                }
+                writer.writeAttribute("occurrences", String.valueOf(recording.getOccurrenceCount(i)));
+                writer.writeCharacters(entry.getMessage() == null ? "" : entry.getMessage());
+                writer.writeEndElement();
+            }
+            writer.writeCharacters("\n");
+            writer.writeEndElement();
+            writer.writeCharacters("\n");
+            writer.writeEndDocument();
+            writer.close();
+        } finally {
+            os.close();
+        }
+    }
+
+    private static ValidationResult read(final File file) throws IOException, XMLStreamException {
+        final InputStream is = new BufferedInputStream(new FileInputStream(file));
+        try {
+            final XMLStreamReader reader = XMLInputFactory.newInstance().createXMLStreamReader(is);
+            final LogRecording recording = new LogRecording();
+            Boolean valid = null;
+            while (reader.hasNext()) {
+                if (reader.next() != XMLStreamConstants.START_ELEMENT) {
+                    continue;
+                }
+                if (ROOT_ELEMENT_NAME.equals(reader.getLocalName())) {
+                    valid = Boolean.valueOf(reader.getAttributeValue(null, "valid"));
+                } else if (ENTRY_ELEMENT_NAME.equals(reader.getLocalName())) {
+                    final String severity = reader.getAttributeValue(null, "severity");
+                    final String origin = reader.getAttributeValue(null, "origin");
+                    final String scope = reader.getAttributeValue(null, "scope");
+                    final String lineNumber = reader.getAttributeValue(null, "lineNumber");
+                    final String columnNumber = reader.getAttributeValue(null, "columnNumber");
+                    final int occurrenceCount = Integer.parseInt(reader.getAttributeValue(null, "occurrences"));
+                    final String message = reader.getElementText();
+                    if (lineNumber != null) {
+                        recording.add(new XMLValidationLogEntry(severity, origin, message, Integer.parseInt(lineNumber),
+                            Integer.parseInt(columnNumber)), occurrenceCount);
+                    } else {
+                        recording.add(new LogEntry(severity, origin, message,
+                            (scope == null) ? LogEntry.SCOPE_USER : scope), occurrenceCount);
+                    }
+                }
+            }
+            reader.close();
+            if (valid == null) {
+                throw new XMLStreamException("The validation result " + file + " has no " + ROOT_ELEMENT_NAME
+                    + " element.");
+            }
+
+            return new ValidationResult(valid.booleanValue(), recording);
+        } catch (final NumberFormatException e) {
+            throw new XMLStreamException("The validation result " + file + " has an invalid number: " + e.getMessage());
+        } finally {
+            is.close();
+        }
+    }
+}
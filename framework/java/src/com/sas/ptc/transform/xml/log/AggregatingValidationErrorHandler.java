@@ -0,0 +1,320 @@
+package com.sas.ptc.transform.xml.log;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import org.xml.sax.SAXException;
+import org.xml.sax.SAXParseException;
+
+/**
+ * Copyright (c) 2022, SAS Institute Inc., Cary, NC, USA.  All Rights Reserved.
+ * SPDX-License-Identifier: Apache-2.0
+ *
+ * A validation error handler that groups the messages it receives rather than logging each of them, so that a single
+ * systematic error in a large document yields one log entry instead of one per occurrence. Messages are grouped by
+ * severity and by template: the message with the values from the document masked, so that "The value 'x' of attribute
+ * 'ItemOID'" and "The value 'y' of attribute 'ItemOID'" are counted together while different attributes are not.
+ * <p>
+ * Each group keeps its count, the first message and the locations of its first occurrences and of its last one. Once
+ * the maximum number of groups is reached, messages of new templates are only counted. The groups are logged, in the
+ * order they were first seen, by flush(); the error and warning counts of the log include every occurrence.
+ */
+public class AggregatingValidationErrorHandler extends ValidationErrorHandler {
+
+    public static final int DEFAULT_LOCATION_COUNT = 5;
+    public static final int DEFAULT_MAX_GROUP_COUNT = 1000;
+
+    private static final char MASK = '*';
+    private static final int MAX_CODE_LENGTH = 64;
+
+    /**
+     * The words after which Xerces validation messages quote a value from the document, as in "The value 'x' of
+     * attribute". The names of attributes, elements, types and facets are quoted after other words.
+     */
+    private static final String[] QUOTED_VALUE_PREFIXES = { "value ", "Value ", "IDREF ", "length = " };
+
+    /**
+     * The words after which Xerces validation messages bracket a value from the document, as in "Duplicate unique
+     * value [x] declared for identity constraint".
+     */
+    private static final String[] BRACKETED_VALUE_PREFIXES = { "unique value ", "key value " };
+
+    private final Map<String, MessageGroup> groups = new LinkedHashMap<>();
+    private int locationCount = DEFAULT_LOCATION_COUNT;
+    private int maxGroupCount = DEFAULT_MAX_GROUP_COUNT;
+    private int ungroupedErrorCount;
+    private int ungroupedWarningCount;
+    private String ungroupedErrorSeverity;
+
+    /**
+     * Constructor for AggregatingValidationErrorHandler.
+     *
+     * @param log The log to which the groups are written by flush()
+     */
+    public AggregatingValidationErrorHandler(final Log log) {
+        super(log);
+    }
+
+    /**
+     * Method error.
+     *
+     * @param exception SAXParseException
+     * @throws SAXException A ValidationLimitException, if a limit is reached
+     */
+    @Override
+    public void error(final SAXParseException exception) throws SAXException {
+        aggregate(LogEntry.SEVERITY_ERROR, exception);
+        setValid(false);
+        errorReceived(exception);
+    }
+
+    /**
+     * Method fatalError.
+     *
+     * @param exception SAXParseException
+     * @throws SAXException A ValidationLimitException, if a limit is reached
+     */
+    @Override
+    public void fatalError(final SAXParseException exception) throws SAXException {
+        aggregate(LogEntry.SEVERITY_FATAL_ERROR, exception);
+        setValid(false);
+        errorReceived(exception);
+    }
+
+    /**
+     * Method warning.
+     *
+     * @param exception SAXParseException
+     * @throws SAXException A ValidationLimitException, if a limit is reached
+     */
+    @Override
+    public void warning(final SAXParseException exception) throws SAXException {
+        aggregate(LogEntry.SEVERITY_WARNING, exception);
+        checkTimeLimit(exception);
+    }
+
+    /**
+     * Logs one entry per group, at the location of its first occurrence, and clears the groups.
+     */
+    @Override
+    public synchronized void flush() {
+        for (final MessageGroup group : this.groups.values()) {
+            getLog().logValidationMessages(group.severity, group.describe(), group.lineNumbers[0],
+                group.columnNumbers[0], group.count);
+        }
+        this.groups.clear();
+
+        if (this.ungroupedErrorCount > 0) {
+            getLog().logValidationMessages(this.ungroupedErrorSeverity,
+                getUngroupedMessage(this.ungroupedErrorCount, "errors"), -1, -1, this.ungroupedErrorCount);
+        }
+        if (this.ungroupedWarningCount > 0) {
+            getLog().logValidationMessages(LogEntry.SEVERITY_WARNING,
+                getUngroupedMessage(this.ungroupedWarningCount, "warnings"), -1, -1, this.ungroupedWarningCount);
+        }
+        this.ungroupedErrorCount = 0;
+        this.ungroupedWarningCount = 0;
+        this.ungroupedErrorSeverity = null;
+    }
+
+    private String getUngroupedMessage(final int count, final String kind) {
+        return count + " further validation " + kind + " were not reported, as the limit of " + getMaxGroupCount()
+            + " distinct messages was reached.";
+    }
+
+    /**
+     * Adds a message to its group.
+     *
+     * @param severity The severity of the message
+     * @param exception The exception carrying the message and its location
+     */
+    protected synchronized void aggregate(final String severity, final SAXParseException exception) {
+        final String message = (exception.getMessage() != null) ? exception.getMessage() : "";
+        final String key = severity + '|' + getTemplate(message);
+        MessageGroup group = this.groups.get(key);
+        if (group == null) {
+            if (this.groups.size() >= getMaxGroupCount()) {
+                if (LogEntry.SEVERITY_WARNING.equals(severity)) {
+                    ++this.ungroupedWarningCount;
+                } else {
+                    ++this.ungroupedErrorCount;
+                    if ((this.ungroupedErrorSeverity == null)
+                        || (LogEntry.getLogLevel(severity) > LogEntry.getLogLevel(this.ungroupedErrorSeverity))) {
+                        this.ungroupedErrorSeverity = severity;
+                    }
+                }
+                return;
+            }
+            group = new MessageGroup(severity, message, Math.max(1, getLocationCount()));
+            this.groups.put(key, group);
+        }
+        group.add(exception.getLineNumber(), exception.getColumnNumber());
+    }
+
+    /**
+     * Gets the template of a message: the message with the values from the document replaced with '*'. A value is
+     * quoted after one of QUOTED_VALUE_PREFIXES or right after the code opening the message, as in
+     * "cvc-datatype-valid.1.2.1: 'x' is not a valid value for 'integer'.", or bracketed after one of
+     * BRACKETED_VALUE_PREFIXES. This is called for every message, so it scans the message once, without regular
+     * expressions.
+     *
+     * @param message The message
+     * @return The template
+     */
+    public static String getTemplate(final String message) {
+        final int codeEnd = getCodeEnd(message);
+        final int length = message.length();
+        StringBuilder sb = null;
+        int copied = 0;
+        int i = 0;
+        while (i < length) {
+            final char ch = message.charAt(i);
+            final boolean quoted = (ch == '\'') && ((i == codeEnd) || endsWithAny(message, i, QUOTED_VALUE_PREFIXES));
+            final boolean bracketed = (ch == '[') && endsWithAny(message, i, BRACKETED_VALUE_PREFIXES);
+            if (ch == '\'' || bracketed) {
+                final int end = message.indexOf((ch == '[') ? ']' : '\'', i + 1);
+                if (end < 0) {
+                    break;
+                }
+                if (quoted || bracketed) {
+                    if (sb == null) {
+                        sb = new StringBuilder(length);
+                    }
+                    sb.append(message, copied, i + 1).append(MASK);
+                    copied = end;
+                }
+                i = end + 1;
+            } else {
+                ++i;
+            }
+        }
+        if (sb == null) {
+            return message;
+        }
+
+        return sb.append(message, copied, length).toString();
+    }
+
+    /**
+     * Gets the index following the code opening a message, as in "cvc-attribute.3: ", or -1 if there is none.
+     */
+    private static int getCodeEnd(final String message) {
+        final int colon = message.indexOf(": ");
+        if ((colon <= 0) || (colon > MAX_CODE_LENGTH)) {
+            return -1;
+        }
+        for (int i = 0; i < colon; ++i) {
+            final char ch = message.charAt(i);
+            if (!Character.isLetterOrDigit(ch) && (ch != '.') && (ch != '-') && (ch != '_')) {
+                return -1;
+            }
+        }
+
+        return colon + 2;
+    }
+
+    private static boolean endsWithAny(final String message, final int index, final String[] suffixes) {
+        for (final String suffix : suffixes) {
+            if (message.startsWith(suffix, index - suffix.length())) {
+                return true;
+            }
+        }
+
+        return false;
+    }
+
+    /**
+     * Gets the number of locations kept per group, besides the last one.
+     *
+     * @return The location count
+     */
+    public int getLocationCount() {
+        return locationCount;
+    }
+
+    /**
+     * Sets the number of locations kept per group, besides the last one. The default is 5.
+     *
+     * @param locationCount The location count
+     */
+    public void setLocationCount(final int locationCount) {
+        this.locationCount = locationCount;
+    }
+
+    /**
+     * Gets the maximum number of groups, beyond which messages of new templates are only counted.
+     *
+     * @return The maximum group count
+     */
+    public int getMaxGroupCount() {
+        return maxGroupCount;
+    }
+
+    /**
+     * Sets the maximum number of groups, beyond which messages of new templates are only counted. The default is 1000.
+     *
+     * @param maxGroupCount The maximum group count
+     */
+    public void setMaxGroupCount(final int maxGroupCount) {
+        this.maxGroupCount = maxGroupCount;
+    }
+
+    /**
+     * The occurrences of one message template at one severity.
+     */
+    private static final class MessageGroup {
+        private final String severity;
+        private final String firstMessage;
+        private final int[] lineNumbers;
+        private final int[] columnNumbers;
+        private int count;
+        private int lastLineNumber;
+        private int lastColumnNumber;
+
+        MessageGroup(final String severity, final String firstMessage, final int locationCount) {
+            this.severity = severity;
+            this.firstMessage = firstMessage;
+            this.lineNumbers = new int[locationCount];
+            this.columnNumbers = new int[locationCount];
+        }
+
+        void add(final int lineNumber, final int columnNumber) {
+            if (this.count < this.lineNumbers.length) {
+                this.lineNumbers[this.count] = lineNumber;
+                this.columnNumbers[this.count] = columnNumber;
+            }
+            this.lastLineNumber = lineNumber;
+            this.lastColumnNumber = columnNumber;
+            ++this.count;
+        }
+
+        /**
+         * Describes the group as its first message, followed by the count and locations if it occurred more than
+         * once.
+         */
+        String describe() {
+            if (this.count == 1) {
+                return this.firstMessage;
+            }
+
+            final StringBuilder sb = new StringBuilder(this.firstMessage);
+            sb.append(" (").append(this.count).append(" occurrences, at line:column ");
+            final int kept = Math.min(this.count, this.lineNumbers.length);
+            for (int i = 0; i < kept; ++i) {
+                if (i > 0) {
+                    sb.append(", ");
+                }
+                sb.append(this.lineNumbers[i]).append(':').append(this.columnNumbers[i]);
+            }
+            if (this.count > kept) {
+                if (this.count > kept + 1) {
+                    sb.append(", ...");
+                }
+                sb.append(", ").append(this.lastLineNumber).append(':').append(this.lastColumnNumber);
+            }
+            sb.append(')');
+
+            return sb.toString();
+        }
+    }
+}
@@ -1,16 +1,20 @@
 package com.sas.ptc.transform.xml.log;
 
+import java.io.FileOutputStream;
 import java.io.IOException;
 import java.text.ParseException;
+import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Date;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Properties;
 import java.util.Vector;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import javax.xml.parsers.DocumentBuilderFactory;
 import javax.xml.parsers.ParserConfigurationException;
+import javax.xml.stream.XMLStreamException;
 import javax.xml.transform.TransformerException;
 import javax.xml.validation.SchemaFactory;
 
@@ -27,6 +31,11 @@ import com.sas.ptc.util.xml.DateTimeUtils;
  * SPDX-License-Identifier: Apache-2.0
  *
  * Carries any log entries produced during transformation execution, and is responsible for writing out the log entries.
+ * <p>
+ * By default the entries are kept in memory and written as a DOM at the end. A streaming log instead writes each entry
+ * through a LogStreamWriter as it is logged, once opened, so that its memory use does not grow with the number of
+ * entries; the file written is the same. Should the log file fail to be opened or written, the failure is logged as
+ * an error and the entries from then on are kept in memory, to be written as a DOM at the end instead.
  */
 public class Log {
     public static final int LOG_LEVEL_INFO = 0;
@@ -35,15 +44,24 @@ public class Log {
     public static final int LOG_LEVEL_FATAL_ERROR = 3;
     public static final int LOG_LEVEL_NONE = 4;
 
-    private static final String ROOT_ELEMENT_NAME = "TABLE";
+    static final String ROOT_ELEMENT_NAME = "TABLE";
 
     private final List<LogEntry> logEntryList;
+    private final AtomicInteger errorCount;
+    private final AtomicInteger warningCount;
     private final String logPath;
     private int logLevel;
 
     private final boolean overridingTimestamps;
     private Date timestampOverrideValue;
 
+    private final boolean streaming;
+    private boolean opened;
+    private LogStreamWriter streamWriter;
+    private Exception streamFailure;
+
+    private volatile LogRecording recording;
+
     /**
      * Constructs an empty log.
      * 
@@ -64,7 +82,24 @@ public class Log {
      */
     public Log(final String logPath, final int logLevel, final boolean overridingTimestamps,
         final String timestampOverrideValue) {
+        this(logPath, logLevel, overridingTimestamps, timestampOverrideValue, false);
+    }
+
+    /**
+     * Constructor for Log.
+     * 
+     * @param logPath The absolute path to the log file, or null for standard output
+     * @param logLevel The minimum log level for which output will be produced
+     * @param overridingTimestamps Whether all entries have the timestamp timestampOverrideValue
+     * @param timestampOverrideValue The timestamp of all entries, as an XML Schema dateTime
+     * @param streaming Whether entries are written as they are logged once the log is opened, rather than at the end
+     */
+    public Log(final String logPath, final int logLevel, final boolean overridingTimestamps,
+        final String timestampOverrideValue, final boolean streaming) {
+        this.streaming = streaming;
         this.logEntryList = new Vector<>();
+        this.errorCount = new AtomicInteger();
+        this.warningCount = new AtomicInteger();
         this.logPath = logPath;
         this.logLevel = logLevel;
         this.overridingTimestamps = overridingTimestamps;
@@ -79,7 +114,8 @@ public class Log {
     }
 
     /**
-     * Method buildDOM.
+     * Builds the log as a DOM. A streaming log holds only the entries logged before it was opened, or since streaming
+     * failed.
      * 
      * @return Document
      * @throws ParserConfigurationException
@@ -119,6 +155,28 @@ public class Log {
         addEntry(entry);
     }
 
+    /**
+     * Logs a validation message standing for several occurrences, each of which is counted as an error or warning.
+     * 
+     * @param severity The severity of the occurrences
+     * @param message The message
+     * @param lineNumber The line number of the location reported
+     * @param columnNumber The column number of the location reported
+     * @param occurrenceCount The number of occurrences
+     */
+    public void logValidationMessages(final String severity, final String message, final int lineNumber,
+        final int columnNumber, final int occurrenceCount) {
+        LogEntry entry = null;
+        if (isOverridingTimestamps()) {
+            entry = new XMLValidationLogEntry(severity, LogEntry.ORIGIN_XML_VALIDATION, message, lineNumber,
+                columnNumber, getTimestampOverrideValue());
+        } else {
+            entry = new XMLValidationLogEntry(severity, LogEntry.ORIGIN_XML_VALIDATION, message, lineNumber,
+                columnNumber);
+        }
+        addEntry(entry, occurrenceCount);
+    }
+
     /**
      * Method logError.
      * 
@@ -243,6 +301,25 @@ public class Log {
         logParameter("Log File Location", params.getLogFilePath());
         logParameter("Header Comment Text", params.getHeaderCommentText());
         logParameter("Is Validating XML", "" + params.isValidatingStandardXML());
+        logParameter("Validating Inline", "" + params.isValidatingInline());
+        logParameter("Max Validation Errors", "" + params.getMaxValidationErrors());
+        logParameter("Max Validation Time", "" + params.getMaxValidationMillis());
+        logParameter("Validation Cache Location", params.getValidationCachePath());
+        logParameter("Validation Cache Max Size", "" + params.getValidationCacheMaxBytes());
+        logParameter("Validation Cache Max Age", "" + params.getValidationCacheMaxAgeDays());
+        logParameter("Incremental Export", "" + params.isIncrementalExport());
+        logParameter("Translet Jar Location", params.getTransletJarPath());
+        logParameter("Export Sections", params.getExportSections());
+        logParameter("Export Threads", "" + params.getExportThreads());
+        logParameter("Import Chunk Subjects", "" + params.getImportChunkSubjects());
+        logParameter("Import Threads", "" + params.getImportThreads());
+        logParameter("Planning Memory", "" + params.isPlanningMemory());
+        logParameter("Streaming Log", "" + params.isStreamingLog());
+        logParameter("Aggregating Validation Messages", "" + params.isAggregatingValidationMessages());
+        logParameter("Metrics File Location", params.getMetricsFilePath());
+        logParameter("Registering Metrics MBeans", "" + params.isRegisteringMetricsMBeans());
+        logParameter("Flight Recording Location", params.getFlightRecordingFilePath());
+        logParameter("Flight Recording Settings", params.getFlightRecordingSettings());
         logParameter("Creating Display Stylesheet", "" + params.isCreatingDisplayStylesheet());
         logParameter("Custom Stylesheet", params.getCustomStylesheetPath());
         logParameter("Custom Stylesheet Output Shortname", params.getOutputStylesheetName());
@@ -266,6 +343,10 @@ public class Log {
             final String val = props.getProperty((String) keyObj);
             logParameter((String) keyObj, val, LogEntry.SCOPE_SYSTEM);
         }
+
+        for (final String error : params.getParameterErrors()) {
+            logError(error);
+        }
     }
 
     /**
@@ -274,7 +355,213 @@ public class Log {
      * @param entry LogEntry
      */
     public void addEntry(final LogEntry entry) {
-        getLogEntryList().add(entry);
+        addEntry(entry, 1);
+    }
+
+    /**
+     * Adds an entry standing for several occurrences of the event it reports, each of which is counted.
+     * 
+     * @param entry LogEntry
+     * @param occurrenceCount The number of occurrences
+     */
+    protected void addEntry(final LogEntry entry, final int occurrenceCount) {
+        final LogRecording currentRecording = this.recording;
+        if (currentRecording != null) {
+            currentRecording.add(entry, occurrenceCount);
+        }
+        if (isStreaming()) {
+            writeEntry(entry);
+        } else {
+            getLogEntryList().add(entry);
+        }
+        if (LogEntry.SEVERITY_ERROR.equals(entry.getSeverity())
+            || LogEntry.SEVERITY_FATAL_ERROR.equals(entry.getSeverity())) {
+            this.errorCount.addAndGet(occurrenceCount);
+        } else if (LogEntry.SEVERITY_WARNING.equals(entry.getSeverity())) {
+            this.warningCount.addAndGet(occurrenceCount);
+        }
+    }
+
+    /**
+     * Starts recording the entries added to this log, in addition to logging them, replacing any recording in progress.
+     * 
+     * @param recording The recording to which entries are added
+     */
+    public void startRecording(final LogRecording recording) {
+        this.recording = recording;
+    }
+
+    /**
+     * Stops recording the entries added to this log.
+     * 
+     * @return The recording stopped, or null if none was in progress
+     */
+    public LogRecording stopRecording() {
+        final LogRecording stopped = this.recording;
+        this.recording = null;
+
+        return stopped;
+    }
+
+    /**
+     * Adds the entries of a recording to this log, as if they were logged again now: their timestamps are those of new
+     * entries, and they are counted as errors and warnings.
+     * 
+     * @param replayed The recording to replay
+     */
+    public void replay(final LogRecording replayed) {
+        for (int i = 0; i < replayed.size(); ++i) {
+            final LogEntry entry = replayed.getEntry(i);
+            LogEntry copy = null;
+            if (entry instanceof XMLValidationLogEntry) {
+                final XMLValidationLogEntry validationEntry = (XMLValidationLogEntry) entry;
+                copy = new XMLValidationLogEntry(entry.getSeverity(), entry.getOrigin(), entry.getMessage(),
+                    validationEntry.getLineNumber(), validationEntry.getColumnNumber(),
+                    isOverridingTimestamps() ? getTimestampOverrideValue() : null);
+            } else if (isOverridingTimestamps()) {
+                copy = new LogEntry(entry.getSeverity(), entry.getOrigin(), entry.getMessage(),
+                    getTimestampOverrideValue(), entry.getScope());
+            } else {
+                copy = new LogEntry(entry.getSeverity(), entry.getOrigin(), entry.getMessage(), entry.getScope());
+            }
+            addEntry(copy, replayed.getOccurrenceCount(i));
+        }
+    }
+
+    /**
+     * Writes an entry of a streaming log if it is open and the entry is valid for the log level, or keeps it until
+     * the log is opened, or until it is written as a DOM if streaming failed.
+     * 
+     * @param entry LogEntry
+     */
+    private synchronized void writeEntry(final LogEntry entry) {
+        if (!this.opened || (this.streamFailure != null)) {
+            getLogEntryList().add(entry);
+        } else if ((this.streamWriter != null) && entry.isValidForLogLevel(getLogLevel())) {
+            try {
+                this.streamWriter.writeEntry(entry);
+            } catch (final XMLStreamException e) {
+                streamFailed(e);
+                getLogEntryList().add(entry);
+            }
+        }
+    }
+
+    /**
+     * Stops streaming after the log file failed to be opened or written, logging the failure as an error. The entries
+     * from then on are kept, and written as a DOM by write(), replacing the part of the file streamed so far.
+     * 
+     * @param e The exception raised by the failure
+     */
+    private synchronized void streamFailed(final Exception e) {
+        e.printStackTrace();
+        if (this.streamWriter != null) {
+            try {
+                this.streamWriter.close();
+            } catch (final XMLStreamException closeException) {
+                // the stream is broken already
+            }
+            this.streamWriter = null;
+        }
+        this.streamFailure = e;
+        logError("The log could not be written as entries were logged; the entries from here on were kept until the "
+            + "end: " + e.getMessage());
+    }
+
+    /**
+     * Creates the writer of a streaming log when it is opened, writing to the log file, or to standard output if there
+     * is no log path.
+     * 
+     * @return The writer, having written the XML declaration
+     * @throws IOException If the log file could not be opened
+     * @throws XMLStreamException If the declaration could not be written
+     */
+    protected LogStreamWriter createStreamWriter() throws IOException, XMLStreamException {
+        final String filepath = getLogPath();
+        if (filepath == null) {
+            return new LogStreamWriter(System.out, false);
+        }
+
+        final FileOutputStream fos = new FileOutputStream(filepath);
+        try {
+            return new LogStreamWriter(fos, true);
+        } catch (final XMLStreamException e) {
+            fos.close();
+            throw e;
+        }
+    }
+
+    /**
+     * Opens a streaming log, writing out the entries logged so far. Entries logged from then on are written as they
+     * are logged, and are not kept unless streaming fails. Does nothing if this log is not streaming or already open.
+     */
+    public synchronized void open() {
+        if (!isStreaming() || this.opened) {
+            return;
+        }
+        this.opened = true;
+
+        try {
+            this.streamWriter = createStreamWriter();
+        } catch (final XMLStreamException e) {
+            streamFailed(e);
+        } catch (final IOException e) {
+            streamFailed(e);
+        }
+
+        final List<LogEntry> entries = new ArrayList<>(getLogEntryList());
+        getLogEntryList().clear();
+        for (final LogEntry entry : entries) {
+            writeEntry(entry);
+        }
+    }
+
+    /**
+     * Closes a streaming log, opening it first if needed.
+     * 
+     * @return false if streaming failed, leaving entries to be written as a DOM
+     */
+    private synchronized boolean close() {
+        open();
+        if (this.streamWriter != null) {
+            try {
+                this.streamWriter.close();
+            } catch (final XMLStreamException e) {
+                e.printStackTrace();
+            }
+            this.streamWriter = null;
+        }
+
+        return this.streamFailure == null;
+    }
+
+    /**
+     * Whether entries are written as they are logged once this log is opened, rather than all at once by write().
+     * 
+     * @return true if streaming
+     */
+    public boolean isStreaming() {
+        return streaming;
+    }
+
+    /**
+     * Gets the number of error and fatal error entries added to this log, regardless of the log level. An entry
+     * standing for several occurrences counts each of them.
+     * 
+     * @return The number of error entries
+     */
+    public int getErrorCount() {
+        return this.errorCount.get();
+    }
+
+    /**
+     * Gets the number of warning entries added to this log, regardless of the log level. An entry standing for several
+     * occurrences counts each of them.
+     * 
+     * @return The number of warning entries
+     */
+    public int getWarningCount() {
+        return this.warningCount.get();
     }
 
     /**
@@ -296,12 +583,17 @@ public class Log {
     }
 
     /**
-     * Method write.
+     * Writes the log. A streaming log is closed instead, once the entries not yet written are; if streaming failed,
+     * the entries kept from then on are written as a DOM.
      * 
      * @throws ParserConfigurationException
      * @throws TransformerException
      */
     public void write() throws ParserConfigurationException {
+        if (isStreaming() && close()) {
+            return;
+        }
+
         final String filepath = getLogPath();
         final Document logDoc = buildDOM();
 
@@ -3,6 +3,8 @@ package com.sas.ptc.transform.xml.log;
 import java.util.Calendar;
 import java.util.Date;
 
+import javax.xml.stream.XMLStreamException;
+
 import org.w3c.dom.Element;
 
 import com.sas.ptc.util.xml.DOMUtils;
@@ -20,6 +22,11 @@ public class LogEntry {
     public static final String SEVERITY_ERROR = "ERROR";
     public static final String SEVERITY_FATAL_ERROR = "FATAL ERROR";
 
+    /**
+     * The name of the log level at which no messages are produced. This is not the severity of any entry.
+     */
+    public static final String LOG_LEVEL_NAME_NONE = "NONE";
+
     public static final String ORIGIN_XML_VALIDATION = "XML VALIDATION";
     public static final String ORIGIN_TRANSFORMER = "XML TRANSFORMER";
     public static final String ORIGIN_TRANSFORM_PARAM = "XML TRANSFORMER PARAMETER";
@@ -88,10 +95,11 @@ public class LogEntry {
     }
 
     /**
+     * Gets the scope of the entry.
      * 
-     * @return user or system
+     * @return SCOPE_USER or SCOPE_SYSTEM
      */
-    protected String getScope() {
+    public String getScope() {
         return scope;
     }
 
@@ -112,11 +120,34 @@ public class LogEntry {
                 returnValue = Log.LOG_LEVEL_ERROR;
             } else if (SEVERITY_FATAL_ERROR.equalsIgnoreCase(severity)) {
                 returnValue = Log.LOG_LEVEL_FATAL_ERROR;
+            } else if (LOG_LEVEL_NAME_NONE.equalsIgnoreCase(severity)) {
+                returnValue = Log.LOG_LEVEL_NONE;
             }
         }
         return returnValue;
     }
 
+    /**
+     * Gets the name of the given log level, such that getLogLevel(getLogLevelName(level)) returns the same level.
+     * 
+     * @param logLevel One of the Log.LOG_LEVEL constants
+     * @return The severity of the least severe entries produced at that level, or LOG_LEVEL_NAME_NONE
+     */
+    public static String getLogLevelName(final int logLevel) {
+        switch (logLevel) {
+        case Log.LOG_LEVEL_INFO:
+            return SEVERITY_INFO;
+        case Log.LOG_LEVEL_ERROR:
+            return SEVERITY_ERROR;
+        case Log.LOG_LEVEL_FATAL_ERROR:
+            return SEVERITY_FATAL_ERROR;
+        case Log.LOG_LEVEL_NONE:
+            return LOG_LEVEL_NAME_NONE;
+        default:
+            return SEVERITY_WARNING;
+        }
+    }
+
     /**
      * Gets the Date at which the event triggering this entry was encountered.
      * 
@@ -188,6 +219,33 @@ public class LogEntry {
         return tableElement;
     }
 
+    /**
+     * Writes this entry through the given writer, with the same content as writeInDOM.
+     * 
+     * @param writer The writer of the log
+     * @throws XMLStreamException If the entry could not be written
+     */
+    public void writeInStream(final LogStreamWriter writer) throws XMLStreamException {
+        writer.startEntry("XMLTransformLog");
+        writeElementsInStream(writer);
+        writer.endEntry();
+    }
+
+    /**
+     * Writes the fields of this entry through the given writer. Subclasses add their own fields after these.
+     * 
+     * @param writer The writer of the log
+     * @throws XMLStreamException If the fields could not be written
+     */
+    protected void writeElementsInStream(final LogStreamWriter writer) throws XMLStreamException {
+        writer.writeElement("Timestamp",
+            (getTimestamp() != null) ? DateTimeUtils.javaDateToSchemaDateTime(getTimestamp()) : null);
+        writer.writeElement("Scope", getScope());
+        writer.writeElement("Origin", getOrigin());
+        writer.writeElement("Severity", getSeverity());
+        writer.writeElement("Message", getMessage());
+    }
+
     /**
      * Method isValidForLogLevel.
      * 
@@ -0,0 +1,103 @@
+package com.sas.ptc.transform.xml.log;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Copyright (c) 2022, SAS Institute Inc., Cary, NC, USA.  All Rights Reserved.
+ * SPDX-License-Identifier: Apache-2.0
+ *
+ * The entries added to a log while it was recording, each with the number of occurrences it stands for, so that they
+ * can be replayed into another log later. Entries are recorded regardless of the log level. A recording may be limited
+ * in number of entries and in size; once either limit is reached, further entries are dropped, and the recording is
+ * truncated, so that a large log does not have to be held in memory.
+ */
+public class LogRecording {
+
+    /**
+     * The size counted for an entry besides its message, in bytes: roughly that of its attributes once serialized.
+     */
+    public static final int ENTRY_OVERHEAD_BYTES = 128;
+
+    private final List<LogEntry> entries = new ArrayList<>();
+    private final List<Integer> occurrenceCounts = new ArrayList<>();
+    private final int maxEntries;
+    private final long maxBytes;
+    private long byteCount;
+    private boolean truncated;
+
+    /**
+     * Constructs an unlimited recording.
+     */
+    public LogRecording() {
+        this(Integer.MAX_VALUE, Long.MAX_VALUE);
+    }
+
+    /**
+     * Constructs a limited recording.
+     *
+     * @param maxEntries The maximum number of entries recorded
+     * @param maxBytes The maximum size of the entries recorded, each counted as its message length plus
+     *            ENTRY_OVERHEAD_BYTES
+     */
+    public LogRecording(final int maxEntries, final long maxBytes) {
+        this.maxEntries = maxEntries;
+        this.maxBytes = maxBytes;
+    }
+
+    /**
+     * Adds an entry, unless the recording is full, in which case it is truncated.
+     *
+     * @param entry The entry
+     * @param occurrenceCount The number of occurrences the entry stands for
+     */
+    public synchronized void add(final LogEntry entry, final int occurrenceCount) {
+        final long entryBytes = ENTRY_OVERHEAD_BYTES + ((entry.getMessage() == null) ? 0 : entry.getMessage().length());
+        if (this.truncated || (this.entries.size() >= this.maxEntries)
+            || (this.byteCount + entryBytes > this.maxBytes)) {
+            this.truncated = true;
+            return;
+        }
+        this.byteCount += entryBytes;
+        this.entries.add(entry);
+        this.occurrenceCounts.add(Integer.valueOf(occurrenceCount));
+    }
+
+    /**
+     * Whether entries were dropped because the recording was full.
+     *
+     * @return Whether the recording is incomplete
+     */
+    public synchronized boolean isTruncated() {
+        return this.truncated;
+    }
+
+    /**
+     * Gets the number of entries recorded.
+     *
+     * @return The number of entries
+     */
+    public synchronized int size() {
+        return this.entries.size();
+    }
+
+    /**
+     * Gets an entry, in the order entries were recorded.
+     *
+     * @param index The index of the entry
+     * @return The entry
+     */
+    public synchronized LogEntry getEntry(final int index) {
+        return this.entries.get(index);
+    }
+
+    /**
+     * Gets the number of occurrences an entry stands for.
+     *
+     * @param index The index of the entry
+     * @return The number of occurrences
+     */
+    public synchronized int getOccurrenceCount(final int index) {
+        return this.occurrenceCounts.get(index).intValue();
+    }
+}
@@ -0,0 +1,181 @@
+package com.sas.ptc.transform.xml.log;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.Charset;
+import java.nio.charset.CharsetEncoder;
+
+import javax.xml.stream.XMLOutputFactory;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamWriter;
+
+/**
+ * Copyright (c) 2022, SAS Institute Inc., Cary, NC, USA.  All Rights Reserved.
+ * SPDX-License-Identifier: Apache-2.0
+ *
+ * Writes log entries one at a time as they are logged, so that a log of any length is written in constant memory. The
+ * output is identical to that of the DOM built by Log.buildDOM and written by DOMUtils.writeDOM: the same declaration
+ * in the default charset, the same indentation, and the same character references for carriage returns, supplementary
+ * characters and characters the charset cannot encode. Characters that are not allowed in XML, for which writeDOM
+ * fails, are replaced with U+FFFD.
+ */
+public class LogStreamWriter {
+
+    private static final String LINE_SEPARATOR = "\n";
+    private static final String INDENT = "    ";
+    private static final char REPLACEMENT_CHAR = '\uFFFD';
+
+    private final Writer out;
+    private final XMLStreamWriter writer;
+    private final CharsetEncoder encoder;
+    private final boolean closingStream;
+    private boolean rootStarted;
+
+    /**
+     * Constructs a writer and writes the XML declaration.
+     *
+     * @param os The stream receiving the log
+     * @param closingStream Whether close() closes the stream; false for System.out
+     * @throws XMLStreamException If the declaration could not be written
+     */
+    public LogStreamWriter(final OutputStream os, final boolean closingStream) throws XMLStreamException {
+        final Charset charset = Charset.defaultCharset();
+        this.out = new BufferedWriter(new OutputStreamWriter(os, charset));
+        this.writer = XMLOutputFactory.newInstance().createXMLStreamWriter(this.out);
+        this.encoder = charset.newEncoder();
+        this.closingStream = closingStream;
+
+        this.writer.writeStartDocument(charset.name(), "1.0");
+        this.writer.writeCharacters(LINE_SEPARATOR);
+    }
+
+    /**
+     * Writes a log entry.
+     *
+     * @param entry The entry
+     * @throws XMLStreamException If the entry could not be written
+     */
+    public void writeEntry(final LogEntry entry) throws XMLStreamException {
+        entry.writeInStream(this);
+    }
+
+    /**
+     * Starts the element of a log entry, and the root element before the first entry.
+     *
+     * @param name The name of the element
+     * @throws XMLStreamException If the element could not be written
+     */
+    public void startEntry(final String name) throws XMLStreamException {
+        if (!this.rootStarted) {
+            this.writer.writeStartElement(Log.ROOT_ELEMENT_NAME);
+            this.rootStarted = true;
+        }
+        this.writer.writeCharacters(LINE_SEPARATOR + INDENT);
+        this.writer.writeStartElement(name);
+    }
+
+    /**
+     * Writes a field of a log entry, as an element holding text only.
+     *
+     * @param name The name of the element
+     * @param text The text; the element is empty if null or empty
+     * @throws XMLStreamException If the element could not be written
+     */
+    public void writeElement(final String name, final String text) throws XMLStreamException {
+        this.writer.writeCharacters(LINE_SEPARATOR + INDENT + INDENT);
+        if ((text == null) || (text.length() == 0)) {
+            this.writer.writeEmptyElement(name);
+        } else {
+            this.writer.writeStartElement(name);
+            writeText(text);
+            this.writer.writeEndElement();
+        }
+    }
+
+    /**
+     * Ends the element of a log entry.
+     *
+     * @throws XMLStreamException If the element could not be written
+     */
+    public void endEntry() throws XMLStreamException {
+        this.writer.writeCharacters(LINE_SEPARATOR + INDENT);
+        this.writer.writeEndElement();
+    }
+
+    /**
+     * Ends the document, flushes it and closes the stream if so requested.
+     *
+     * @throws XMLStreamException If the document could not be written
+     */
+    public void close() throws XMLStreamException {
+        if (this.rootStarted) {
+            this.writer.writeCharacters(LINE_SEPARATOR);
+            this.writer.writeEndElement();
+        } else {
+            this.writer.writeEmptyElement(Log.ROOT_ELEMENT_NAME);
+        }
+        this.writer.writeCharacters(LINE_SEPARATOR);
+        this.writer.writeEndDocument();
+        this.writer.flush();
+        try {
+            if (this.closingStream) {
+                this.out.close();
+            } else {
+                this.out.flush();
+            }
+        } catch (final IOException e) {
+            throw new XMLStreamException(e);
+        }
+    }
+
+    /**
+     * Writes text content, escaping it as XMLSerializer does. Runs of plain characters are passed to the stream writer
+     * as they are, everything else as an entity or character reference.
+     */
+    private void writeText(final String text) throws XMLStreamException {
+        final int length = text.length();
+        int runStart = 0;
+        int i = 0;
+        while (i < length) {
+            final int original = text.codePointAt(i);
+            final int next = i + Character.charCount(original);
+            final int ch = isXMLChar(original) ? original : REPLACEMENT_CHAR;
+
+            String ref = null;
+            if (ch == '<') {
+                ref = "lt";
+            } else if (ch == '>') {
+                ref = "gt";
+            } else if (ch == '&') {
+                ref = "amp";
+            } else if ((ch == '\r') || Character.isSupplementaryCodePoint(ch)
+                || ((ch != '\n') && (ch != '\t') && !this.encoder.canEncode((char) ch))) {
+                ref = "#x" + Integer.toHexString(ch);
+            }
+
+            if ((ref != null) || (ch != original)) {
+                if (runStart < i) {
+                    this.writer.writeCharacters(text.substring(runStart, i));
+                }
+                if (ref != null) {
+                    this.writer.writeEntityRef(ref);
+                } else {
+                    this.writer.writeCharacters(String.valueOf((char) ch));
+                }
+                runStart = next;
+            }
+            i = next;
+        }
+        if (runStart < length) {
+            this.writer.writeCharacters(runStart == 0 ? text : text.substring(runStart));
+        }
+    }
+
+    private static boolean isXMLChar(final int ch) {
+        return (ch == '\t') || (ch == '\n') || (ch == '\r') || ((ch >= 0x20) && (ch <= 0xD7FF))
+            || ((ch >= 0xE000) && (ch <= 0xFFFD)) || ((ch >= 0x10000) && (ch <= 0x10FFFF));
+    }
+}
@@ -1,6 +1,9 @@
 package com.sas.ptc.transform.xml.log;
 
+import java.util.concurrent.TimeUnit;
+
 import org.xml.sax.ErrorHandler;
+import org.xml.sax.SAXException;
 import org.xml.sax.SAXParseException;
 
 /**
@@ -9,12 +12,24 @@ import org.xml.sax.SAXParseException;
  *
  * The XML error handler object that allows for the capture of error and warning messages during XML Schema validation
  * of the produced XML document.
+ * <p>
+ * The handler can stop a validation early: once it has received the maximum number of errors, or once the time limit
+ * has passed, it logs why as a fatal error, marks the document invalid and throws a ValidationLimitException, which
+ * stops the parse. The time limit is only checked as messages arrive; for a document with no errors, the parse is
+ * stopped by reading it through a TimeLimitedInputStream given getRemainingTimeMillis(), and timeLimitReached() is
+ * then called instead.
  */
 public class ValidationErrorHandler implements ErrorHandler {
 
     private boolean valid;
     private final Log log;
 
+    private int maxErrorCount;
+    private long timeLimitMillis;
+    private long startNanos;
+    private int errorCount;
+    private boolean limitReached;
+
     /**
      * Constructor for ValidationErrorHandler.
      *
@@ -23,41 +38,181 @@ public class ValidationErrorHandler implements ErrorHandler {
     public ValidationErrorHandler(final Log log) {
         this.log = log;
         this.valid = true;
+        this.startNanos = System.nanoTime();
     }
 
     /**
      * To be invoked upon encountering a validation error.
      * 
      * @param exception The exception encapsulating the error
+     * @throws SAXException A ValidationLimitException, if a limit is reached
      * @see org.xml.sax.ErrorHandler#error(SAXParseException)
      */
     @Override
-    public void error(final SAXParseException exception) {
+    public void error(final SAXParseException exception) throws SAXException {
         getLog().logValidationMessage(LogEntry.SEVERITY_ERROR, exception);
         this.valid = false;
+        errorReceived(exception);
     }
 
     /**
      * To be invoked upon encountering a validation fatal error.
      * 
      * @param exception The exception encapsulating the fatal error
+     * @throws SAXException A ValidationLimitException, if a limit is reached
      * @see org.xml.sax.ErrorHandler#fatalError(SAXParseException)
      */
     @Override
-    public void fatalError(final SAXParseException exception) {
+    public void fatalError(final SAXParseException exception) throws SAXException {
         getLog().logValidationMessage(LogEntry.SEVERITY_FATAL_ERROR, exception);
         this.valid = false;
+        errorReceived(exception);
     }
 
     /**
      * To be invoked upon encountering a validation warning.
      * 
      * @param exception The exception encapsulating the warning
+     * @throws SAXException A ValidationLimitException, if a limit is reached
      * @see org.xml.sax.ErrorHandler#warning(SAXParseException)
      */
     @Override
-    public void warning(final SAXParseException exception) {
+    public void warning(final SAXParseException exception) throws SAXException {
         getLog().logValidationMessage(LogEntry.SEVERITY_WARNING, exception);
+        checkTimeLimit(exception);
+    }
+
+    /**
+     * Counts an error or fatal error, and stops the validation if a limit is reached.
+     * 
+     * @param exception The exception encapsulating the error
+     * @throws ValidationLimitException If the maximum number of errors was received, or the time limit has passed
+     */
+    protected synchronized void errorReceived(final SAXParseException exception) throws ValidationLimitException {
+        ++this.errorCount;
+        if ((this.maxErrorCount > 0) && (this.errorCount >= this.maxErrorCount)) {
+            throw stop("Validation stopped after " + this.errorCount + " errors, the limit set by maxValidationErrors.",
+                exception);
+        }
+        checkTimeLimit(exception);
+    }
+
+    /**
+     * Stops the validation if the time limit has passed.
+     * 
+     * @param exception The exception encapsulating the message being handled
+     * @throws ValidationLimitException If the time limit has passed
+     */
+    protected synchronized void checkTimeLimit(final SAXParseException exception) throws ValidationLimitException {
+        if ((this.timeLimitMillis > 0) && (getElapsedMillis() >= this.timeLimitMillis)) {
+            throw stop(getTimeLimitMessage(), exception);
+        }
+    }
+
+    /**
+     * Logs that the time limit stopped the validation, and marks the document invalid. To be called when the parse
+     * was stopped by a TimeLimitedInputStream rather than by this handler.
+     */
+    public synchronized void timeLimitReached() {
+        if (!this.limitReached) {
+            this.limitReached = true;
+            this.valid = false;
+            getLog().logFatalError(getTimeLimitMessage());
+        }
+    }
+
+    private String getTimeLimitMessage() {
+        return "Validation stopped after " + getElapsedMillis() + " ms, the time limit set by maxValidationMillis.";
+    }
+
+    private long getElapsedMillis() {
+        return TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - this.startNanos);
+    }
+
+    private ValidationLimitException stop(final String message, final SAXParseException exception) {
+        final ValidationLimitException limitException = new ValidationLimitException(message, exception);
+        if (!this.limitReached) {
+            this.limitReached = true;
+            this.valid = false;
+            getLog().logFatalError(message);
+        }
+
+        return limitException;
+    }
+
+    /**
+     * Whether the validation was stopped because a limit was reached.
+     *
+     * @return Whether a limit was reached
+     */
+    public synchronized boolean isLimitReached() {
+        return limitReached;
+    }
+
+    /**
+     * Gets the maximum number of errors and fatal errors received before the validation is stopped.
+     *
+     * @return The maximum number of errors, or 0 if there is none
+     */
+    public int getMaxErrorCount() {
+        return maxErrorCount;
+    }
+
+    /**
+     * Sets the maximum number of errors and fatal errors received before the validation is stopped. The default, 0,
+     * sets no maximum.
+     *
+     * @param maxErrorCount The maximum number of errors, or 0 for none
+     */
+    public void setMaxErrorCount(final int maxErrorCount) {
+        this.maxErrorCount = maxErrorCount;
+    }
+
+    /**
+     * Gets the time, counted from startTimer(), after which the validation is stopped.
+     *
+     * @return The time limit, in milliseconds, or 0 if there is none
+     */
+    public long getTimeLimitMillis() {
+        return timeLimitMillis;
+    }
+
+    /**
+     * Sets the time, counted from startTimer(), after which the validation is stopped. The default, 0, sets no limit.
+     *
+     * @param timeLimitMillis The time limit, in milliseconds, or 0 for none
+     */
+    public void setTimeLimitMillis(final long timeLimitMillis) {
+        this.timeLimitMillis = timeLimitMillis;
+    }
+
+    /**
+     * Starts counting the time limit, once validation is about to start. The time is otherwise counted from the
+     * construction of the handler.
+     */
+    public synchronized void startTimer() {
+        this.startNanos = System.nanoTime();
+    }
+
+    /**
+     * Gets the time left before the time limit, to be given to a TimeLimitedInputStream.
+     *
+     * @return The time left, in milliseconds, at least 1 so that it is never mistaken for no limit; or 0 if there is
+     *         no time limit
+     */
+    public synchronized long getRemainingTimeMillis() {
+        if (this.timeLimitMillis <= 0) {
+            return 0;
+        }
+        return Math.max(1, this.timeLimitMillis - getElapsedMillis());
+    }
+
+    /**
+     * Logs the messages held back by this handler. This handler logs each message as it is received, and holds none
+     * back; subclasses aggregating messages log them here, once validation is over.
+     */
+    public void flush() {
+        // nothing held back
     }
 
     /**
@@ -69,6 +224,15 @@ public class ValidationErrorHandler implements ErrorHandler {
         return valid;
     }
 
+    /**
+     * Method setValid.
+     *
+     * @param valid boolean
+     */
+    protected void setValid(final boolean valid) {
+        this.valid = valid;
+    }
+
     /**
      * Gets the Log to which entries are being written in response to errors and warnings trapped by this handler.
      * 
@@ -0,0 +1,27 @@
+package com.sas.ptc.transform.xml.log;
+
+import org.xml.sax.SAXParseException;
+
+/**
+ * Copyright (c) 2022, SAS Institute Inc., Cary, NC, USA.  All Rights Reserved.
+ * SPDX-License-Identifier: Apache-2.0
+ *
+ * Thrown by a ValidationErrorHandler to stop the parse once a limit on the number of validation errors or on the time
+ * spent validating is reached. The handler has already logged why it stopped, at the location of the message that
+ * reached the limit, so callers need not log this exception again.
+ */
+public class ValidationLimitException extends SAXParseException {
+
+    private static final long serialVersionUID = 1L;
+
+    /**
+     * Constructor for ValidationLimitException.
+     *
+     * @param message The reason the parse was stopped
+     * @param exception The validation message that reached the limit
+     */
+    public ValidationLimitException(final String message, final SAXParseException exception) {
+        super(message, exception.getPublicId(), exception.getSystemId(), exception.getLineNumber(),
+            exception.getColumnNumber());
+    }
+}
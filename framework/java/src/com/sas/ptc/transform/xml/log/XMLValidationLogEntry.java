@@ -2,6 +2,8 @@ package com.sas.ptc.transform.xml.log;
 
 import java.util.Date;
 
+import javax.xml.stream.XMLStreamException;
+
 import org.w3c.dom.Element;
 
 import com.sas.ptc.util.xml.DOMUtils;
@@ -87,4 +89,17 @@ public class XMLValidationLogEntry extends LogEntry {
         return tableElement;
     }
 
+    /**
+     * Method writeElementsInStream.
+     *
+     * @param writer LogStreamWriter
+     * @throws XMLStreamException
+     */
+    @Override
+    protected void writeElementsInStream(final LogStreamWriter writer) throws XMLStreamException {
+        super.writeElementsInStream(writer);
+        writer.writeElement("LineNumber", getLineNumber() + "");
+        writer.writeElement("ColumnNumber", getColumnNumber() + "");
+    }
+
 }
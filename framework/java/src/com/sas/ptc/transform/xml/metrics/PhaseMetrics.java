@@ -0,0 +1,258 @@
+package com.sas.ptc.transform.xml.metrics;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.Locale;
+
+import com.sas.ptc.util.jfr.FlightRecorderEvents;
+
+/**
+ * Copyright (c) 2022, SAS Institute Inc., Cary, NC, USA.  All Rights Reserved.
+ * SPDX-License-Identifier: Apache-2.0
+ *
+ * The resources used by one phase of a transform job: its wall-clock time, the CPU time and heap allocation of the
+ * thread running it, and the number of bytes it read and wrote. CPU time and allocation are measured through the
+ * platform ThreadMXBean, and are UNAVAILABLE where the JVM does not support measuring them. A phase may also be
+ * emitted as a Flight Recorder event, committed when the phase is stopped.
+ */
+public class PhaseMetrics {
+
+    public static final long UNAVAILABLE = -1;
+
+    private static final ThreadMXBean THREAD_MX_BEAN = ManagementFactory.getThreadMXBean();
+    private static final boolean MEASURING_ALLOCATION = isMeasuringAllocation();
+    private static final double NANOS_PER_MILLI = 1000000.0;
+
+    private final String name;
+    private long wallNanos;
+    private long cpuNanos = UNAVAILABLE;
+    private long allocatedBytes = UNAVAILABLE;
+    private long bytesIn;
+    private long bytesOut;
+
+    private long startNanos;
+    private long startCpuNanos = UNAVAILABLE;
+    private long startAllocatedBytes = UNAVAILABLE;
+    private boolean running;
+
+    private Object event;
+    private String eventPath;
+    private String standardName;
+    private String standardVersion;
+
+    /**
+     * Constructs the metrics of a phase measured by other means.
+     *
+     * @param name The name of the phase
+     * @param wallNanos The wall-clock time, in nanoseconds
+     * @param cpuNanos The CPU time, in nanoseconds, or UNAVAILABLE
+     * @param allocatedBytes The number of bytes allocated on the heap, or UNAVAILABLE
+     * @param bytesIn The number of bytes read
+     * @param bytesOut The number of bytes written
+     */
+    public PhaseMetrics(final String name, final long wallNanos, final long cpuNanos, final long allocatedBytes,
+        final long bytesIn, final long bytesOut) {
+        this.name = name;
+        this.wallNanos = wallNanos;
+        this.cpuNanos = cpuNanos;
+        this.allocatedBytes = allocatedBytes;
+        this.bytesIn = bytesIn;
+        this.bytesOut = bytesOut;
+    }
+
+    private PhaseMetrics(final String name) {
+        this.name = name;
+    }
+
+    /**
+     * Starts measuring a phase run by the current thread.
+     *
+     * @param name The name of the phase
+     * @return The metrics of the phase, to be stopped by the same thread once the phase is over
+     */
+    public static PhaseMetrics start(final String name) {
+        final PhaseMetrics phase = new PhaseMetrics(name);
+        phase.running = true;
+        phase.startCpuNanos = getCurrentThreadCpuNanos();
+        phase.startAllocatedBytes = getCurrentThreadAllocatedBytes();
+        phase.startNanos = System.nanoTime();
+        return phase;
+    }
+
+    /**
+     * Stops measuring the phase. Has no effect if the phase was already stopped.
+     *
+     * @param bytesIn The number of bytes the phase read
+     * @param bytesOut The number of bytes the phase wrote
+     */
+    public void stop(final long bytesIn, final long bytesOut) {
+        if (!this.running) {
+            return;
+        }
+        this.running = false;
+        this.wallNanos = System.nanoTime() - this.startNanos;
+        final long cpu = getCurrentThreadCpuNanos();
+        if ((cpu != UNAVAILABLE) && (this.startCpuNanos != UNAVAILABLE)) {
+            this.cpuNanos = cpu - this.startCpuNanos;
+        }
+        final long allocated = getCurrentThreadAllocatedBytes();
+        if ((allocated != UNAVAILABLE) && (this.startAllocatedBytes != UNAVAILABLE)) {
+            this.allocatedBytes = allocated - this.startAllocatedBytes;
+        }
+        this.bytesIn = bytesIn;
+        this.bytesOut = bytesOut;
+
+        if (this.event != null) {
+            FlightRecorderEvents.commit(this.event, this.eventPath, this.standardName, this.standardVersion, bytesIn,
+                bytesOut, -1);
+            this.event = null;
+        }
+    }
+
+    /**
+     * Begins the Flight Recorder event of the phase, committed by stop().
+     *
+     * @param eventType One of the event types of FlightRecorderEvents
+     * @param path The path of the file the phase processes
+     * @param standardName The name of the standard, or null
+     * @param standardVersion The version of the standard, or null
+     */
+    void beginEvent(final String eventType, final String path, final String standardName,
+        final String standardVersion) {
+        this.event = FlightRecorderEvents.begin(eventType);
+        this.eventPath = path;
+        this.standardName = standardName;
+        this.standardVersion = standardVersion;
+    }
+
+    private static long getCurrentThreadCpuNanos() {
+        if (THREAD_MX_BEAN.isCurrentThreadCpuTimeSupported() && THREAD_MX_BEAN.isThreadCpuTimeEnabled()) {
+            return THREAD_MX_BEAN.getCurrentThreadCpuTime();
+        }
+
+        return UNAVAILABLE;
+    }
+
+    private static long getCurrentThreadAllocatedBytes() {
+        if (MEASURING_ALLOCATION) {
+            return Allocation.getCurrentThreadAllocatedBytes();
+        }
+
+        return UNAVAILABLE;
+    }
+
+    /**
+     * Whether the JVM measures the heap allocation of threads. The extension of ThreadMXBean doing so is specific to
+     * HotSpot-based JVMs, so it is only touched once it is known to be present.
+     */
+    private static boolean isMeasuringAllocation() {
+        try {
+            return Allocation.isSupported();
+        } catch (final LinkageError e) {
+            return false;
+        }
+    }
+
+    /**
+     * Gets the name of the phase.
+     *
+     * @return The name of the phase
+     */
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * Gets the wall-clock time of the phase.
+     *
+     * @return The wall-clock time, in nanoseconds
+     */
+    public long getWallNanos() {
+        return wallNanos;
+    }
+
+    /**
+     * Gets the CPU time of the thread running the phase.
+     *
+     * @return The CPU time, in nanoseconds, or UNAVAILABLE
+     */
+    public long getCpuNanos() {
+        return cpuNanos;
+    }
+
+    /**
+     * Gets the number of bytes allocated on the heap by the thread running the phase.
+     *
+     * @return The number of bytes allocated, or UNAVAILABLE
+     */
+    public long getAllocatedBytes() {
+        return allocatedBytes;
+    }
+
+    /**
+     * Gets the number of bytes the phase read, from files or from the output of an earlier phase.
+     *
+     * @return The number of bytes read
+     */
+    public long getBytesIn() {
+        return bytesIn;
+    }
+
+    /**
+     * Gets the number of bytes the phase wrote.
+     *
+     * @return The number of bytes written
+     */
+    public long getBytesOut() {
+        return bytesOut;
+    }
+
+    /**
+     * Describes the phase as its name followed by its metrics, times in milliseconds.
+     *
+     * @return The description of the phase
+     */
+    @Override
+    public String toString() {
+        return getName() + ": wall " + formatMillis(getWallNanos()) + ", CPU " + formatMillis(getCpuNanos())
+            + ", allocated " + formatBytes(getAllocatedBytes()) + ", in " + formatBytes(getBytesIn()) + ", out "
+            + formatBytes(getBytesOut());
+    }
+
+    private static String formatMillis(final long nanos) {
+        if (nanos == UNAVAILABLE) {
+            return "n/a";
+        }
+
+        return String.format(Locale.ROOT, "%.3f ms", nanos / NANOS_PER_MILLI);
+    }
+
+    private static String formatBytes(final long bytes) {
+        if (bytes == UNAVAILABLE) {
+            return "n/a";
+        }
+
+        return bytes + " bytes";
+    }
+
+    /**
+     * Access to the HotSpot extension of ThreadMXBean, kept apart so that its absence only fails this class.
+     */
+    private static final class Allocation {
+
+        static boolean isSupported() {
+            final ThreadMXBean bean = ManagementFactory.getThreadMXBean();
+            if (!(bean instanceof com.sun.management.ThreadMXBean)) {
+                return false;
+            }
+            final com.sun.management.ThreadMXBean hotSpotBean = (com.sun.management.ThreadMXBean) bean;
+
+            return hotSpotBean.isThreadAllocatedMemorySupported() && hotSpotBean.isThreadAllocatedMemoryEnabled();
+        }
+
+        static long getCurrentThreadAllocatedBytes() {
+            return ((com.sun.management.ThreadMXBean) THREAD_MX_BEAN)
+                .getThreadAllocatedBytes(Thread.currentThread().getId());
+        }
+    }
+}
@@ -0,0 +1,156 @@
+package com.sas.ptc.transform.xml.metrics;
+
+import java.lang.management.ManagementFactory;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import javax.management.JMException;
+import javax.management.ObjectName;
+
+/**
+ * Copyright (c) 2022, SAS Institute Inc., Cary, NC, USA.  All Rights Reserved.
+ * SPDX-License-Identifier: Apache-2.0
+ *
+ * The totals of one transform phase over the jobs run by this JVM, registered with the platform MBean server under
+ * the name com.sas.ptc.transform:type=TransformPhase,name=&lt;phase&gt; so that a long-lived process, such as
+ * StandardXMLTransformService, can be monitored with any JMX console. There is one instance per phase name.
+ */
+public class PhaseStatistics implements PhaseStatisticsMBean {
+
+    public static final String OBJECT_NAME_PREFIX = "com.sas.ptc.transform:type=TransformPhase,name=";
+
+    private static final ConcurrentMap<String, PhaseStatistics> INSTANCES = new ConcurrentHashMap<>();
+    private static final long NANOS_PER_MILLI = 1000000L;
+
+    private final String phase;
+    private long count;
+    private long totalWallNanos;
+    private long maxWallNanos;
+    private long lastWallNanos;
+    private long totalCpuNanos;
+    private long totalAllocatedBytes;
+    private long totalBytesIn;
+    private long totalBytesOut;
+
+    /**
+     * Constructor for PhaseStatistics.
+     *
+     * @param phase The name of the phase
+     */
+    protected PhaseStatistics(final String phase) {
+        this.phase = phase;
+    }
+
+    /**
+     * Gets the statistics of a phase, creating and registering them on first use. A failure to register is reported
+     * on standard error, and the statistics are kept all the same.
+     *
+     * @param phase The name of the phase
+     * @return The statistics of the phase
+     */
+    public static PhaseStatistics getInstance(final String phase) {
+        PhaseStatistics statistics = INSTANCES.get(phase);
+        if (statistics == null) {
+            final PhaseStatistics created = new PhaseStatistics(phase);
+            statistics = INSTANCES.putIfAbsent(phase, created);
+            if (statistics == null) {
+                statistics = created;
+                try {
+                    ManagementFactory.getPlatformMBeanServer().registerMBean(created,
+                        new ObjectName(OBJECT_NAME_PREFIX + phase));
+                } catch (final JMException e) {
+                    e.printStackTrace();
+                }
+            }
+        }
+
+        return statistics;
+    }
+
+    /**
+     * Adds a run of the phase to the totals.
+     *
+     * @param metrics The metrics of the run
+     */
+    public synchronized void add(final PhaseMetrics metrics) {
+        ++this.count;
+        this.totalWallNanos += metrics.getWallNanos();
+        this.maxWallNanos = Math.max(this.maxWallNanos, metrics.getWallNanos());
+        this.lastWallNanos = metrics.getWallNanos();
+        if (metrics.getCpuNanos() != PhaseMetrics.UNAVAILABLE) {
+            this.totalCpuNanos += metrics.getCpuNanos();
+        }
+        if (metrics.getAllocatedBytes() != PhaseMetrics.UNAVAILABLE) {
+            this.totalAllocatedBytes += metrics.getAllocatedBytes();
+        }
+        this.totalBytesIn += metrics.getBytesIn();
+        this.totalBytesOut += metrics.getBytesOut();
+    }
+
+    @Override
+    public String getPhase() {
+        return phase;
+    }
+
+    @Override
+    public synchronized long getCount() {
+        return count;
+    }
+
+    @Override
+    public synchronized long getTotalWallMillis() {
+        return totalWallNanos / NANOS_PER_MILLI;
+    }
+
+    @Override
+    public synchronized long getMaxWallMillis() {
+        return maxWallNanos / NANOS_PER_MILLI;
+    }
+
+    @Override
+    public synchronized long getLastWallMillis() {
+        return lastWallNanos / NANOS_PER_MILLI;
+    }
+
+    @Override
+    public synchronized long getTotalCpuMillis() {
+        return totalCpuNanos / NANOS_PER_MILLI;
+    }
+
+    @Override
+    public synchronized long getTotalAllocatedBytes() {
+        return totalAllocatedBytes;
+    }
+
+    @Override
+    public synchronized long getTotalBytesIn() {
+        return totalBytesIn;
+    }
+
+    @Override
+    public synchronized long getTotalBytesOut() {
+        return totalBytesOut;
+    }
+
+    @Override
+    public synchronized void reset() {
+        this.count = 0;
+        this.totalWallNanos = 0;
+        this.maxWallNanos = 0;
+        this.lastWallNanos = 0;
+        this.totalCpuNanos = 0;
+        this.totalAllocatedBytes = 0;
+        this.totalBytesIn = 0;
+        this.totalBytesOut = 0;
+    }
+
+    /**
+     * Method toString.
+     *
+     * @return String
+     */
+    @Override
+    public synchronized String toString() {
+        return this.phase + ": " + this.count + " runs, " + getTotalWallMillis() + " ms";
+    }
+}
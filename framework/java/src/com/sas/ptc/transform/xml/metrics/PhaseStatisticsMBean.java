@@ -0,0 +1,78 @@
+package com.sas.ptc.transform.xml.metrics;
+
+/**
+ * Copyright (c) 2022, SAS Institute Inc., Cary, NC, USA.  All Rights Reserved.
+ * SPDX-License-Identifier: Apache-2.0
+ *
+ * The management interface of PhaseStatistics: the totals of one transform phase over the jobs run by this JVM.
+ */
+public interface PhaseStatisticsMBean {
+
+    /**
+     * Gets the name of the phase.
+     *
+     * @return The name of the phase
+     */
+    String getPhase();
+
+    /**
+     * Gets the number of times the phase was run.
+     *
+     * @return The number of runs
+     */
+    long getCount();
+
+    /**
+     * Gets the total wall-clock time of the phase.
+     *
+     * @return The total wall-clock time, in milliseconds
+     */
+    long getTotalWallMillis();
+
+    /**
+     * Gets the longest wall-clock time of a single run of the phase.
+     *
+     * @return The longest wall-clock time, in milliseconds
+     */
+    long getMaxWallMillis();
+
+    /**
+     * Gets the wall-clock time of the latest run of the phase.
+     *
+     * @return The latest wall-clock time, in milliseconds
+     */
+    long getLastWallMillis();
+
+    /**
+     * Gets the total CPU time of the phase, over the runs for which it was measured.
+     *
+     * @return The total CPU time, in milliseconds
+     */
+    long getTotalCpuMillis();
+
+    /**
+     * Gets the total number of bytes allocated on the heap by the phase, over the runs for which it was measured.
+     *
+     * @return The total number of bytes allocated
+     */
+    long getTotalAllocatedBytes();
+
+    /**
+     * Gets the total number of bytes read by the phase.
+     *
+     * @return The total number of bytes read
+     */
+    long getTotalBytesIn();
+
+    /**
+     * Gets the total number of bytes written by the phase.
+     *
+     * @return The total number of bytes written
+     */
+    long getTotalBytesOut();
+
+    /**
+     * Resets all totals to zero.
+     */
+    void reset();
+}
@@ -0,0 +1,200 @@
+package com.sas.ptc.transform.xml.metrics;
+
+import java.io.BufferedOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import javax.xml.stream.XMLOutputFactory;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamWriter;
+
+import com.sas.ptc.transform.xml.log.Log;
+import com.sas.ptc.util.jfr.FlightRecorderEvents;
+
+/**
+ * Copyright (c) 2022, SAS Institute Inc., Cary, NC, USA.  All Rights Reserved.
+ * SPDX-License-Identifier: Apache-2.0
+ *
+ * The metrics of the phases of one transform job, in the order the phases were started. The metrics can be logged,
+ * written to a metrics file, and added to the process-wide PhaseStatistics published over JMX.
+ * <p>
+ * The metrics file holds a METRICS element, with one PHASE element per phase whose attributes are the name of the
+ * phase, its wallNanos, cpuNanos, allocatedBytes, bytesIn and bytesOut; an unavailable measurement is -1. Phases may
+ * nest: the serialization phase is the share of the transform phase spent writing its output.
+ * <p>
+ * Phases started with the path of the file they process are also emitted as Flight Recorder events, those that have
+ * an event type: stylesheet compile, schema compile, validation and transform.
+ */
+public class TransformMetrics {
+
+    public static final String CONFIG_PARSE = "configParse";
+    public static final String REGISTRY_LOAD = "registryLoad";
+    public static final String SCHEMA_COMPILE = "schemaCompile";
+    public static final String STYLESHEET_COMPILE = "stylesheetCompile";
+    public static final String CONTENT_DIGEST = "contentDigest";
+    public static final String MANIFEST_CHECK = "manifestCheck";
+    public static final String VALIDATION = "validation";
+    public static final String TRANSFORM = "transform";
+    public static final String SERIALIZATION = "serialization";
+    public static final String STYLESHEET_COPY = "stylesheetCopy";
+    public static final String LOG_WRITE = "logWrite";
+
+    private static final String ROOT_ELEMENT_NAME = "METRICS";
+    private static final String PHASE_ELEMENT_NAME = "PHASE";
+    private static final String ENCODING = "UTF-8";
+
+    private final List<PhaseMetrics> phases = new ArrayList<>();
+    private final String standardName;
+    private final String standardVersion;
+
+    /**
+     * Constructs empty metrics, for a job of no particular standard.
+     */
+    public TransformMetrics() {
+        this(null, null);
+    }
+
+    /**
+     * Constructs empty metrics for a job.
+     *
+     * @param standardName The name of the standard transformed, reported in Flight Recorder events
+     * @param standardVersion The version of the standard transformed, reported in Flight Recorder events
+     */
+    public TransformMetrics(final String standardName, final String standardVersion) {
+        this.standardName = standardName;
+        this.standardVersion = standardVersion;
+    }
+
+    /**
+     * Starts measuring a phase run by the current thread, and adds it to these metrics.
+     *
+     * @param name The name of the phase
+     * @return The metrics of the phase, to be stopped once the phase is over
+     */
+    public synchronized PhaseMetrics start(final String name) {
+        final PhaseMetrics phase = PhaseMetrics.start(name);
+        this.phases.add(phase);
+        return phase;
+    }
+
+    /**
+     * Starts measuring a phase run by the current thread, and adds it to these metrics. The phase is also emitted as a
+     * Flight Recorder event, if it has an event type and a recording is running.
+     *
+     * @param name The name of the phase
+     * @param path The path of the file the phase processes
+     * @return The metrics of the phase, to be stopped once the phase is over
+     */
+    public PhaseMetrics start(final String name, final String path) {
+        final PhaseMetrics phase = start(name);
+        final String eventType = getEventType(name);
+        if (eventType != null) {
+            phase.beginEvent(eventType, path, this.standardName, this.standardVersion);
+        }
+
+        return phase;
+    }
+
+    private static String getEventType(final String name) {
+        if (STYLESHEET_COMPILE.equals(name)) {
+            return FlightRecorderEvents.STYLESHEET_COMPILE;
+        } else if (SCHEMA_COMPILE.equals(name)) {
+            return FlightRecorderEvents.SCHEMA_COMPILE;
+        } else if (VALIDATION.equals(name)) {
+            return FlightRecorderEvents.VALIDATION;
+        } else if (TRANSFORM.equals(name)) {
+            return FlightRecorderEvents.TRANSFORM;
+        }
+
+        return null;
+    }
+
+    /**
+     * Adds a phase measured elsewhere.
+     *
+     * @param phase The metrics of the phase; ignored if null
+     */
+    public synchronized void add(final PhaseMetrics phase) {
+        if (phase != null) {
+            this.phases.add(phase);
+        }
+    }
+
+    /**
+     * Gets the metrics of the phases, in the order they were started.
+     *
+     * @return A copy of the list of phase metrics
+     */
+    public synchronized List<PhaseMetrics> getPhases() {
+        return Collections.unmodifiableList(new ArrayList<>(this.phases));
+    }
+
+    /**
+     * Logs the metrics of each phase as an informational entry.
+     *
+     * @param log The log
+     */
+    public void log(final Log log) {
+        for (final PhaseMetrics phase : getPhases()) {
+            log.logInfo("Phase metrics: " + phase + ".");
+        }
+    }
+
+    /**
+     * Adds the metrics of each phase to the statistics of the phase, registering the statistics as MBeans on first use.
+     */
+    public void publish() {
+        for (final PhaseMetrics phase : getPhases()) {
+            PhaseStatistics.getInstance(phase.getName()).add(phase);
+        }
+    }
+
+    /**
+     * Writes the metrics to a file, in UTF-8.
+     *
+     * @param file The metrics file
+     * @throws IOException If the file could not be written
+     * @throws XMLStreamException If the metrics could not be serialized
+     */
+    public void write(final File file) throws IOException, XMLStreamException {
+        final OutputStream os = new BufferedOutputStream(new FileOutputStream(file));
+        try {
+            final XMLStreamWriter writer = XMLOutputFactory.newInstance().createXMLStreamWriter(os, ENCODING);
+            writer.writeStartDocument(ENCODING, "1.0");
+            writer.writeCharacters("\n");
+            writer.writeStartElement(ROOT_ELEMENT_NAME);
+            for (final PhaseMetrics phase : getPhases()) {
+                writer.writeCharacters("\n    ");
+                writer.writeEmptyElement(PHASE_ELEMENT_NAME);
+                writer.writeAttribute("name", phase.getName());
+                writer.writeAttribute("wallNanos", String.valueOf(phase.getWallNanos()));
+                writer.writeAttribute("cpuNanos", String.valueOf(phase.getCpuNanos()));
+                writer.writeAttribute("allocatedBytes", String.valueOf(phase.getAllocatedBytes()));
+                writer.writeAttribute("bytesIn", String.valueOf(phase.getBytesIn()));
+                writer.writeAttribute("bytesOut", String.valueOf(phase.getBytesOut()));
+            }
+            writer.writeCharacters("\n");
+            writer.writeEndElement();
+            writer.writeCharacters("\n");
+            writer.writeEndDocument();
+            writer.close();
+        } finally {
+            os.close();
+        }
+    }
+
+    /**
+     * Gets the length of a file, for the bytes read or written by a phase.
+     *
+     * @param path The path to the file
+     * @return The length of the file, or 0 if the path is null or the file does not exist
+     */
+    public static long getFileLength(final String path) {
+        return (path == null) ? 0 : new File(path).length();
+    }
+}
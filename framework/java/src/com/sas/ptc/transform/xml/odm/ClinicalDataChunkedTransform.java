@@ -0,0 +1,75 @@
+package com.sas.ptc.transform.xml.odm;
+
+import java.io.File;
+import java.io.IOException;
+
+import javax.xml.transform.TransformerException;
+
+/**
+ * Copyright (c) 2022, SAS Institute Inc., Cary, NC, USA.  All Rights Reserved.
+ * SPDX-License-Identifier: Apache-2.0
+ *
+ * Imports an ODM 1.3 document with the import XSL, transforming its ClinicalData elements a few subjects at a time.
+ * The document is split as by ClinicalDataStreamingTransform, but the ClinicalData elements are handed on to a
+ * ClinicalDataChunker, which transforms them in chunks of subjects with the same compiled import XSL, on a thread pool.
+ * The memory needed is that of the metadata, and of the chunks being transformed.
+ * <p>
+ * The output holds the same tables, rows and columns as that of XSLTransform, in the same order, but for the keys
+ * generated for the rows of the ClinicalData elements, which are suffixed with the number of their chunk. Unlike
+ * ClinicalDataStreamingTransform, which writes the rows of the ClinicalData elements itself, any row the import XSL
+ * produces from them is kept, so that a customized import XSL is honored.
+ */
+public class ClinicalDataChunkedTransform extends ClinicalDataStreamingTransform {
+
+    /**
+     * The default maximum number of SubjectData elements per chunk.
+     */
+    public static final int DEFAULT_SUBJECTS_PER_CHUNK = 100;
+
+    private int subjectsPerChunk = DEFAULT_SUBJECTS_PER_CHUNK;
+    private int threadCount;
+
+    @Override
+    ClinicalDataHandler createClinicalDataHandler(final File folder) throws TransformerException, IOException {
+        return new ClinicalDataChunker(folder, getTemplates(), getParameters(), this.subjectsPerChunk,
+            this.threadCount);
+    }
+
+    /**
+     * Gets the maximum number of SubjectData elements per chunk.
+     *
+     * @return The number of SubjectData elements
+     */
+    public int getSubjectsPerChunk() {
+        return subjectsPerChunk;
+    }
+
+    /**
+     * Sets the maximum number of SubjectData elements per chunk. The default is DEFAULT_SUBJECTS_PER_CHUNK; 1
+     * transforms each subject on its own.
+     *
+     * @param subjectsPerChunk The number of SubjectData elements, or 0 for the default
+     */
+    public void setSubjectsPerChunk(final int subjectsPerChunk) {
+        this.subjectsPerChunk = (subjectsPerChunk > 0) ? subjectsPerChunk : DEFAULT_SUBJECTS_PER_CHUNK;
+    }
+
+    /**
+     * Gets the maximum number of chunks transformed concurrently.
+     *
+     * @return The thread count, or 0 if it is the number of available processors
+     */
+    public int getThreadCount() {
+        return threadCount;
+    }
+
+    /**
+     * Sets the maximum number of chunks transformed concurrently, besides the thread splitting the document and
+     * transforming the metadata. The default, 0, is the number of available processors.
+     *
+     * @param threadCount The thread count, or 0 for the number of available processors
+     */
+    public void setThreadCount(final int threadCount) {
+        this.threadCount = Math.max(0, threadCount);
+    }
+}
@@ -0,0 +1,459 @@
+package com.sas.ptc.transform.xml.odm;
+
+import java.io.BufferedOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import javax.xml.stream.XMLOutputFactory;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+import javax.xml.stream.XMLStreamWriter;
+import javax.xml.transform.Templates;
+import javax.xml.transform.Transformer;
+import javax.xml.transform.TransformerException;
+import javax.xml.transform.sax.SAXResult;
+import javax.xml.transform.stream.StreamSource;
+
+import org.xml.sax.SAXException;
+
+/**
+ * Copyright (c) 2022, SAS Institute Inc., Cary, NC, USA.  All Rights Reserved.
+ * SPDX-License-Identifier: Apache-2.0
+ *
+ * Transforms the ClinicalData elements with the import XSL a few subjects at a time. Each ClinicalData element is
+ * copied to chunk files next to the output, each a document holding the document element, the ClinicalData element
+ * and at most subjectsPerChunk of its SubjectData elements; the other children of the ClinicalData element go to the
+ * chunk open when they are read. Each chunk is transformed by the import XSL on a thread pool, as soon as it is
+ * written, and its rows written to row files of its own. The memory needed is that of the chunks being transformed,
+ * which depends on the number of subjects per chunk and the number of threads rather than on the size of the document.
+ * <p>
+ * The keys the import XSL generates for a chunk are made unique by suffixing them with the number of the chunk; those
+ * of a ClinicalData element, which is in several chunks, with the number of its first chunk. The ODM row of each chunk
+ * is dropped, and the ClinicalData row of all but the first chunk of each ClinicalData element. The row files are read
+ * back level by level for each ClinicalData element, and chunk by chunk within a level, so that the rows are in the
+ * order of the import XSL.
+ */
+class ClinicalDataChunker implements ClinicalDataHandler {
+
+    private static final String CHUNK_FILE_PREFIX = "chunk.";
+    private static final String CHUNK_FILE_SUFFIX = ".tmp";
+    private static final String ROW_FILE_PREFIX = "clinicaldata.";
+    private static final String ENCODING = "UTF-8";
+    private static final String ODM_TABLE = "ODM";
+    private static final String CLINICAL_DATA_TABLE = "ClinicalData";
+    private static final String KEY_SEPARATOR = ".";
+
+    private static final int ITEM_LEVEL = 4;
+    private static final int LEVEL_COUNT = 5;
+    private static final int FILE_COUNT = 9;
+
+    /**
+     * The row file of each table of a chunk: one per level of the ClinicalData element, then one per trailing table.
+     * The rows of any other table go with the ItemData rows.
+     */
+    private static final Map<String, Integer> TABLE_FILES = new HashMap<>();
+
+    static {
+        TABLE_FILES.put("ClinicalData", 0);
+        TABLE_FILES.put("SubjectData", 0);
+        TABLE_FILES.put("StudyEventData", 1);
+        TABLE_FILES.put("FormData", 2);
+        TABLE_FILES.put("ItemGroupData", 3);
+        TABLE_FILES.put("ItemData", ITEM_LEVEL);
+        TABLE_FILES.put("AuditRecord", LEVEL_COUNT);
+        TABLE_FILES.put("Signature", LEVEL_COUNT + 1);
+        TABLE_FILES.put("Annotation", LEVEL_COUNT + 2);
+        TABLE_FILES.put("AnnotationFlag", LEVEL_COUNT + 3);
+    }
+
+    /**
+     * The tables whose OID column is a generated key.
+     */
+    private static final Set<String> GENERATED_OID_TABLES = new HashSet<>(Arrays.asList("ClinicalData",
+        "SubjectData", "StudyEventData", "FormData", "ItemGroupData", "ItemData"));
+
+    /**
+     * The columns holding generated keys in any table.
+     */
+    private static final Set<String> KEY_COLUMNS = new HashSet<>(Arrays.asList("FK_ClinicalData", "FK_SubjectData",
+        "FK_StudyEventData", "FK_FormData", "FK_ItemGroupData", "FK_Annotation", "ParentKey", "GrandParentKey",
+        "GeneratedID"));
+
+    private final File folder;
+    private final Templates templates;
+    private final Properties parameters;
+    private final int subjectsPerChunk;
+    private final int maxPendingChunks;
+    private final ExecutorService executor;
+    private final List<Chunk> chunks = new ArrayList<>();
+    private final List<Future<Chunk>> results = new ArrayList<>();
+    private int doneCount;
+
+    private StartTag documentElement;
+    private StartTag clinicalData;
+    private Chunk chunk;
+    private int firstChunkNumber;
+    private int subjectCount;
+    private int depth;
+
+    /**
+     * Constructor for ClinicalDataChunker.
+     *
+     * @param folder The folder of the chunk and row files
+     * @param templates The compiled import XSL
+     * @param parameters The parameters of the import XSL
+     * @param subjectsPerChunk The maximum number of SubjectData elements per chunk
+     * @param threadCount The number of chunks transformed concurrently, or 0 for the number of available processors
+     */
+    ClinicalDataChunker(final File folder, final Templates templates, final Properties parameters,
+        final int subjectsPerChunk, final int threadCount) {
+        this.folder = folder;
+        this.templates = templates;
+        this.parameters = new Properties();
+        this.parameters.putAll(parameters);
+        this.subjectsPerChunk = Math.max(1, subjectsPerChunk);
+        final int threads = Math.max(1, (threadCount > 0) ? threadCount : Runtime.getRuntime().availableProcessors());
+        // a few chunks are written ahead, so that no thread waits for the next one
+        this.maxPendingChunks = 2 * threads;
+        this.executor = Executors.newFixedThreadPool(threads);
+    }
+
+    @Override
+    public void startDocumentElement(final XMLStreamReader reader) {
+        this.documentElement = new StartTag(reader);
+    }
+
+    @Override
+    public void startClinicalData(final XMLStreamReader reader) throws XMLStreamException, IOException {
+        this.clinicalData = new StartTag(reader);
+        this.firstChunkNumber = this.chunks.size();
+        this.subjectCount = 0;
+        this.depth = 0;
+        openChunk();
+    }
+
+    @Override
+    public void startElement(final XMLStreamReader reader)
+        throws XMLStreamException, IOException, TransformerException {
+        ++this.depth;
+        if ((this.depth == 1) && ClinicalDataSplitter.ODM_NAMESPACE.equals(reader.getNamespaceURI())
+            && "SubjectData".equals(reader.getLocalName())) {
+            if (this.subjectCount == this.subjectsPerChunk) {
+                closeChunk();
+                openChunk();
+                this.subjectCount = 0;
+            }
+            ++this.subjectCount;
+        }
+        ClinicalDataSplitter.copyStartElement(reader, this.chunk.writer);
+    }
+
+    @Override
+    public void endElement(final XMLStreamReader reader) throws XMLStreamException {
+        --this.depth;
+        this.chunk.writer.writeEndElement();
+    }
+
+    @Override
+    public void event(final XMLStreamReader reader, final int event) throws XMLStreamException {
+        ClinicalDataSplitter.copyEvent(reader, event, this.chunk.writer);
+    }
+
+    @Override
+    public void endClinicalData(final XMLStreamReader reader)
+        throws XMLStreamException, IOException, TransformerException {
+        closeChunk();
+        this.clinicalData = null;
+    }
+
+    /**
+     * Starts a chunk, with the start tags of the document element and of the current ClinicalData element.
+     */
+    private void openChunk() throws XMLStreamException, IOException {
+        this.chunk = new Chunk(this.chunks.size(), this.firstChunkNumber);
+        this.chunks.add(this.chunk);
+        this.chunk.open();
+        this.documentElement.write(this.chunk.writer);
+        this.clinicalData.write(this.chunk.writer);
+    }
+
+    /**
+     * Ends the current chunk and submits its transform. If too many chunks are waiting to be transformed, waits for
+     * the oldest, so that the chunk files do not pile up.
+     */
+    private void closeChunk() throws XMLStreamException, IOException, TransformerException {
+        this.chunk.close();
+        this.results.add(this.executor.submit(this.chunk));
+        this.chunk = null;
+
+        while ((this.doneCount < this.results.size()) && (this.results.get(this.doneCount).isDone()
+            || (this.results.size() - this.doneCount > this.maxPendingChunks))) {
+            getResult(this.results.get(this.doneCount));
+            ++this.doneCount;
+        }
+    }
+
+    /**
+     * Waits for the transform of a chunk, rethrowing its error if it failed.
+     */
+    private static Chunk getResult(final Future<Chunk> result) throws TransformerException {
+        try {
+            return result.get();
+        } catch (final InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new TransformerException("The transform of the ClinicalData elements was interrupted.", e);
+        } catch (final ExecutionException e) {
+            final Throwable cause = e.getCause();
+            throw new TransformerException("The transform of the ClinicalData elements failed: "
+                + cause.getMessage(), cause);
+        }
+    }
+
+    @Override
+    public List<List<RowFile>> finish() throws TransformerException {
+        for (final Future<Chunk> result : this.results) {
+            getResult(result);
+        }
+
+        final List<List<RowFile>> insertions = new ArrayList<>();
+        final List<RowFile> clinicalDataFiles = new ArrayList<>();
+        int first = 0;
+        while (first < this.chunks.size()) {
+            // the chunks of one ClinicalData element
+            int end = first;
+            while ((end < this.chunks.size()) && (this.chunks.get(end).firstChunkNumber == first)) {
+                ++end;
+            }
+            for (int level = 0; level < LEVEL_COUNT; ++level) {
+                addRowFiles(clinicalDataFiles, first, end, level);
+            }
+            first = end;
+        }
+        insertions.add(clinicalDataFiles);
+        for (int index = LEVEL_COUNT; index < FILE_COUNT; ++index) {
+            final List<RowFile> trailingFiles = new ArrayList<>();
+            addRowFiles(trailingFiles, 0, this.chunks.size(), index);
+            insertions.add(trailingFiles);
+        }
+
+        return insertions;
+    }
+
+    private void addRowFiles(final List<RowFile> files, final int first, final int end, final int index) {
+        for (int i = first; i < end; ++i) {
+            final RowFile file = this.chunks.get(i).rowFiles[index];
+            if (file != null) {
+                files.add(file);
+            }
+        }
+    }
+
+    @Override
+    public void delete() {
+        this.executor.shutdownNow();
+        try {
+            while (!this.executor.awaitTermination(1L, TimeUnit.SECONDS)) {
+                // a transform is not interrupted, but stops once it has written its rows
+            }
+        } catch (final InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        for (final Chunk c : this.chunks) {
+            c.delete();
+        }
+    }
+
+    /**
+     * The start tag of an element, with its namespace declarations and attributes, to be repeated in each chunk.
+     */
+    private static final class StartTag {
+        private final String prefix;
+        private final String localName;
+        private final String namespace;
+        private final List<String[]> namespaces = new ArrayList<>();
+        private final List<String[]> attributes = new ArrayList<>();
+
+        StartTag(final XMLStreamReader reader) {
+            this.prefix = reader.getPrefix();
+            this.localName = reader.getLocalName();
+            this.namespace = reader.getNamespaceURI();
+            for (int i = 0; i < reader.getNamespaceCount(); ++i) {
+                this.namespaces.add(new String[] {reader.getNamespacePrefix(i), reader.getNamespaceURI(i)});
+            }
+            for (int i = 0; i < reader.getAttributeCount(); ++i) {
+                this.attributes.add(new String[] {reader.getAttributePrefix(i), reader.getAttributeNamespace(i),
+                    reader.getAttributeLocalName(i), reader.getAttributeValue(i)});
+            }
+        }
+
+        void write(final XMLStreamWriter writer) throws XMLStreamException {
+            writer.writeStartElement(toEmpty(this.prefix), this.localName, toEmpty(this.namespace));
+            for (final String[] ns : this.namespaces) {
+                if (toEmpty(ns[0]).length() == 0) {
+                    writer.writeDefaultNamespace(toEmpty(ns[1]));
+                } else {
+                    writer.writeNamespace(ns[0], toEmpty(ns[1]));
+                }
+            }
+            for (final String[] att : this.attributes) {
+                if (toEmpty(att[1]).length() == 0) {
+                    writer.writeAttribute(att[2], att[3]);
+                } else {
+                    writer.writeAttribute(toEmpty(att[0]), att[1], att[2], att[3]);
+                }
+            }
+        }
+
+        private static String toEmpty(final String value) {
+            return (value == null) ? "" : value;
+        }
+    }
+
+    /**
+     * A chunk: its file, written by the splitting thread, and the row files its transform writes.
+     */
+    private final class Chunk implements Callable<Chunk> {
+        private final int number;
+        private final int firstChunkNumber;
+        private final RowFile[] rowFiles = new RowFile[FILE_COUNT];
+        private File file;
+        private OutputStream os;
+        private XMLStreamWriter writer;
+
+        /**
+         * The OID of the ClinicalData row of the chunk, as generated by the import XSL.
+         */
+        private String clinicalDataKey;
+
+        Chunk(final int number, final int firstChunkNumber) {
+            this.number = number;
+            this.firstChunkNumber = firstChunkNumber;
+        }
+
+        void open() throws XMLStreamException, IOException {
+            this.file = File.createTempFile(CHUNK_FILE_PREFIX, CHUNK_FILE_SUFFIX, ClinicalDataChunker.this.folder);
+            this.os = new BufferedOutputStream(new FileOutputStream(this.file));
+            this.writer = XMLOutputFactory.newInstance().createXMLStreamWriter(this.os, ENCODING);
+            this.writer.writeStartDocument(ENCODING, "1.0");
+        }
+
+        /**
+         * Ends the ClinicalData element, the document element and the document.
+         */
+        void close() throws XMLStreamException, IOException {
+            try {
+                this.writer.writeEndElement();
+                this.writer.writeEndElement();
+                this.writer.writeEndDocument();
+                this.writer.close();
+            } finally {
+                this.os.close();
+                this.os = null;
+                this.writer = null;
+            }
+        }
+
+        /**
+         * Transforms the chunk with the import XSL, then deletes its file.
+         */
+        @Override
+        public Chunk call() throws TransformerException, IOException, XMLStreamException {
+            final Transformer transformer = ClinicalDataChunker.this.templates.newTransformer();
+            for (final String name : ClinicalDataChunker.this.parameters.stringPropertyNames()) {
+                transformer.setParameter(name, ClinicalDataChunker.this.parameters.getProperty(name));
+            }
+            transformer.transform(new StreamSource(this.file), new SAXResult(new ChunkRows()));
+            for (final RowFile rowFile : this.rowFiles) {
+                if (rowFile != null) {
+                    rowFile.close();
+                }
+            }
+            this.file.delete();
+
+            return this;
+        }
+
+        void delete() {
+            if (this.os != null) {
+                try {
+                    this.os.close();
+                } catch (final IOException e) {
+                    // the file is deleted anyway
+                }
+            }
+            if (this.file != null) {
+                this.file.delete();
+            }
+            for (final RowFile rowFile : this.rowFiles) {
+                if (rowFile != null) {
+                    rowFile.delete();
+                }
+            }
+        }
+
+        /**
+         * Makes a generated key unique among the chunks.
+         */
+        private String toKey(final String key) {
+            return key + KEY_SEPARATOR + (key.equals(this.clinicalDataKey) ? this.firstChunkNumber : this.number);
+        }
+
+        /**
+         * Receives the output of the import XSL for the chunk, writing its rows to the row files of the chunk.
+         */
+        private final class ChunkRows extends RowCollector {
+            @Override
+            protected void row(final Row row) throws SAXException {
+                final String table = row.getTable();
+                if (ODM_TABLE.equals(table)) {
+                    return;
+                }
+                if (CLINICAL_DATA_TABLE.equals(table) && (Chunk.this.clinicalDataKey == null)) {
+                    Chunk.this.clinicalDataKey = row.get("OID");
+                    if (Chunk.this.number != Chunk.this.firstChunkNumber) {
+                        return;
+                    }
+                }
+
+                final boolean generatedOID = GENERATED_OID_TABLES.contains(table);
+                for (int i = 0; i < row.getColumnCount(); ++i) {
+                    final String name = row.getName(i);
+                    final String value = row.getValue(i);
+                    if ((value.length() > 0)
+                        && (KEY_COLUMNS.contains(name) || (generatedOID && "OID".equals(name)))) {
+                        row.setValue(i, toKey(value));
+                    }
+                }
+
+                final Integer index = TABLE_FILES.get(table);
+                final int i = (index == null) ? ITEM_LEVEL : index.intValue();
+                try {
+                    if (Chunk.this.rowFiles[i] == null) {
+                        Chunk.this.rowFiles[i] = new RowFile(ClinicalDataChunker.this.folder, ROW_FILE_PREFIX);
+                    }
+                    Chunk.this.rowFiles[i].write(row);
+                } catch (final XMLStreamException e) {
+                    throw new SAXException("The rows of a chunk could not be written.", e);
+                } catch (final IOException e) {
+                    throw new SAXException("The rows of a chunk could not be written.", e);
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,93 @@
+package com.sas.ptc.transform.xml.odm;
+
+import java.io.IOException;
+import java.util.List;
+
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+import javax.xml.transform.TransformerException;
+
+/**
+ * Copyright (c) 2022, SAS Institute Inc., Cary, NC, USA.  All Rights Reserved.
+ * SPDX-License-Identifier: Apache-2.0
+ *
+ * Receives the ClinicalData elements ClinicalDataSplitter leaves out of the metadata file, as the events of its StAX
+ * parser, and turns them into the row files LibraryMerger inserts into the output of the import XSL.
+ */
+interface ClinicalDataHandler {
+
+    /**
+     * Handles the start of the document element.
+     *
+     * @param reader The parser, positioned at the start of the element
+     * @throws XMLStreamException If a file could not be written
+     * @throws IOException If a file could not be written
+     */
+    void startDocumentElement(XMLStreamReader reader) throws XMLStreamException, IOException;
+
+    /**
+     * Handles the start of a ClinicalData element.
+     *
+     * @param reader The parser, positioned at the start of the element
+     * @throws XMLStreamException If a file could not be written
+     * @throws IOException If a file could not be written
+     */
+    void startClinicalData(XMLStreamReader reader) throws XMLStreamException, IOException;
+
+    /**
+     * Handles the start of an element of a ClinicalData element.
+     *
+     * @param reader The parser, positioned at the start of the element
+     * @throws XMLStreamException If a file could not be written
+     * @throws IOException If a file could not be written
+     * @throws TransformerException If an earlier part of the ClinicalData elements could not be transformed
+     */
+    void startElement(XMLStreamReader reader)
+        throws XMLStreamException, IOException, TransformerException;
+
+    /**
+     * Handles the end of an element of a ClinicalData element.
+     *
+     * @param reader The parser, positioned at the end of the element
+     * @throws XMLStreamException If a file could not be written
+     * @throws IOException If a file could not be written
+     */
+    void endElement(XMLStreamReader reader) throws XMLStreamException, IOException;
+
+    /**
+     * Handles any other event within a ClinicalData element: text, a comment or a processing instruction.
+     *
+     * @param reader The parser, positioned at the event
+     * @param event The type of the event
+     * @throws XMLStreamException If a file could not be written
+     */
+    void event(XMLStreamReader reader, int event) throws XMLStreamException;
+
+    /**
+     * Handles the end of a ClinicalData element.
+     *
+     * @param reader The parser, positioned at the end of the element
+     * @throws XMLStreamException If a file could not be written
+     * @throws IOException If a file could not be written
+     * @throws TransformerException If an earlier part of the ClinicalData elements could not be transformed
+     */
+    void endClinicalData(XMLStreamReader reader)
+        throws XMLStreamException, IOException, TransformerException;
+
+    /**
+     * Completes the row files, once the whole document is read. The row files of the ClinicalData, SubjectData,
+     * StudyEventData, FormData, ItemGroupData and ItemData tables are the first insertion, followed by those of the
+     * AuditRecord, Signature, Annotation and AnnotationFlag tables, one insertion each.
+     *
+     * @return The row files, per insertion, in the order they are to be read back
+     * @throws XMLStreamException If a file could not be written
+     * @throws IOException If a file could not be written
+     * @throws TransformerException If the ClinicalData elements could not be transformed
+     */
+    List<List<RowFile>> finish() throws XMLStreamException, IOException, TransformerException;
+
+    /**
+     * Deletes the row files, and any other temporary file, whether or not the handler finished.
+     */
+    void delete();
+}
@@ -0,0 +1,111 @@
+package com.sas.ptc.transform.xml.odm;
+
+import java.io.BufferedInputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+
+/**
+ * Copyright (c) 2022, SAS Institute Inc., Cary, NC, USA.  All Rights Reserved.
+ * SPDX-License-Identifier: Apache-2.0
+ *
+ * The sizes of the parts of an ODM 1.3 document that the import engines hold in memory, measured by reading the
+ * document with a StAX parser up to the end of its first SubjectData element. The metadata, which precedes the
+ * ClinicalData elements in an ODM document, is what ClinicalDataStreamingTransform holds; the first subject stands for
+ * the subjects ClinicalDataChunkedTransform holds at once. Sizes are in characters, which is close to bytes for the
+ * mostly ASCII content of ODM.
+ */
+public final class ClinicalDataProfile {
+
+    private final long metadataSize;
+    private final long subjectSize;
+
+    private ClinicalDataProfile(final long metadataSize, final long subjectSize) {
+        this.metadataSize = metadataSize;
+        this.subjectSize = subjectSize;
+    }
+
+    /**
+     * Measures an ODM 1.3 document. A document that is not one, or has no ClinicalData element, is all metadata.
+     *
+     * @param file The document
+     * @return The profile of the document
+     * @throws IOException If the document could not be read
+     * @throws XMLStreamException If the document is not well-formed
+     */
+    public static ClinicalDataProfile measure(final File file) throws IOException, XMLStreamException {
+        final InputStream in = new BufferedInputStream(new FileInputStream(file));
+        try {
+            final XMLStreamReader reader = XMLInputFactory.newInstance().createXMLStreamReader(
+                file.toURI().toString(), in);
+            try {
+                return measure(reader, file.length());
+            } finally {
+                reader.close();
+            }
+        } finally {
+            in.close();
+        }
+    }
+
+    private static ClinicalDataProfile measure(final XMLStreamReader reader, final long length)
+        throws XMLStreamException {
+        int depth = 0;
+        long metadataSize = length;
+        long subjectStart = -1;
+        while (reader.hasNext()) {
+            final int event = reader.next();
+            if (event == XMLStreamConstants.START_ELEMENT) {
+                ++depth;
+                final boolean odm = ClinicalDataSplitter.ODM_NAMESPACE.equals(reader.getNamespaceURI());
+                if ((depth == 1) && !(odm && "ODM".equals(reader.getLocalName()))) {
+                    break;
+                } else if ((depth == 2) && odm && "ClinicalData".equals(reader.getLocalName())
+                    && (metadataSize == length)) {
+                    metadataSize = getOffset(reader);
+                } else if ((depth == 3) && odm && "SubjectData".equals(reader.getLocalName())
+                    && (metadataSize < length)) {
+                    subjectStart = getOffset(reader);
+                }
+            } else if (event == XMLStreamConstants.END_ELEMENT) {
+                if ((depth == 3) && (subjectStart >= 0)) {
+                    return new ClinicalDataProfile(metadataSize, Math.max(0, getOffset(reader) - subjectStart));
+                }
+                --depth;
+            }
+        }
+
+        return new ClinicalDataProfile(metadataSize, 0);
+    }
+
+    /**
+     * Gets the character offset of the parser, just past the current event.
+     */
+    private static long getOffset(final XMLStreamReader reader) {
+        return Math.max(0, reader.getLocation().getCharacterOffset());
+    }
+
+    /**
+     * Gets the size of the document before its first ClinicalData element.
+     *
+     * @return The size, in characters
+     */
+    public long getMetadataSize() {
+        return metadataSize;
+    }
+
+    /**
+     * Gets the size of the first SubjectData element.
+     *
+     * @return The size, in characters, or 0 if the document has none
+     */
+    public long getSubjectSize() {
+        return subjectSize;
+    }
+}
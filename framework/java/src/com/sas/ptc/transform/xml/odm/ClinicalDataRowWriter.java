@@ -0,0 +1,485 @@
+package com.sas.ptc.transform.xml.odm;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+
+/**
+ * Copyright (c) 2022, SAS Institute Inc., Cary, NC, USA.  All Rights Reserved.
+ * SPDX-License-Identifier: Apache-2.0
+ *
+ * Writes the rows the import XSL would produce from the ClinicalData elements to row files, as the elements are read.
+ * Only the ancestors of the current element, and the few values of their children that the rows need, are held in
+ * memory.
+ * <p>
+ * The rows of the ClinicalData, SubjectData, StudyEventData, FormData, ItemGroupData and ItemData tables are written to
+ * five row files per ClinicalData element, one per level, so that, read back in turn, they are in the order of the
+ * import XSL. The rows of the AuditRecord, Signature, Annotation and AnnotationFlag tables found in the ClinicalData
+ * elements are written to a row file per table. The keys the import XSL generates with generate-id() are ID_PREFIX
+ * followed by the number of the element among the document element and the elements of the ClinicalData elements.
+ * The rows of the AuditRecord, Signature and Annotation tables have GrandParentType and GrandParentKey columns only if
+ * the import XSL of the ODM version writes them, which that of ODM 1.3.0 does not.
+ */
+class ClinicalDataRowWriter implements ClinicalDataHandler {
+
+    /**
+     * The prefix of the generated keys, which differs from the prefix of those generated by XSLTC.
+     */
+    static final String ID_PREFIX = "C";
+
+    private static final String ODM_NAMESPACE = ClinicalDataSplitter.ODM_NAMESPACE;
+    private static final String ROW_FILE_PREFIX = "clinicaldata.";
+    private static final String ITEM_DATA_PREFIX = "ItemData";
+
+    /**
+     * The children whose attributes or text the rows of their parent need.
+     */
+    private static final Set<String> CAPTURED_ELEMENTS = new HashSet<>(Arrays.asList("InvestigatorRef", "SiteRef",
+        "ArchiveLayoutRef", "MeasurementUnitRef", "UserRef", "LocationRef", "SignatureRef", "DateTimeStamp",
+        "ReasonForChange", "SourceID", "Comment", "FlagValue", "FlagType"));
+
+    private static final int SUBJECT_LEVEL = 0;
+    private static final int STUDY_EVENT_LEVEL = 1;
+    private static final int FORM_LEVEL = 2;
+    private static final int ITEM_GROUP_LEVEL = 3;
+    private static final int ITEM_LEVEL = 4;
+    private static final int LEVEL_COUNT = 5;
+
+    private final File folder;
+    private final boolean writingGrandParentColumns;
+    private final List<RowFile> clinicalDataFiles = new ArrayList<>();
+    private final List<RowFile> trailingFiles = new ArrayList<>();
+    private RowFile[] levelFiles;
+    private RowFile auditRecordFile;
+    private RowFile signatureFile;
+    private RowFile annotationFile;
+    private RowFile annotationFlagFile;
+
+    private Node root;
+    private Node current;
+    private long elementCount;
+
+    /**
+     * Constructor for ClinicalDataRowWriter.
+     *
+     * @param folder The folder of the row files
+     * @param writingGrandParentColumns Whether the rows of the AuditRecord, Signature and Annotation tables have
+     *            GrandParentType and GrandParentKey columns
+     */
+    ClinicalDataRowWriter(final File folder, final boolean writingGrandParentColumns) {
+        this.folder = folder;
+        this.writingGrandParentColumns = writingGrandParentColumns;
+    }
+
+    @Override
+    public void startDocumentElement(final XMLStreamReader reader) throws XMLStreamException, IOException {
+        this.auditRecordFile = newTrailingFile();
+        this.signatureFile = newTrailingFile();
+        this.annotationFile = newTrailingFile();
+        this.annotationFlagFile = newTrailingFile();
+        // the splitter hands on ClinicalData elements only if the document element is an ODM element
+        this.root = new Node(null, reader, ++this.elementCount, Kind.ODM);
+        this.current = this.root;
+    }
+
+    @Override
+    public void startClinicalData(final XMLStreamReader reader) throws XMLStreamException, IOException {
+        final Node node = new Node(this.root, reader, ++this.elementCount, Kind.CLINICAL_DATA);
+        this.current = node;
+        this.levelFiles = new RowFile[LEVEL_COUNT];
+        for (int i = 0; i < LEVEL_COUNT; ++i) {
+            this.levelFiles[i] = new RowFile(this.folder, ROW_FILE_PREFIX);
+            this.clinicalDataFiles.add(this.levelFiles[i]);
+        }
+
+        final RowFile file = this.levelFiles[SUBJECT_LEVEL];
+        file.startRow("ClinicalData");
+        file.column("OID", node.id);
+        file.column("StudyOID", node.getAttribute("StudyOID"));
+        file.column("MetaDataVersionOID", node.getAttribute("MetaDataVersionOID"));
+        file.column("FK_ODM", this.root.getAttribute("FileOID"));
+        file.endRow();
+    }
+
+    @Override
+    public void startElement(final XMLStreamReader reader) {
+        this.current = new Node(this.current, reader, ++this.elementCount, getKind(this.current, reader));
+        if (this.current.kind == Kind.CAPTURED) {
+            this.current.capture(reader);
+        }
+    }
+
+    /**
+     * Gets the kind of an element of a ClinicalData element, from its name and the kind of its parent.
+     */
+    private static Kind getKind(final Node parent, final XMLStreamReader reader) {
+        final String namespace = reader.getNamespaceURI();
+        final String localName = reader.getLocalName();
+        if (localName.startsWith(ITEM_DATA_PREFIX) && (parent.kind == Kind.ITEM_GROUP_DATA)) {
+            // any element whose name starts with ItemData, as for the import XSL
+            return Kind.ITEM_DATA;
+        }
+        if (!ODM_NAMESPACE.equals(namespace)) {
+            return Kind.OTHER;
+        }
+        if ("SubjectData".equals(localName) && (parent.kind == Kind.CLINICAL_DATA)) {
+            return Kind.SUBJECT_DATA;
+        } else if ("StudyEventData".equals(localName) && (parent.kind == Kind.SUBJECT_DATA)) {
+            return Kind.STUDY_EVENT_DATA;
+        } else if ("FormData".equals(localName) && (parent.kind == Kind.STUDY_EVENT_DATA)) {
+            return Kind.FORM_DATA;
+        } else if ("ItemGroupData".equals(localName) && (parent.kind == Kind.FORM_DATA)) {
+            return Kind.ITEM_GROUP_DATA;
+        } else if ("AuditRecord".equals(localName)) {
+            return Kind.AUDIT_RECORD;
+        } else if ("Signature".equals(localName)) {
+            return Kind.SIGNATURE;
+        } else if ("Annotation".equals(localName)) {
+            return Kind.ANNOTATION;
+        } else if ("Flag".equals(localName) && (parent.kind == Kind.ANNOTATION)) {
+            return Kind.FLAG;
+        } else if (CAPTURED_ELEMENTS.contains(localName)) {
+            return Kind.CAPTURED;
+        }
+
+        return Kind.OTHER;
+    }
+
+    /**
+     * Handles the end of an element of a ClinicalData element, writing its row if it has one.
+     */
+    @Override
+    public void endElement(final XMLStreamReader reader) throws XMLStreamException {
+        final Node node = this.current;
+        this.current = node.parent;
+
+        switch (node.kind) {
+            case SUBJECT_DATA:
+                writeSubjectData(node);
+                break;
+            case STUDY_EVENT_DATA:
+                writeStudyEventData(node);
+                break;
+            case FORM_DATA:
+                writeFormData(node);
+                break;
+            case ITEM_GROUP_DATA:
+                writeItemGroupData(node);
+                break;
+            case ITEM_DATA:
+                writeItemData(node);
+                break;
+            case AUDIT_RECORD:
+                writeAuditRecord(node);
+                break;
+            case SIGNATURE:
+                writeSignature(node);
+                break;
+            case ANNOTATION:
+                writeAnnotation(node);
+                break;
+            case FLAG:
+                writeAnnotationFlag(node);
+                break;
+            case CAPTURED:
+                node.parent.putCaptured(node.localName, node.getText());
+                break;
+            default:
+                break;
+        }
+
+    }
+
+    @Override
+    public void event(final XMLStreamReader reader, final int event) {
+        if ((event == XMLStreamConstants.CHARACTERS) || (event == XMLStreamConstants.CDATA)
+            || (event == XMLStreamConstants.SPACE)) {
+            this.current.appendText(reader);
+        }
+    }
+
+    @Override
+    public void endClinicalData(final XMLStreamReader reader) throws XMLStreamException, IOException {
+        this.current = this.root;
+        for (final RowFile file : this.levelFiles) {
+            file.close();
+        }
+        this.levelFiles = null;
+    }
+
+    @Override
+    public List<List<RowFile>> finish() throws XMLStreamException, IOException {
+        final List<List<RowFile>> insertions = new ArrayList<>();
+        insertions.add(this.clinicalDataFiles);
+        for (final RowFile file : this.trailingFiles) {
+            file.close();
+            insertions.add(Collections.singletonList(file));
+        }
+
+        return insertions;
+    }
+
+    @Override
+    public void delete() {
+        for (final RowFile file : this.clinicalDataFiles) {
+            file.delete();
+        }
+        for (final RowFile file : this.trailingFiles) {
+            file.delete();
+        }
+    }
+
+    private void writeSubjectData(final Node node) throws XMLStreamException {
+        final RowFile file = this.levelFiles[SUBJECT_LEVEL];
+        file.startRow("SubjectData");
+        file.column("OID", node.id);
+        file.column("SubjectKey", node.getAttribute("SubjectKey"));
+        file.column("TransactionType", node.getAttribute("TransactionType"));
+        file.column("InvestigatorRefOID", node.getCaptured("InvestigatorRef", "UserOID"));
+        file.column("SiteRefOID", node.getCaptured("SiteRef", "LocationOID"));
+        file.column("FK_ClinicalData", node.parent.id);
+        file.endRow();
+    }
+
+    private void writeStudyEventData(final Node node) throws XMLStreamException {
+        final RowFile file = this.levelFiles[STUDY_EVENT_LEVEL];
+        file.startRow("StudyEventData");
+        file.column("OID", node.id);
+        file.column("StudyEventOID", node.getAttribute("StudyEventOID"));
+        file.column("StudyEventRepeatKey", node.getAttribute("StudyEventRepeatKey"));
+        file.column("TransactionType", node.getAttribute("TransactionType"));
+        file.column("FK_SubjectData", node.parent.id);
+        file.endRow();
+    }
+
+    private void writeFormData(final Node node) throws XMLStreamException {
+        final RowFile file = this.levelFiles[FORM_LEVEL];
+        file.startRow("FormData");
+        file.column("OID", node.id);
+        file.column("FormOID", node.getAttribute("FormOID"));
+        file.column("FormRepeatKey", node.getAttribute("FormRepeatKey"));
+        file.column("TransactionType", node.getAttribute("TransactionType"));
+        file.column("ArchiveLayoutRefOID", node.getCaptured("ArchiveLayoutRef", "ArchiveLayoutOID"));
+        file.column("FK_StudyEventData", node.parent.id);
+        file.endRow();
+    }
+
+    private void writeItemGroupData(final Node node) throws XMLStreamException {
+        final RowFile file = this.levelFiles[ITEM_GROUP_LEVEL];
+        file.startRow("ItemGroupData");
+        file.column("OID", node.id);
+        file.column("ItemGroupOID", node.getAttribute("ItemGroupOID"));
+        file.column("ItemGroupRepeatKey", node.getAttribute("ItemGroupRepeatKey"));
+        file.column("TransactionType", node.getAttribute("TransactionType"));
+        file.column("FK_FormData", node.parent.id);
+        // the item groups of ReferenceData elements are imported by the import XSL
+        file.column("FK_ReferenceData", null);
+        file.endRow();
+    }
+
+    private void writeItemData(final Node node) throws XMLStreamException {
+        final boolean untyped = ITEM_DATA_PREFIX.equals(node.localName);
+        final RowFile file = this.levelFiles[ITEM_LEVEL];
+        file.startRow("ItemData");
+        file.column("OID", node.id);
+        file.column("ItemOID", node.getAttribute("ItemOID"));
+        file.column("IsNull", node.getAttribute("IsNull"));
+        file.column("Value", untyped ? node.getAttribute("Value") : node.getText());
+        file.column("TransactionType", node.getAttribute("TransactionType"));
+        file.column("AuditRecordID", node.getAttribute("AuditRecordID"));
+        file.column("SignatureID", node.getAttribute("SignatureID"));
+        file.column("AnnotationID", node.getAttribute("AnnotationID"));
+        file.column("MeasurementUnitOID", untyped ? node.getCaptured("MeasurementUnitRef", "MeasurementUnitOID")
+            : node.getAttribute("MeasurementUnitOID"));
+        file.column("FK_ItemGroupData", node.parent.id);
+        file.column("ItemDataType", node.localName.substring(ITEM_DATA_PREFIX.length()));
+        file.endRow();
+    }
+
+    private void writeAuditRecord(final Node node) throws XMLStreamException {
+        final RowFile file = this.auditRecordFile;
+        file.startRow("AuditRecord");
+        file.column("ID", node.getAttribute("ID"));
+        file.column("EditPoint", node.getAttribute("EditPoint"));
+        file.column("UsedImputationMethod", node.getAttribute("UsedImputationMethod"));
+        file.column("UserOID", node.getCaptured("UserRef", "UserOID"));
+        file.column("LocationOID", node.getCaptured("LocationRef", "LocationOID"));
+        file.column("DateTimeStamp", node.getCaptured("DateTimeStamp"));
+        file.column("ReasonForChange", node.getCaptured("ReasonForChange"));
+        file.column("SourceID", node.getCaptured("SourceID"));
+        writeParentColumns(file, node);
+        file.endRow();
+    }
+
+    private void writeSignature(final Node node) throws XMLStreamException {
+        final RowFile file = this.signatureFile;
+        file.startRow("Signature");
+        file.column("ID", node.getAttribute("ID"));
+        file.column("UserOID", node.getCaptured("UserRef", "UserOID"));
+        file.column("LocationOID", node.getCaptured("LocationRef", "LocationOID"));
+        file.column("SignatureDefOID", node.getCaptured("SignatureRef", "SignatureOID"));
+        file.column("DateTimeStamp", node.getCaptured("DateTimeStamp"));
+        writeParentColumns(file, node);
+        file.endRow();
+    }
+
+    private void writeAnnotation(final Node node) throws XMLStreamException {
+        final RowFile file = this.annotationFile;
+        file.startRow("Annotation");
+        file.column("GeneratedID", node.id);
+        file.column("ID", node.getAttribute("ID"));
+        file.column("SeqNum", node.getAttribute("SeqNum"));
+        file.column("TransactionType", node.getAttribute("TransactionType"));
+        file.column("CommentSponsorOrSite", node.getCaptured("Comment", "SponsorOrSite"));
+        file.column("Comment", node.getCaptured("Comment"));
+        writeParentColumns(file, node);
+        file.endRow();
+    }
+
+    private void writeAnnotationFlag(final Node node) throws XMLStreamException {
+        final RowFile file = this.annotationFlagFile;
+        file.startRow("AnnotationFlag");
+        file.column("FlagValue", node.getCaptured("FlagValue"));
+        file.column("FlagValueCodeListOID", node.getCaptured("FlagValue", "CodeListOID"));
+        file.column("FlagType", node.getCaptured("FlagType"));
+        file.column("FlagTypeCodeListOID", node.getCaptured("FlagType", "CodeListOID"));
+        file.column("FK_Annotation", node.parent.id);
+        file.endRow();
+    }
+
+    /**
+     * Writes the ParentType and ParentKey columns of a row, and its GrandParentType and GrandParentKey columns if the
+     * import XSL writes them.
+     */
+    private void writeParentColumns(final RowFile file, final Node node) throws XMLStreamException {
+        final Node parent = node.parent;
+        final Node grandParent = parent.parent;
+        file.column("ParentType", parent.localName);
+        file.column("ParentKey", parent.id);
+        if (this.writingGrandParentColumns) {
+            file.column("GrandParentType", (grandParent == null) ? null : grandParent.localName);
+            file.column("GrandParentKey", (grandParent == null) ? null : grandParent.id);
+        }
+    }
+
+    private RowFile newTrailingFile() throws XMLStreamException, IOException {
+        final RowFile file = new RowFile(this.folder, ROW_FILE_PREFIX);
+        this.trailingFiles.add(file);
+
+        return file;
+    }
+
+    /**
+     * The kinds of element tracked.
+     */
+    private enum Kind {
+        ODM, CLINICAL_DATA, SUBJECT_DATA, STUDY_EVENT_DATA, FORM_DATA, ITEM_GROUP_DATA, ITEM_DATA, AUDIT_RECORD,
+        SIGNATURE, ANNOTATION, FLAG, CAPTURED, OTHER
+    }
+
+    /**
+     * An element being read: the document element, or an element of a ClinicalData element, with the attributes and
+     * the values of children its row needs, and its text if it is needed.
+     */
+    private static final class Node {
+        private final Node parent;
+        private final String namespace;
+        private final String localName;
+        private final String id;
+        private final Kind kind;
+        private final Map<String, String> attributes = new HashMap<>();
+        private Map<String, String> captured;
+        private StringBuilder text;
+
+        /**
+         * The depth within the ClinicalData element, or -1 for the document element.
+         */
+        private final int level;
+
+        Node(final Node parent, final XMLStreamReader reader, final long number, final Kind kind) {
+            this.parent = parent;
+            this.namespace = reader.getNamespaceURI();
+            this.localName = reader.getLocalName();
+            this.id = ID_PREFIX + number;
+            this.kind = kind;
+            this.level = (parent == null) ? -1 : parent.level + 1;
+            if ((kind != Kind.OTHER) && (kind != Kind.CAPTURED)) {
+                for (int i = 0; i < reader.getAttributeCount(); ++i) {
+                    final String attributeNamespace = reader.getAttributeNamespace(i);
+                    if ((attributeNamespace == null) || (attributeNamespace.length() == 0)) {
+                        this.attributes.put(reader.getAttributeLocalName(i), reader.getAttributeValue(i));
+                    }
+                }
+            }
+            if ((kind == Kind.CAPTURED) || ((kind == Kind.ITEM_DATA) && !ITEM_DATA_PREFIX.equals(this.localName))) {
+                this.text = new StringBuilder();
+            }
+        }
+
+        String getAttribute(final String name) {
+            return this.attributes.get(name);
+        }
+
+        /**
+         * Records the attributes of a captured child in its parent, unless an earlier child of the same name had them.
+         */
+        void capture(final XMLStreamReader reader) {
+            for (int i = 0; i < reader.getAttributeCount(); ++i) {
+                final String attributeNamespace = reader.getAttributeNamespace(i);
+                if ((attributeNamespace == null) || (attributeNamespace.length() == 0)) {
+                    this.parent.putCaptured(this.localName + "/@" + reader.getAttributeLocalName(i),
+                        reader.getAttributeValue(i));
+                }
+            }
+        }
+
+        void putCaptured(final String key, final String value) {
+            if (this.captured == null) {
+                this.captured = new HashMap<>();
+            }
+            if (!this.captured.containsKey(key)) {
+                this.captured.put(key, value);
+            }
+        }
+
+        /**
+         * Gets the text of the first child of the given name.
+         */
+        String getCaptured(final String childName) {
+            return (this.captured == null) ? null : this.captured.get(childName);
+        }
+
+        /**
+         * Gets an attribute of the first child of the given name having it.
+         */
+        String getCaptured(final String childName, final String attributeName) {
+            return getCaptured(childName + "/@" + attributeName);
+        }
+
+        /**
+         * Appends the text of the current event to this element and to each ancestor whose text is needed.
+         */
+        void appendText(final XMLStreamReader reader) {
+            for (Node node = this; (node != null) && (node.level >= 0); node = node.parent) {
+                if (node.text != null) {
+                    node.text.append(reader.getTextCharacters(), reader.getTextStart(), reader.getTextLength());
+                }
+            }
+        }
+
+        String getText() {
+            return (this.text == null) ? null : this.text.toString();
+        }
+    }
+}
@@ -0,0 +1,307 @@
+package com.sas.ptc.transform.xml.odm;
+
+import java.io.BufferedOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+
+import javax.xml.stream.Location;
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLOutputFactory;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+import javax.xml.stream.XMLStreamWriter;
+import javax.xml.transform.TransformerException;
+
+import org.xml.sax.ContentHandler;
+import org.xml.sax.Locator;
+import org.xml.sax.SAXException;
+import org.xml.sax.helpers.AttributesImpl;
+
+/**
+ * Copyright (c) 2022, SAS Institute Inc., Cary, NC, USA.  All Rights Reserved.
+ * SPDX-License-Identifier: Apache-2.0
+ *
+ * Reads an ODM 1.3 document once with a StAX parser, copying it less its ClinicalData elements to a metadata file, to
+ * be imported by the import XSL, and handing the ClinicalData elements on to a ClinicalDataHandler. Nothing of the
+ * document is held in memory.
+ */
+class ClinicalDataSplitter {
+
+    /**
+     * The namespace of ODM 1.3.
+     */
+    static final String ODM_NAMESPACE = "http://www.cdisc.org/ns/odm/v1.3";
+
+    private static final String ENCODING = "UTF-8";
+
+    private final ClinicalDataHandler handler;
+    private boolean odmDocument;
+    private int depth;
+    private int clinicalDataDepth;
+
+    /**
+     * Constructor for ClinicalDataSplitter.
+     *
+     * @param handler The handler receiving the ClinicalData elements
+     */
+    ClinicalDataSplitter(final ClinicalDataHandler handler) {
+        this.handler = handler;
+    }
+
+    /**
+     * Splits a document.
+     *
+     * @param in The document
+     * @param systemId The system id of the document
+     * @param metadataFile The file to which the document less its ClinicalData elements is copied
+     * @param validator The handler to which the document is also sent, as SAX events, to be validated; or null
+     * @throws XMLStreamException If the document is not well-formed, or a file could not be written
+     * @throws SAXException If the validator stopped the parse
+     * @throws IOException If a file could not be written
+     * @throws TransformerException If the handler could not transform a ClinicalData element
+     */
+    void split(final InputStream in, final String systemId, final File metadataFile, final ContentHandler validator)
+        throws XMLStreamException, SAXException, IOException, TransformerException {
+        final XMLStreamReader reader = XMLInputFactory.newInstance().createXMLStreamReader(systemId, in);
+        final OutputStream os = new BufferedOutputStream(new FileOutputStream(metadataFile));
+        try {
+            final XMLStreamWriter writer = XMLOutputFactory.newInstance().createXMLStreamWriter(os, ENCODING);
+            if (validator != null) {
+                validator.setDocumentLocator(new StreamLocator(reader));
+                validator.startDocument();
+            }
+            writer.writeStartDocument(ENCODING, "1.0");
+            while (reader.hasNext()) {
+                final int event = reader.next();
+                if (validator != null) {
+                    fireEvent(reader, event, validator);
+                }
+                if (event == XMLStreamConstants.START_ELEMENT) {
+                    if (!startElement(reader)) {
+                        copyStartElement(reader, writer);
+                    }
+                } else if (event == XMLStreamConstants.END_ELEMENT) {
+                    if (!endElement(reader)) {
+                        writer.writeEndElement();
+                    }
+                } else if (this.clinicalDataDepth > 0) {
+                    this.handler.event(reader, event);
+                } else {
+                    copyEvent(reader, event, writer);
+                }
+            }
+            if (validator != null) {
+                validator.endDocument();
+            }
+            writer.writeEndDocument();
+            writer.close();
+        } finally {
+            reader.close();
+            os.close();
+        }
+    }
+
+    /**
+     * Handles the start of an element, handing it on if it is the document element or in a ClinicalData element.
+     *
+     * @return Whether the element is part of a ClinicalData element, and so not copied
+     */
+    private boolean startElement(final XMLStreamReader reader)
+        throws XMLStreamException, IOException, TransformerException {
+        ++this.depth;
+        if (this.clinicalDataDepth > 0) {
+            ++this.clinicalDataDepth;
+            this.handler.startElement(reader);
+            return true;
+        }
+        if (this.depth == 1) {
+            this.odmDocument = isODMElement(reader, "ODM");
+            this.handler.startDocumentElement(reader);
+        } else if ((this.depth == 2) && this.odmDocument && isODMElement(reader, "ClinicalData")) {
+            this.clinicalDataDepth = 1;
+            this.handler.startClinicalData(reader);
+            return true;
+        }
+
+        return false;
+    }
+
+    /**
+     * Handles the end of an element, handing it on if it is in a ClinicalData element.
+     *
+     * @return Whether the element is part of a ClinicalData element, and so not copied
+     */
+    private boolean endElement(final XMLStreamReader reader)
+        throws XMLStreamException, IOException, TransformerException {
+        --this.depth;
+        if (this.clinicalDataDepth == 0) {
+            return false;
+        }
+        --this.clinicalDataDepth;
+        if (this.clinicalDataDepth == 0) {
+            this.handler.endClinicalData(reader);
+        } else {
+            this.handler.endElement(reader);
+        }
+
+        return true;
+    }
+
+    private static boolean isODMElement(final XMLStreamReader reader, final String name) {
+        return ODM_NAMESPACE.equals(reader.getNamespaceURI()) && name.equals(reader.getLocalName());
+    }
+
+    /**
+     * Copies the start of an element, with its namespace declarations and attributes.
+     *
+     * @param reader The parser, positioned at the start of the element
+     * @param writer The writer to which the start is copied
+     * @throws XMLStreamException If the start could not be written
+     */
+    static void copyStartElement(final XMLStreamReader reader, final XMLStreamWriter writer)
+        throws XMLStreamException {
+        writer.writeStartElement(toPrefix(reader.getPrefix()), reader.getLocalName(),
+            toNamespace(reader.getNamespaceURI()));
+        for (int i = 0; i < reader.getNamespaceCount(); ++i) {
+            final String prefix = reader.getNamespacePrefix(i);
+            if ((prefix == null) || (prefix.length() == 0)) {
+                writer.writeDefaultNamespace(toNamespace(reader.getNamespaceURI(i)));
+            } else {
+                writer.writeNamespace(prefix, toNamespace(reader.getNamespaceURI(i)));
+            }
+        }
+        for (int i = 0; i < reader.getAttributeCount(); ++i) {
+            final String namespace = reader.getAttributeNamespace(i);
+            if ((namespace == null) || (namespace.length() == 0)) {
+                writer.writeAttribute(reader.getAttributeLocalName(i), reader.getAttributeValue(i));
+            } else {
+                writer.writeAttribute(toPrefix(reader.getAttributePrefix(i)), namespace,
+                    reader.getAttributeLocalName(i), reader.getAttributeValue(i));
+            }
+        }
+    }
+
+    /**
+     * Copies an event other than the start or end of an element. The document type declaration is not copied: the
+     * entity references it declares are already replaced, and the metadata file is in another folder.
+     *
+     * @param reader The parser, positioned at the event
+     * @param event The type of the event
+     * @param writer The writer to which the event is copied
+     * @throws XMLStreamException If the event could not be written
+     */
+    static void copyEvent(final XMLStreamReader reader, final int event, final XMLStreamWriter writer)
+        throws XMLStreamException {
+        switch (event) {
+            case XMLStreamConstants.CHARACTERS:
+            case XMLStreamConstants.SPACE:
+                writer.writeCharacters(reader.getTextCharacters(), reader.getTextStart(), reader.getTextLength());
+                break;
+            case XMLStreamConstants.CDATA:
+                writer.writeCData(reader.getText());
+                break;
+            case XMLStreamConstants.COMMENT:
+                writer.writeComment(reader.getText());
+                break;
+            case XMLStreamConstants.PROCESSING_INSTRUCTION:
+                writer.writeProcessingInstruction(reader.getPITarget(), reader.getPIData());
+                break;
+            default:
+                break;
+        }
+    }
+
+    /**
+     * Sends an event to a SAX content handler, as a namespace-aware SAX parser would.
+     */
+    private static void fireEvent(final XMLStreamReader reader, final int event, final ContentHandler handler)
+        throws SAXException {
+        switch (event) {
+            case XMLStreamConstants.START_ELEMENT:
+                for (int i = 0; i < reader.getNamespaceCount(); ++i) {
+                    handler.startPrefixMapping(toPrefix(reader.getNamespacePrefix(i)),
+                        toNamespace(reader.getNamespaceURI(i)));
+                }
+                final AttributesImpl atts = new AttributesImpl();
+                for (int i = 0; i < reader.getAttributeCount(); ++i) {
+                    atts.addAttribute(toNamespace(reader.getAttributeNamespace(i)), reader.getAttributeLocalName(i),
+                        toQName(reader.getAttributePrefix(i), reader.getAttributeLocalName(i)),
+                        reader.getAttributeType(i), reader.getAttributeValue(i));
+                }
+                handler.startElement(toNamespace(reader.getNamespaceURI()), reader.getLocalName(),
+                    toQName(reader.getPrefix(), reader.getLocalName()), atts);
+                break;
+            case XMLStreamConstants.END_ELEMENT:
+                handler.endElement(toNamespace(reader.getNamespaceURI()), reader.getLocalName(),
+                    toQName(reader.getPrefix(), reader.getLocalName()));
+                for (int i = 0; i < reader.getNamespaceCount(); ++i) {
+                    handler.endPrefixMapping(toPrefix(reader.getNamespacePrefix(i)));
+                }
+                break;
+            case XMLStreamConstants.CHARACTERS:
+            case XMLStreamConstants.CDATA:
+                handler.characters(reader.getTextCharacters(), reader.getTextStart(), reader.getTextLength());
+                break;
+            case XMLStreamConstants.SPACE:
+                handler.ignorableWhitespace(reader.getTextCharacters(), reader.getTextStart(),
+                    reader.getTextLength());
+                break;
+            case XMLStreamConstants.PROCESSING_INSTRUCTION:
+                handler.processingInstruction(reader.getPITarget(), reader.getPIData());
+                break;
+            default:
+                break;
+        }
+    }
+
+    private static String toPrefix(final String prefix) {
+        return (prefix == null) ? "" : prefix;
+    }
+
+    private static String toNamespace(final String namespace) {
+        return (namespace == null) ? "" : namespace;
+    }
+
+    private static String toQName(final String prefix, final String localName) {
+        return ((prefix == null) || (prefix.length() == 0)) ? localName : prefix + ":" + localName;
+    }
+
+    /**
+     * Reports the location of the StAX parser to the validator.
+     */
+    private static final class StreamLocator implements Locator {
+        private final XMLStreamReader reader;
+
+        StreamLocator(final XMLStreamReader reader) {
+            this.reader = reader;
+        }
+
+        @Override
+        public String getPublicId() {
+            final Location location = this.reader.getLocation();
+            return (location == null) ? null : location.getPublicId();
+        }
+
+        @Override
+        public String getSystemId() {
+            final Location location = this.reader.getLocation();
+            return (location == null) ? null : location.getSystemId();
+        }
+
+        @Override
+        public int getLineNumber() {
+            final Location location = this.reader.getLocation();
+            return (location == null) ? -1 : location.getLineNumber();
+        }
+
+        @Override
+        public int getColumnNumber() {
+            final Location location = this.reader.getLocation();
+            return (location == null) ? -1 : location.getColumnNumber();
+        }
+    }
+}
@@ -0,0 +1,248 @@
+package com.sas.ptc.transform.xml.odm;
+
+import java.io.BufferedInputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.List;
+
+import javax.xml.stream.Location;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.transform.OutputKeys;
+import javax.xml.transform.Transformer;
+import javax.xml.transform.TransformerException;
+import javax.xml.transform.TransformerFactory;
+import javax.xml.transform.sax.SAXResult;
+import javax.xml.transform.sax.SAXTransformerFactory;
+import javax.xml.transform.sax.TransformerHandler;
+import javax.xml.transform.stream.StreamResult;
+import javax.xml.transform.stream.StreamSource;
+import javax.xml.validation.Schema;
+import javax.xml.validation.ValidatorHandler;
+
+import org.xml.sax.ContentHandler;
+import org.xml.sax.ErrorHandler;
+import org.xml.sax.SAXException;
+import org.xml.sax.SAXParseException;
+
+import com.sas.ptc.util.TimeLimitedInputStream;
+import com.sas.ptc.util.xml.XSLTransform;
+
+/**
+ * Copyright (c) 2022, SAS Institute Inc., Cary, NC, USA.  All Rights Reserved.
+ * SPDX-License-Identifier: Apache-2.0
+ *
+ * Imports an ODM 1.3 document without holding its ClinicalData elements in memory. ClinicalDataSplitter reads the
+ * document once with a StAX parser, writing the document less its ClinicalData elements to a temporary file next to
+ * the output, and handing the ClinicalData elements on to a ClinicalDataHandler. The handler, ClinicalDataRowWriter
+ * unless a subclass creates another, writes the rows of the ClinicalData, SubjectData, StudyEventData, FormData,
+ * ItemGroupData, ItemData, AuditRecord, Signature, Annotation and AnnotationFlag tables found in the ClinicalData
+ * elements to other temporary files. The import XSL then transforms the metadata file, and LibraryMerger inserts the
+ * rows into its output where the import XSL would have produced them. The memory needed is that of the metadata only.
+ * <p>
+ * The output holds the same tables, rows and columns as that of XSLTransform, in the same order, but for the keys
+ * generated for the rows of the ClinicalData elements, which begin with ClinicalDataRowWriter.ID_PREFIX rather than
+ * being those of generate-id(). The output is validated as by XSLTransform, that is, with the whole document
+ * transformed by the import XSL. As the rows are not written by the import XSL, the ODM version of the source must be
+ * set when it is ODM 1.3.0, whose import XSL writes fewer columns than those of ODM 1.3.1 and 1.3.2.
+ */
+public class ClinicalDataStreamingTransform extends XSLTransform {
+
+    private static final String METADATA_FILE_PREFIX = "metadata.";
+    private static final String METADATA_FILE_SUFFIX = ".tmp";
+    private static final String PARSER_MESSAGE_PREFIX = "Message: ";
+
+    /**
+     * The ODM version whose import XSL writes no GrandParentType and GrandParentKey columns.
+     */
+    public static final String ODM_1_3_0_VERSION = "1.3.0";
+
+    private String standardVersion;
+
+    /**
+     * Initiates the transformation using the data supplied to the instance, reading the ClinicalData elements with a
+     * streaming parser.
+     *
+     * @throws TransformerException If an error occurred while processing the actual transformation.
+     * @throws IOException If the source could not be read or the output could not be written.
+     */
+    @Override
+    public void doTransform() throws TransformerException, IOException {
+        try {
+            transform(null, null);
+        } catch (final SAXException e) {
+            throw new TransformerException(e);
+        }
+    }
+
+    /**
+     * Initiates the transformation using the data supplied to the instance, reading the ClinicalData elements with a
+     * streaming parser, and validating the source against the given schema as it is read, as
+     * doSourceValidatingTransform of XSLTransform does. A well-formedness error is reported to the error handler as a
+     * fatal error.
+     *
+     * @param sourceSchema The compiled schema against which the source XML is validated
+     * @param errorHandler The handler receiving validation errors and warnings
+     * @throws TransformerException If an error occurred while processing the actual transformation.
+     * @throws SAXException If the source XML could not be parsed.
+     * @throws IOException If the source could not be read or the output could not be written.
+     */
+    @Override
+    public void doSourceValidatingTransform(final Schema sourceSchema, final ErrorHandler errorHandler)
+        throws TransformerException, SAXException, IOException {
+        final ValidatorHandler validatorHandler = sourceSchema.newValidatorHandler();
+        validatorHandler.setErrorHandler(errorHandler);
+        transform(validatorHandler, errorHandler);
+    }
+
+    /**
+     * Splits the source into the metadata and row files, and transforms the former, inserting the rows of the latter
+     * into the output.
+     *
+     * @param validator The handler validating the source, or null
+     * @param errorHandler The handler receiving well-formedness errors, or null
+     */
+    private void transform(final ContentHandler validator, final ErrorHandler errorHandler)
+        throws TransformerException, SAXException, IOException {
+        final File outputFolder = new File(getOutputXmlPath()).getAbsoluteFile().getParentFile();
+        final ClinicalDataHandler handler = createClinicalDataHandler(outputFolder);
+        File metadataFile = null;
+        try {
+            metadataFile = File.createTempFile(METADATA_FILE_PREFIX, METADATA_FILE_SUFFIX, outputFolder);
+            split(new ClinicalDataSplitter(handler), metadataFile, validator, errorHandler);
+            final List<List<RowFile>> insertions;
+            try {
+                insertions = handler.finish();
+            } catch (final XMLStreamException e) {
+                throw new TransformerException(e);
+            }
+            merge(insertions, metadataFile);
+        } finally {
+            if (metadataFile != null) {
+                metadataFile.delete();
+            }
+            handler.delete();
+        }
+    }
+
+    /**
+     * Creates the handler turning the ClinicalData elements into row files.
+     *
+     * @param folder The folder of the row files
+     * @return The handler
+     * @throws TransformerException If the handler could not be created
+     * @throws IOException If the handler could not be created
+     */
+    ClinicalDataHandler createClinicalDataHandler(final File folder) throws TransformerException, IOException {
+        return new ClinicalDataRowWriter(folder, !ODM_1_3_0_VERSION.equals(this.standardVersion));
+    }
+
+    /**
+     * Gets the ODM version of the source.
+     *
+     * @return The version, or null if it is not set
+     */
+    public String getStandardVersion() {
+        return standardVersion;
+    }
+
+    /**
+     * Sets the ODM version of the source, so that the rows written from the ClinicalData elements have the columns
+     * the import XSL of that version writes. The default, null, is ODM 1.3.1 or 1.3.2.
+     *
+     * @param standardVersion The version, such as 1.3.0, 1.3.1 or 1.3.2
+     */
+    public void setStandardVersion(final String standardVersion) {
+        this.standardVersion = (standardVersion == null) ? null : standardVersion.trim();
+    }
+
+    /**
+     * Splits the source. If a source time limit is set, the source is read through a TimeLimitedInputStream.
+     */
+    private void split(final ClinicalDataSplitter splitter, final File metadataFile, final ContentHandler validator,
+        final ErrorHandler errorHandler) throws TransformerException, SAXException, IOException {
+        final String sourceSystemId = new File(getSourceXmlPath()).toURI().toString();
+        InputStream sourceStream = new FileInputStream(getSourceXmlPath());
+        if (getSourceTimeLimitMillis() > 0) {
+            sourceStream = new TimeLimitedInputStream(sourceStream, getSourceTimeLimitMillis());
+        }
+        try {
+            splitter.split(new BufferedInputStream(sourceStream), sourceSystemId, metadataFile, validator);
+        } catch (final XMLStreamException e) {
+            // the parser wraps the errors of the source stream, among them the source time limit being reached
+            final IOException ioException = getIOException(e);
+            if (ioException != null) {
+                throw ioException;
+            }
+            if (errorHandler == null) {
+                throw new TransformerException(e);
+            }
+            final Location location = e.getLocation();
+            final SAXParseException parseException = new SAXParseException(getParserMessage(e), null, sourceSystemId,
+                (location == null) ? -1 : location.getLineNumber(), (location == null) ? -1
+                    : location.getColumnNumber(), e);
+            errorHandler.fatalError(parseException);
+            throw parseException;
+        } finally {
+            sourceStream.close();
+        }
+    }
+
+    /**
+     * Gets the message of a parse error, less the location the StAX parser of the JDK prefixes it with.
+     */
+    private static String getParserMessage(final XMLStreamException e) {
+        final String message = e.getMessage();
+        final int start = (message == null) ? -1 : message.indexOf(PARSER_MESSAGE_PREFIX);
+
+        return (start < 0) ? message : message.substring(start + PARSER_MESSAGE_PREFIX.length());
+    }
+
+    private static IOException getIOException(final XMLStreamException e) {
+        Throwable cause = e.getNestedException();
+        if (cause == null) {
+            cause = e.getCause();
+        }
+
+        return (cause instanceof IOException) ? (IOException) cause : null;
+    }
+
+    /**
+     * Transforms the metadata file with the import XSL, and serializes the output, with the rows of the row files
+     * inserted, with the output properties of the stylesheet.
+     */
+    private void merge(final List<List<RowFile>> insertions, final File metadataFile)
+        throws TransformerException, IOException {
+        final Transformer transformer = getTemplates().newTransformer();
+        applyParameters(transformer);
+        if (null != getOutputEncoding()) {
+            transformer.setOutputProperty(OutputKeys.ENCODING, getOutputEncoding());
+        }
+
+        final SAXTransformerFactory tFactory = (SAXTransformerFactory) TransformerFactory.newInstance();
+        final TransformerHandler serializer = tFactory.newTransformerHandler();
+        copyOutputProperties(transformer, serializer.getTransformer());
+
+        final LibraryMerger merger;
+        try {
+            merger = new LibraryMerger(serializer, serializer, createNamespaceAwareReader(), insertions);
+        } catch (final SAXException e) {
+            throw new TransformerException(e);
+        }
+        final SAXResult saxResult = new SAXResult(merger);
+        saxResult.setLexicalHandler(merger);
+
+        OutputStream resultStream = null;
+        try {
+            resultStream = openResultStream();
+            serializer.setResult(new StreamResult(resultStream));
+            transformer.transform(new StreamSource(metadataFile), saxResult);
+        } finally {
+            if (resultStream != null) {
+                resultStream.close();
+            }
+        }
+    }
+}
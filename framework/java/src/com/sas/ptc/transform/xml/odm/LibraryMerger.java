@@ -0,0 +1,271 @@
+package com.sas.ptc.transform.xml.odm;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import org.xml.sax.Attributes;
+import org.xml.sax.ContentHandler;
+import org.xml.sax.Locator;
+import org.xml.sax.SAXException;
+import org.xml.sax.XMLReader;
+import org.xml.sax.ext.LexicalHandler;
+import org.xml.sax.helpers.AttributesImpl;
+import org.xml.sax.helpers.DefaultHandler;
+
+/**
+ * Copyright (c) 2022, SAS Institute Inc., Cary, NC, USA.  All Rights Reserved.
+ * SPDX-License-Identifier: Apache-2.0
+ *
+ * Receives the output of the import XSL for the metadata file written by ClinicalDataSplitter, and forwards it with
+ * the rows of the row files of a ClinicalDataHandler inserted where the import XSL would have produced them:
+ * <ul>
+ * <li>the rows of the ClinicalData elements before the first AuditRecord, Signature, Annotation, AnnotationFlag,
+ * Association or KeySet row, which the import XSL produces after all others;</li>
+ * <li>the AuditRecord and Signature rows after those of the import XSL;</li>
+ * <li>the Annotation and AnnotationFlag rows before those of the Association elements, which follow the ClinicalData
+ * elements in the document, and after the others.</li>
+ * </ul>
+ * The rows of the output are flat: each is an element of the LIBRARY element, holding one element per column with its
+ * value as text. They are rebuilt from their columns, so that they can be inspected before they are forwarded.
+ */
+class LibraryMerger extends DefaultHandler implements LexicalHandler {
+
+    /**
+     * The tables the import XSL produces after all others, in order.
+     */
+    private static final List<String> TRAILING_TABLES = Arrays.asList("AuditRecord", "Signature", "Annotation",
+        "AnnotationFlag", "Association", "KeySet");
+
+    private static final String ANNOTATION_TABLE = "Annotation";
+    private static final String ANNOTATION_FLAG_TABLE = "AnnotationFlag";
+    private static final String ASSOCIATION_TYPE = "Association";
+    private static final int ROW_DEPTH = RowCollector.ROW_DEPTH;
+    private static final int COLUMN_DEPTH = RowCollector.COLUMN_DEPTH;
+    private static final Attributes NO_ATTRIBUTES = new AttributesImpl();
+
+    private final ContentHandler out;
+    private final LexicalHandler lexicalOut;
+    private final XMLReader reader;
+    private final List<List<RowFile>> insertions;
+    private final Set<String> associationAnnotations = new HashSet<>();
+    private int insertedCount;
+    private int depth;
+    private Row row;
+    private String column;
+    private final StringBuilder value = new StringBuilder();
+
+    /**
+     * Constructor for LibraryMerger.
+     *
+     * @param out The handler receiving the output
+     * @param lexicalOut The handler receiving the comments and CDATA sections of the output
+     * @param reader The reader with which the row files are read back
+     * @param insertions The row files to insert, as returned by ClinicalDataHandler.finish
+     */
+    LibraryMerger(final ContentHandler out, final LexicalHandler lexicalOut, final XMLReader reader,
+        final List<List<RowFile>> insertions) {
+        this.out = out;
+        this.lexicalOut = lexicalOut;
+        this.reader = reader;
+        this.insertions = insertions;
+    }
+
+    @Override
+    public void setDocumentLocator(final Locator locator) {
+        this.out.setDocumentLocator(locator);
+    }
+
+    @Override
+    public void startDocument() throws SAXException {
+        this.out.startDocument();
+    }
+
+    @Override
+    public void endDocument() throws SAXException {
+        this.out.endDocument();
+    }
+
+    // the prefix mappings of an element are reported before its start and after its end, out of its depth
+
+    @Override
+    public void startPrefixMapping(final String prefix, final String uri) throws SAXException {
+        if (this.depth < ROW_DEPTH - 1) {
+            this.out.startPrefixMapping(prefix, uri);
+        }
+    }
+
+    @Override
+    public void endPrefixMapping(final String prefix) throws SAXException {
+        if (this.depth < ROW_DEPTH - 1) {
+            this.out.endPrefixMapping(prefix);
+        }
+    }
+
+    @Override
+    public void startElement(final String uri, final String localName, final String qName, final Attributes atts)
+        throws SAXException {
+        ++this.depth;
+        if (this.depth == ROW_DEPTH) {
+            this.row = new Row(qName);
+        } else if (this.depth == COLUMN_DEPTH) {
+            this.column = qName;
+            this.value.setLength(0);
+        } else if (this.depth < ROW_DEPTH) {
+            this.out.startElement(uri, localName, qName, atts);
+        }
+    }
+
+    @Override
+    public void endElement(final String uri, final String localName, final String qName) throws SAXException {
+        if (this.depth == ROW_DEPTH) {
+            insertBefore(this.row);
+            if (isAssociationAnnotation(this.row)) {
+                this.associationAnnotations.add(this.row.get("GeneratedID"));
+            }
+            writeRow(this.row);
+            this.row = null;
+        } else if (this.depth == COLUMN_DEPTH) {
+            this.row.add(this.column, this.value.toString());
+        } else if (this.depth < ROW_DEPTH) {
+            if (this.depth == ROW_DEPTH - 1) {
+                // the end of the LIBRARY element
+                while (this.insertedCount < this.insertions.size()) {
+                    insertNext();
+                }
+            }
+            this.out.endElement(uri, localName, qName);
+        }
+        --this.depth;
+    }
+
+    @Override
+    public void characters(final char[] ch, final int start, final int length) throws SAXException {
+        if (this.depth >= COLUMN_DEPTH) {
+            this.value.append(ch, start, length);
+        } else if (this.depth < ROW_DEPTH) {
+            this.out.characters(ch, start, length);
+        }
+    }
+
+    @Override
+    public void ignorableWhitespace(final char[] ch, final int start, final int length) throws SAXException {
+        if (this.depth < ROW_DEPTH) {
+            this.out.ignorableWhitespace(ch, start, length);
+        }
+    }
+
+    @Override
+    public void processingInstruction(final String target, final String data) throws SAXException {
+        if (this.depth < ROW_DEPTH) {
+            this.out.processingInstruction(target, data);
+        }
+    }
+
+    @Override
+    public void startDTD(final String name, final String publicId, final String systemId) throws SAXException {
+        this.lexicalOut.startDTD(name, publicId, systemId);
+    }
+
+    @Override
+    public void endDTD() throws SAXException {
+        this.lexicalOut.endDTD();
+    }
+
+    @Override
+    public void startEntity(final String name) throws SAXException {
+        this.lexicalOut.startEntity(name);
+    }
+
+    @Override
+    public void endEntity(final String name) throws SAXException {
+        this.lexicalOut.endEntity(name);
+    }
+
+    @Override
+    public void startCDATA() throws SAXException {
+        if (this.depth < ROW_DEPTH) {
+            this.lexicalOut.startCDATA();
+        }
+    }
+
+    @Override
+    public void endCDATA() throws SAXException {
+        if (this.depth < ROW_DEPTH) {
+            this.lexicalOut.endCDATA();
+        }
+    }
+
+    @Override
+    public void comment(final char[] ch, final int start, final int length) throws SAXException {
+        if (this.depth < ROW_DEPTH) {
+            this.lexicalOut.comment(ch, start, length);
+        }
+    }
+
+    /**
+     * Inserts the row files whose rows precede a row of the import XSL, and have not been inserted yet. The clinical
+     * data rows are the first insertion, followed by one per trailing table, so that the rows of insertion i precede
+     * those of the trailing tables from i on.
+     */
+    private void insertBefore(final Row xslRow) throws SAXException {
+        final int position = TRAILING_TABLES.indexOf(xslRow.getTable());
+        while ((this.insertedCount < this.insertions.size()) && ((position >= this.insertedCount)
+            || ((position == this.insertedCount - 1) && isAssociationRow(xslRow)))) {
+            insertNext();
+        }
+    }
+
+    private void insertNext() throws SAXException {
+        final RowReader rowReader = new RowReader();
+        this.reader.setContentHandler(rowReader);
+        for (final RowFile file : this.insertions.get(this.insertedCount)) {
+            if (file.getRowCount() > 0) {
+                try {
+                    this.reader.parse(file.getFile().toURI().toString());
+                } catch (final IOException e) {
+                    throw new SAXException("The row file " + file.getFile() + " could not be read back.", e);
+                }
+            }
+        }
+        ++this.insertedCount;
+    }
+
+    private static boolean isAssociationAnnotation(final Row row) {
+        return ANNOTATION_TABLE.equals(row.getTable()) && ASSOCIATION_TYPE.equals(row.get("ParentType"));
+    }
+
+    /**
+     * Whether a row of the import XSL is an Annotation or AnnotationFlag row of an Association element.
+     */
+    private boolean isAssociationRow(final Row xslRow) {
+        return isAssociationAnnotation(xslRow) || (ANNOTATION_FLAG_TABLE.equals(xslRow.getTable())
+            && this.associationAnnotations.contains(xslRow.get("FK_Annotation")));
+    }
+
+    private void writeRow(final Row r) throws SAXException {
+        this.out.startElement("", r.getTable(), r.getTable(), NO_ATTRIBUTES);
+        for (int i = 0; i < r.getColumnCount(); ++i) {
+            final String name = r.getName(i);
+            final String text = r.getValue(i);
+            this.out.startElement("", name, name, NO_ATTRIBUTES);
+            if (text.length() > 0) {
+                this.out.characters(text.toCharArray(), 0, text.length());
+            }
+            this.out.endElement("", name, name);
+        }
+        this.out.endElement("", r.getTable(), r.getTable());
+    }
+
+    /**
+     * Reads back a row file, writing each row to the output.
+     */
+    private final class RowReader extends RowCollector {
+        @Override
+        protected void row(final Row fileRow) throws SAXException {
+            writeRow(fileRow);
+        }
+    }
+}
@@ -0,0 +1,96 @@
+package com.sas.ptc.transform.xml.odm;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Copyright (c) 2022, SAS Institute Inc., Cary, NC, USA.  All Rights Reserved.
+ * SPDX-License-Identifier: Apache-2.0
+ *
+ * A row of SAS XML: the name of its table, and the names and values of its columns, in order.
+ */
+final class Row {
+
+    private final String table;
+    private final List<String> names = new ArrayList<>();
+    private final List<String> values = new ArrayList<>();
+
+    /**
+     * Constructor for Row.
+     *
+     * @param table The name of the table
+     */
+    Row(final String table) {
+        this.table = table;
+    }
+
+    /**
+     * Adds a column.
+     *
+     * @param name The name of the column
+     * @param value The value, empty if the column is
+     */
+    void add(final String name, final String value) {
+        this.names.add(name);
+        this.values.add(value);
+    }
+
+    /**
+     * Gets the value of a column.
+     *
+     * @param name The name of the column
+     * @return The value, or null if the row has no such column
+     */
+    String get(final String name) {
+        final int i = this.names.indexOf(name);
+        return (i < 0) ? null : this.values.get(i);
+    }
+
+    /**
+     * Gets the name of the table.
+     *
+     * @return The name of the table
+     */
+    String getTable() {
+        return table;
+    }
+
+    /**
+     * Gets the number of columns.
+     *
+     * @return The number of columns
+     */
+    int getColumnCount() {
+        return this.names.size();
+    }
+
+    /**
+     * Gets the name of a column.
+     *
+     * @param index The index of the column
+     * @return The name of the column
+     */
+    String getName(final int index) {
+        return this.names.get(index);
+    }
+
+    /**
+     * Gets the value of a column.
+     *
+     * @param index The index of the column
+     * @return The value, empty if the column is
+     */
+    String getValue(final int index) {
+        return this.values.get(index);
+    }
+
+    /**
+     * Sets the value of a column.
+     *
+     * @param index The index of the column
+     * @param value The value, empty if the column is
+     */
+    void setValue(final int index, final String value) {
+        this.values.set(index, value);
+    }
+}
@@ -0,0 +1,70 @@
+package com.sas.ptc.transform.xml.odm;
+
+import org.xml.sax.Attributes;
+import org.xml.sax.SAXException;
+import org.xml.sax.helpers.DefaultHandler;
+
+/**
+ * Copyright (c) 2022, SAS Institute Inc., Cary, NC, USA.  All Rights Reserved.
+ * SPDX-License-Identifier: Apache-2.0
+ *
+ * Receives a document of SAS XML rows, a row file or the output of the import XSL, and hands each row on as it ends.
+ * Each row is an element of the document element, holding one element per column with its value as text; anything
+ * else is ignored.
+ */
+abstract class RowCollector extends DefaultHandler {
+
+    /**
+     * The depth of the rows.
+     */
+    static final int ROW_DEPTH = 2;
+
+    /**
+     * The depth of the columns.
+     */
+    static final int COLUMN_DEPTH = 3;
+
+    private int depth;
+    private Row row;
+    private String column;
+    private final StringBuilder value = new StringBuilder();
+
+    /**
+     * Handles a row.
+     *
+     * @param row The row
+     * @throws SAXException If the row could not be handled
+     */
+    protected abstract void row(Row row) throws SAXException;
+
+    @Override
+    public void startElement(final String uri, final String localName, final String qName, final Attributes atts)
+        throws SAXException {
+        ++this.depth;
+        if (this.depth == ROW_DEPTH) {
+            this.row = new Row(qName);
+        } else if (this.depth == COLUMN_DEPTH) {
+            this.column = qName;
+            this.value.setLength(0);
+        }
+    }
+
+    @Override
+    public void endElement(final String uri, final String localName, final String qName) throws SAXException {
+        if (this.depth == ROW_DEPTH) {
+            final Row ended = this.row;
+            this.row = null;
+            row(ended);
+        } else if (this.depth == COLUMN_DEPTH) {
+            this.row.add(this.column, this.value.toString());
+        }
+        --this.depth;
+    }
+
+    @Override
+    public void characters(final char[] ch, final int start, final int length) throws SAXException {
+        if (this.depth >= COLUMN_DEPTH) {
+            this.value.append(ch, start, length);
+        }
+    }
+}
@@ -0,0 +1,156 @@
+package com.sas.ptc.transform.xml.odm;
+
+import java.io.BufferedOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+
+import javax.xml.stream.XMLOutputFactory;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamWriter;
+
+/**
+ * Copyright (c) 2022, SAS Institute Inc., Cary, NC, USA.  All Rights Reserved.
+ * SPDX-License-Identifier: Apache-2.0
+ *
+ * A temporary file of SAS XML table rows, written by a ClinicalDataHandler and read back by LibraryMerger. Each row is
+ * an element named after its table, holding one element per column, within a ROOT_ELEMENT element. The rows of several
+ * tables may share a file.
+ */
+class RowFile {
+
+    /**
+     * The element holding the rows of the file.
+     */
+    static final String ROOT_ELEMENT = "ROWS";
+
+    private static final String ENCODING = "UTF-8";
+
+    private final File file;
+    private OutputStream os;
+    private XMLStreamWriter writer;
+    private long rowCount;
+
+    /**
+     * Creates and opens a temporary file.
+     *
+     * @param folder The folder of the file
+     * @param prefix The prefix of the file name
+     * @throws IOException If the file could not be created
+     * @throws XMLStreamException If the file could not be started
+     */
+    RowFile(final File folder, final String prefix) throws IOException, XMLStreamException {
+        this.file = File.createTempFile(prefix, ".tmp", folder);
+        this.os = new BufferedOutputStream(new FileOutputStream(this.file));
+        this.writer = XMLOutputFactory.newInstance().createXMLStreamWriter(this.os, ENCODING);
+        this.writer.writeStartDocument(ENCODING, "1.0");
+        this.writer.writeStartElement(ROOT_ELEMENT);
+    }
+
+    /**
+     * Starts a row.
+     *
+     * @param table The name of the table
+     * @throws XMLStreamException If the row could not be written
+     */
+    void startRow(final String table) throws XMLStreamException {
+        this.writer.writeStartElement(table);
+        ++this.rowCount;
+    }
+
+    /**
+     * Writes a column of the current row.
+     *
+     * @param name The name of the column
+     * @param value The value, or null for an empty one
+     * @throws XMLStreamException If the column could not be written
+     */
+    void column(final String name, final String value) throws XMLStreamException {
+        if ((value == null) || (value.length() == 0)) {
+            this.writer.writeEmptyElement(name);
+        } else {
+            this.writer.writeStartElement(name);
+            this.writer.writeCharacters(value);
+            this.writer.writeEndElement();
+        }
+    }
+
+    /**
+     * Ends the current row.
+     *
+     * @throws XMLStreamException If the row could not be written
+     */
+    void endRow() throws XMLStreamException {
+        this.writer.writeEndElement();
+    }
+
+    /**
+     * Writes a row.
+     *
+     * @param row The row
+     * @throws XMLStreamException If the row could not be written
+     */
+    void write(final Row row) throws XMLStreamException {
+        startRow(row.getTable());
+        for (int i = 0; i < row.getColumnCount(); ++i) {
+            column(row.getName(i), row.getValue(i));
+        }
+        endRow();
+    }
+
+    /**
+     * Ends the file and closes it, so that it can be read back. Closing it again has no effect.
+     *
+     * @throws IOException If the file could not be closed
+     * @throws XMLStreamException If the file could not be ended
+     */
+    void close() throws IOException, XMLStreamException {
+        if (this.os == null) {
+            return;
+        }
+        try {
+            this.writer.writeEndElement();
+            this.writer.writeEndDocument();
+            this.writer.close();
+        } finally {
+            this.os.close();
+            this.os = null;
+            this.writer = null;
+        }
+    }
+
+    /**
+     * Closes the file, unless it is already, and deletes it.
+     */
+    void delete() {
+        if (this.os != null) {
+            try {
+                this.os.close();
+            } catch (final IOException e) {
+                // the file is deleted anyway
+            }
+            this.os = null;
+            this.writer = null;
+        }
+        this.file.delete();
+    }
+
+    /**
+     * Gets the file.
+     *
+     * @return The file
+     */
+    File getFile() {
+        return file;
+    }
+
+    /**
+     * Gets the number of rows written to the file.
+     *
+     * @return The number of rows
+     */
+    long getRowCount() {
+        return rowCount;
+    }
+}
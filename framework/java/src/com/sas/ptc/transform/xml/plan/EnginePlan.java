@@ -0,0 +1,123 @@
+package com.sas.ptc.transform.xml.plan;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Copyright (c) 2022, SAS Institute Inc., Cary, NC, USA.  All Rights Reserved.
+ * SPDX-License-Identifier: Apache-2.0
+ *
+ * The engine EnginePlanner chose for a transform, with the memory it is estimated to need, and the estimates of the
+ * engines it considered.
+ */
+public class EnginePlan {
+
+    private static final long MEGABYTE = 1024L * 1024L;
+
+    private final String engine;
+    private final int threadCount;
+    private final long estimatedBytes;
+    private final long availableBytes;
+    private final Map<String, Long> estimates;
+
+    /**
+     * Constructor for EnginePlan.
+     *
+     * @param engine The engine chosen
+     * @param threadCount The number of threads the engine is to use, or 0 if it does not matter
+     * @param estimatedBytes The memory the engine is estimated to need
+     * @param availableBytes The memory available to the transform
+     * @param estimates The estimates of the engines considered, by description, in the order they were considered
+     */
+    public EnginePlan(final String engine, final int threadCount, final long estimatedBytes,
+        final long availableBytes, final Map<String, Long> estimates) {
+        this.engine = engine;
+        this.threadCount = threadCount;
+        this.estimatedBytes = estimatedBytes;
+        this.availableBytes = availableBytes;
+        this.estimates = Collections.unmodifiableMap(new LinkedHashMap<>(estimates));
+    }
+
+    /**
+     * Whether the engine chosen is estimated to fit in the memory available.
+     *
+     * @return Whether the transform is expected to fit
+     */
+    public boolean isFitting() {
+        return estimatedBytes <= availableBytes;
+    }
+
+    /**
+     * Gets the engine chosen.
+     *
+     * @return The engine
+     */
+    public String getEngine() {
+        return engine;
+    }
+
+    /**
+     * Gets the number of threads the engine is to use.
+     *
+     * @return The thread count, or 0 if it does not matter
+     */
+    public int getThreadCount() {
+        return threadCount;
+    }
+
+    /**
+     * Gets the memory the engine chosen is estimated to need.
+     *
+     * @return The estimate, in bytes
+     */
+    public long getEstimatedBytes() {
+        return estimatedBytes;
+    }
+
+    /**
+     * Gets the memory available to the transform.
+     *
+     * @return The available memory, in bytes
+     */
+    public long getAvailableBytes() {
+        return availableBytes;
+    }
+
+    /**
+     * Gets the estimates of the engines considered.
+     *
+     * @return The estimates, in bytes, by description of the engine, in the order they were considered
+     */
+    public Map<String, Long> getEstimates() {
+        return estimates;
+    }
+
+    /**
+     * Formats a number of bytes in megabytes, rounded up, for the log.
+     *
+     * @param bytes The number of bytes
+     * @return The number of megabytes, followed by " MB"
+     */
+    public static String toMegabytes(final long bytes) {
+        return ((bytes + MEGABYTE - 1) / MEGABYTE) + " MB";
+    }
+
+    /**
+     * Describes the estimates, for the log.
+     *
+     * @return The estimates of the engines considered, and the memory available
+     */
+    @Override
+    public String toString() {
+        final StringBuilder sb = new StringBuilder();
+        for (final Map.Entry<String, Long> estimate : this.estimates.entrySet()) {
+            if (sb.length() > 0) {
+                sb.append(", ");
+            }
+            sb.append(estimate.getKey()).append(' ').append(toMegabytes(estimate.getValue().longValue()));
+        }
+
+        return sb.append("; ").append(toMegabytes(this.availableBytes)).append(" available").toString();
+    }
+}
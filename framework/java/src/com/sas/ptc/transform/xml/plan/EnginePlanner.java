@@ -0,0 +1,208 @@
+package com.sas.ptc.transform.xml.plan;
+
+import java.io.File;
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.management.MemoryType;
+import java.lang.management.MemoryUsage;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import javax.xml.stream.XMLStreamException;
+
+import com.sas.ptc.transform.xml.StandardTransformInfo;
+import com.sas.ptc.transform.xml.odm.ClinicalDataChunkedTransform;
+import com.sas.ptc.transform.xml.odm.ClinicalDataProfile;
+
+/**
+ * Copyright (c) 2022, SAS Institute Inc., Cary, NC, USA.  All Rights Reserved.
+ * SPDX-License-Identifier: Apache-2.0
+ *
+ * Chooses the engine of a transform before it is run, from the memory each engine is estimated to need and the memory
+ * available to the Java VM, so that a transform too large for the heap fails before it starts rather than with an
+ * OutOfMemoryError. The engines are considered in order of preference, and the first estimated to fit is chosen; if
+ * none is, the one estimated to need the least memory is returned, not fitting.
+ * <p>
+ * The estimates are rough: XSLTC holds the source of a transform in memory as a DOM of about SOURCE_FACTOR bytes per
+ * byte of source, and the rest of the job needs about BASE_BYTES. The streaming import engine holds the metadata of an
+ * ODM document only, and the chunked one the metadata and, per thread, a chunk of subjects the size of the first.
+ */
+public class EnginePlanner {
+
+    /**
+     * The export engine transforming the sections of the document concurrently.
+     */
+    public static final String SECTIONED_ENGINE = "sectioned";
+
+    /**
+     * The memory the DOM of a source needs, in bytes per byte of source, as measured with XSLTC for ODM 1.3 imports
+     * and exports.
+     */
+    public static final double SOURCE_FACTOR = 3.0;
+
+    /**
+     * The memory a job needs besides the DOM of its source: the stylesheet, schema and log.
+     */
+    public static final long BASE_BYTES = 16L * 1024L * 1024L;
+
+    private final long availableBytes;
+
+    /**
+     * Constructs a planner for the memory currently available to the Java VM.
+     */
+    public EnginePlanner() {
+        this(getAvailableMemory());
+    }
+
+    /**
+     * Constructs a planner for the given memory.
+     *
+     * @param availableBytes The memory available to a transform
+     */
+    public EnginePlanner(final long availableBytes) {
+        this.availableBytes = availableBytes;
+    }
+
+    /**
+     * Gets the memory the Java VM can still allocate: its maximum heap size less the heap still in use after the last
+     * garbage collection. The heap in use now would count the garbage not yet collected, which in a long-running VM
+     * can fill most of the heap, and refuse transforms that would fit.
+     *
+     * @return The available memory, in bytes
+     */
+    public static long getAvailableMemory() {
+        return getAvailableMemory(Runtime.getRuntime().maxMemory(), ManagementFactory.getMemoryPoolMXBeans());
+    }
+
+    /**
+     * Gets the memory available in a heap: its maximum size less the memory each heap pool held after its last
+     * collection. A pool not reporting its usage after collection is taken as in use as it is now.
+     *
+     * @param maxBytes The maximum heap size
+     * @param pools The memory pools of the Java VM; those that are not heap pools are ignored
+     * @return The available memory, in bytes
+     */
+    static long getAvailableMemory(final long maxBytes, final List<MemoryPoolMXBean> pools) {
+        long retainedBytes = 0L;
+        for (final MemoryPoolMXBean pool : pools) {
+            if (pool.getType() == MemoryType.HEAP) {
+                MemoryUsage usage = pool.getCollectionUsage();
+                if (usage == null) {
+                    usage = pool.getUsage();
+                }
+                if (usage != null) {
+                    retainedBytes += usage.getUsed();
+                }
+            }
+        }
+
+        return maxBytes - retainedBytes;
+    }
+
+    /**
+     * Chooses the engine of an import among the given ones. The source is only read, up to its first subject, if the
+     * streaming or chunked engines are among them.
+     *
+     * @param source The standard XML file imported
+     * @param engines The engines available, in order of preference: StandardTransformInfo.XSL_ENGINE,
+     *            CHUNKED_ENGINE or STREAMING_ENGINE
+     * @param subjectsPerChunk The number of subjects per chunk of the chunked engine, or 0 for its default
+     * @param threadCount The number of threads of the chunked engine, or 0 for the number of available processors
+     * @return The plan
+     * @throws IOException If the source could not be read
+     * @throws XMLStreamException If the source is not well-formed
+     */
+    public EnginePlan planImport(final File source, final List<String> engines, final int subjectsPerChunk,
+        final int threadCount) throws IOException, XMLStreamException {
+        ClinicalDataProfile profile = null;
+        if (engines.contains(StandardTransformInfo.STREAMING_ENGINE)
+            || engines.contains(StandardTransformInfo.CHUNKED_ENGINE)) {
+            profile = ClinicalDataProfile.measure(source);
+        }
+
+        final Map<String, Long> estimates = new LinkedHashMap<>();
+        final int threads = getThreadCount(threadCount);
+        for (final String engine : engines) {
+            long bytes = source.length();
+            if (StandardTransformInfo.STREAMING_ENGINE.equals(engine)) {
+                bytes = profile.getMetadataSize();
+            } else if (StandardTransformInfo.CHUNKED_ENGINE.equals(engine)) {
+                final int subjects = (subjectsPerChunk > 0) ? subjectsPerChunk
+                    : ClinicalDataChunkedTransform.DEFAULT_SUBJECTS_PER_CHUNK;
+                bytes = Math.min(source.length(), profile.getMetadataSize() + threads * subjects
+                    * profile.getSubjectSize());
+            }
+            estimates.put(engine, Long.valueOf(estimate(bytes)));
+        }
+
+        return choose(engines, estimates, threads);
+    }
+
+    /**
+     * Chooses the engine of an export: the sectioned engine with as many of the given threads as fit, or else the XSL
+     * engine. Each section transform running, and the shell, holds its own DOM of the source.
+     *
+     * @param source The SAS XML file exported
+     * @param sectionCount The number of export sections, 0 if the document is transformed as a whole
+     * @param threadCount The number of threads of the sectioned engine, or 0 for the number of available processors
+     * @return The plan
+     */
+    public EnginePlan planExport(final File source, final int sectionCount, final int threadCount) {
+        final Map<String, Long> estimates = new LinkedHashMap<>();
+        final long bytes = estimate(source.length());
+        final int threads = (sectionCount > 0) ? Math.min(getThreadCount(threadCount), sectionCount) : 0;
+        for (int i = threads; i > 0; --i) {
+            final long sectionedBytes = (i + 1) * (bytes - BASE_BYTES) + BASE_BYTES;
+            if (sectionedBytes <= this.availableBytes) {
+                estimates.put(SECTIONED_ENGINE + " (" + i + " threads)", Long.valueOf(sectionedBytes));
+                return new EnginePlan(SECTIONED_ENGINE, i, sectionedBytes, this.availableBytes, estimates);
+            }
+            if (i == threads) {
+                // only the first of the thread counts that do not fit is worth logging
+                estimates.put(SECTIONED_ENGINE + " (" + i + " threads)", Long.valueOf(sectionedBytes));
+            }
+        }
+        estimates.put(StandardTransformInfo.XSL_ENGINE, Long.valueOf(bytes));
+
+        return new EnginePlan(StandardTransformInfo.XSL_ENGINE, 0, bytes, this.availableBytes, estimates);
+    }
+
+    /**
+     * Chooses the first import engine that fits, or else the one needing the least memory.
+     */
+    private EnginePlan choose(final List<String> engines, final Map<String, Long> estimates, final int threads) {
+        String chosen = null;
+        for (final String engine : engines) {
+            final long bytes = estimates.get(engine).longValue();
+            if (bytes <= this.availableBytes) {
+                chosen = engine;
+                break;
+            }
+            if ((chosen == null) || (bytes < estimates.get(chosen).longValue())) {
+                chosen = engine;
+            }
+        }
+
+        return new EnginePlan(chosen, StandardTransformInfo.CHUNKED_ENGINE.equals(chosen) ? threads : 0,
+            estimates.get(chosen).longValue(), this.availableBytes, estimates);
+    }
+
+    private static long estimate(final long sourceBytes) {
+        return (long) (sourceBytes * SOURCE_FACTOR) + BASE_BYTES;
+    }
+
+    private static int getThreadCount(final int threadCount) {
+        return Math.max(1, (threadCount > 0) ? threadCount : Runtime.getRuntime().availableProcessors());
+    }
+
+    /**
+     * Gets the memory available to the transforms of this planner.
+     *
+     * @return The available memory, in bytes
+     */
+    public long getAvailableBytes() {
+        return availableBytes;
+    }
+}
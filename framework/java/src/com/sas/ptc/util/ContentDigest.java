@@ -0,0 +1,125 @@
+package com.sas.ptc.util;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+
+/**
+ * Copyright (c) 2022, SAS Institute Inc., Cary, NC, USA.  All Rights Reserved.
+ * SPDX-License-Identifier: Apache-2.0
+ *
+ * A SHA-256 digest of file contents and other values, used to key results by what they were computed from rather than
+ * by file name and modification time. Files are digested in windows of WINDOW_SIZE bytes mapped into memory, so that
+ * they are neither copied onto the heap nor limited to 2 GB.
+ * <p>
+ * On Windows a mapped file cannot be deleted or overwritten until its mapping is garbage-collected, which would get in
+ * the way of a long-lived JVM, such as the one of a SAS session, rewriting the files it has digested; there, files are
+ * read through a direct buffer instead.
+ */
+public class ContentDigest {
+
+    public static final int WINDOW_SIZE = 64 * 1024 * 1024;
+
+    private static final String ALGORITHM = "SHA-256";
+    private static final int READ_BUFFER_SIZE = 1024 * 1024;
+    private static final boolean MAPPING = !System.getProperty("os.name", "").startsWith("Windows");
+    private static final char[] HEX_DIGITS = "0123456789abcdef".toCharArray();
+
+    private final MessageDigest digest;
+
+    /**
+     * Constructs an empty digest.
+     */
+    public ContentDigest() {
+        try {
+            this.digest = MessageDigest.getInstance(ALGORITHM);
+        } catch (final NoSuchAlgorithmException e) {
+            // every Java platform is required to support SHA-256
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * Adds the length and contents of a file to the digest.
+     *
+     * @param file The file
+     * @return This digest
+     * @throws IOException If the file could not be read
+     */
+    public ContentDigest update(final File file) throws IOException {
+        final FileInputStream in = new FileInputStream(file);
+        try {
+            final FileChannel channel = in.getChannel();
+            final long size = channel.size();
+            update(size);
+            if (MAPPING) {
+                for (long position = 0; position < size; position += WINDOW_SIZE) {
+                    final MappedByteBuffer window = channel.map(FileChannel.MapMode.READ_ONLY, position,
+                        Math.min(WINDOW_SIZE, size - position));
+                    this.digest.update(window);
+                }
+            } else {
+                final ByteBuffer buffer = ByteBuffer.allocateDirect(READ_BUFFER_SIZE);
+                while (channel.read(buffer) >= 0) {
+                    buffer.flip();
+                    this.digest.update(buffer);
+                    buffer.clear();
+                }
+            }
+        } finally {
+            in.close();
+        }
+
+        return this;
+    }
+
+    /**
+     * Adds a string to the digest, preceded by its length so that consecutive strings cannot run into each other.
+     *
+     * @param value The string; null is digested as an empty string
+     * @return This digest
+     */
+    public ContentDigest update(final String value) {
+        final byte[] bytes = (value == null) ? new byte[0] : value.getBytes(StandardCharsets.UTF_8);
+        update(bytes.length);
+        this.digest.update(bytes);
+
+        return this;
+    }
+
+    /**
+     * Adds a number to the digest.
+     *
+     * @param value The number
+     * @return This digest
+     */
+    public ContentDigest update(final long value) {
+        final ByteBuffer buffer = ByteBuffer.allocate(Long.SIZE / Byte.SIZE);
+        buffer.putLong(value);
+        this.digest.update(buffer.array());
+
+        return this;
+    }
+
+    /**
+     * Completes the digest, which is then reset.
+     *
+     * @return The digest, as a string of lower-case hexadecimal digits
+     */
+    public String toHexString() {
+        final byte[] bytes = this.digest.digest();
+        final char[] chars = new char[bytes.length * 2];
+        for (int i = 0; i < bytes.length; ++i) {
+            chars[2 * i] = HEX_DIGITS[(bytes[i] >> 4) & 0xf];
+            chars[2 * i + 1] = HEX_DIGITS[bytes[i] & 0xf];
+        }
+
+        return new String(chars);
+    }
+}
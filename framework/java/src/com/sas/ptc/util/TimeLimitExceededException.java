@@ -0,0 +1,35 @@
+package com.sas.ptc.util;
+
+import java.io.IOException;
+
+/**
+ * Copyright (c) 2022, SAS Institute Inc., Cary, NC, USA.  All Rights Reserved.
+ * SPDX-License-Identifier: Apache-2.0
+ *
+ * Thrown by a TimeLimitedInputStream read after its time limit has passed.
+ */
+public class TimeLimitExceededException extends IOException {
+
+    private static final long serialVersionUID = 1L;
+
+    private final long timeLimitMillis;
+
+    /**
+     * Constructor for TimeLimitExceededException.
+     *
+     * @param timeLimitMillis The time limit that passed, in milliseconds
+     */
+    public TimeLimitExceededException(final long timeLimitMillis) {
+        super("The time limit of " + timeLimitMillis + " ms was reached.");
+        this.timeLimitMillis = timeLimitMillis;
+    }
+
+    /**
+     * Gets the time limit that passed.
+     *
+     * @return The time limit, in milliseconds
+     */
+    public long getTimeLimitMillis() {
+        return timeLimitMillis;
+    }
+}
@@ -0,0 +1,56 @@
+package com.sas.ptc.util;
+
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Copyright (c) 2022, SAS Institute Inc., Cary, NC, USA.  All Rights Reserved.
+ * SPDX-License-Identifier: Apache-2.0
+ *
+ * An input stream that fails once a time limit, counted from its construction, has passed. A parser reading from it
+ * is stopped by the next read after the limit, even if it reports nothing along the way; as parsers read in blocks,
+ * the check costs one clock read per block.
+ */
+public class TimeLimitedInputStream extends FilterInputStream {
+
+    private final long timeLimitMillis;
+    private final long deadlineNanos;
+
+    /**
+     * Constructor for TimeLimitedInputStream.
+     *
+     * @param in The stream to read from
+     * @param timeLimitMillis The time limit, in milliseconds, from now
+     */
+    public TimeLimitedInputStream(final InputStream in, final long timeLimitMillis) {
+        super(in);
+        this.timeLimitMillis = timeLimitMillis;
+        this.deadlineNanos = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(timeLimitMillis);
+    }
+
+    @Override
+    public int read() throws IOException {
+        checkTimeLimit();
+        return super.read();
+    }
+
+    @Override
+    public int read(final byte[] b, final int off, final int len) throws IOException {
+        checkTimeLimit();
+        return super.read(b, off, len);
+    }
+
+    @Override
+    public long skip(final long n) throws IOException {
+        checkTimeLimit();
+        return super.skip(n);
+    }
+
+    private void checkTimeLimit() throws TimeLimitExceededException {
+        if (System.nanoTime() - this.deadlineNanos > 0) {
+            throw new TimeLimitExceededException(this.timeLimitMillis);
+        }
+    }
+}
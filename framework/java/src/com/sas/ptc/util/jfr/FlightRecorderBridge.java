@@ -0,0 +1,61 @@
+package com.sas.ptc.util.jfr;
+
+import java.io.IOException;
+
+/**
+ * Copyright (c) 2022, SAS Institute Inc., Cary, NC, USA.  All Rights Reserved.
+ * SPDX-License-Identifier: Apache-2.0
+ *
+ * The operations FlightRecorderEvents delegates to the JDK Flight Recorder. Events and recordings are passed as
+ * Objects, so that no class outside the implementation refers to the jdk.jfr API, which older Java 8 runtimes lack.
+ */
+public interface FlightRecorderBridge {
+
+    /**
+     * Whether the Flight Recorder can be used in this JVM.
+     *
+     * @return Whether the Flight Recorder is available
+     */
+    boolean isAvailable();
+
+    /**
+     * Creates an event of the given type and begins timing it.
+     *
+     * @param eventType One of the event types of FlightRecorderEvents
+     * @return The event, or null if the type is unknown or no recording has it enabled
+     */
+    Object begin(String eventType);
+
+    /**
+     * Ends timing an event and commits it, with the given values, if a recording is interested in it.
+     *
+     * @param event The event returned by begin
+     * @param path The path of the file processed
+     * @param standardName The name of the standard, or null
+     * @param standardVersion The version of the standard, or null
+     * @param bytesIn The number of bytes read
+     * @param bytesOut The number of bytes written
+     * @param recordCount The number of records processed, or -1 if not counted
+     */
+    void commit(Object event, String path, String standardName, String standardVersion, long bytesIn, long bytesOut,
+        long recordCount);
+
+    /**
+     * Starts a recording.
+     *
+     * @param settings The name of a predefined configuration, such as "default" or "profile", or the path to a
+     *            configuration file
+     * @return The recording
+     * @throws IOException If the configuration could not be read
+     */
+    Object startRecording(String settings) throws IOException;
+
+    /**
+     * Stops a recording, writes it to a file and closes it.
+     *
+     * @param recording The recording returned by startRecording
+     * @param path The path of the recording file
+     * @throws IOException If the recording could not be written
+     */
+    void dumpRecording(Object recording, String path) throws IOException;
+}
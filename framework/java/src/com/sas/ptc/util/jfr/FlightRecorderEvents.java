@@ -0,0 +1,105 @@
+package com.sas.ptc.util.jfr;
+
+import java.io.IOException;
+
+/**
+ * Copyright (c) 2022, SAS Institute Inc., Cary, NC, USA.  All Rights Reserved.
+ * SPDX-License-Identifier: Apache-2.0
+ *
+ * Emits JDK Flight Recorder events for the stages of the transform and parse pipeline, and starts and dumps
+ * recordings. The events are defined in the events package, which is only compiled and loaded where the jdk.jfr API
+ * exists (Java 11 on, and Java 8 from update 262); elsewhere, every method here does nothing, except that starting a
+ * recording fails. While no recording is running, begin returns null and an event costs nothing more than the check.
+ */
+public final class FlightRecorderEvents {
+
+    public static final String STYLESHEET_COMPILE = "StylesheetCompile";
+    public static final String SCHEMA_COMPILE = "SchemaCompile";
+    public static final String VALIDATION = "Validation";
+    public static final String TRANSFORM = "Transform";
+    public static final String PARSE_CHUNK = "ParseChunk";
+
+    private static final String BRIDGE_CLASS_NAME = "com.sas.ptc.util.jfr.events.JdkFlightRecorderBridge";
+    private static final FlightRecorderBridge BRIDGE = loadBridge();
+
+    private FlightRecorderEvents() {
+    }
+
+    private static FlightRecorderBridge loadBridge() {
+        try {
+            final FlightRecorderBridge bridge = (FlightRecorderBridge) Class.forName(BRIDGE_CLASS_NAME)
+                .getConstructor().newInstance();
+            return bridge.isAvailable() ? bridge : null;
+        } catch (final ReflectiveOperationException e) {
+            return null;
+        } catch (final LinkageError e) {
+            return null;
+        }
+    }
+
+    /**
+     * Whether events can be emitted and recordings made in this JVM.
+     *
+     * @return Whether the Flight Recorder is available
+     */
+    public static boolean isAvailable() {
+        return BRIDGE != null;
+    }
+
+    /**
+     * Creates an event of the given type and begins timing it.
+     *
+     * @param eventType One of the event types of this class
+     * @return The event, to be passed to commit, or null if no recording has it enabled
+     */
+    public static Object begin(final String eventType) {
+        return (BRIDGE == null) ? null : BRIDGE.begin(eventType);
+    }
+
+    /**
+     * Ends timing an event and commits it, with the given values. Does nothing if the event is null.
+     *
+     * @param event The event returned by begin, or null
+     * @param path The path of the file processed
+     * @param standardName The name of the standard, or null
+     * @param standardVersion The version of the standard, or null
+     * @param bytesIn The number of bytes read
+     * @param bytesOut The number of bytes written
+     * @param recordCount The number of records processed, or -1 if not counted
+     */
+    public static void commit(final Object event, final String path, final String standardName,
+        final String standardVersion, final long bytesIn, final long bytesOut, final long recordCount) {
+        if ((event != null) && (BRIDGE != null)) {
+            BRIDGE.commit(event, path, standardName, standardVersion, bytesIn, bytesOut, recordCount);
+        }
+    }
+
+    /**
+     * Starts a recording.
+     *
+     * @param settings The name of a predefined configuration, such as "default" or "profile", or the path to a
+     *            configuration file
+     * @return The recording, to be passed to dumpRecording
+     * @throws IOException If the Flight Recorder is not available or the configuration could not be read
+     */
+    public static Object startRecording(final String settings) throws IOException {
+        if (BRIDGE == null) {
+            throw new IOException("The JDK Flight Recorder is not available in this JVM.");
+        }
+
+        return BRIDGE.startRecording(settings);
+    }
+
+    /**
+     * Stops a recording, writes it to a file and closes it.
+     *
+     * @param recording The recording returned by startRecording
+     * @param path The path of the recording file
+     * @throws IOException If the recording could not be written
+     */
+    public static void dumpRecording(final Object recording, final String path) throws IOException {
+        if (BRIDGE != null) {
+            BRIDGE.dumpRecording(recording, path);
+        }
+    }
+}
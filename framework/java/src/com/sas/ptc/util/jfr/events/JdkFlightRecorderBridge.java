@@ -0,0 +1,106 @@
+package com.sas.ptc.util.jfr.events;
+
+import java.io.IOException;
+import java.nio.file.Paths;
+import java.text.ParseException;
+
+import jdk.jfr.Configuration;
+import jdk.jfr.FlightRecorder;
+import jdk.jfr.Recording;
+
+import com.sas.ptc.util.jfr.FlightRecorderBridge;
+import com.sas.ptc.util.jfr.FlightRecorderEvents;
+
+/**
+ * Copyright (c) 2022, SAS Institute Inc., Cary, NC, USA.  All Rights Reserved.
+ * SPDX-License-Identifier: Apache-2.0
+ *
+ * The implementation of FlightRecorderBridge over the jdk.jfr API. Loaded by name by FlightRecorderEvents, and only
+ * compiled where the API exists.
+ */
+public class JdkFlightRecorderBridge implements FlightRecorderBridge {
+
+    @Override
+    public boolean isAvailable() {
+        return FlightRecorder.isAvailable();
+    }
+
+    @Override
+    public Object begin(final String eventType) {
+        final PipelineEvent event;
+        if (FlightRecorderEvents.STYLESHEET_COMPILE.equals(eventType)) {
+            event = new StylesheetCompileEvent();
+        } else if (FlightRecorderEvents.SCHEMA_COMPILE.equals(eventType)) {
+            event = new SchemaCompileEvent();
+        } else if (FlightRecorderEvents.VALIDATION.equals(eventType)) {
+            event = new ValidationEvent();
+        } else if (FlightRecorderEvents.TRANSFORM.equals(eventType)) {
+            event = new TransformEvent();
+        } else if (FlightRecorderEvents.PARSE_CHUNK.equals(eventType)) {
+            event = new ParseChunkEvent();
+        } else {
+            return null;
+        }
+        if (!event.isEnabled()) {
+            return null;
+        }
+        event.begin();
+
+        return event;
+    }
+
+    @Override
+    public void commit(final Object event, final String path, final String standardName,
+        final String standardVersion, final long bytesIn, final long bytesOut, final long recordCount) {
+        final PipelineEvent pipelineEvent = (PipelineEvent) event;
+        pipelineEvent.end();
+        if (pipelineEvent.shouldCommit()) {
+            pipelineEvent.path = path;
+            pipelineEvent.standardName = standardName;
+            pipelineEvent.standardVersion = standardVersion;
+            pipelineEvent.bytesIn = bytesIn;
+            pipelineEvent.bytesOut = bytesOut;
+            pipelineEvent.recordCount = recordCount;
+            pipelineEvent.commit();
+        }
+    }
+
+    @Override
+    public Object startRecording(final String settings) throws IOException {
+        Configuration configuration;
+        try {
+            configuration = Configuration.getConfiguration(settings);
+        } catch (final ParseException e) {
+            throw new IOException("Invalid Flight Recorder configuration '" + settings + "'.", e);
+        } catch (final IOException e) {
+            configuration = getConfigurationFile(settings, e);
+        }
+        final Recording recording = new Recording(configuration);
+        recording.setName("StandardXMLTransformer");
+        recording.start();
+
+        return recording;
+    }
+
+    private static Configuration getConfigurationFile(final String settings, final IOException notPredefined)
+        throws IOException {
+        try {
+            return Configuration.create(Paths.get(settings));
+        } catch (final ParseException e) {
+            throw new IOException("Invalid Flight Recorder configuration file '" + settings + "'.", e);
+        } catch (final IOException e) {
+            throw notPredefined;
+        }
+    }
+
+    @Override
+    public void dumpRecording(final Object recording, final String path) throws IOException {
+        final Recording jfrRecording = (Recording) recording;
+        try {
+            jfrRecording.stop();
+            jfrRecording.dump(Paths.get(path));
+        } finally {
+            jfrRecording.close();
+        }
+    }
+}
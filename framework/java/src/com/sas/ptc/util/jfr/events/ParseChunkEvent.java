@@ -0,0 +1,17 @@
+package com.sas.ptc.util.jfr.events;
+
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * Copyright (c) 2022, SAS Institute Inc., Cary, NC, USA.  All Rights Reserved.
+ * SPDX-License-Identifier: Apache-2.0
+ *
+ * The parsing of one chunk of a Dataset-XML file by ParseXML; the record count is the number of item groups.
+ */
+@Name("com.sas.ptc.ParseChunk")
+@Label("ParseXML Chunk")
+@Description("Parses a chunk of a Dataset-XML file")
+final class ParseChunkEvent extends PipelineEvent {
+}
@@ -0,0 +1,38 @@
+package com.sas.ptc.util.jfr.events;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.StackTrace;
+
+/**
+ * Copyright (c) 2022, SAS Institute Inc., Cary, NC, USA.  All Rights Reserved.
+ * SPDX-License-Identifier: Apache-2.0
+ *
+ * The fields common to the events of the transform and parse pipeline.
+ */
+@Category({ "Clinical Standards Toolkit", "Pipeline" })
+@StackTrace(false)
+abstract class PipelineEvent extends Event {
+
+    @Label("Path")
+    String path;
+
+    @Label("Standard Name")
+    String standardName;
+
+    @Label("Standard Version")
+    String standardVersion;
+
+    @Label("Bytes In")
+    @DataAmount
+    long bytesIn;
+
+    @Label("Bytes Out")
+    @DataAmount
+    long bytesOut;
+
+    @Label("Record Count")
+    long recordCount;
+}
@@ -0,0 +1,17 @@
+package com.sas.ptc.util.jfr.events;
+
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * Copyright (c) 2022, SAS Institute Inc., Cary, NC, USA.  All Rights Reserved.
+ * SPDX-License-Identifier: Apache-2.0
+ *
+ * The compilation of a W3C XML Schema, or its retrieval from the schema cache.
+ */
+@Name("com.sas.ptc.SchemaCompile")
+@Label("Schema Compile")
+@Description("Compiles an XML Schema, unless cached")
+final class SchemaCompileEvent extends PipelineEvent {
+}
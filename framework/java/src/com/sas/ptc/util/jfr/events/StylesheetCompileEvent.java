@@ -0,0 +1,17 @@
+package com.sas.ptc.util.jfr.events;
+
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * Copyright (c) 2022, SAS Institute Inc., Cary, NC, USA.  All Rights Reserved.
+ * SPDX-License-Identifier: Apache-2.0
+ *
+ * The compilation of an XSL stylesheet, or its retrieval from the stylesheet cache.
+ */
+@Name("com.sas.ptc.StylesheetCompile")
+@Label("Stylesheet Compile")
+@Description("Compiles an XSL stylesheet, unless cached")
+final class StylesheetCompileEvent extends PipelineEvent {
+}
@@ -0,0 +1,17 @@
+package com.sas.ptc.util.jfr.events;
+
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * Copyright (c) 2022, SAS Institute Inc., Cary, NC, USA.  All Rights Reserved.
+ * SPDX-License-Identifier: Apache-2.0
+ *
+ * The execution of an XSL transform, including the serialization of its output and any inline validation.
+ */
+@Name("com.sas.ptc.Transform")
+@Label("XSLT Execution")
+@Description("Runs an XSL transform")
+final class TransformEvent extends PipelineEvent {
+}
@@ -0,0 +1,17 @@
+package com.sas.ptc.util.jfr.events;
+
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * Copyright (c) 2022, SAS Institute Inc., Cary, NC, USA.  All Rights Reserved.
+ * SPDX-License-Identifier: Apache-2.0
+ *
+ * The validation of an XML file against a schema, in a pass of its own.
+ */
+@Name("com.sas.ptc.Validation")
+@Label("Validation")
+@Description("Validates an XML file against a schema")
+final class ValidationEvent extends PipelineEvent {
+}
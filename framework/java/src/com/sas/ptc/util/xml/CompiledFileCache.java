@@ -0,0 +1,369 @@
+package com.sas.ptc.util.xml;
+
+import java.io.File;
+import java.io.IOException;
+import java.net.URI;
+import java.net.URISyntaxException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Copyright (c) 2022, SAS Institute Inc., Cary, NC, USA.  All Rights Reserved.
+ * SPDX-License-Identifier: Apache-2.0
+ *
+ * A bounded, least-recently-used cache of artifacts compiled from files on disk, such as XSL stylesheets or W3C XML
+ * Schemas. Entries are keyed by the canonical path of the top-level file. An entry is considered stale, and is
+ * recompiled, when the top-level file or any file pulled in while compiling it (via include or import) has been
+ * modified or removed since the entry was created.
+ *
+ * @param <T> The type of the compiled artifact
+ * @param <E> The type of exception thrown when compilation fails
+ */
+public abstract class CompiledFileCache<T, E extends Exception> {
+
+    /**
+     * The default maximum number of compiled artifacts retained.
+     */
+    public static final int DEFAULT_MAX_ENTRIES = 32;
+
+    private static final String FILE_SCHEME = "file";
+
+    private final LinkedHashMap<String, CacheEntry<T>> entries;
+    private final ConcurrentMap<String, CountDownLatch> compilations;
+    private int maxEntries;
+
+    private final AtomicLong hitCount;
+    private final AtomicLong missCount;
+    private final AtomicLong evictionCount;
+
+    /**
+     * Constructs an empty cache holding at most DEFAULT_MAX_ENTRIES artifacts.
+     */
+    protected CompiledFileCache() {
+        this.entries = new LinkedHashMap<>(DEFAULT_MAX_ENTRIES, 0.75f, true);
+        this.compilations = new ConcurrentHashMap<>();
+        this.maxEntries = DEFAULT_MAX_ENTRIES;
+        this.hitCount = new AtomicLong();
+        this.missCount = new AtomicLong();
+        this.evictionCount = new AtomicLong();
+    }
+
+    /**
+     * Compiles the given file. Implementations should add to the supplied set every file read during compilation
+     * (other than the top-level file, which is already present), so that the entry can be invalidated when any of them
+     * changes.
+     *
+     * @param file The canonical top-level file to be compiled
+     * @param dependencies The set of files read during compilation
+     * @return The compiled artifact
+     * @throws E If the file could not be compiled
+     */
+    protected abstract T compile(File file, Set<File> dependencies) throws E;
+
+    /**
+     * Gets the compiled artifact for the file at the given path, compiling it if there is no current entry in the
+     * cache. Compilation happens outside of the cache lock, so concurrent requests for different files do not block
+     * each other, while concurrent requests for the same file result in a single compilation.
+     *
+     * @param path The path to the top-level file
+     * @return The compiled artifact
+     * @throws E If the file could not be compiled
+     * @throws IOException If the canonical path of the file could not be determined
+     */
+    public T get(final String path) throws E, IOException {
+        final File file = new File(path).getCanonicalFile();
+        final String key = file.getPath();
+
+        while (true) {
+            final T current = getCurrentArtifact(key);
+            if (current != null) {
+                return current;
+            }
+
+            // only one thread compiles a given file; others requesting it at the same time wait for the result. The
+            // marker is removed as soon as compilation ends, so no per-file state outlives the compilation.
+            final CountDownLatch compilation = new CountDownLatch(1);
+            final CountDownLatch inProgress = this.compilations.putIfAbsent(key, compilation);
+            if (inProgress == null) {
+                try {
+                    return compileEntry(file, key);
+                } finally {
+                    this.compilations.remove(key, compilation);
+                    compilation.countDown();
+                }
+            }
+
+            // if that compilation failed, the next pass compiles again and reports this thread's own failure
+            awaitCompilation(inProgress);
+        }
+    }
+
+    /**
+     * Compiles the given file and adds the result to the cache, unless another thread added a current entry for it
+     * after the caller last looked.
+     *
+     * @param file The canonical top-level file
+     * @param key The canonical path of the top-level file
+     * @return The compiled artifact
+     * @throws E If the file could not be compiled
+     */
+    private T compileEntry(final File file, final String key) throws E {
+        final T compiledMeanwhile = getCurrentArtifact(key);
+        if (compiledMeanwhile != null) {
+            return compiledMeanwhile;
+        }
+
+        this.missCount.incrementAndGet();
+        final long topLevelModified = file.lastModified();
+        final Set<File> dependencies = new LinkedHashSet<>();
+        dependencies.add(file);
+        final T artifact = compile(file, dependencies);
+        final CacheEntry<T> entry = new CacheEntry<>(artifact, dependencies, topLevelModified);
+
+        synchronized (this) {
+            this.entries.put(key, entry);
+            evictExcessEntries();
+        }
+
+        return artifact;
+    }
+
+    /**
+     * Gets the artifact of the current entry for the given key, counting a hit. A stale entry is removed.
+     *
+     * @param key The canonical path of the top-level file
+     * @return The compiled artifact, or null if there is no current entry
+     */
+    private synchronized T getCurrentArtifact(final String key) {
+        final CacheEntry<T> entry = this.entries.get(key);
+        if (entry != null) {
+            if (entry.isCurrent()) {
+                this.hitCount.incrementAndGet();
+                return entry.getArtifact();
+            }
+            this.entries.remove(key);
+        }
+
+        return null;
+    }
+
+    /**
+     * Waits for a compilation started by another thread to end. An interrupt does not abandon the wait, since the
+     * caller cannot proceed without the artifact, but is restored once the wait is over.
+     *
+     * @param compilation The marker of the compilation in progress
+     */
+    private static void awaitCompilation(final CountDownLatch compilation) {
+        boolean interrupted = false;
+        while (true) {
+            try {
+                compilation.await();
+                break;
+            } catch (final InterruptedException e) {
+                interrupted = true;
+            }
+        }
+        if (interrupted) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Gets the files read while compiling the current entry for the given path, the top-level file first.
+     *
+     * @param path The path to the top-level file
+     * @return The files the entry depends upon, or an empty list if there is no entry for the path
+     * @throws IOException If the canonical path of the file could not be determined
+     */
+    public synchronized List<File> getDependencies(final String path) throws IOException {
+        final CacheEntry<T> entry = this.entries.get(new File(path).getCanonicalPath());
+        if (entry == null) {
+            return Collections.emptyList();
+        }
+
+        return entry.getDependencies();
+    }
+
+    /**
+     * Removes any entry for the file at the given path.
+     *
+     * @param path The path to the top-level file
+     * @throws IOException If the canonical path of the file could not be determined
+     */
+    public synchronized void invalidate(final String path) throws IOException {
+        this.entries.remove(new File(path).getCanonicalPath());
+    }
+
+    /**
+     * Removes all entries. The hit, miss and eviction counters are not reset.
+     */
+    public synchronized void invalidateAll() {
+        this.entries.clear();
+    }
+
+    /**
+     * Gets the maximum number of compiled artifacts retained. Once the limit is reached, the least recently used entry
+     * is evicted.
+     *
+     * @return The maximum number of entries
+     */
+    public synchronized int getMaxEntries() {
+        return this.maxEntries;
+    }
+
+    /**
+     * Sets the maximum number of compiled artifacts retained. Excess entries are evicted immediately.
+     *
+     * @param maxEntries The maximum number of entries; must be at least 1
+     */
+    public synchronized void setMaxEntries(final int maxEntries) {
+        if (maxEntries < 1) {
+            throw new IllegalArgumentException("The maximum number of cache entries must be at least 1.");
+        }
+        this.maxEntries = maxEntries;
+        evictExcessEntries();
+    }
+
+    /**
+     * Gets the number of entries currently held.
+     *
+     * @return The number of entries
+     */
+    public synchronized int size() {
+        return this.entries.size();
+    }
+
+    /**
+     * Gets the number of requests satisfied by a current entry.
+     *
+     * @return The hit count
+     */
+    public long getHitCount() {
+        return this.hitCount.get();
+    }
+
+    /**
+     * Gets the number of requests that required compilation.
+     *
+     * @return The miss count
+     */
+    public long getMissCount() {
+        return this.missCount.get();
+    }
+
+    /**
+     * Gets the number of entries removed to honor the maximum entry count.
+     *
+     * @return The eviction count
+     */
+    public long getEvictionCount() {
+        return this.evictionCount.get();
+    }
+
+    /**
+     * Returns a summary of the cache statistics.
+     *
+     * @return A string containing the entry count and the hit, miss and eviction counters
+     */
+    @Override
+    public String toString() {
+        final StringBuffer sb = new StringBuffer();
+        sb.append("entries=").append(size()).append(", maxEntries=").append(getMaxEntries());
+        sb.append(", hits=").append(getHitCount()).append(", misses=").append(getMissCount());
+        sb.append(", evictions=").append(getEvictionCount());
+
+        return sb.toString();
+    }
+
+    /**
+     * Resolves a reference found while compiling a file to a local file, so that it can be recorded as a dependency.
+     *
+     * @param reference The (possibly relative) URI reference
+     * @param base The base URI against which the reference is resolved; may be null
+     * @return The referenced file, or null if the reference is not to a local file
+     */
+    protected static File toLocalFile(final String reference, final String base) {
+        if (reference == null) {
+            return null;
+        }
+        try {
+            URI uri = new URI(reference.replace('\\', '/').replace(" ", "%20"));
+            if (!uri.isAbsolute() && (base != null)) {
+                uri = new URI(base.replace('\\', '/').replace(" ", "%20")).resolve(uri);
+            }
+            if (FILE_SCHEME.equalsIgnoreCase(uri.getScheme())) {
+                return new File(uri).getCanonicalFile();
+            } else if (uri.getScheme() == null) {
+                return new File(uri.getPath()).getCanonicalFile();
+            }
+        } catch (final URISyntaxException e) {
+            // not a resolvable reference; the compiler will report it if it matters
+        } catch (final IllegalArgumentException e) {
+            // a file URI with an authority or query component
+        } catch (final IOException e) {
+            // canonical path unavailable
+        }
+
+        return null;
+    }
+
+    /**
+     * Removes least recently used entries until the maximum entry count is honored.
+     */
+    private void evictExcessEntries() {
+        final Iterator<Map.Entry<String, CacheEntry<T>>> i = this.entries.entrySet().iterator();
+        while ((this.entries.size() > this.maxEntries) && i.hasNext()) {
+            i.next();
+            i.remove();
+            this.evictionCount.incrementAndGet();
+        }
+    }
+
+    /**
+     * A compiled artifact together with the modification times of the files it was compiled from.
+     *
+     * @param <T> The type of the compiled artifact
+     */
+    private static final class CacheEntry<T> {
+        private final T artifact;
+        private final List<File> dependencies;
+        private final long[] lastModified;
+
+        CacheEntry(final T artifact, final Set<File> dependencies, final long topLevelModified) {
+            this.artifact = artifact;
+            this.dependencies = Collections.unmodifiableList(new ArrayList<>(dependencies));
+            this.lastModified = new long[this.dependencies.size()];
+            for (int i = 0; i < this.lastModified.length; ++i) {
+                this.lastModified[i] = (i == 0) ? topLevelModified : this.dependencies.get(i).lastModified();
+            }
+        }
+
+        T getArtifact() {
+            return this.artifact;
+        }
+
+        List<File> getDependencies() {
+            return this.dependencies;
+        }
+
+        boolean isCurrent() {
+            for (int i = 0; i < this.lastModified.length; ++i) {
+                final long current = this.dependencies.get(i).lastModified();
+                if ((current == 0L) || (current != this.lastModified[i])) {
+                    return false;
+                }
+            }
+            return true;
+        }
+    }
+}
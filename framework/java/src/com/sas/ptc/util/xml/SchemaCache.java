@@ -0,0 +1,81 @@
+package com.sas.ptc.util.xml;
+
+import java.io.File;
+import java.util.Set;
+
+import javax.xml.validation.Schema;
+import javax.xml.validation.SchemaFactory;
+
+import org.w3c.dom.ls.LSInput;
+import org.w3c.dom.ls.LSResourceResolver;
+import org.xml.sax.SAXException;
+
+/**
+ * Copyright (c) 2022, SAS Institute Inc., Cary, NC, USA.  All Rights Reserved.
+ * SPDX-License-Identifier: Apache-2.0
+ *
+ * A process-wide cache of compiled W3C XML Schemas. A javax.xml.validation.Schema object is thread-safe, so a single
+ * compiled schema set may be shared by any number of validations, each of which obtains its own Validator from it.
+ * Every schema document pulled in via xs:include, xs:import or xs:redefine is recorded, so that editing any file of a
+ * schema repository tree causes the top-level schema to be recompiled on next use.
+ */
+public final class SchemaCache extends CompiledFileCache<Schema, SAXException> {
+
+    private static final String W3C_XML_SCHEMA_NS_URI = "http://www.w3.org/2001/XMLSchema";
+
+    private static final SchemaCache INSTANCE = new SchemaCache();
+
+    /**
+     * Use getInstance() to obtain the shared cache.
+     */
+    private SchemaCache() {
+    }
+
+    /**
+     * Gets the cache shared by all validations in this JVM.
+     *
+     * @return The shared schema cache
+     */
+    public static SchemaCache getInstance() {
+        return INSTANCE;
+    }
+
+    /**
+     * Compiles the schema, recording every included, imported or redefined schema document as a dependency.
+     *
+     * @param file The top-level schema file
+     * @param dependencies The set to which the referenced schema documents are added
+     * @return The compiled schema
+     * @throws SAXException If the schema could not be compiled
+     */
+    @Override
+    protected Schema compile(final File file, final Set<File> dependencies) throws SAXException {
+        final SchemaFactory factory = SchemaFactory.newInstance(W3C_XML_SCHEMA_NS_URI);
+        factory.setResourceResolver(new DependencyRecordingResolver(dependencies));
+
+        return factory.newSchema(file);
+    }
+
+    /**
+     * Records the schema documents referenced during compilation, leaving their actual resolution to the factory.
+     */
+    private static final class DependencyRecordingResolver implements LSResourceResolver {
+        private final Set<File> dependencies;
+
+        DependencyRecordingResolver(final Set<File> dependencies) {
+            this.dependencies = dependencies;
+        }
+
+        @Override
+        public LSInput resolveResource(final String type, final String namespaceURI, final String publicId,
+            final String systemId, final String baseURI) {
+            final File f = toLocalFile(systemId, baseURI);
+            if (f != null) {
+                this.dependencies.add(f);
+            }
+
+            // null instructs the factory to resolve the reference itself
+            return null;
+        }
+    }
+}
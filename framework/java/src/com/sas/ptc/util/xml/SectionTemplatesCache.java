@@ -0,0 +1,268 @@
+package com.sas.ptc.util.xml;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Properties;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import javax.xml.stream.XMLOutputFactory;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamWriter;
+import javax.xml.transform.Templates;
+import javax.xml.transform.TransformerConfigurationException;
+import javax.xml.transform.TransformerFactory;
+import javax.xml.transform.stream.StreamSource;
+
+/**
+ * Copyright (c) 2022, SAS Institute Inc., Cary, NC, USA.  All Rights Reserved.
+ * SPDX-License-Identifier: Apache-2.0
+ *
+ * A process-wide cache of the stylesheets run by SectionedXSLTransform, generated from a stylesheet and the named
+ * templates producing its sections, and compiled. Two stylesheets are generated, each importing the given one:
+ * <ul>
+ * <li>The shell stylesheet overrides each section template with one producing a SECTION_PLACEHOLDER processing
+ * instruction holding the name of the section, so that it produces the document less its sections.</li>
+ * <li>The section stylesheet calls the section template named by its SECTION_PARAMETER parameter from the document
+ * element, within a SECTION_ELEMENT element, so that it produces one section.</li>
+ * </ul>
+ * XSLTC ignores the output properties of an imported stylesheet, so those of the given stylesheet are taken from
+ * TemplatesCache. As with TemplatesCache, the stylesheets are compiled again when a file of the given stylesheet
+ * changes. They are always compiled from source, never loaded from the translet jar. There is one cache per list of
+ * section templates.
+ */
+public final class SectionTemplatesCache
+    extends CompiledFileCache<SectionTemplatesCache.SectionTemplates, TransformerConfigurationException> {
+
+    /**
+     * The target of the processing instructions standing for the sections in the output of the shell stylesheet.
+     */
+    public static final String SECTION_PLACEHOLDER = "sas-export-section";
+
+    /**
+     * The parameter of the section stylesheet naming the section template to call.
+     */
+    public static final String SECTION_PARAMETER = "sas.export.section";
+
+    /**
+     * The element holding the output of the section stylesheet.
+     */
+    public static final String SECTION_ELEMENT = "sas-export-section";
+
+    private static final String XSL_NAMESPACE = "http://www.w3.org/1999/XSL/Transform";
+    private static final String XSL_PREFIX = "xsl";
+
+    private static final ConcurrentMap<List<String>, SectionTemplatesCache> INSTANCES = new ConcurrentHashMap<>();
+
+    private final List<String> sections;
+
+    /**
+     * Use getInstance() to obtain the shared cache for a list of sections.
+     *
+     * @param sections The names of the section templates
+     */
+    private SectionTemplatesCache(final List<String> sections) {
+        this.sections = sections;
+    }
+
+    /**
+     * Gets the cache, shared by all transforms in this JVM, of the stylesheets generated for a list of sections.
+     *
+     * @param sections The names of the section templates, in any order
+     * @return The shared cache
+     * @throws IllegalArgumentException If a name is not that of a template
+     */
+    public static SectionTemplatesCache getInstance(final List<String> sections) {
+        final List<String> key = Collections.unmodifiableList(new ArrayList<>(sections));
+        SectionTemplatesCache cache = INSTANCES.get(key);
+        if (cache == null) {
+            for (final String section : key) {
+                checkTemplateName(section);
+            }
+            final SectionTemplatesCache newCache = new SectionTemplatesCache(key);
+            cache = INSTANCES.putIfAbsent(key, newCache);
+            if (cache == null) {
+                cache = newCache;
+            }
+        }
+
+        return cache;
+    }
+
+    /**
+     * Removes all entries of the caches for every list of sections.
+     */
+    public static void invalidateAllInstances() {
+        for (final SectionTemplatesCache cache : INSTANCES.values()) {
+            cache.invalidateAll();
+        }
+    }
+
+    /**
+     * Generates and compiles the shell and section stylesheets, recording every stylesheet they import, directly or
+     * not, as a dependency, and gets the output properties of the given stylesheet.
+     *
+     * @param file The stylesheet file
+     * @param dependencies The set to which imported and included stylesheets are added
+     * @return The compiled shell and section stylesheets, with the output properties
+     * @throws TransformerConfigurationException If a stylesheet could not be compiled
+     */
+    @Override
+    protected SectionTemplates compile(final File file, final Set<File> dependencies)
+        throws TransformerConfigurationException {
+        final Properties outputProperties;
+        try {
+            outputProperties = TemplatesCache.getInstance().get(file.getPath()).getOutputProperties();
+        } catch (final IOException e) {
+            throw new TransformerConfigurationException(e);
+        }
+
+        final TransformerFactory tFactory = TransformerFactory.newInstance();
+        tFactory.setURIResolver(new TemplatesCache.DependencyRecordingResolver(dependencies));
+
+        // the generated stylesheets are given system ids next to the stylesheet, but not its own, which they import
+        final String importHref = file.toURI().toString();
+        final Templates shell = tFactory.newTemplates(new StreamSource(new StringReader(
+            generateStylesheet(importHref, true)), new File(file.getPath() + ".shell").toURI().toString()));
+        final Templates section = tFactory.newTemplates(new StreamSource(new StringReader(
+            generateStylesheet(importHref, false)), new File(file.getPath() + ".section").toURI().toString()));
+
+        return new SectionTemplates(shell, section, outputProperties);
+    }
+
+    /**
+     * Generates the shell or the section stylesheet.
+     *
+     * @param importHref The URI of the stylesheet imported
+     * @param shell Whether to generate the shell stylesheet rather than the section stylesheet
+     * @return The stylesheet
+     * @throws TransformerConfigurationException If the stylesheet could not be generated
+     */
+    private String generateStylesheet(final String importHref, final boolean shell)
+        throws TransformerConfigurationException {
+        final StringWriter sw = new StringWriter();
+        try {
+            final XMLStreamWriter writer = XMLOutputFactory.newInstance().createXMLStreamWriter(sw);
+            writer.writeStartDocument();
+            writer.writeStartElement(XSL_PREFIX, "stylesheet", XSL_NAMESPACE);
+            writer.writeNamespace(XSL_PREFIX, XSL_NAMESPACE);
+            writer.writeAttribute("version", "1.0");
+            writer.writeEmptyElement(XSL_PREFIX, "import", XSL_NAMESPACE);
+            writer.writeAttribute("href", importHref);
+            if (shell) {
+                for (final String section : this.sections) {
+                    writer.writeStartElement(XSL_PREFIX, "template", XSL_NAMESPACE);
+                    writer.writeAttribute("name", section);
+                    writer.writeStartElement(XSL_PREFIX, "processing-instruction", XSL_NAMESPACE);
+                    writer.writeAttribute("name", SECTION_PLACEHOLDER);
+                    writer.writeCharacters(section);
+                    writer.writeEndElement();
+                    writer.writeEndElement();
+                }
+            } else {
+                writer.writeEmptyElement(XSL_PREFIX, "param", XSL_NAMESPACE);
+                writer.writeAttribute("name", SECTION_PARAMETER);
+                writer.writeStartElement(XSL_PREFIX, "template", XSL_NAMESPACE);
+                writer.writeAttribute("match", "/");
+                writer.writeStartElement(SECTION_ELEMENT);
+                writer.writeStartElement(XSL_PREFIX, "for-each", XSL_NAMESPACE);
+                writer.writeAttribute("select", "*");
+                writer.writeStartElement(XSL_PREFIX, "choose", XSL_NAMESPACE);
+                for (final String section : this.sections) {
+                    writer.writeStartElement(XSL_PREFIX, "when", XSL_NAMESPACE);
+                    writer.writeAttribute("test", "$" + SECTION_PARAMETER + " = '" + section + "'");
+                    writer.writeEmptyElement(XSL_PREFIX, "call-template", XSL_NAMESPACE);
+                    writer.writeAttribute("name", section);
+                    writer.writeEndElement();
+                }
+                writer.writeEndElement();
+                writer.writeEndElement();
+                writer.writeEndElement();
+                writer.writeEndElement();
+            }
+            writer.writeEndElement();
+            writer.writeEndDocument();
+            writer.close();
+        } catch (final XMLStreamException e) {
+            throw new TransformerConfigurationException(e);
+        }
+
+        return sw.toString();
+    }
+
+    /**
+     * Checks that a name is that of a template without a prefix, so that it can be used as is in the stylesheets
+     * generated.
+     *
+     * @param name The name of a section template
+     * @throws IllegalArgumentException If the name is not that of a template
+     */
+    private static void checkTemplateName(final String name) {
+        boolean valid = (name != null) && (name.length() > 0)
+            && (Character.isLetter(name.charAt(0)) || (name.charAt(0) == '_'));
+        for (int i = 1; valid && (i < name.length()); ++i) {
+            final char c = name.charAt(i);
+            valid = Character.isLetterOrDigit(c) || (c == '_') || (c == '-') || (c == '.');
+        }
+        if (!valid) {
+            throw new IllegalArgumentException("'" + name + "' is not the name of a section template.");
+        }
+    }
+
+    /**
+     * Gets the names of the section templates of this cache.
+     *
+     * @return The names of the section templates
+     */
+    public List<String> getSections() {
+        return sections;
+    }
+
+    /**
+     * The compiled shell and section stylesheets generated from a stylesheet, with the output properties it sets.
+     */
+    public static final class SectionTemplates {
+        private final Templates shell;
+        private final Templates section;
+        private final Properties outputProperties;
+
+        SectionTemplates(final Templates shell, final Templates section, final Properties outputProperties) {
+            this.shell = shell;
+            this.section = section;
+            this.outputProperties = outputProperties;
+        }
+
+        /**
+         * Gets the shell stylesheet, producing the document less its sections.
+         *
+         * @return The compiled shell stylesheet
+         */
+        public Templates getShell() {
+            return shell;
+        }
+
+        /**
+         * Gets the section stylesheet, producing the section named by its SECTION_PARAMETER parameter.
+         *
+         * @return The compiled section stylesheet
+         */
+        public Templates getSection() {
+            return section;
+        }
+
+        /**
+         * Gets the output properties of the stylesheet, which the shell stylesheet does not set.
+         *
+         * @return A copy of the output properties
+         */
+        public Properties getOutputProperties() {
+            return (Properties) outputProperties.clone();
+        }
+    }
+}
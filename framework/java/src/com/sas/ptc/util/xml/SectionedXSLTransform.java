@@ -0,0 +1,489 @@
+package com.sas.ptc.util.xml;
+
+import java.io.BufferedOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import javax.xml.transform.OutputKeys;
+import javax.xml.transform.Transformer;
+import javax.xml.transform.TransformerException;
+import javax.xml.transform.TransformerFactory;
+import javax.xml.transform.sax.SAXResult;
+import javax.xml.transform.sax.SAXTransformerFactory;
+import javax.xml.transform.sax.TransformerHandler;
+import javax.xml.transform.stream.StreamResult;
+import javax.xml.transform.stream.StreamSource;
+import javax.xml.validation.Schema;
+import javax.xml.validation.ValidatorHandler;
+
+import org.xml.sax.Attributes;
+import org.xml.sax.ContentHandler;
+import org.xml.sax.ErrorHandler;
+import org.xml.sax.Locator;
+import org.xml.sax.SAXException;
+import org.xml.sax.XMLReader;
+import org.xml.sax.ext.LexicalHandler;
+
+/**
+ * Copyright (c) 2022, SAS Institute Inc., Cary, NC, USA.  All Rights Reserved.
+ * SPDX-License-Identifier: Apache-2.0
+ *
+ * Transforms the independent sections of a document concurrently. Each section is produced by a named template of the
+ * stylesheet, called from the template rule of the document element, with that element as the context node, and
+ * without parameters; the ODM export stylesheets, for example, produce the Study, AdminData, ReferenceData,
+ * ClinicalData and Association sections so. Each section is transformed on a thread of its own, using the section
+ * stylesheet of SectionTemplatesCache, to a temporary file next to the output. Meanwhile, the shell stylesheet produces
+ * the document less its sections, and each section is spliced into it, in the order the stylesheet calls them, as its
+ * placeholder is reached, then serialized with the output properties of the stylesheet. The output is the same as that
+ * of XSLTransform.
+ * <p>
+ * Each transform reads the source on its own, so the source is parsed, and held in memory, once per section running
+ * and once more for the shell. With no sections, the document is transformed as by XSLTransform.
+ */
+public class SectionedXSLTransform extends XSLTransform {
+
+    private static final String FRAGMENT_FILE_PREFIX = "section.";
+    private static final String FRAGMENT_FILE_SUFFIX = ".tmp";
+
+    private List<String> sections = Collections.emptyList();
+    private int threadCount;
+
+    /**
+     * Initiates the transformation using the data supplied to the instance, transforming the sections concurrently.
+     *
+     * @throws TransformerException If an error occurred while processing the actual transformation.
+     * @throws IOException If the source could not be read or the output could not be written.
+     */
+    @Override
+    public void doTransform() throws TransformerException, IOException {
+        if (this.sections.isEmpty()) {
+            super.doTransform();
+            return;
+        }
+
+        final Transformer shell = newShellTransformer();
+        final TransformerHandler serializer = newSerializer();
+        OutputStream resultStream = null;
+        try {
+            resultStream = openResultStream();
+            serializer.setResult(new StreamResult(resultStream));
+            transformSections(shell, serializer, serializer);
+        } finally {
+            if (resultStream != null) {
+                resultStream.close();
+            }
+        }
+    }
+
+    /**
+     * Initiates the transformation using the data supplied to the instance, transforming the sections concurrently and
+     * validating the output against the given schema as it is serialized, as doResultValidatingTransform of
+     * XSLTransform does.
+     *
+     * @param resultSchema The compiled schema against which the output XML is validated
+     * @param errorHandler The handler receiving validation errors and warnings
+     * @throws TransformerException If an error occurred while processing the actual transformation.
+     * @throws IOException If the source could not be read or the output could not be written.
+     */
+    @Override
+    public void doResultValidatingTransform(final Schema resultSchema, final ErrorHandler errorHandler)
+        throws TransformerException, IOException {
+        if (this.sections.isEmpty()) {
+            super.doResultValidatingTransform(resultSchema, errorHandler);
+            return;
+        }
+
+        final Transformer shell = newShellTransformer();
+        final TransformerHandler serializer = newSerializer();
+        final ValidatorHandler validatorHandler = resultSchema.newValidatorHandler();
+        validatorHandler.setErrorHandler(errorHandler);
+        final TeeContentHandler tee = new TeeContentHandler(validatorHandler, serializer);
+
+        OutputStream resultStream = null;
+        try {
+            resultStream = openResultStream();
+            serializer.setResult(new StreamResult(resultStream));
+            transformSections(shell, tee, tee);
+        } finally {
+            if (resultStream != null) {
+                resultStream.close();
+            }
+        }
+    }
+
+    /**
+     * Compiles the shell and section stylesheets, unless they are already cached.
+     *
+     * @throws TransformerException If a stylesheet could not be compiled
+     * @throws IOException If the stylesheet path could not be resolved
+     */
+    @Override
+    public void compileStylesheet() throws TransformerException, IOException {
+        if (this.sections.isEmpty()) {
+            super.compileStylesheet();
+        } else {
+            getSectionTemplates();
+        }
+    }
+
+    private SectionTemplatesCache.SectionTemplates getSectionTemplates() throws TransformerException, IOException {
+        return SectionTemplatesCache.getInstance(this.sections).get(getXsltPath());
+    }
+
+    private Transformer newShellTransformer() throws TransformerException, IOException {
+        final Transformer shell = getSectionTemplates().getShell().newTransformer();
+        applyParameters(shell);
+
+        return shell;
+    }
+
+    /**
+     * Creates a serializer honoring the output properties of the stylesheet and the output encoding.
+     */
+    private TransformerHandler newSerializer() throws TransformerException, IOException {
+        final SAXTransformerFactory tFactory = (SAXTransformerFactory) TransformerFactory.newInstance();
+        final TransformerHandler serializer = tFactory.newTransformerHandler();
+        setOutputProperties(getSectionTemplates().getOutputProperties(), serializer.getTransformer());
+        if (null != getOutputEncoding()) {
+            serializer.getTransformer().setOutputProperty(OutputKeys.ENCODING, getOutputEncoding());
+        }
+
+        return serializer;
+    }
+
+    /**
+     * Transforms the sections on a thread pool, and the shell on this thread, splicing each section into the output
+     * of the shell at its placeholder.
+     *
+     * @param shell The shell transformer
+     * @param out The handler receiving the output
+     * @param lexicalOut The handler receiving the comments and CDATA sections of the output
+     */
+    private void transformSections(final Transformer shell, final ContentHandler out, final LexicalHandler lexicalOut)
+        throws TransformerException, IOException {
+        final SectionTemplatesCache.SectionTemplates templates = getSectionTemplates();
+        final File outputFolder = new File(getOutputXmlPath()).getAbsoluteFile().getParentFile();
+        final int availableThreads = (this.threadCount > 0) ? this.threadCount
+            : Runtime.getRuntime().availableProcessors();
+        final ExecutorService executor = Executors.newFixedThreadPool(Math.max(1,
+            Math.min(availableThreads, this.sections.size())));
+        final List<File> fragments = new ArrayList<>();
+        try {
+            final Map<String, Future<File>> results = new LinkedHashMap<>();
+            for (final String section : this.sections) {
+                final File fragment = File.createTempFile(FRAGMENT_FILE_PREFIX, FRAGMENT_FILE_SUFFIX, outputFolder);
+                fragments.add(fragment);
+                results.put(section, executor.submit(() -> transformSection(templates, section, fragment)));
+            }
+
+            final SectionSplicer splicer = new SectionSplicer(out, lexicalOut, results);
+            final SAXResult saxResult = new SAXResult(splicer);
+            saxResult.setLexicalHandler(splicer);
+            shell.transform(new StreamSource(getSourceXmlPath()), saxResult);
+        } finally {
+            executor.shutdownNow();
+            awaitTermination(executor);
+            for (final File fragment : fragments) {
+                fragment.delete();
+            }
+        }
+    }
+
+    /**
+     * Transforms one section to a file, unindented, within a SECTION_ELEMENT element.
+     *
+     * @param templates The compiled shell and section stylesheets
+     * @param section The name of the section template
+     * @param fragment The file to which the section is written
+     * @return The file written
+     */
+    private File transformSection(final SectionTemplatesCache.SectionTemplates templates, final String section,
+        final File fragment) throws TransformerException, IOException {
+        final Transformer transformer = templates.getSection().newTransformer();
+        applyParameters(transformer);
+        transformer.setParameter(SectionTemplatesCache.SECTION_PARAMETER, section);
+        transformer.setOutputProperty(OutputKeys.METHOD, "xml");
+        transformer.setOutputProperty(OutputKeys.ENCODING, "UTF-8");
+        transformer.setOutputProperty(OutputKeys.INDENT, "no");
+
+        final OutputStream os = new BufferedOutputStream(new FileOutputStream(fragment));
+        try {
+            transformer.transform(new StreamSource(getSourceXmlPath()), new StreamResult(os));
+        } finally {
+            os.close();
+        }
+
+        return fragment;
+    }
+
+    /**
+     * Waits for the section transforms to stop, so that their temporary files can be deleted.
+     *
+     * @param executor The executor running the section transforms, already shut down
+     */
+    private static void awaitTermination(final ExecutorService executor) {
+        try {
+            while (!executor.awaitTermination(1L, TimeUnit.SECONDS)) {
+                // a transform is not interrupted, but stops once it has written its section
+            }
+        } catch (final InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Gets the names of the section templates.
+     *
+     * @return The names of the section templates, or an empty list if the document is transformed as a whole
+     */
+    public List<String> getSections() {
+        return sections;
+    }
+
+    /**
+     * Sets the names of the section templates, which must be called by the template rule of the document element, with
+     * that element as the context node, and without parameters. A section template the stylesheet does not call is
+     * transformed, but left out of the output.
+     *
+     * @param sections The names of the section templates, or an empty list to transform the document as a whole
+     */
+    public void setSections(final List<String> sections) {
+        this.sections = (sections == null) ? Collections.<String>emptyList()
+            : Collections.unmodifiableList(new ArrayList<>(sections));
+    }
+
+    /**
+     * Gets the maximum number of sections transformed concurrently.
+     *
+     * @return The thread count, or 0 if it is the number of available processors
+     */
+    public int getThreadCount() {
+        return threadCount;
+    }
+
+    /**
+     * Sets the maximum number of sections transformed concurrently, besides the shell. The default, 0, is the number
+     * of available processors.
+     *
+     * @param threadCount The thread count, or 0 for the number of available processors
+     */
+    public void setThreadCount(final int threadCount) {
+        this.threadCount = Math.max(0, threadCount);
+    }
+
+    /**
+     * Forwards the output of the shell transform, replacing each section placeholder with the section, read from the
+     * file it was transformed to once its transform is done.
+     */
+    private final class SectionSplicer extends ForwardingHandler {
+        private final Map<String, Future<File>> results;
+
+        SectionSplicer(final ContentHandler out, final LexicalHandler lexicalOut,
+            final Map<String, Future<File>> results) {
+            super(out, lexicalOut);
+            this.results = results;
+        }
+
+        @Override
+        public void setDocumentLocator(final Locator locator) {
+            this.out.setDocumentLocator(locator);
+        }
+
+        @Override
+        public void startDocument() throws SAXException {
+            this.out.startDocument();
+        }
+
+        @Override
+        public void endDocument() throws SAXException {
+            this.out.endDocument();
+        }
+
+        @Override
+        public void processingInstruction(final String target, final String data) throws SAXException {
+            final Future<File> result = this.results.get(data);
+            if (!SectionTemplatesCache.SECTION_PLACEHOLDER.equals(target) || (result == null)) {
+                this.out.processingInstruction(target, data);
+                return;
+            }
+
+            final File fragment;
+            try {
+                fragment = result.get();
+            } catch (final InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new SAXException("The transform of section " + data + " was interrupted.", e);
+            } catch (final ExecutionException e) {
+                final Throwable cause = e.getCause();
+                throw new SAXException("The transform of section " + data + " failed: " + cause.getMessage(),
+                    (cause instanceof Exception) ? (Exception) cause : e);
+            }
+
+            final XMLReader reader = createNamespaceAwareReader();
+            final FragmentHandler handler = new FragmentHandler(this.out, this.lexicalOut);
+            reader.setContentHandler(handler);
+            reader.setProperty(LEXICAL_HANDLER_PROPERTY, handler);
+            try {
+                reader.parse(fragment.toURI().toString());
+            } catch (final IOException e) {
+                throw new SAXException("The transform of section " + data + " could not be read back.", e);
+            }
+        }
+    }
+
+    /**
+     * Forwards the content of a section file, less the document and its SECTION_ELEMENT element.
+     */
+    private static final class FragmentHandler extends ForwardingHandler {
+        private int depth;
+
+        FragmentHandler(final ContentHandler out, final LexicalHandler lexicalOut) {
+            super(out, lexicalOut);
+        }
+
+        @Override
+        public void setDocumentLocator(final Locator locator) {
+            // the locations in the section file are not those of the output
+        }
+
+        @Override
+        public void startDocument() {
+            // the section is part of the output document
+        }
+
+        @Override
+        public void endDocument() {
+            // likewise
+        }
+
+        @Override
+        public void startPrefixMapping(final String prefix, final String uri) throws SAXException {
+            if (this.depth > 0) {
+                this.out.startPrefixMapping(prefix, uri);
+            }
+        }
+
+        @Override
+        public void endPrefixMapping(final String prefix) throws SAXException {
+            if (this.depth > 0) {
+                this.out.endPrefixMapping(prefix);
+            }
+        }
+
+        @Override
+        public void startElement(final String uri, final String localName, final String qName,
+            final Attributes atts) throws SAXException {
+            if (this.depth++ > 0) {
+                this.out.startElement(uri, localName, qName, atts);
+            }
+        }
+
+        @Override
+        public void endElement(final String uri, final String localName, final String qName) throws SAXException {
+            if (--this.depth > 0) {
+                this.out.endElement(uri, localName, qName);
+            }
+        }
+    }
+
+    /**
+     * Forwards content and lexical events to an output handler.
+     */
+    private abstract static class ForwardingHandler implements ContentHandler, LexicalHandler {
+        protected final ContentHandler out;
+        protected final LexicalHandler lexicalOut;
+
+        ForwardingHandler(final ContentHandler out, final LexicalHandler lexicalOut) {
+            this.out = out;
+            this.lexicalOut = lexicalOut;
+        }
+
+        @Override
+        public void startPrefixMapping(final String prefix, final String uri) throws SAXException {
+            this.out.startPrefixMapping(prefix, uri);
+        }
+
+        @Override
+        public void endPrefixMapping(final String prefix) throws SAXException {
+            this.out.endPrefixMapping(prefix);
+        }
+
+        @Override
+        public void startElement(final String uri, final String localName, final String qName,
+            final Attributes atts) throws SAXException {
+            this.out.startElement(uri, localName, qName, atts);
+        }
+
+        @Override
+        public void endElement(final String uri, final String localName, final String qName) throws SAXException {
+            this.out.endElement(uri, localName, qName);
+        }
+
+        @Override
+        public void characters(final char[] ch, final int start, final int length) throws SAXException {
+            this.out.characters(ch, start, length);
+        }
+
+        @Override
+        public void ignorableWhitespace(final char[] ch, final int start, final int length) throws SAXException {
+            this.out.ignorableWhitespace(ch, start, length);
+        }
+
+        @Override
+        public void processingInstruction(final String target, final String data) throws SAXException {
+            this.out.processingInstruction(target, data);
+        }
+
+        @Override
+        public void skippedEntity(final String name) throws SAXException {
+            this.out.skippedEntity(name);
+        }
+
+        @Override
+        public void startDTD(final String name, final String publicId, final String systemId) throws SAXException {
+            this.lexicalOut.startDTD(name, publicId, systemId);
+        }
+
+        @Override
+        public void endDTD() throws SAXException {
+            this.lexicalOut.endDTD();
+        }
+
+        @Override
+        public void startEntity(final String name) throws SAXException {
+            this.lexicalOut.startEntity(name);
+        }
+
+        @Override
+        public void endEntity(final String name) throws SAXException {
+            this.lexicalOut.endEntity(name);
+        }
+
+        @Override
+        public void startCDATA() throws SAXException {
+            this.lexicalOut.startCDATA();
+        }
+
+        @Override
+        public void endCDATA() throws SAXException {
+            this.lexicalOut.endCDATA();
+        }
+
+        @Override
+        public void comment(final char[] ch, final int start, final int length) throws SAXException {
+            this.lexicalOut.comment(ch, start, length);
+        }
+    }
+}
@@ -0,0 +1,191 @@
+package com.sas.ptc.util.xml;
+
+import org.xml.sax.Attributes;
+import org.xml.sax.ContentHandler;
+import org.xml.sax.DTDHandler;
+import org.xml.sax.Locator;
+import org.xml.sax.SAXException;
+import org.xml.sax.ext.LexicalHandler;
+
+/**
+ * Copyright (c) 2022, SAS Institute Inc., Cary, NC, USA.  All Rights Reserved.
+ * SPDX-License-Identifier: Apache-2.0
+ *
+ * Forwards a single stream of SAX events to two content handlers, so that one parse of a document can feed two
+ * consumers, such as a schema ValidatorHandler and an XSLT TransformerHandler. Content events are sent to the primary
+ * handler first. Lexical and DTD events are forwarded to whichever of the two handlers accept them.
+ */
+public class TeeContentHandler implements ContentHandler, LexicalHandler, DTDHandler {
+
+    private final ContentHandler primary;
+    private final ContentHandler secondary;
+
+    /**
+     * Constructs a handler forwarding to the two given handlers.
+     *
+     * @param primary The handler receiving each event first
+     * @param secondary The handler receiving each event second
+     */
+    public TeeContentHandler(final ContentHandler primary, final ContentHandler secondary) {
+        this.primary = primary;
+        this.secondary = secondary;
+    }
+
+    @Override
+    public void setDocumentLocator(final Locator locator) {
+        this.primary.setDocumentLocator(locator);
+        this.secondary.setDocumentLocator(locator);
+    }
+
+    @Override
+    public void startDocument() throws SAXException {
+        this.primary.startDocument();
+        this.secondary.startDocument();
+    }
+
+    @Override
+    public void endDocument() throws SAXException {
+        this.primary.endDocument();
+        this.secondary.endDocument();
+    }
+
+    @Override
+    public void startPrefixMapping(final String prefix, final String uri) throws SAXException {
+        this.primary.startPrefixMapping(prefix, uri);
+        this.secondary.startPrefixMapping(prefix, uri);
+    }
+
+    @Override
+    public void endPrefixMapping(final String prefix) throws SAXException {
+        this.primary.endPrefixMapping(prefix);
+        this.secondary.endPrefixMapping(prefix);
+    }
+
+    @Override
+    public void startElement(final String uri, final String localName, final String qName, final Attributes atts)
+        throws SAXException {
+        this.primary.startElement(uri, localName, qName, atts);
+        this.secondary.startElement(uri, localName, qName, atts);
+    }
+
+    @Override
+    public void endElement(final String uri, final String localName, final String qName) throws SAXException {
+        this.primary.endElement(uri, localName, qName);
+        this.secondary.endElement(uri, localName, qName);
+    }
+
+    @Override
+    public void characters(final char[] ch, final int start, final int length) throws SAXException {
+        this.primary.characters(ch, start, length);
+        this.secondary.characters(ch, start, length);
+    }
+
+    @Override
+    public void ignorableWhitespace(final char[] ch, final int start, final int length) throws SAXException {
+        this.primary.ignorableWhitespace(ch, start, length);
+        this.secondary.ignorableWhitespace(ch, start, length);
+    }
+
+    @Override
+    public void processingInstruction(final String target, final String data) throws SAXException {
+        this.primary.processingInstruction(target, data);
+        this.secondary.processingInstruction(target, data);
+    }
+
+    @Override
+    public void skippedEntity(final String name) throws SAXException {
+        this.primary.skippedEntity(name);
+        this.secondary.skippedEntity(name);
+    }
+
+    @Override
+    public void startDTD(final String name, final String publicId, final String systemId) throws SAXException {
+        if (this.primary instanceof LexicalHandler) {
+            ((LexicalHandler) this.primary).startDTD(name, publicId, systemId);
+        }
+        if (this.secondary instanceof LexicalHandler) {
+            ((LexicalHandler) this.secondary).startDTD(name, publicId, systemId);
+        }
+    }
+
+    @Override
+    public void endDTD() throws SAXException {
+        if (this.primary instanceof LexicalHandler) {
+            ((LexicalHandler) this.primary).endDTD();
+        }
+        if (this.secondary instanceof LexicalHandler) {
+            ((LexicalHandler) this.secondary).endDTD();
+        }
+    }
+
+    @Override
+    public void startEntity(final String name) throws SAXException {
+        if (this.primary instanceof LexicalHandler) {
+            ((LexicalHandler) this.primary).startEntity(name);
+        }
+        if (this.secondary instanceof LexicalHandler) {
+            ((LexicalHandler) this.secondary).startEntity(name);
+        }
+    }
+
+    @Override
+    public void endEntity(final String name) throws SAXException {
+        if (this.primary instanceof LexicalHandler) {
+            ((LexicalHandler) this.primary).endEntity(name);
+        }
+        if (this.secondary instanceof LexicalHandler) {
+            ((LexicalHandler) this.secondary).endEntity(name);
+        }
+    }
+
+    @Override
+    public void startCDATA() throws SAXException {
+        if (this.primary instanceof LexicalHandler) {
+            ((LexicalHandler) this.primary).startCDATA();
+        }
+        if (this.secondary instanceof LexicalHandler) {
+            ((LexicalHandler) this.secondary).startCDATA();
+        }
+    }
+
+    @Override
+    public void endCDATA() throws SAXException {
+        if (this.primary instanceof LexicalHandler) {
+            ((LexicalHandler) this.primary).endCDATA();
+        }
+        if (this.secondary instanceof LexicalHandler) {
+            ((LexicalHandler) this.secondary).endCDATA();
+        }
+    }
+
+    @Override
+    public void comment(final char[] ch, final int start, final int length) throws SAXException {
+        if (this.primary instanceof LexicalHandler) {
+            ((LexicalHandler) this.primary).comment(ch, start, length);
+        }
+        if (this.secondary instanceof LexicalHandler) {
+            ((LexicalHandler) this.secondary).comment(ch, start, length);
+        }
+    }
+
+    @Override
+    public void notationDecl(final String name, final String publicId, final String systemId) throws SAXException {
+        if (this.primary instanceof DTDHandler) {
+            ((DTDHandler) this.primary).notationDecl(name, publicId, systemId);
+        }
+        if (this.secondary instanceof DTDHandler) {
+            ((DTDHandler) this.secondary).notationDecl(name, publicId, systemId);
+        }
+    }
+
+    @Override
+    public void unparsedEntityDecl(final String name, final String publicId, final String systemId,
+        final String notationName) throws SAXException {
+        if (this.primary instanceof DTDHandler) {
+            ((DTDHandler) this.primary).unparsedEntityDecl(name, publicId, systemId, notationName);
+        }
+        if (this.secondary instanceof DTDHandler) {
+            ((DTDHandler) this.secondary).unparsedEntityDecl(name, publicId, systemId, notationName);
+        }
+    }
+}
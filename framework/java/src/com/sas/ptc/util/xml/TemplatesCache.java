@@ -0,0 +1,165 @@
+package com.sas.ptc.util.xml;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+
+import javax.xml.stream.XMLStreamException;
+import javax.xml.transform.Source;
+import javax.xml.transform.Templates;
+import javax.xml.transform.TransformerConfigurationException;
+import javax.xml.transform.TransformerFactory;
+import javax.xml.transform.URIResolver;
+import javax.xml.transform.stream.StreamSource;
+
+/**
+ * Copyright (c) 2022, SAS Institute Inc., Cary, NC, USA.  All Rights Reserved.
+ * SPDX-License-Identifier: Apache-2.0
+ *
+ * A process-wide cache of compiled XSL stylesheets. A javax.xml.transform.Templates object is thread-safe, so a single
+ * compiled stylesheet may be shared by any number of transforms, each of which obtains its own Transformer from it.
+ * Every stylesheet pulled in via xsl:include or xsl:import is recorded, so that editing any file of an XSL repository
+ * tree causes the entry stylesheet to be recompiled on next use.
+ * <p>
+ * A stylesheet for which the translet jar holds a current translet is loaded from it rather than compiled. Unless
+ * another is set, the jar is the one named TransletJar.DEFAULT_FILE_NAME next to the toolkit jar, if there is one.
+ */
+public final class TemplatesCache extends CompiledFileCache<Templates, TransformerConfigurationException> {
+
+    private static final TemplatesCache INSTANCE = new TemplatesCache();
+
+    private TransletJar transletJar;
+    private boolean transletJarSet;
+    private final AtomicLong transletCount = new AtomicLong();
+
+    /**
+     * Use getInstance() to obtain the shared cache.
+     */
+    private TemplatesCache() {
+    }
+
+    /**
+     * Gets the cache shared by all transforms in this JVM.
+     *
+     * @return The shared stylesheet cache
+     */
+    public static TemplatesCache getInstance() {
+        return INSTANCE;
+    }
+
+    /**
+     * Compiles the stylesheet, recording every included or imported stylesheet as a dependency.
+     *
+     * @param file The stylesheet file
+     * @param dependencies The set to which included and imported stylesheets are added
+     * @return The compiled stylesheet
+     * @throws TransformerConfigurationException If the stylesheet could not be compiled
+     */
+    @Override
+    protected Templates compile(final File file, final Set<File> dependencies)
+        throws TransformerConfigurationException {
+        final TransletJar jar = getTransletJar();
+        if (jar != null) {
+            try {
+                final Templates translet = jar.load(file, dependencies);
+                if (translet != null) {
+                    this.transletCount.incrementAndGet();
+                    return translet;
+                }
+            } catch (final TransformerConfigurationException e) {
+                // the translet could not be loaded; the stylesheet is compiled from source instead
+            } catch (final IOException e) {
+                // a file of the stylesheet could not be read; compiling it from source reports why
+            }
+        }
+
+        final TransformerFactory tFactory = TransformerFactory.newInstance();
+        tFactory.setURIResolver(new DependencyRecordingResolver(dependencies));
+
+        return tFactory.newTemplates(new StreamSource(file));
+    }
+
+    /**
+     * Sets the jar from which stylesheets are loaded as precompiled translets, opening it again if it was rebuilt
+     * since it was last set. Stylesheets already compiled are not affected.
+     *
+     * @param file The translet jar, or null if stylesheets are always to be compiled from source
+     * @throws IOException If the jar could not be read
+     * @throws XMLStreamException If the index of the jar is not well-formed
+     */
+    public synchronized void setTransletJarFile(final File file) throws IOException, XMLStreamException {
+        this.transletJarSet = true;
+        if (file == null) {
+            this.transletJar = null;
+        } else if ((this.transletJar == null) || !this.transletJar.isCurrent(file)) {
+            this.transletJar = null;
+            this.transletJar = new TransletJar(file);
+        }
+    }
+
+    /**
+     * Gets the jar from which stylesheets are loaded as precompiled translets. Unless one was set, the default jar is
+     * opened on first use, if it exists.
+     *
+     * @return The translet jar, or null if there is none
+     */
+    public synchronized TransletJar getTransletJar() {
+        if (!this.transletJarSet) {
+            this.transletJarSet = true;
+            final File file = TransletJar.getDefaultFile();
+            if ((file != null) && file.isFile()) {
+                try {
+                    this.transletJar = new TransletJar(file);
+                } catch (final IOException e) {
+                    // not a usable translet jar; stylesheets are compiled from source
+                } catch (final XMLStreamException e) {
+                    // not a usable translet jar; stylesheets are compiled from source
+                }
+            }
+        }
+
+        return this.transletJar;
+    }
+
+    /**
+     * Gets the number of stylesheets loaded as precompiled translets rather than compiled.
+     *
+     * @return The translet count
+     */
+    public long getTransletCount() {
+        return this.transletCount.get();
+    }
+
+    /**
+     * Returns a summary of the cache statistics.
+     *
+     * @return A string containing the entry count, the hit, miss and eviction counters and the translet count
+     */
+    @Override
+    public String toString() {
+        return super.toString() + ", translets=" + getTransletCount();
+    }
+
+    /**
+     * Records the stylesheets referenced during compilation, leaving their actual resolution to the factory.
+     */
+    static final class DependencyRecordingResolver implements URIResolver {
+        private final Set<File> dependencies;
+
+        DependencyRecordingResolver(final Set<File> dependencies) {
+            this.dependencies = dependencies;
+        }
+
+        @Override
+        public Source resolve(final String href, final String base) {
+            final File f = toLocalFile(href, base);
+            if (f != null) {
+                this.dependencies.add(f);
+            }
+
+            // null instructs the factory to resolve the reference itself
+            return null;
+        }
+    }
+}
@@ -0,0 +1,263 @@
+package com.sas.ptc.util.xml;
+
+import java.io.BufferedOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Properties;
+import java.util.Set;
+import java.util.TreeSet;
+
+import javax.lang.model.SourceVersion;
+import javax.xml.stream.XMLOutputFactory;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamWriter;
+import javax.xml.transform.Templates;
+import javax.xml.transform.TransformerConfigurationException;
+import javax.xml.transform.TransformerFactory;
+import javax.xml.transform.stream.StreamSource;
+
+import com.sas.ptc.util.ContentDigest;
+
+/**
+ * Copyright (c) 2022, SAS Institute Inc., Cary, NC, USA.  All Rights Reserved.
+ * SPDX-License-Identifier: Apache-2.0
+ *
+ * Precompiles stylesheets into XSLTC translets, written as class files to a folder together with the index read by
+ * TransletJar, so that the folder can be packaged into a translet jar. Each stylesheet is given a package of its own,
+ * derived from its name, so that its translet class and auxiliary classes can be told apart from those of the others.
+ */
+public class TransletBuilder {
+
+    /**
+     * The package under which each stylesheet's translet is given a package of its own.
+     */
+    public static final String PACKAGE_PREFIX = "com.sas.ptc.translets";
+
+    private static final String GENERATE_TRANSLET = "generate-translet";
+    private static final String DESTINATION_DIRECTORY = "destination-directory";
+    private static final String PACKAGE_NAME = "package-name";
+    private static final String TRANSLET_NAME = "translet-name";
+    private static final String CLASS_FILE_SUFFIX = ".class";
+    private static final String ENCODING = "UTF-8";
+
+    private final File destinationFolder;
+    private final List<Translet> translets = new ArrayList<>();
+
+    /**
+     * Constructor for TransletBuilder.
+     *
+     * @param destinationFolder The folder to which the class files and the index are written
+     */
+    public TransletBuilder(final File destinationFolder) {
+        this.destinationFolder = destinationFolder.getAbsoluteFile();
+    }
+
+    /**
+     * Compiles a stylesheet into a translet, recording the digest of every file it pulls in.
+     *
+     * @param name The name of the stylesheet, such as its path within the XSL repository
+     * @param stylesheet The stylesheet file
+     * @throws TransformerConfigurationException If the stylesheet could not be compiled
+     * @throws IOException If the class files could not be written, or a file of the stylesheet could not be read
+     */
+    public void add(final String name, final File stylesheet) throws TransformerConfigurationException, IOException {
+        final File canonicalStylesheet = stylesheet.getCanonicalFile();
+        final String packageName = PACKAGE_PREFIX + "." + toPackageName(name);
+        final File packageFolder = new File(this.destinationFolder, packageName.replace('.', File.separatorChar));
+        deleteClassFiles(packageFolder);
+
+        final Set<File> dependencies = new LinkedHashSet<>();
+        dependencies.add(canonicalStylesheet);
+        final TransformerFactory factory = TransformerFactory.newInstance();
+        try {
+            factory.setAttribute(GENERATE_TRANSLET, Boolean.TRUE);
+            factory.setAttribute(DESTINATION_DIRECTORY, this.destinationFolder.getPath());
+            factory.setAttribute(PACKAGE_NAME, packageName);
+            factory.setAttribute(TRANSLET_NAME, getBaseName(canonicalStylesheet));
+        } catch (final IllegalArgumentException e) {
+            throw new TransformerConfigurationException("The TransformerFactory " + factory.getClass().getName()
+                + " does not generate translets.", e);
+        }
+        factory.setURIResolver(new TemplatesCache.DependencyRecordingResolver(dependencies));
+        final Templates templates = factory.newTemplates(new StreamSource(canonicalStylesheet));
+
+        // as for TransletJar, the package must be set again for the translet classes to be defined by a transformer
+        factory.setAttribute(PACKAGE_NAME, packageName);
+        final Translet translet = new Translet(name, packageName + "." + findTransletClassName(packageFolder),
+            templates.newTransformer().getOutputProperties());
+        final File folder = canonicalStylesheet.getParentFile();
+        for (final File dependency : dependencies) {
+            translet.paths.add(folder.toPath().relativize(dependency.toPath()).toString().replace('\\', '/'));
+            translet.digests.add(new ContentDigest().update(dependency).toHexString());
+        }
+        this.translets.add(translet);
+    }
+
+    /**
+     * Writes the index of the translets compiled, to be read by TransletJar.
+     *
+     * @throws IOException If the index could not be written
+     * @throws XMLStreamException If the index could not be serialized
+     */
+    public void writeIndex() throws IOException, XMLStreamException {
+        final File indexFile = new File(this.destinationFolder, TransletJar.INDEX_ENTRY_NAME);
+        if (!indexFile.getParentFile().isDirectory() && !indexFile.getParentFile().mkdirs()) {
+            throw new IOException("The folder " + indexFile.getParentFile() + " could not be created.");
+        }
+
+        final OutputStream os = new BufferedOutputStream(new FileOutputStream(indexFile));
+        try {
+            final XMLStreamWriter writer = XMLOutputFactory.newInstance().createXMLStreamWriter(os, ENCODING);
+            writer.writeStartDocument(ENCODING, "1.0");
+            writer.writeCharacters("\n");
+            writer.writeStartElement(TransletJar.ROOT_ELEMENT_NAME);
+            writer.writeAttribute("version", TransletJar.FORMAT_VERSION);
+            writer.writeAttribute("factory", TransletJar.getFactoryClassName());
+            writer.writeAttribute("javaVersion", TransletJar.getJavaVersion());
+            for (final Translet translet : this.translets) {
+                writer.writeCharacters("\n    ");
+                writer.writeStartElement(TransletJar.TRANSLET_ELEMENT_NAME);
+                writer.writeAttribute("stylesheet", translet.name);
+                writer.writeAttribute("class", translet.className);
+                for (int i = 0; i < translet.paths.size(); ++i) {
+                    writer.writeCharacters("\n        ");
+                    writer.writeEmptyElement(TransletJar.FILE_ELEMENT_NAME);
+                    writer.writeAttribute("path", translet.paths.get(i));
+                    writer.writeAttribute("digest", translet.digests.get(i));
+                }
+                // only the properties set by the stylesheet, not the defaulted ones
+                for (final Object propertyName : new TreeSet<>(translet.outputProperties.keySet())) {
+                    writer.writeCharacters("\n        ");
+                    writer.writeEmptyElement(TransletJar.OUTPUT_PROPERTY_ELEMENT_NAME);
+                    writer.writeAttribute("name", (String) propertyName);
+                    writer.writeAttribute("value", translet.outputProperties.getProperty((String) propertyName));
+                }
+                writer.writeCharacters("\n    ");
+                writer.writeEndElement();
+            }
+            writer.writeCharacters("\n");
+            writer.writeEndElement();
+            writer.writeCharacters("\n");
+            writer.writeEndDocument();
+            writer.close();
+        } finally {
+            os.close();
+        }
+    }
+
+    /**
+     * Gets the number of translets compiled.
+     *
+     * @return The number of translets
+     */
+    public int size() {
+        return this.translets.size();
+    }
+
+    /**
+     * Derives a package name from the name of a stylesheet: each folder, and the file name less its extension, becomes
+     * a lower-case part of the package, with characters not allowed replaced by underscores, and an underscore added
+     * to a part that is a keyword, such as import.
+     *
+     * @param name The name of the stylesheet
+     * @return The package name, relative to PACKAGE_PREFIX
+     */
+    static String toPackageName(final String name) {
+        final String path = name.replace('\\', '/');
+        final int extension = path.lastIndexOf('.');
+        final String[] parts = ((extension > path.lastIndexOf('/')) ? path.substring(0, extension) : path).split("/");
+        final StringBuffer sb = new StringBuffer();
+        for (final String part : parts) {
+            if (part.length() == 0) {
+                continue;
+            }
+            if (sb.length() > 0) {
+                sb.append('.');
+            }
+            final StringBuffer javaPart = new StringBuffer();
+            if (!Character.isLetter(part.charAt(0))) {
+                javaPart.append('_');
+            }
+            for (final char c : part.toLowerCase(Locale.ENGLISH).toCharArray()) {
+                javaPart.append(Character.isLetterOrDigit(c) ? c : '_');
+            }
+            if (SourceVersion.isKeyword(javaPart)) {
+                javaPart.append('_');
+            }
+            sb.append(javaPart);
+        }
+
+        return sb.toString();
+    }
+
+    private static String getBaseName(final File file) {
+        final String name = file.getName();
+        final int extension = name.lastIndexOf('.');
+
+        return (extension > 0) ? name.substring(0, extension) : name;
+    }
+
+    /**
+     * Deletes the class files left in a package folder by an earlier build, so that they are not mistaken for those of
+     * the translet about to be compiled.
+     */
+    private static void deleteClassFiles(final File packageFolder) throws IOException {
+        final File[] files = packageFolder.listFiles();
+        if (files != null) {
+            for (final File file : files) {
+                if (file.isFile() && file.getName().endsWith(CLASS_FILE_SUFFIX) && !file.delete()) {
+                    throw new IOException("The class file " + file + " could not be deleted.");
+                }
+            }
+        }
+    }
+
+    /**
+     * Finds the translet class written to a package folder: the one class that is not an auxiliary class. Some
+     * versions of XSLTC ignore the translet name when a package name is given, so it cannot be relied upon.
+     */
+    private static String findTransletClassName(final File packageFolder) throws IOException {
+        String className = null;
+        final File[] files = packageFolder.listFiles();
+        if (files != null) {
+            for (final File file : files) {
+                final String name = file.getName();
+                if (name.endsWith(CLASS_FILE_SUFFIX) && (name.indexOf('$') < 0)) {
+                    if (className != null) {
+                        throw new IOException("More than one translet class was written to " + packageFolder + ".");
+                    }
+                    className = name.substring(0, name.length() - CLASS_FILE_SUFFIX.length());
+                }
+            }
+        }
+        if (className == null) {
+            throw new IOException("No translet class was written to " + packageFolder + ".");
+        }
+
+        return className;
+    }
+
+    /**
+     * A translet compiled: the name of its stylesheet, its class, its output properties, and the files it was compiled
+     * from, the stylesheet first, by path relative to the stylesheet, with their digests.
+     */
+    private static final class Translet {
+        private final String name;
+        private final String className;
+        private final Properties outputProperties;
+        private final List<String> paths = new ArrayList<>();
+        private final List<String> digests = new ArrayList<>();
+
+        Translet(final String name, final String className, final Properties outputProperties) {
+            this.name = name;
+            this.className = className;
+            this.outputProperties = outputProperties;
+        }
+    }
+}
@@ -0,0 +1,346 @@
+package com.sas.ptc.util.xml;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URISyntaxException;
+import java.security.CodeSource;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.Set;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+import javax.xml.transform.Templates;
+import javax.xml.transform.Transformer;
+import javax.xml.transform.TransformerConfigurationException;
+import javax.xml.transform.TransformerFactory;
+import javax.xml.transform.stream.StreamSource;
+
+import com.sas.ptc.util.ContentDigest;
+
+/**
+ * Copyright (c) 2022, SAS Institute Inc., Cary, NC, USA.  All Rights Reserved.
+ * SPDX-License-Identifier: Apache-2.0
+ *
+ * A jar of XSLTC translets precompiled by TransletBuilder, from which a stylesheet is loaded instead of being compiled
+ * from source. The jar holds an index recording, for each stylesheet, its translet class, its output properties and
+ * the digest of every file it was compiled from, by path relative to the stylesheet. A translet is only used for a
+ * stylesheet whose files all still have those digests, wherever the XSL repository now lives, and only by the
+ * TransformerFactory implementation and Java version that compiled it.
+ * <p>
+ * Translets are loaded through the factory's auto-translet support, which reads their bytecodes from the jar file and
+ * defines them itself: the translet classes extend classes of the factory that are not exported to the class path
+ * from Java 9 on, so they could not be loaded from it.
+ */
+public class TransletJar {
+
+    /**
+     * The name of the jar, next to the toolkit jar, used unless another is given.
+     */
+    public static final String DEFAULT_FILE_NAME = "sas.cdisc.translets.jar";
+
+    static final String INDEX_ENTRY_NAME = "META-INF/translets.xml";
+    static final String FORMAT_VERSION = "1";
+    static final String ROOT_ELEMENT_NAME = "TRANSLETS";
+    static final String TRANSLET_ELEMENT_NAME = "TRANSLET";
+    static final String FILE_ELEMENT_NAME = "FILE";
+    static final String OUTPUT_PROPERTY_ELEMENT_NAME = "OUTPUT_PROPERTY";
+
+    private static final String AUTO_TRANSLET = "auto-translet";
+    private static final String DESTINATION_DIRECTORY = "destination-directory";
+    private static final String JAR_NAME = "jar-name";
+    private static final String PACKAGE_NAME = "package-name";
+    private static final String TRANSLET_NAME = "translet-name";
+
+    private final File file;
+    private final long lastModified;
+    private final long length;
+    private final boolean compatible;
+    private final Map<String, List<Translet>> transletsByDigest = new HashMap<>();
+
+    /**
+     * Opens a translet jar, reading its index.
+     *
+     * @param file The jar file
+     * @throws IOException If the jar could not be read, or holds no index
+     * @throws XMLStreamException If the index is not well-formed
+     */
+    public TransletJar(final File file) throws IOException, XMLStreamException {
+        this.file = file.getAbsoluteFile();
+        this.lastModified = this.file.lastModified();
+        this.length = this.file.length();
+
+        final ZipFile zipFile = new ZipFile(this.file);
+        try {
+            final ZipEntry indexEntry = zipFile.getEntry(INDEX_ENTRY_NAME);
+            if (indexEntry == null) {
+                throw new IOException("The translet jar " + this.file + " has no " + INDEX_ENTRY_NAME + " entry.");
+            }
+            final InputStream is = zipFile.getInputStream(indexEntry);
+            try {
+                this.compatible = readIndex(is);
+            } finally {
+                is.close();
+            }
+        } finally {
+            zipFile.close();
+        }
+    }
+
+    /**
+     * Gets the jar used unless another is given: the file named DEFAULT_FILE_NAME in the folder of the toolkit jar, or
+     * in the class folder when the toolkit is not run from a jar.
+     *
+     * @return The default jar file, which may not exist; or null if the location of the toolkit is unknown
+     */
+    public static File getDefaultFile() {
+        final CodeSource codeSource = TransletJar.class.getProtectionDomain().getCodeSource();
+        if ((codeSource == null) || (codeSource.getLocation() == null)) {
+            return null;
+        }
+        try {
+            final File location = new File(codeSource.getLocation().toURI());
+
+            return new File(location.isDirectory() ? location : location.getParentFile(), DEFAULT_FILE_NAME);
+        } catch (final URISyntaxException e) {
+            return null;
+        } catch (final IllegalArgumentException e) {
+            // not a file location
+            return null;
+        }
+    }
+
+    /**
+     * Loads the translet of a stylesheet, provided the jar holds one compiled from the current contents of all its
+     * files by this TransformerFactory implementation and Java version.
+     *
+     * @param stylesheet The canonical stylesheet file
+     * @param dependencies The set to which the files the translet was compiled from are added, if it is loaded
+     * @return The compiled stylesheet, or null if the jar holds no current translet for it
+     * @throws IOException If a file of the stylesheet could not be read
+     * @throws TransformerConfigurationException If the translet could not be loaded
+     */
+    public Templates load(final File stylesheet, final Set<File> dependencies)
+        throws IOException, TransformerConfigurationException {
+        if (!this.compatible || !stylesheet.isFile()) {
+            return null;
+        }
+        final List<Translet> candidates = this.transletsByDigest.get(digest(stylesheet));
+        if (candidates == null) {
+            return null;
+        }
+
+        for (final Translet translet : candidates) {
+            final List<File> files = translet.getCurrentFiles(stylesheet.getParentFile());
+            if (files != null) {
+                final Templates templates = newTemplates(translet);
+                dependencies.addAll(files);
+                return templates;
+            }
+        }
+
+        return null;
+    }
+
+    private Templates newTemplates(final Translet translet) throws TransformerConfigurationException {
+        final TransformerFactory factory = TransformerFactory.newInstance();
+        try {
+            factory.setAttribute(AUTO_TRANSLET, Boolean.TRUE);
+            factory.setAttribute(DESTINATION_DIRECTORY, this.file.getParent());
+            factory.setAttribute(JAR_NAME, this.file.getName());
+            factory.setAttribute(PACKAGE_NAME, translet.getPackageName());
+            factory.setAttribute(TRANSLET_NAME, translet.getSimpleClassName());
+        } catch (final IllegalArgumentException e) {
+            throw new TransformerConfigurationException(e);
+        }
+
+        // with no system id, the factory neither compares the timestamps of the jar and the stylesheet, nor falls back
+        // on compiling the stylesheet and writing it to the jar
+        final Templates templates = factory.newTemplates(new StreamSource());
+
+        // the factory forgets the package once the templates are created, yet defines the translet classes in a module
+        // exporting the package it holds when the first transformer is created
+        factory.setAttribute(PACKAGE_NAME, translet.getPackageName());
+        // the classes are defined now, so that a translet that cannot be loaded is compiled from source instead
+        templates.newTransformer();
+
+        return new TransletTemplates(templates, translet.getOutputProperties());
+    }
+
+    private static String digest(final File file) throws IOException {
+        return new ContentDigest().update(file).toHexString();
+    }
+
+    /**
+     * Reads the index.
+     *
+     * @param is The index
+     * @return Whether the translets were compiled by this TransformerFactory implementation and Java version
+     */
+    private boolean readIndex(final InputStream is) throws XMLStreamException {
+        final XMLStreamReader reader = XMLInputFactory.newInstance().createXMLStreamReader(is);
+        boolean indexCompatible = false;
+        Translet translet = null;
+        while (reader.hasNext()) {
+            if (reader.next() != XMLStreamConstants.START_ELEMENT) {
+                continue;
+            }
+            final String name = reader.getLocalName();
+            if (ROOT_ELEMENT_NAME.equals(name)) {
+                indexCompatible = FORMAT_VERSION.equals(reader.getAttributeValue(null, "version"))
+                    && getFactoryClassName().equals(reader.getAttributeValue(null, "factory"))
+                    && getJavaVersion().equals(reader.getAttributeValue(null, "javaVersion"));
+            } else if (TRANSLET_ELEMENT_NAME.equals(name)) {
+                translet = new Translet(reader.getAttributeValue(null, "class"));
+            } else if (FILE_ELEMENT_NAME.equals(name) && (translet != null)) {
+                final String digest = reader.getAttributeValue(null, "digest");
+                if (translet.paths.isEmpty()) {
+                    List<Translet> translets = this.transletsByDigest.get(digest);
+                    if (translets == null) {
+                        translets = new ArrayList<>();
+                        this.transletsByDigest.put(digest, translets);
+                    }
+                    translets.add(translet);
+                }
+                translet.paths.add(reader.getAttributeValue(null, "path"));
+                translet.digests.add(digest);
+            } else if (OUTPUT_PROPERTY_ELEMENT_NAME.equals(name) && (translet != null)) {
+                translet.outputProperties.setProperty(reader.getAttributeValue(null, "name"),
+                    reader.getAttributeValue(null, "value"));
+            }
+        }
+        reader.close();
+
+        return indexCompatible;
+    }
+
+    /**
+     * Gets the class name of the TransformerFactory implementation in use, recorded in the index.
+     *
+     * @return The class name
+     */
+    static String getFactoryClassName() {
+        return TransformerFactory.newInstance().getClass().getName();
+    }
+
+    /**
+     * Gets the Java version recorded in the index: translets are only loaded by the version that compiled them.
+     *
+     * @return The Java specification version
+     */
+    static String getJavaVersion() {
+        return System.getProperty("java.specification.version");
+    }
+
+    /**
+     * Whether this object was opened from the given file as it is now; a jar rebuilt since must be opened again.
+     *
+     * @param other The jar file
+     * @return Whether the file is the same, and unchanged since it was opened
+     */
+    public boolean isCurrent(final File other) {
+        final File otherFile = other.getAbsoluteFile();
+
+        return this.file.equals(otherFile) && (this.lastModified == otherFile.lastModified())
+            && (this.length == otherFile.length());
+    }
+
+    /**
+     * Gets the jar file.
+     *
+     * @return The jar file
+     */
+    public File getFile() {
+        return file;
+    }
+
+    /**
+     * Whether the translets were compiled by the TransformerFactory implementation and Java version in use; if not,
+     * none is loaded.
+     *
+     * @return Whether the translets can be loaded
+     */
+    public boolean isCompatible() {
+        return compatible;
+    }
+
+    /**
+     * A translet of the index: its class, the files it was compiled from, the stylesheet first, and their digests.
+     */
+    private static final class Translet {
+        private final String className;
+        private final List<String> paths = new ArrayList<>();
+        private final List<String> digests = new ArrayList<>();
+        private final Properties outputProperties = new Properties();
+
+        Translet(final String className) {
+            this.className = className;
+        }
+
+        String getPackageName() {
+            return this.className.substring(0, this.className.lastIndexOf('.'));
+        }
+
+        String getSimpleClassName() {
+            return this.className.substring(this.className.lastIndexOf('.') + 1);
+        }
+
+        Properties getOutputProperties() {
+            return this.outputProperties;
+        }
+
+        /**
+         * Gets the files the translet was compiled from, provided they all still have the digests recorded.
+         *
+         * @param folder The folder of the stylesheet, against which the paths are resolved
+         * @return The canonical files, or null if one is missing or has changed
+         */
+        List<File> getCurrentFiles(final File folder) throws IOException {
+            final List<File> files = new ArrayList<>();
+            for (int i = 0; i < this.paths.size(); ++i) {
+                final File f = folder.toPath().resolve(this.paths.get(i)).normalize().toFile().getCanonicalFile();
+                if (!f.isFile() || !this.digests.get(i).equals(digest(f))) {
+                    return null;
+                }
+                files.add(f);
+            }
+
+            return files;
+        }
+    }
+
+    /**
+     * The templates of a translet, with the output properties of its stylesheet. A translet applies them itself, but
+     * does not report them, and they are copied from its transformers to serializers.
+     */
+    private static final class TransletTemplates implements Templates {
+        private final Templates templates;
+        private final Properties outputProperties;
+
+        TransletTemplates(final Templates templates, final Properties outputProperties) {
+            this.templates = templates;
+            this.outputProperties = outputProperties;
+        }
+
+        @Override
+        public Transformer newTransformer() throws TransformerConfigurationException {
+            final Transformer transformer = this.templates.newTransformer();
+            XSLTransform.setOutputProperties(this.outputProperties, transformer);
+
+            return transformer;
+        }
+
+        @Override
+        public Properties getOutputProperties() {
+            return (Properties) this.outputProperties.clone();
+        }
+    }
+}
@@ -1,18 +1,20 @@
 package com.sas.ptc.util.xml;
 
-import java.io.File;
+import java.io.FileInputStream;
 import java.io.IOException;
+import java.io.InputStream;
 
 import javax.xml.parsers.ParserConfigurationException;
 import javax.xml.transform.Source;
 import javax.xml.transform.stream.StreamSource;
 import javax.xml.validation.Schema;
-import javax.xml.validation.SchemaFactory;
 import javax.xml.validation.Validator;
 
 import org.xml.sax.ErrorHandler;
 import org.xml.sax.SAXException;
 
+import com.sas.ptc.util.TimeLimitedInputStream;
+
 /**
  * Copyright (c) 2022, SAS Institute Inc., Cary, NC, USA.  All Rights Reserved.
  * SPDX-License-Identifier: Apache-2.0
@@ -24,6 +26,7 @@ public class XMLValidator {
     private String xmlPath;
     private String schemaPath;
     private ErrorHandler errorHandler;
+    private long timeLimitMillis;
 
     private static final String FILE_PROTOCOL_PREFIX = "file:///";
 
@@ -70,22 +73,26 @@ public class XMLValidator {
      *         thrown.
      * @throws ParserConfigurationException If JAXP is not configured. Should never happen.
      * @throws SAXException If a validation error occurred.
-     * @throws IOException If the XML file or the schema file could not be read.
+     * @throws IOException If the XML file or the schema file could not be read, or a TimeLimitExceededException if the
+     *             time limit passed while reading the XML file.
      */
     public boolean doValidate() throws SAXException, IOException {
 
-        // 1. Lookup a factory for the W3C XML Schema language
-        final SchemaFactory factory = SchemaFactory.newInstance("http://www.w3.org/2001/XMLSchema");
-
-        // 2. Compile the schema.
-        final File schemaLocation = new File(getSchemaPath());
-        final Schema schema = factory.newSchema(schemaLocation);
+        // 1. - 2. Get the compiled schema, compiling it only if it is not already cached.
+        final Schema schema = getSchema();
 
         // 3. Get a validator from the schema.
         final Validator validator = schema.newValidator();
 
-        // 4. Parse the document
-        final Source source = new StreamSource(FILE_PROTOCOL_PREFIX + getXmlPath());
+        // 4. Parse the document, through a stream that fails once the time limit passes, if any
+        InputStream stream = null;
+        final Source source;
+        if (getTimeLimitMillis() > 0) {
+            stream = new TimeLimitedInputStream(new FileInputStream(getXmlPath()), getTimeLimitMillis());
+            source = new StreamSource(stream, FILE_PROTOCOL_PREFIX + getXmlPath());
+        } else {
+            source = new StreamSource(FILE_PROTOCOL_PREFIX + getXmlPath());
+        }
 
         // 5. Check the document
         try {
@@ -96,9 +103,24 @@ public class XMLValidator {
             return true;
         } catch (final SAXException ex) {
             return false;
+        } finally {
+            if (stream != null) {
+                stream.close();
+            }
         }
     }
 
+    /**
+     * Gets the compiled form of the schema at the schema path, from the shared schema cache.
+     * 
+     * @return The compiled schema
+     * @throws SAXException If the schema could not be compiled
+     * @throws IOException If the schema path could not be resolved
+     */
+    public Schema getSchema() throws SAXException, IOException {
+        return SchemaCache.getInstance().get(getSchemaPath());
+    }
+
     /**
      * Gets the path to the XML file.
      * 
@@ -135,6 +157,25 @@ public class XMLValidator {
         this.schemaPath = schemaPath;
     }
 
+    /**
+     * Gets the time after which reading the XML file is stopped.
+     * 
+     * @return The time limit, in milliseconds, or 0 if there is none
+     */
+    public long getTimeLimitMillis() {
+        return this.timeLimitMillis;
+    }
+
+    /**
+     * Sets the time after which reading the XML file is stopped, counted from the start of the validation. The
+     * default, 0, sets no limit.
+     * 
+     * @param timeLimitMillis The time limit, in milliseconds, or 0 for none
+     */
+    public void setTimeLimitMillis(final long timeLimitMillis) {
+        this.timeLimitMillis = timeLimitMillis;
+    }
+
     /**
      * Method getErrorHandler.
      * 
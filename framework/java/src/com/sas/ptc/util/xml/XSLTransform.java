@@ -1,17 +1,36 @@
 package com.sas.ptc.util.xml;
 
+import java.io.File;
+import java.io.FileInputStream;
 import java.io.FileOutputStream;
+import java.io.FilterOutputStream;
 import java.io.IOException;
+import java.io.InputStream;
 import java.io.OutputStream;
 import java.util.Iterator;
 import java.util.Properties;
 
+import javax.xml.parsers.ParserConfigurationException;
+import javax.xml.parsers.SAXParserFactory;
 import javax.xml.transform.OutputKeys;
+import javax.xml.transform.Templates;
 import javax.xml.transform.Transformer;
 import javax.xml.transform.TransformerException;
 import javax.xml.transform.TransformerFactory;
+import javax.xml.transform.sax.SAXResult;
+import javax.xml.transform.sax.SAXTransformerFactory;
+import javax.xml.transform.sax.TransformerHandler;
 import javax.xml.transform.stream.StreamResult;
 import javax.xml.transform.stream.StreamSource;
+import javax.xml.validation.Schema;
+import javax.xml.validation.ValidatorHandler;
+
+import org.xml.sax.ErrorHandler;
+import org.xml.sax.InputSource;
+import org.xml.sax.SAXException;
+import org.xml.sax.XMLReader;
+
+import com.sas.ptc.util.TimeLimitedInputStream;
 
 /**
  * Copyright (c) 2022, SAS Institute Inc., Cary, NC, USA.  All Rights Reserved.
@@ -23,11 +42,17 @@ import javax.xml.transform.stream.StreamSource;
  */
 public class XSLTransform {
 
+    static final String LEXICAL_HANDLER_PROPERTY = "http://xml.org/sax/properties/lexical-handler";
+    private static final String XSLTC_INDENT_AMOUNT = "indent_amount";
+    private static final String INDENT_AMOUNT = "{http://xml.apache.org/xslt}indent-amount";
+
     private String xsltPath;
     private String sourceXmlPath;
     private String outputXmlPath;
     private final Properties parameters;
     private String outputEncoding;
+    private long sourceTimeLimitMillis;
+    private MeteredOutputStream meteredResultStream;
 
     /**
      * Creates a new, empty object.
@@ -45,12 +70,11 @@ public class XSLTransform {
      */
     public void doTransform() throws TransformerException, IOException {
 
-        // 1. Instantiate a TransformerFactory.
-        final TransformerFactory tFactory = TransformerFactory.newInstance();
+        // 1. Get the compiled stylesheet, compiling it only if it is not already cached.
+        final Templates templates = getTemplates();
 
-        // 2. Use the TransformerFactory to process the stylesheet Source and
-        // generate a Transformer.
-        final Transformer transformer = tFactory.newTransformer(new StreamSource(getXsltPath()));
+        // 2. Generate a Transformer from the compiled stylesheet.
+        final Transformer transformer = templates.newTransformer();
 
         applyParameters(transformer);
         if (null != getOutputEncoding()) {
@@ -62,7 +86,7 @@ public class XSLTransform {
         final StreamSource streamSource = new StreamSource(getSourceXmlPath());
         OutputStream resultStream = null;
         try {
-            resultStream = new FileOutputStream(getOutputXmlPath());
+            resultStream = openResultStream();
             final StreamResult streamResult = new StreamResult(resultStream);
             transformer.transform(streamSource, streamResult);
         } finally {
@@ -72,6 +96,220 @@ public class XSLTransform {
         }
     }
 
+    /**
+     * Initiates the transformation using the data supplied to the instance, validating the source XML against the
+     * given schema as it is read. The source file is parsed only once; the same SAX event stream feeds both the schema
+     * validator and the XSL transformer. Validation problems are reported to the error handler. Whether the source was
+     * valid is for the error handler to track; the output is written either way. If a source time limit is set, the
+     * source is read through a TimeLimitedInputStream, and a TimeLimitExceededException stops the parse once it passes.
+     * 
+     * @param sourceSchema The compiled schema against which the source XML is validated
+     * @param errorHandler The handler receiving validation errors and warnings
+     * @throws TransformerException If an error occurred while processing the actual transformation.
+     * @throws SAXException If the source XML could not be parsed.
+     * @throws IOException If the source could not be read or the output could not be written.
+     */
+    public void doSourceValidatingTransform(final Schema sourceSchema, final ErrorHandler errorHandler)
+        throws TransformerException, SAXException, IOException {
+
+        // 1. Get the compiled stylesheet and create a SAX handler that transforms the events it receives.
+        final SAXTransformerFactory tFactory = (SAXTransformerFactory) TransformerFactory.newInstance();
+        final TransformerHandler transformerHandler = tFactory.newTransformerHandler(getTemplates());
+
+        final Transformer transformer = transformerHandler.getTransformer();
+        applyParameters(transformer);
+        if (null != getOutputEncoding()) {
+            transformer.setOutputProperty(OutputKeys.ENCODING, getOutputEncoding());
+        }
+
+        // 2. Create a validator for the same events.
+        final ValidatorHandler validatorHandler = sourceSchema.newValidatorHandler();
+        validatorHandler.setErrorHandler(errorHandler);
+
+        // 3. Parse the source once, sending each event to the validator and then to the transformer.
+        final XMLReader reader = createNamespaceAwareReader();
+        final TeeContentHandler tee = new TeeContentHandler(validatorHandler, transformerHandler);
+        reader.setContentHandler(tee);
+        reader.setDTDHandler(tee);
+        reader.setProperty(LEXICAL_HANDLER_PROPERTY, tee);
+        reader.setErrorHandler(errorHandler);
+
+        final String sourceSystemId = new File(getSourceXmlPath()).toURI().toString();
+        transformerHandler.setSystemId(sourceSystemId);
+
+        final InputSource inputSource = new InputSource(sourceSystemId);
+        InputStream sourceStream = null;
+        OutputStream resultStream = null;
+        try {
+            if (getSourceTimeLimitMillis() > 0) {
+                sourceStream = new TimeLimitedInputStream(new FileInputStream(getSourceXmlPath()),
+                    getSourceTimeLimitMillis());
+                inputSource.setByteStream(sourceStream);
+            }
+            resultStream = openResultStream();
+            transformerHandler.setResult(new StreamResult(resultStream));
+            reader.parse(inputSource);
+        } finally {
+            if (resultStream != null) {
+                resultStream.close();
+            }
+            if (sourceStream != null) {
+                sourceStream.close();
+            }
+        }
+    }
+
+    /**
+     * Initiates the transformation using the data supplied to the instance, validating the output against the given
+     * schema as it is produced. The SAX events generated by the transformer are sent both to a schema validator and to
+     * a serializer writing the output file, so the output is never re-read from disk. The serializer uses the output
+     * properties declared by the stylesheet. Validation problems are reported to the error handler; as the output is
+     * not parsed from a file, they carry no line or column numbers.
+     * 
+     * @param resultSchema The compiled schema against which the output XML is validated
+     * @param errorHandler The handler receiving validation errors and warnings
+     * @throws TransformerException If an error occurred while processing the actual transformation.
+     * @throws IOException If the source could not be read or the output could not be written.
+     */
+    public void doResultValidatingTransform(final Schema resultSchema, final ErrorHandler errorHandler)
+        throws TransformerException, IOException {
+
+        // 1. Generate a Transformer from the compiled stylesheet.
+        final SAXTransformerFactory tFactory = (SAXTransformerFactory) TransformerFactory.newInstance();
+        final Transformer transformer = getTemplates().newTransformer();
+
+        applyParameters(transformer);
+        if (null != getOutputEncoding()) {
+            transformer.setOutputProperty(OutputKeys.ENCODING, getOutputEncoding());
+        }
+
+        // 2. Create a serializer honoring the stylesheet's output properties, and a validator.
+        final TransformerHandler serializer = tFactory.newTransformerHandler();
+        copyOutputProperties(transformer, serializer.getTransformer());
+
+        final ValidatorHandler validatorHandler = resultSchema.newValidatorHandler();
+        validatorHandler.setErrorHandler(errorHandler);
+
+        // 3. Send each output event to the validator and then to the serializer.
+        final TeeContentHandler tee = new TeeContentHandler(validatorHandler, serializer);
+        final SAXResult saxResult = new SAXResult(tee);
+        saxResult.setLexicalHandler(tee);
+
+        final StreamSource streamSource = new StreamSource(getSourceXmlPath());
+        OutputStream resultStream = null;
+        try {
+            resultStream = openResultStream();
+            serializer.setResult(new StreamResult(resultStream));
+            transformer.transform(streamSource, saxResult);
+        } finally {
+            if (resultStream != null) {
+                resultStream.close();
+            }
+        }
+    }
+
+    /**
+     * Opens the output file, counting the bytes written to it and the time spent writing them.
+     * 
+     * @return The stream to the output file
+     * @throws IOException If the output file could not be opened
+     */
+    protected OutputStream openResultStream() throws IOException {
+        this.meteredResultStream = new MeteredOutputStream(new FileOutputStream(getOutputXmlPath()));
+        return this.meteredResultStream;
+    }
+
+    /**
+     * Gets the number of bytes written to the output file by the last transformation.
+     * 
+     * @return The number of bytes written, or 0 if no transformation was run
+     */
+    public long getResultByteCount() {
+        return (this.meteredResultStream == null) ? 0 : this.meteredResultStream.byteCount;
+    }
+
+    /**
+     * Gets the time the last transformation spent writing its serialized output to the output file, including the
+     * closing of the file.
+     * 
+     * @return The time spent writing, in nanoseconds, or 0 if no transformation was run
+     */
+    public long getResultWriteNanos() {
+        return (this.meteredResultStream == null) ? 0 : this.meteredResultStream.writeNanos;
+    }
+
+    /**
+     * Copies the output properties explicitly set on one transformer (via xsl:output or setOutputProperty) to another.
+     * Defaulted properties are not copied, so that, for example, no standalone declaration is added. The XSLTC-specific
+     * name for the indentation amount is translated to its public equivalent.
+     * 
+     * @param from The transformer whose output properties are to be copied
+     * @param to The transformer receiving the output properties
+     */
+    protected void copyOutputProperties(final Transformer from, final Transformer to) {
+        setOutputProperties(from.getOutputProperties(), to);
+    }
+
+    /**
+     * Sets output properties on a transformer, translating the XSLTC-specific name for the indentation amount to its
+     * public equivalent. Properties the transformer does not support are skipped.
+     * 
+     * @param props The output properties
+     * @param to The transformer receiving the output properties
+     */
+    static void setOutputProperties(final Properties props, final Transformer to) {
+        final Iterator<Object> keyIterator = props.keySet().iterator();
+        while (keyIterator.hasNext()) {
+            String key = (String) keyIterator.next();
+            final String value = props.getProperty(key);
+            if (XSLTC_INDENT_AMOUNT.equals(key)) {
+                key = INDENT_AMOUNT;
+            }
+            try {
+                to.setOutputProperty(key, value);
+            } catch (final IllegalArgumentException e) {
+                // a property specific to the stylesheet's transformer implementation; not applicable
+            }
+        }
+    }
+
+    /**
+     * Creates a namespace-aware SAX reader, as required for schema validation.
+     * 
+     * @return A new namespace-aware XMLReader
+     * @throws SAXException If the reader could not be created
+     */
+    protected XMLReader createNamespaceAwareReader() throws SAXException {
+        final SAXParserFactory factory = SAXParserFactory.newInstance();
+        factory.setNamespaceAware(true);
+        try {
+            return factory.newSAXParser().getXMLReader();
+        } catch (final ParserConfigurationException e) {
+            throw new SAXException(e);
+        }
+    }
+
+    /**
+     * Compiles the stylesheet at the XSLT path ahead of the transformation, unless it is already cached.
+     * 
+     * @throws TransformerException If the stylesheet could not be compiled
+     * @throws IOException If the stylesheet path could not be resolved
+     */
+    public void compileStylesheet() throws TransformerException, IOException {
+        getTemplates();
+    }
+
+    /**
+     * Gets the compiled form of the stylesheet at the XSLT path, from the shared stylesheet cache.
+     * 
+     * @return The compiled stylesheet
+     * @throws TransformerException If the stylesheet could not be compiled
+     * @throws IOException If the stylesheet path could not be resolved
+     */
+    protected Templates getTemplates() throws TransformerException, IOException {
+        return TemplatesCache.getInstance().get(getXsltPath());
+    }
+
     /**
      * Applies the name-value pairs supplied as parameters to this instance, to the XSLT transformer object as
      * parameters that can then be read within the XSL files themselves.
@@ -164,6 +402,25 @@ public class XSLTransform {
         this.sourceXmlPath = sourceXmlPath;
     }
 
+    /**
+     * Gets the time after which reading the source is stopped by doSourceValidatingTransform.
+     * 
+     * @return The time limit, in milliseconds, or 0 if there is none
+     */
+    public long getSourceTimeLimitMillis() {
+        return sourceTimeLimitMillis;
+    }
+
+    /**
+     * Sets the time after which reading the source is stopped by doSourceValidatingTransform, counted from the start
+     * of the parse. The default, 0, sets no limit.
+     * 
+     * @param sourceTimeLimitMillis The time limit, in milliseconds, or 0 for none
+     */
+    public void setSourceTimeLimitMillis(final long sourceTimeLimitMillis) {
+        this.sourceTimeLimitMillis = sourceTimeLimitMillis;
+    }
+
     /**
      * The absolute path to a file to which the transform results will be sent.
      * 
@@ -200,4 +457,45 @@ public class XSLTransform {
         this.outputEncoding = outputEncoding;
     }
 
+    /**
+     * Counts the bytes written to a stream and the time spent in the stream.
+     */
+    private static final class MeteredOutputStream extends FilterOutputStream {
+        private long byteCount;
+        private long writeNanos;
+
+        MeteredOutputStream(final OutputStream out) {
+            super(out);
+        }
+
+        @Override
+        public void write(final int b) throws IOException {
+            final long start = System.nanoTime();
+            this.out.write(b);
+            this.writeNanos += System.nanoTime() - start;
+            ++this.byteCount;
+        }
+
+        @Override
+        public void write(final byte[] b, final int off, final int len) throws IOException {
+            final long start = System.nanoTime();
+            this.out.write(b, off, len);
+            this.writeNanos += System.nanoTime() - start;
+            this.byteCount += len;
+        }
+
+        @Override
+        public void flush() throws IOException {
+            final long start = System.nanoTime();
+            this.out.flush();
+            this.writeNanos += System.nanoTime() - start;
+        }
+
+        @Override
+        public void close() throws IOException {
+            final long start = System.nanoTime();
+            this.out.close();
+            this.writeNanos += System.nanoTime() - start;
+        }
+    }
 }
@@ -0,0 +1,95 @@
+package com.sas.ptc.datasetxml;
+
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.List;
+
+import javax.xml.XMLConstants;
+import javax.xml.transform.stream.StreamSource;
+import javax.xml.validation.Schema;
+import javax.xml.validation.SchemaFactory;
+
+/**
+ * Copyright (c) 2022, SAS Institute Inc., Cary, NC, USA.  All Rights Reserved.
+ * SPDX-License-Identifier: Apache-2.0
+ *
+ * Round trips the Dataset-XML samples of the standards tree: each is flattened by ParseXML, written back by
+ * DatasetXMLWriter, and flattened again, and both flat files must be the same. The documents written must also be
+ * valid against the Dataset-XML schema.
+ */
+public class DatasetXMLWriterTest extends ParseXMLTestSupport {
+
+    private static final String SCHEMA_PATH = "schema-repository/cdisc-datasetxml-1.0.0/dataset1-0-0.xsd";
+
+    public void testRoundTrip() throws Exception {
+        final File workFolder = getWorkFolder("sequential");
+        final DatasetXMLWriter writer = new DatasetXMLWriter();
+        for (final File sample : getDatasetSamples()) {
+            final File written = new File(workFolder, sample.getName());
+            writer.writeDatasetXML(flatten(sample, workFolder, ".txt").getPath(), written.getPath());
+            assertSameRecords(sample, workFolder, written);
+        }
+        assertEquals("Errors writing the samples", 0, writer.getErrorCount());
+    }
+
+    public void testRoundTripConcurrently() throws Exception {
+        final File workFolder = getWorkFolder("concurrent");
+        final DatasetXMLWriter writer = new DatasetXMLWriter();
+        writer.setThreadCount(4);
+        final List<File> samples = getDatasetSamples();
+        for (final File sample : samples) {
+            writer.addDomain(flatten(sample, workFolder, ".txt").getPath(),
+                new File(workFolder, sample.getName()).getPath());
+        }
+        writer.writeDomains();
+        assertEquals("Errors writing the samples", 0, writer.getErrorCount());
+
+        for (final File sample : samples) {
+            assertSameRecords(sample, workFolder, new File(workFolder, sample.getName()));
+        }
+    }
+
+    public void testValidOutput() throws Exception {
+        final File workFolder = getWorkFolder("valid");
+        final Schema schema = SchemaFactory.newInstance(XMLConstants.W3C_XML_SCHEMA_NS_URI)
+            .newSchema(new File(getSourceFolder(STANDARD_FOLDER), SCHEMA_PATH));
+        final DatasetXMLWriter writer = new DatasetXMLWriter();
+        for (final File sample : getDatasetSamples()) {
+            final File written = new File(workFolder, sample.getName());
+            writer.writeDatasetXML(flatten(sample, workFolder, ".txt").getPath(), written.getPath());
+            try {
+                schema.newValidator().validate(new StreamSource(written));
+            } catch (final Exception e) {
+                fail(written.getName() + " is not valid Dataset-XML: " + e.getMessage());
+            }
+        }
+    }
+
+    public void testEscapedAndMissingValues() throws Exception {
+        final File workFolder = getWorkFolder("values");
+        final String header = "[ODM]TEST.FILE\n[CD]TEST|MDV.TEST\n[IG]IG.TEST|1\n";
+        // flat files are in the default charset, so only markup characters are tried
+        final String escaped = "[]IT.TEST.ESCAPED|<a href=\"x\">&amp; 'y'</a> & ]]> \"z\"\n";
+        final File txtFile = new File(workFolder, "values.txt");
+        Files.write(txtFile.toPath(), (header + escaped + "[]IT.TEST.MISSING|\n").getBytes(StandardCharsets.US_ASCII));
+
+        final DatasetXMLWriter writer = new DatasetXMLWriter();
+        final File written = new File(workFolder, "values.xml");
+        writer.writeDatasetXML(txtFile.getPath(), written.getPath());
+        assertEquals("Errors writing the values", 0, writer.getErrorCount());
+
+        // a missing value is left out of Dataset-XML, and so of the flat file read back
+        assertSameText("Values written back", header + escaped, read(flatten(written, workFolder, ".txt")));
+    }
+
+    /**
+     * Flattens the document written from a sample, and fails the test unless its flat file is that of the sample.
+     */
+    private static void assertSameRecords(final File sample, final File workFolder, final File written)
+        throws Exception {
+        assertTrue("No document written for " + sample.getName(), written.isFile());
+        assertSameText(sample.getName() + " written back", read(new File(workFolder, sample.getName() + ".txt")),
+            read(flatten(written, workFolder, ".written.txt")));
+    }
+}
@@ -0,0 +1,150 @@
+package com.sas.ptc.datasetxml;
+
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Copyright (c) 2022, SAS Institute Inc., Cary, NC, USA.  All Rights Reserved.
+ * SPDX-License-Identifier: Apache-2.0
+ *
+ * Flattens Dataset-XML documents with the parallel engine of ParseXML, and compares the flat files with those of the
+ * SAX engine: the samples, parsed as one chunk per container, and a document large enough to be split into several
+ * chunks per container, on several thread counts.
+ */
+public class ParallelRecordsParserTest extends ParseXMLTestSupport {
+
+    private static final int[] THREADS = { 2, 4, 8 };
+
+    /**
+     * The number of item groups of each container of the large document, about 12 MB each.
+     */
+    private static final int LARGE_GROUP_COUNT = 30000;
+
+    public void testSamples() throws Exception {
+        final File workFolder = getWorkFolder("samples");
+        for (final File sample : getDatasetSamples()) {
+            assertSameAsSAX(createParser(4), sample, workFolder);
+        }
+    }
+
+    public void testEscapedValues() throws Exception {
+        final File workFolder = getWorkFolder("escaped");
+        final File document = new File(workFolder, "escaped.xml");
+        writeEscapedDocument(document);
+        for (final int threads : THREADS) {
+            assertSameAsSAX(createParser(threads), document, workFolder);
+        }
+    }
+
+    public void testLargeDocument() throws Exception {
+        final File workFolder = getWorkFolder("large");
+        final File document = new File(workFolder, "large.xml");
+        writeLargeDocument(document, false);
+        final String expected = read(flatten(document, workFolder, ".sax.txt"));
+        for (final int threads : THREADS) {
+            final RecordingParser parser = new RecordingParser(threads);
+            final File txtFile = new File(workFolder, "large_t" + threads + ".txt");
+            parser.parse(document.getPath(), txtFile.getPath());
+            assertTrue("large.xml was not parsed in parallel on " + threads + " threads", parser.isParsedInParallel());
+            assertSameText("large.xml flattened on " + threads + " threads", expected, read(txtFile));
+        }
+    }
+
+    public void testDocumentTypeDeclaration() throws Exception {
+        final File workFolder = getWorkFolder("doctype");
+        final File document = new File(workFolder, "doctype.xml");
+        writeLargeDocument(document, true);
+        final RecordingParser parser = new RecordingParser(4);
+        final File txtFile = new File(workFolder, "doctype.txt");
+        parser.parse(document.getPath(), txtFile.getPath());
+        assertTrue("A document with a DTD was parsed in parallel", !parser.isParsedInParallel());
+        assertSameText("doctype.xml flattened sequentially", read(flatten(document, workFolder, ".sax.txt")),
+            read(txtFile));
+    }
+
+    private static ParseXML createParser(final int threads) {
+        final ParseXML parser = new ParseXML();
+        parser.setEngine(ParseXML.ENGINE_PARALLEL);
+        parser.setThreadCount(threads);
+        parser.setMinParallelFileSize(0L);
+
+        return parser;
+    }
+
+    /**
+     * Writes a document with a ClinicalData and a ReferenceData container of LARGE_GROUP_COUNT item groups each. Some
+     * item groups are followed by a comment or a CDATA section holding item group markup, which the byte scan finding
+     * the chunks must not take for an item group.
+     *
+     * @param file The document written
+     * @param withDocumentType Whether the document has a document type declaration, defining an entity used in values
+     * @throws IOException If the document could not be written
+     */
+    private static void writeLargeDocument(final File file, final boolean withDocumentType) throws IOException {
+        final Writer out = new BufferedWriter(new OutputStreamWriter(new FileOutputStream(file),
+            StandardCharsets.UTF_8));
+        try {
+            out.write("<?xml version=\"1.0\" encoding=\"UTF-8\"?>\n");
+            if (withDocumentType) {
+                out.write("<!DOCTYPE ODM [ <!ENTITY study \"LARGE\"> ]>\n");
+            }
+            out.write("<ODM xmlns=\"http://www.cdisc.org/ns/odm/v1.3\" ODMVersion=\"1.3.2\" FileType=\"Snapshot\"");
+            out.write(" xmlns:data=\"http://www.cdisc.org/ns/Dataset-XML/v1.0\" FileOID=\"TEST.LARGE\"");
+            out.write(" CreationDateTime=\"2022-01-01T00:00:00\" data:DatasetXMLVersion=\"1.0.0\">\n");
+            final String study = withDocumentType ? "&study;" : "LARGE";
+            writeContainer(out, "ClinicalData", "IG.CD", study);
+            writeContainer(out, "ReferenceData", "IG.RD", study);
+            out.write("</ODM>\n");
+        } finally {
+            out.close();
+        }
+    }
+
+    private static void writeContainer(final Writer out, final String name, final String itemGroupOID,
+        final String study) throws IOException {
+        out.write("<" + name + " StudyOID=\"TEST\" MetaDataVersionOID=\"MDV.TEST\">\n");
+        for (int i = 1; i <= LARGE_GROUP_COUNT; ++i) {
+            out.write("<ItemGroupData ItemGroupOID=\"" + itemGroupOID + "\" data:ItemGroupDataSeq=\"" + i + "\">\n");
+            // the parser limits entity expansions, so the entity, if any, is used once per container
+            out.write("<ItemData ItemOID=\"IT.STUDYID\" Value=\"" + ((i == 1) ? study : "LARGE") + "\"/>\n");
+            out.write("<ItemData ItemOID=\"IT.USUBJID\" Value=\"LARGE." + (i % 997) + "\"/>\n");
+            out.write("<ItemData ItemOID=\"IT.SEQ\" Value=\"" + i + "\"/>\n");
+            out.write("<ItemData ItemOID=\"IT.TERM\" Value=\"&lt;term&gt; &amp; &quot;" + i + "&quot;&#10;\"/>\n");
+            out.write("<ItemData ItemOID=\"IT.DTC\" Value=\"2022-01-01T00:00:00\"/>\n");
+            out.write("</ItemGroupData>\n");
+            if (i % 1000 == 0) {
+                out.write("<!-- </ItemGroupData><ItemGroupData ItemGroupOID=\"IG.COMMENT\"> -->\n");
+            } else if (i % 1000 == 500) {
+                out.write("<![CDATA[</ItemGroupData><ItemGroupData ItemGroupOID=\"IG.CDATA\">]]>\n");
+            }
+        }
+        out.write("</" + name + ">\n");
+    }
+
+    /**
+     * A parallel parser recording whether the last document was parsed in parallel.
+     */
+    private static final class RecordingParser extends ParallelRecordsParser {
+        private boolean parsedInParallel;
+
+        RecordingParser(final int threadCount) {
+            super(threadCount, 0L);
+        }
+
+        @Override
+        protected boolean parseInParallel(final File inputFile, final File outputFile) throws IOException {
+            this.parsedInParallel = super.parseInParallel(inputFile, outputFile);
+
+            return this.parsedInParallel;
+        }
+
+        boolean isParsedInParallel() {
+            return this.parsedInParallel;
+        }
+    }
+}
@@ -0,0 +1,136 @@
+package com.sas.ptc.datasetxml;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import com.sas.ptc.test.TestSupport;
+
+/**
+ * Copyright (c) 2022, SAS Institute Inc., Cary, NC, USA.  All Rights Reserved.
+ * SPDX-License-Identifier: Apache-2.0
+ *
+ * The base class of the tests flattening Dataset-XML documents with ParseXML: the samples of the standards tree, and
+ * the comparison of each engine with the SAX engine, whose flat files SAS has always read.
+ */
+public abstract class ParseXMLTestSupport extends TestSupport {
+
+    /**
+     * The folder of the Dataset-XML standard in the standards tree.
+     */
+    protected static final String STANDARD_FOLDER = "cstdatasetxml100";
+
+    private static final String[] SAMPLE_FOLDERS = { "sample/sourcexml", "sample/sourcexml_adam" };
+    private static final List<String> EXCLUDED = Arrays.asList("define.xml");
+
+    /**
+     * Gets the Dataset-XML samples of the standards tree, SDTM then ADaM, in a stable order.
+     *
+     * @return The samples
+     */
+    protected List<File> getDatasetSamples() {
+        final List<File> samples = new ArrayList<File>();
+        for (final String sampleFolder : SAMPLE_FOLDERS) {
+            final File[] files = new File(getSourceFolder(STANDARD_FOLDER), sampleFolder).listFiles();
+            assertTrue("No samples in " + sampleFolder, files != null);
+            Arrays.sort(files);
+            for (final File file : files) {
+                if (file.getName().endsWith(".xml") && !EXCLUDED.contains(file.getName())) {
+                    samples.add(file);
+                }
+            }
+        }
+
+        return samples;
+    }
+
+    /**
+     * Flattens a document with the SAX engine.
+     *
+     * @param xmlFile The document
+     * @param workFolder The folder receiving the flat file
+     * @param suffix The suffix added to the name of the document to name the flat file
+     * @return The flat file
+     */
+    protected static File flatten(final File xmlFile, final File workFolder, final String suffix) {
+        return flatten(new ParseXML(), xmlFile, workFolder, suffix);
+    }
+
+    /**
+     * Flattens a document.
+     *
+     * @param parser The parser, configured with the engine to use
+     * @param xmlFile The document
+     * @param workFolder The folder receiving the flat file
+     * @param suffix The suffix added to the name of the document to name the flat file
+     * @return The flat file
+     */
+    protected static File flatten(final ParseXML parser, final File xmlFile, final File workFolder,
+        final String suffix) {
+        final File txtFile = new File(workFolder, xmlFile.getName() + suffix);
+        parser.parseDatasetXML(xmlFile.getPath(), txtFile.getPath());
+        assertTrue("No flat file for " + xmlFile, txtFile.isFile());
+
+        return txtFile;
+    }
+
+    /**
+     * Flattens a document with a parser and with the SAX engine, and fails the test unless the flat files are the
+     * same.
+     *
+     * @param parser The parser, configured with the engine compared
+     * @param xmlFile The document
+     * @param workFolder The folder receiving the flat files
+     * @throws IOException If a flat file could not be read
+     */
+    protected static void assertSameAsSAX(final ParseXML parser, final File xmlFile, final File workFolder)
+        throws IOException {
+        final File saxFile = new File(workFolder, xmlFile.getName() + ".sax.txt");
+        if (!saxFile.isFile()) {
+            flatten(xmlFile, workFolder, ".sax.txt");
+        }
+        final String suffix = "." + parser.getEngine().toLowerCase() + "_t" + parser.getThreadCount() + ".txt";
+        assertSameText(xmlFile.getName() + " flattened by the " + parser.getEngine() + " engine", read(saxFile),
+            read(flatten(parser, xmlFile, workFolder, suffix)));
+    }
+
+    /**
+     * Writes a small document whose values hold character and entity references, line breaks and tabs, with a
+     * comment, a processing instruction and a CDATA section between the elements, and both a ClinicalData and a
+     * ReferenceData container.
+     *
+     * @param file The document written
+     * @throws IOException If the document could not be written
+     */
+    protected static void writeEscapedDocument(final File file) throws IOException {
+        final StringBuilder sb = new StringBuilder();
+        sb.append("<?xml version=\"1.0\" encoding=\"UTF-8\"?>\n");
+        sb.append("<ODM xmlns=\"http://www.cdisc.org/ns/odm/v1.3\"");
+        sb.append(" xmlns:data=\"http://www.cdisc.org/ns/Dataset-XML/v1.0\"");
+        sb.append(" ODMVersion=\"1.3.2\" FileType=\"Snapshot\" FileOID=\"TEST.ESCAPED\"");
+        sb.append(" CreationDateTime=\"2022-01-01T00:00:00\" data:DatasetXMLVersion=\"1.0.0\">\n");
+        sb.append("<!-- a comment <ItemGroupData> -->\n");
+        sb.append("<ClinicalData StudyOID=\"TEST\" MetaDataVersionOID=\"MDV.TEST\">\n");
+        for (int i = 1; i <= 3; ++i) {
+            sb.append("<ItemGroupData ItemGroupOID=\"IG.TEST\" data:ItemGroupDataSeq=\"").append(i).append("\">\n");
+            sb.append("<ItemData ItemOID=\"IT.A\" Value=\"&lt;a&gt; &amp; &quot;b&quot; &apos;c&apos;\"/>\n");
+            sb.append("<ItemData ItemOID=\"IT.B\" Value=\"line&#10;break&#9;tab &#x41;\"/>\n");
+            sb.append("<?test instruction?>\n");
+            sb.append("<ItemData ItemOID='IT.C' Value='raw\nline break and\ttab'/>\n");
+            sb.append("<![CDATA[ <ItemGroupData> ]]>\n");
+            sb.append("</ItemGroupData>\n");
+        }
+        sb.append("</ClinicalData>\n");
+        sb.append("<ReferenceData StudyOID=\"TEST\" MetaDataVersionOID=\"MDV.TEST\">\n");
+        sb.append("<ItemGroupData ItemGroupOID=\"IG.REF\" data:ItemGroupDataSeq=\"1\">\n");
+        sb.append("<ItemData ItemOID=\"IT.D\" Value=\"reference\"/>\n");
+        sb.append("</ItemGroupData>\n");
+        sb.append("</ReferenceData>\n");
+        sb.append("</ODM>\n");
+        Files.write(file.toPath(), sb.toString().getBytes(StandardCharsets.UTF_8));
+    }
+}
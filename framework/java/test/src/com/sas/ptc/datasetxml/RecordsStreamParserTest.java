@@ -0,0 +1,34 @@
+package com.sas.ptc.datasetxml;
+
+import java.io.File;
+
+/**
+ * Copyright (c) 2022, SAS Institute Inc., Cary, NC, USA.  All Rights Reserved.
+ * SPDX-License-Identifier: Apache-2.0
+ *
+ * Flattens Dataset-XML documents with the StAX engine of ParseXML, and compares the flat files with those of the SAX
+ * engine.
+ */
+public class RecordsStreamParserTest extends ParseXMLTestSupport {
+
+    public void testSamples() throws Exception {
+        final File workFolder = getWorkFolder("samples");
+        for (final File sample : getDatasetSamples()) {
+            assertSameAsSAX(createParser(), sample, workFolder);
+        }
+    }
+
+    public void testEscapedValues() throws Exception {
+        final File workFolder = getWorkFolder("escaped");
+        final File document = new File(workFolder, "escaped.xml");
+        writeEscapedDocument(document);
+        assertSameAsSAX(createParser(), document, workFolder);
+    }
+
+    private static ParseXML createParser() {
+        final ParseXML parser = new ParseXML();
+        parser.setEngine(ParseXML.ENGINE_STAX);
+
+        return parser;
+    }
+}
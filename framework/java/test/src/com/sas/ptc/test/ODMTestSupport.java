@@ -0,0 +1,211 @@
+package com.sas.ptc.test;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import javax.xml.parsers.DocumentBuilderFactory;
+import javax.xml.parsers.ParserConfigurationException;
+import javax.xml.transform.OutputKeys;
+import javax.xml.transform.Transformer;
+import javax.xml.transform.TransformerException;
+import javax.xml.transform.TransformerFactory;
+import javax.xml.transform.dom.DOMSource;
+import javax.xml.transform.stream.StreamResult;
+
+import org.w3c.dom.Document;
+import org.w3c.dom.Element;
+
+import com.sas.ptc.transform.xml.StandardXMLTransformer;
+import com.sas.ptc.transform.xml.StandardXMLTransformerParams;
+
+/**
+ * Copyright (c) 2022, SAS Institute Inc., Cary, NC, USA.  All Rights Reserved.
+ * SPDX-License-Identifier: Apache-2.0
+ *
+ * The base class of the tests importing the ODM samples of the standards tree with each import engine, and comparing
+ * the SAS XML written with that of the XSL engine.
+ */
+public abstract class ODMTestSupport extends TestSupport {
+
+    /**
+     * The ODM standards of the standards tree, as [folder, standardVersion].
+     */
+    protected static final String[][] ODM_STANDARDS = { { "cstodm130", "1.3.0" }, { "cstodm131", "1.3.1" },
+        { "cstodm132", "1.3.2" } };
+
+    /**
+     * The elements holding keys generated by the import: the engines may number them differently, so they are
+     * compared by order of first use.
+     */
+    private static final Pattern GENERATED_KEY = Pattern
+        .compile("(<(?:OID|FK_\\w+|ParentKey|GrandParentKey|GeneratedID)>)([NC]\\d+(?:\\.\\d+)?)<");
+
+    /**
+     * Writes a transform registry listing an ODM version, imported with the given engine.
+     *
+     * @param file The registry file
+     * @param standardVersion The ODM version
+     * @param importEngine The import engine, as in StandardTransformInfo
+     * @throws ParserConfigurationException If JAXP is not configured. Should never happen.
+     * @throws TransformerException If the registry could not be written
+     */
+    protected static void writeAvailableTransforms(final File file, final String standardVersion,
+        final String importEngine) throws ParserConfigurationException, TransformerException {
+        final Document doc = DocumentBuilderFactory.newInstance().newDocumentBuilder().newDocument();
+        final Element root = doc.createElement("AvailableTransforms");
+        doc.appendChild(root);
+        final Element transform = doc.createElement("Transform");
+        root.appendChild(transform);
+        appendValue(transform, "StandardName", "ODM");
+        appendValue(transform, "StandardVersion", standardVersion);
+        appendValue(transform, "ImportXSL", "ODM/" + standardVersion + "/import/Root.xsl");
+        appendValue(transform, "ExportXSL", "ODM/" + standardVersion + "/export/Root.xsl");
+        appendValue(transform, "Schema",
+            "cdisc-odm-" + standardVersion + "/ODM" + standardVersion.replace('.', '-') + ".xsd");
+        appendValue(transform, "ImportEngine", importEngine);
+
+        final Transformer transformer = TransformerFactory.newInstance().newTransformer();
+        transformer.setOutputProperty(OutputKeys.INDENT, "yes");
+        transformer.transform(new DOMSource(doc), new StreamResult(file));
+    }
+
+    private static void appendValue(final Element parent, final String name, final String value) {
+        final Element elem = parent.getOwnerDocument().createElement(name);
+        elem.appendChild(parent.getOwnerDocument().createTextNode(value));
+        parent.appendChild(elem);
+    }
+
+    /**
+     * Creates the parameters of the import of a document.
+     *
+     * @param standardFolder The folder of the standard in the standards tree
+     * @param standardVersion The ODM version
+     * @param availableTransforms The transform registry, choosing the engine
+     * @param source The document imported
+     * @param output The SAS XML file written
+     * @return The parameters
+     */
+    protected StandardXMLTransformerParams createImportParams(final String standardFolder,
+        final String standardVersion, final File availableTransforms, final File source, final File output) {
+        final File sourceFolder = getSourceFolder(standardFolder);
+        final StandardXMLTransformerParams params = new StandardXMLTransformerParams();
+        params.setImportOrExport(StandardXMLTransformerParams.IMPORT);
+        params.setStandardName("ODM");
+        params.setStandardVersion(standardVersion);
+        params.setXslBasePath(new File(sourceFolder, "xsl-repository").getAbsolutePath());
+        params.setSchemaBasePath(new File(sourceFolder, "schema-repository").getAbsolutePath());
+        params.setAvailableTransformsFilePath(availableTransforms.getAbsolutePath());
+        params.setStandardXMLPath(source.getAbsolutePath());
+        params.setSasXMLPath(output.getAbsolutePath());
+        params.setLogFilePath(new File(output.getParentFile(), output.getName() + ".log").getAbsolutePath());
+        params.setCreatingFoldersForOutput(true);
+        // the extended samples hold vendor extensions the schemas reject; only the transform is compared
+        params.setValidatingStandardXML(false);
+
+        return params;
+    }
+
+    /**
+     * Creates the parameters of the export of a SAS XML file, with a fixed creation date so that the outputs of two
+     * exports can be compared.
+     *
+     * @param standardFolder The folder of the standard in the standards tree
+     * @param standardVersion The ODM version
+     * @param availableTransforms The transform registry
+     * @param source The SAS XML file exported
+     * @param output The document written
+     * @return The parameters
+     */
+    protected StandardXMLTransformerParams createExportParams(final String standardFolder,
+        final String standardVersion, final File availableTransforms, final File source, final File output) {
+        final StandardXMLTransformerParams params = createImportParams(standardFolder, standardVersion,
+            availableTransforms, source, output);
+        params.setImportOrExport(StandardXMLTransformerParams.EXPORT);
+        params.setStandardXMLPath(output.getAbsolutePath());
+        params.setSasXMLPath(source.getAbsolutePath());
+        params.setOverridingCreationDate(true);
+
+        return params;
+    }
+
+    /**
+     * Runs an import, failing the test if it logged an error or wrote no output.
+     *
+     * @param params The parameters of the import
+     * @throws Exception If the import failed
+     */
+    protected static void runImport(final StandardXMLTransformerParams params) throws Exception {
+        final StandardXMLTransformer transformer = StandardXMLTransformer.createTransformer(params);
+        transformer.exec();
+        assertEquals("Errors importing " + params.getStandardXMLPath() + ", see " + params.getLogFilePath(), 0,
+            transformer.getErrorCount());
+        assertTrue("No output importing " + params.getStandardXMLPath(), transformer.isOutputProduced());
+    }
+
+    /**
+     * Reads a SAS XML file written by an import, with the generated keys numbered by order of first use.
+     *
+     * @param file The SAS XML file
+     * @return The normalized content
+     * @throws IOException If the file could not be read
+     */
+    protected static String readNormalized(final File file) throws IOException {
+        final Map<String, String> keys = new HashMap<String, String>();
+        final Matcher m = GENERATED_KEY.matcher(read(file).replace("\r\n", "\n"));
+        final StringBuffer sb = new StringBuffer();
+        while (m.find()) {
+            String key = keys.get(m.group(2));
+            if (key == null) {
+                key = "ID" + keys.size();
+                keys.put(m.group(2), key);
+            }
+            m.appendReplacement(sb, Matcher.quoteReplacement(m.group(1) + key + "<"));
+        }
+        m.appendTail(sb);
+
+        return sb.toString();
+    }
+
+    /**
+     * Imports a document with the XSL engine and with another, and fails the test unless both write the same SAS XML,
+     * generated keys aside.
+     *
+     * @param standardFolder The folder of the standard in the standards tree
+     * @param standardVersion The ODM version
+     * @param source The document imported
+     * @param workFolder The folder receiving the registries and outputs
+     * @param importEngine The engine compared with the XSL engine
+     * @param chunkSubjects The importChunkSubjects parameter; 0 for the default
+     * @param threads The importThreads parameter; 0 for the default
+     * @throws Exception If an import failed
+     */
+    protected void assertSameImport(final String standardFolder, final String standardVersion, final File source,
+        final File workFolder, final String importEngine, final int chunkSubjects, final int threads)
+        throws Exception {
+        final String name = source.getName().replaceFirst("\\.xml$", "");
+        final File xslOutput = new File(workFolder, name + "_xsl.xml");
+        if (!xslOutput.isFile()) {
+            final File xslTransforms = new File(workFolder, "availabletransforms_xsl.xml");
+            writeAvailableTransforms(xslTransforms, standardVersion, "xsl");
+            runImport(createImportParams(standardFolder, standardVersion, xslTransforms, source, xslOutput));
+        }
+
+        final String suffix = importEngine + ((chunkSubjects > 0) ? "_" + chunkSubjects : "")
+            + ((threads > 0) ? "_t" + threads : "");
+        final File transforms = new File(workFolder, "availabletransforms_" + importEngine + ".xml");
+        writeAvailableTransforms(transforms, standardVersion, importEngine);
+        final File output = new File(workFolder, name + "_" + suffix + ".xml");
+        final StandardXMLTransformerParams params = createImportParams(standardFolder, standardVersion, transforms,
+            source, output);
+        params.setImportChunkSubjects(chunkSubjects);
+        params.setImportThreads(threads);
+        runImport(params);
+
+        assertSameText(source.getName() + " (ODM " + standardVersion + ") imported by the " + suffix + " engine",
+            readNormalized(xslOutput), readNormalized(output));
+    }
+}
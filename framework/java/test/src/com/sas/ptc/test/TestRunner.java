@@ -0,0 +1,173 @@
+package com.sas.ptc.test;
+
+import java.io.File;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.regex.Pattern;
+import java.util.regex.PatternSyntaxException;
+
+/**
+ * Copyright (c) 2022, SAS Institute Inc., Cary, NC, USA.  All Rights Reserved.
+ * SPDX-License-Identifier: Apache-2.0
+ *
+ * Runs the tests of the toolkit, without any library beyond those of the toolkit itself. A test class is a concrete
+ * class whose name ends in Test, with a public constructor taking no arguments; each of its public methods taking no
+ * arguments whose name starts with test is a test, run on a new instance. A test fails if it throws, typically an
+ * AssertionError from one of the assertions of TestSupport. The runner exits with status 1 if any test failed.
+ */
+public final class TestRunner {
+
+    private static final String CLASS_SUFFIX = ".class";
+    private static final String TEST_CLASS_SUFFIX = "Test";
+    private static final String TEST_METHOD_PREFIX = "test";
+
+    private TestRunner() {
+    }
+
+    /**
+     * Runs the tests.
+     *
+     * @param args -classes folder [-include regex]; the folder holds the compiled test classes, and only the tests
+     *            whose class and method name, as in com.sas.ptc.test.ExampleTest.testName, match the expression are
+     *            run
+     */
+    public static void main(final String[] args) {
+        File classesFolder = null;
+        Pattern include = Pattern.compile(".*");
+        boolean valid = true;
+        try {
+            for (int i = 0; i < args.length; ++i) {
+                final boolean hasValue = i + 1 < args.length;
+                if ("-classes".equals(args[i]) && hasValue) {
+                    classesFolder = new File(args[++i]);
+                } else if ("-include".equals(args[i]) && hasValue) {
+                    include = Pattern.compile(args[++i]);
+                } else {
+                    valid = false;
+                }
+            }
+        } catch (final PatternSyntaxException e) {
+            valid = false;
+        }
+        if (!valid || (classesFolder == null) || !classesFolder.isDirectory()) {
+            System.err.println("Usage: java TestRunner -classes folder [-include regex]");
+            System.exit(1);
+        }
+
+        int testCount = 0;
+        int failureCount = 0;
+        final long startTime = System.currentTimeMillis();
+        for (final Class<?> testClass : findTestClasses(classesFolder)) {
+            for (final Method method : getTestMethods(testClass)) {
+                final String id = testClass.getName() + "." + method.getName();
+                if (!include.matcher(id).matches()) {
+                    continue;
+                }
+                ++testCount;
+                final Throwable failure = runTest(testClass, method);
+                if (failure == null) {
+                    System.out.println("PASSED " + id);
+                } else {
+                    ++failureCount;
+                    System.out.println("FAILED " + id + ": " + failure);
+                    failure.printStackTrace(System.out);
+                }
+            }
+        }
+
+        System.out.println(testCount + " tests run, " + failureCount + " failed, in "
+            + (System.currentTimeMillis() - startTime) + " ms.");
+        System.exit(((failureCount == 0) && (testCount > 0)) ? 0 : 1);
+    }
+
+    /**
+     * Runs a single test on a new instance of its class.
+     *
+     * @param testClass The test class
+     * @param method The test method
+     * @return The failure of the test, or null if it passed
+     */
+    private static Throwable runTest(final Class<?> testClass, final Method method) {
+        try {
+            method.invoke(testClass.getConstructor().newInstance());
+            return null;
+        } catch (final InvocationTargetException e) {
+            return e.getCause();
+        } catch (final Exception e) {
+            return e;
+        }
+    }
+
+    /**
+     * Finds the test classes under a folder of compiled classes, sorted by name.
+     *
+     * @param classesFolder The root folder of the compiled classes
+     * @return The test classes
+     */
+    private static List<Class<?>> findTestClasses(final File classesFolder) {
+        final List<String> classNames = new ArrayList<String>();
+        listClassNames(classesFolder, "", classNames);
+        Collections.sort(classNames);
+
+        final List<Class<?>> testClasses = new ArrayList<Class<?>>();
+        for (final String className : classNames) {
+            if (!className.endsWith(TEST_CLASS_SUFFIX)) {
+                continue;
+            }
+            try {
+                final Class<?> candidate = Class.forName(className);
+                if (!Modifier.isAbstract(candidate.getModifiers()) && Modifier.isPublic(candidate.getModifiers())) {
+                    testClasses.add(candidate);
+                }
+            } catch (final ClassNotFoundException e) {
+                System.out.println("FAILED " + className + ": " + e);
+            }
+        }
+
+        return testClasses;
+    }
+
+    private static void listClassNames(final File folder, final String packagePrefix, final List<String> classNames) {
+        final File[] children = folder.listFiles();
+        if (children == null) {
+            return;
+        }
+        for (final File child : children) {
+            final String name = child.getName();
+            if (child.isDirectory()) {
+                listClassNames(child, packagePrefix + name + ".", classNames);
+            } else if (name.endsWith(CLASS_SUFFIX) && (name.indexOf('$') < 0)) {
+                classNames.add(packagePrefix + name.substring(0, name.length() - CLASS_SUFFIX.length()));
+            }
+        }
+    }
+
+    /**
+     * Gets the test methods of a class, sorted by name so that the order of a run is stable.
+     *
+     * @param testClass The test class
+     * @return The test methods
+     */
+    private static List<Method> getTestMethods(final Class<?> testClass) {
+        final List<Method> methods = new ArrayList<Method>();
+        for (final Method method : testClass.getMethods()) {
+            if (method.getName().startsWith(TEST_METHOD_PREFIX) && (method.getParameterTypes().length == 0)
+                && !Modifier.isStatic(method.getModifiers())) {
+                methods.add(method);
+            }
+        }
+        Collections.sort(methods, new Comparator<Method>() {
+            @Override
+            public int compare(final Method a, final Method b) {
+                return a.getName().compareTo(b.getName());
+            }
+        });
+
+        return methods;
+    }
+}
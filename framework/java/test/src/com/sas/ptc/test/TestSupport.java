@@ -0,0 +1,203 @@
+package com.sas.ptc.test;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Copyright (c) 2022, SAS Institute Inc., Cary, NC, USA.  All Rights Reserved.
+ * SPDX-License-Identifier: Apache-2.0
+ *
+ * The base class of the tests run by TestRunner: assertions, and the folders of the standards tree and of the files the
+ * tests write, given by the test.standards and test.work system properties.
+ */
+public abstract class TestSupport {
+
+    /**
+     * The system property giving the standards folder of the source tree.
+     */
+    public static final String STANDARDS_PROPERTY = "test.standards";
+
+    /**
+     * The system property giving the throwaway folder under which the tests write their files.
+     */
+    public static final String WORK_PROPERTY = "test.work";
+
+    /**
+     * The work folder, under the temporary folder, used unless WORK_PROPERTY gives another.
+     */
+    private static final String DEFAULT_WORK_FOLDER = "sas-ptc-test-work";
+
+    /**
+     * The folder of the sample documents of a standard, relative to its source folder.
+     */
+    protected static final String SAMPLE_SOURCE_FOLDER = "sample/sourcexml";
+
+    private static final String XML_EXTENSION = ".xml";
+
+    /**
+     * Gets the standards folder of the source tree.
+     *
+     * @return The standards folder
+     */
+    protected File getStandardsFolder() {
+        return new File(System.getProperty(STANDARDS_PROPERTY, "../../standards")).getAbsoluteFile();
+    }
+
+    /**
+     * Gets the source folder of a standard.
+     *
+     * @param standardFolder The folder of the standard in the standards tree, such as cstodm132
+     * @return The source folder
+     */
+    protected File getSourceFolder(final String standardFolder) {
+        return new File(new File(getStandardsFolder(), standardFolder), "source");
+    }
+
+    /**
+     * Gets the sample documents of a standard, in a stable order.
+     *
+     * @param standardFolder The folder of the standard in the standards tree
+     * @return The XML files of its sample source folder
+     */
+    protected List<File> getSamples(final String standardFolder) {
+        final File[] files = new File(getSourceFolder(standardFolder), SAMPLE_SOURCE_FOLDER).listFiles();
+        assertTrue("No samples in " + standardFolder, (files != null) && (files.length > 0));
+        Arrays.sort(files);
+
+        final List<File> samples = new ArrayList<File>();
+        for (final File file : files) {
+            if (file.isFile() && file.getName().toLowerCase(Locale.ROOT).endsWith(XML_EXTENSION)) {
+                samples.add(file);
+            }
+        }
+
+        return samples;
+    }
+
+    /**
+     * Gets an empty folder for the files written by a test, under the work folder.
+     *
+     * @param name The name of the folder, unique within the test class
+     * @return The folder, created if need be and emptied otherwise
+     * @throws IOException If the folder could not be emptied or created
+     */
+    protected File getWorkFolder(final String name) throws IOException {
+        final File workFolder = new File(System.getProperty(WORK_PROPERTY,
+            new File(System.getProperty("java.io.tmpdir"), DEFAULT_WORK_FOLDER).getPath())).getAbsoluteFile();
+        final File folder = new File(new File(workFolder, getClass().getSimpleName()), name);
+        delete(folder);
+        if (!folder.mkdirs()) {
+            throw new IOException("Unable to create the folder " + folder);
+        }
+
+        return folder;
+    }
+
+    private static void delete(final File file) throws IOException {
+        final File[] children = file.listFiles();
+        if (children != null) {
+            for (final File child : children) {
+                delete(child);
+            }
+        }
+        Files.deleteIfExists(file.toPath());
+    }
+
+    /**
+     * Copies a folder and its content, such as a repository of the standards tree that a test edits.
+     *
+     * @param source The folder copied
+     * @param target The copy, created
+     * @return The copy
+     * @throws IOException If a file could not be copied
+     */
+    protected static File copyFolder(final File source, final File target) throws IOException {
+        Files.createDirectories(target.toPath());
+        final File[] children = source.listFiles();
+        if (children != null) {
+            for (final File child : children) {
+                if (child.isDirectory()) {
+                    copyFolder(child, new File(target, child.getName()));
+                } else {
+                    Files.copy(child.toPath(), new File(target, child.getName()).toPath());
+                }
+            }
+        }
+
+        return target;
+    }
+
+    /**
+     * Reads a UTF-8 text file.
+     *
+     * @param file The file
+     * @return The content of the file
+     * @throws IOException If the file could not be read
+     */
+    protected static String read(final File file) throws IOException {
+        return new String(Files.readAllBytes(file.toPath()), StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Fails the test.
+     *
+     * @param message The reason
+     */
+    protected static void fail(final String message) {
+        throw new AssertionError(message);
+    }
+
+    /**
+     * Fails the test unless a condition holds.
+     *
+     * @param message The reason of the failure
+     * @param condition The condition
+     */
+    protected static void assertTrue(final String message, final boolean condition) {
+        if (!condition) {
+            fail(message);
+        }
+    }
+
+    /**
+     * Fails the test unless two values are equal.
+     *
+     * @param message The reason of the failure
+     * @param expected The expected value
+     * @param actual The actual value
+     */
+    protected static void assertEquals(final String message, final Object expected, final Object actual) {
+        if ((expected == null) ? (actual != null) : !expected.equals(actual)) {
+            fail(message + ": expected <" + expected + "> but was <" + actual + ">");
+        }
+    }
+
+    /**
+     * Fails the test unless two texts are equal, reporting the first line where they differ.
+     *
+     * @param message The reason of the failure
+     * @param expected The expected text
+     * @param actual The actual text
+     */
+    protected static void assertSameText(final String message, final String expected, final String actual) {
+        if (expected.equals(actual)) {
+            return;
+        }
+        final String[] expectedLines = expected.split("\n", -1);
+        final String[] actualLines = actual.split("\n", -1);
+        int line = 0;
+        while ((line < expectedLines.length) && (line < actualLines.length)
+            && expectedLines[line].equals(actualLines[line])) {
+            ++line;
+        }
+        fail(message + ": line " + (line + 1) + " differs; expected <"
+            + ((line < expectedLines.length) ? expectedLines[line].trim() : "end of text") + "> but was <"
+            + ((line < actualLines.length) ? actualLines[line].trim() : "end of text") + ">");
+    }
+}
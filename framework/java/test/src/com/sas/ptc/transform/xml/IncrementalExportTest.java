@@ -0,0 +1,104 @@
+package com.sas.ptc.transform.xml;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+
+import com.sas.ptc.test.ODMTestSupport;
+import com.sas.ptc.transform.xml.log.Log;
+
+/**
+ * Copyright (c) 2022, SAS Institute Inc., Cary, NC, USA.  All Rights Reserved.
+ * SPDX-License-Identifier: Apache-2.0
+ *
+ * Runs an incremental export of the ODM sample again and again: it is skipped while nothing changes, or only a
+ * parameter that cannot change the output, and is run again once the SAS XML, a stylesheet, a parameter changing the
+ * output, or the output itself changes.
+ */
+public class IncrementalExportTest extends ODMTestSupport {
+
+    private static final String SKIPPED = "The export was skipped";
+
+    public void testIncrementalExport() throws Exception {
+        final String[] standard = ODM_STANDARDS[2];
+        final File workFolder = getWorkFolder("incremental");
+        final File transforms = new File(workFolder, "availabletransforms_xsl.xml");
+        writeAvailableTransforms(transforms, standard[1], "xsl");
+        final File library = new File(workFolder, "library.xml");
+        runImport(createImportParams(standard[0], standard[1], transforms,
+            new File(new File(getSourceFolder(standard[0]), SAMPLE_SOURCE_FOLDER), "odm_sample.xml"), library));
+        final File xslFolder = copyFolder(new File(getSourceFolder(standard[0]), "xsl-repository"),
+            new File(workFolder, "xsl-repository"));
+
+        final File output = new File(workFolder, "odm_export.xml");
+        final StandardXMLTransformerParams params = createExportParams(standard[0], standard[1], transforms, library,
+            output);
+        params.setXslBasePath(xslFolder.getAbsolutePath());
+        params.setLogLevel(Log.LOG_LEVEL_INFO);
+        params.setIncrementalExport(true);
+
+        assertRun("The first export", params, "no export was recorded");
+        assertTrue("No manifest was written", new File(output.getPath() + StandardXMLExporter.MANIFEST_FILE_SUFFIX)
+            .isFile());
+        final String exported = read(output);
+        assertSkipped("An unchanged export", params);
+
+        params.setExportThreads(2);
+        params.setValidationCachePath(new File(workFolder, "cache").getAbsolutePath());
+        assertSkipped("An export changing only parameters that cannot change the output", params);
+
+        params.setHeaderCommentText("Another header comment");
+        assertRun("An export changing the header comment", params, "its parameters changed");
+        assertTrue("The header comment is not in the output", read(output).contains("Another header comment"));
+        assertSkipped("An export with the same header comment", params);
+
+        write(library, read(library).replace("CST sample study", "CST edited study"));
+        assertRun("An export of edited SAS XML", params, "its source changed");
+        assertTrue("The edit is not in the output", read(output).contains("CST edited study"));
+        assertSkipped("An export of the same SAS XML", params);
+
+        final File studyStylesheet = new File(xslFolder, "ODM/" + standard[1] + "/export/Study.xsl");
+        write(studyStylesheet, read(studyStylesheet) + "<!-- edited -->\n");
+        assertRun("An export with an edited stylesheet", params, "its stylesheet changed");
+
+        write(output, exported);
+        assertRun("An export whose output was overwritten", params, "its output changed");
+        assertTrue("The output was not exported again", !read(output).equals(exported));
+    }
+
+    private static void assertSkipped(final String message, final StandardXMLTransformerParams params)
+        throws Exception {
+        final File output = new File(params.getStandardXMLPath());
+        final long lastModified = output.lastModified() - 10000L;
+        assertTrue("Cannot touch " + output, output.setLastModified(lastModified));
+        final StandardXMLTransformer transformer = exec(params);
+        assertTrue(message + " was not skipped", read(new File(params.getLogFilePath())).contains(SKIPPED));
+        assertTrue(message + " produced no output", transformer.isOutputProduced());
+        assertEquals(message + " wrote the output", Long.valueOf(lastModified), Long.valueOf(output.lastModified()));
+    }
+
+    private static void assertRun(final String message, final StandardXMLTransformerParams params,
+        final String reason) throws Exception {
+        final StandardXMLTransformer transformer = exec(params);
+        final String log = read(new File(params.getLogFilePath()));
+        assertTrue(message + " was skipped", !log.contains(SKIPPED));
+        assertTrue(message + " was not run " + reason, log.contains("The export is run, as " + reason));
+        assertEquals(message + " logged errors", Integer.valueOf(0), Integer.valueOf(transformer.getErrorCount()));
+        assertTrue(message + " produced no output", transformer.isOutputProduced());
+    }
+
+    private static StandardXMLTransformer exec(final StandardXMLTransformerParams params) throws Exception {
+        final StandardXMLTransformer transformer = StandardXMLTransformer.createTransformer(params);
+        transformer.exec();
+
+        return transformer;
+    }
+
+    private static void write(final File file, final String content) throws IOException {
+        final long lastModified = file.lastModified();
+        Files.write(file.toPath(), content.getBytes(StandardCharsets.UTF_8));
+        // a stylesheet is compiled again only if its modification time moves, whatever the file system resolution
+        assertTrue("Cannot touch " + file, file.setLastModified(lastModified + 2000L));
+    }
+}
@@ -0,0 +1,94 @@
+package com.sas.ptc.transform.xml;
+
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+
+import com.sas.ptc.test.ODMTestSupport;
+
+/**
+ * Copyright (c) 2022, SAS Institute Inc., Cary, NC, USA.  All Rights Reserved.
+ * SPDX-License-Identifier: Apache-2.0
+ *
+ * Exports the SAS XML of the ODM sample, validating the output as it is written and in a separate pass: both write the
+ * same document and log the same errors, whether the output is valid or not. With failOnValidationError, validating
+ * inline leaves no output, not even a temporary file, when the output is not valid.
+ */
+public class StandardXMLExporterValidationTest extends ODMTestSupport {
+
+    public void testInlineValidDocument() throws Exception {
+        final File workFolder = getWorkFolder("valid");
+        final File library = importSample(workFolder);
+        final StandardXMLTransformer separate = exec(createValidatingParams(workFolder, library, "separate.xml"));
+        assertEquals("Errors", Integer.valueOf(0), Integer.valueOf(separate.getErrorCount()));
+
+        final StandardXMLTransformerParams params = createValidatingParams(workFolder, library, "inline.xml");
+        params.setValidatingInline(true);
+        params.setFailOnValidationError(true);
+        final StandardXMLTransformer transformer = exec(params);
+        assertEquals("Errors", Integer.valueOf(0), Integer.valueOf(transformer.getErrorCount()));
+        assertTrue("A valid document was not exported", transformer.isOutputProduced());
+        assertSameText("ODM validated inline", read(new File(workFolder, "separate.xml")),
+            read(new File(workFolder, "inline.xml")));
+    }
+
+    public void testInlineInvalidDocument() throws Exception {
+        final File workFolder = getWorkFolder("invalid");
+        final File library = importSample(workFolder);
+        Files.write(library.toPath(), read(library).replace("<FileType>Snapshot</FileType>",
+            "<FileType>Invalid</FileType>").getBytes(StandardCharsets.UTF_8));
+        final StandardXMLTransformer separate = exec(createValidatingParams(workFolder, library, "separate.xml"));
+        assertTrue("No error logged", separate.getErrorCount() > 0);
+
+        final StandardXMLTransformerParams params = createValidatingParams(workFolder, library, "inline.xml");
+        params.setValidatingInline(true);
+        final StandardXMLTransformer transformer = exec(params);
+        assertEquals("Errors", Integer.valueOf(separate.getErrorCount()),
+            Integer.valueOf(transformer.getErrorCount()));
+        assertTrue("The invalid document was not exported", transformer.isOutputProduced());
+        assertSameText("ODM validated inline", read(new File(workFolder, "separate.xml")),
+            read(new File(workFolder, "inline.xml")));
+
+        final StandardXMLTransformerParams failingParams = createValidatingParams(workFolder, library, "failed.xml");
+        failingParams.setValidatingInline(true);
+        failingParams.setFailOnValidationError(true);
+        final StandardXMLTransformer failed = exec(failingParams);
+        assertEquals("Errors", Integer.valueOf(separate.getErrorCount()), Integer.valueOf(failed.getErrorCount()));
+        assertTrue("The invalid document was exported", !failed.isOutputProduced());
+        assertTrue("The invalid document was exported", !new File(workFolder, "failed.xml").exists());
+        final String[] tempFiles = workFolder.list((dir, name) -> name.endsWith(".tmp"));
+        assertEquals("Temporary files left", Integer.valueOf(0), Integer.valueOf(tempFiles.length));
+    }
+
+    /**
+     * Imports the ODM sample, to have SAS XML to export.
+     */
+    private File importSample(final File workFolder) throws Exception {
+        final String[] standard = ODM_STANDARDS[2];
+        final File transforms = new File(workFolder, "availabletransforms_xsl.xml");
+        writeAvailableTransforms(transforms, standard[1], "xsl");
+        final File library = new File(workFolder, "library.xml");
+        runImport(createImportParams(standard[0], standard[1], transforms,
+            new File(new File(getSourceFolder(standard[0]), SAMPLE_SOURCE_FOLDER), "odm_sample.xml"), library));
+
+        return library;
+    }
+
+    private StandardXMLTransformerParams createValidatingParams(final File workFolder, final File library,
+        final String outputName) {
+        final String[] standard = ODM_STANDARDS[2];
+        final StandardXMLTransformerParams params = createExportParams(standard[0], standard[1],
+            new File(workFolder, "availabletransforms_xsl.xml"), library, new File(workFolder, outputName));
+        params.setValidatingStandardXML(true);
+        params.setValidatingInline(false);
+
+        return params;
+    }
+
+    private static StandardXMLTransformer exec(final StandardXMLTransformerParams params) throws Exception {
+        final StandardXMLTransformer transformer = StandardXMLTransformer.createTransformer(params);
+        transformer.exec();
+
+        return transformer;
+    }
+}
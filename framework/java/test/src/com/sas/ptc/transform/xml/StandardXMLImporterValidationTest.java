@@ -0,0 +1,149 @@
+package com.sas.ptc.transform.xml;
+
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+
+import com.sas.ptc.test.ODMTestSupport;
+
+/**
+ * Copyright (c) 2022, SAS Institute Inc., Cary, NC, USA.  All Rights Reserved.
+ * SPDX-License-Identifier: Apache-2.0
+ *
+ * Imports an ODM sample made invalid, validating it in a separate pass: the transform still runs by default, but not
+ * with failOnValidationError, and maxValidationErrors stops the validation after that many errors. Validating in the
+ * same pass as the transform writes the same SAS XML and logs the same errors, and with failOnValidationError leaves
+ * no output, not even a temporary file.
+ */
+public class StandardXMLImporterValidationTest extends ODMTestSupport {
+
+    /**
+     * The number of elements of the sample given an attribute the schema rejects.
+     */
+    private static final int INVALID_ELEMENT_COUNT = 221;
+
+    public void testValidDocument() throws Exception {
+        final File workFolder = getWorkFolder("valid");
+        final StandardXMLTransformerParams params = createValidatingParams(workFolder, getSample(), "valid.xml");
+        params.setFailOnValidationError(true);
+        final StandardXMLTransformer transformer = exec(params);
+        assertEquals("Errors", Integer.valueOf(0), Integer.valueOf(transformer.getErrorCount()));
+        assertTrue("A valid document was not imported", transformer.isOutputProduced());
+    }
+
+    public void testInvalidDocumentImported() throws Exception {
+        final File workFolder = getWorkFolder("imported");
+        final StandardXMLTransformerParams params = createValidatingParams(workFolder, writeInvalidSample(workFolder),
+            "imported.xml");
+        assertTrue("failOnValidationError is set by default", !params.getFailOnValidationError());
+        final StandardXMLTransformer transformer = exec(params);
+        assertEquals("Errors", Integer.valueOf(INVALID_ELEMENT_COUNT), Integer.valueOf(transformer.getErrorCount()));
+        assertTrue("The invalid document was not imported", transformer.isOutputProduced());
+        assertTrue("No output", new File(workFolder, "imported.xml").isFile());
+    }
+
+    public void testFailOnValidationError() throws Exception {
+        final File workFolder = getWorkFolder("failed");
+        final StandardXMLTransformerParams params = createValidatingParams(workFolder, writeInvalidSample(workFolder),
+            "failed.xml");
+        params.setFailOnValidationError(true);
+        final StandardXMLTransformer transformer = exec(params);
+        assertTrue("No error logged", transformer.getErrorCount() > 0);
+        assertTrue("The invalid document was imported", !transformer.isOutputProduced());
+        assertTrue("The invalid document was imported", !new File(workFolder, "failed.xml").exists());
+    }
+
+    public void testMaxValidationErrors() throws Exception {
+        final File workFolder = getWorkFolder("maxerrors");
+        final StandardXMLTransformerParams params = createValidatingParams(workFolder, writeInvalidSample(workFolder),
+            "maxerrors.xml");
+        params.setMaxValidationErrors(5);
+        params.setFailOnValidationError(true);
+        final StandardXMLTransformer transformer = exec(params);
+        // the five errors and the fatal error telling why the validation stopped
+        assertEquals("Errors", Integer.valueOf(6), Integer.valueOf(transformer.getErrorCount()));
+        assertTrue("The invalid document was imported", !transformer.isOutputProduced());
+        assertTrue("The reason the validation stopped was not logged",
+            read(new File(params.getLogFilePath())).contains("Validation stopped after 5 errors"));
+    }
+
+    public void testInlineValidDocument() throws Exception {
+        final File workFolder = getWorkFolder("inlinevalid");
+        final StandardXMLTransformerParams params = createValidatingParams(workFolder, getSample(), "separate.xml");
+        params.setFailOnValidationError(true);
+        assertEquals("Errors", Integer.valueOf(0), Integer.valueOf(exec(params).getErrorCount()));
+
+        final StandardXMLTransformerParams inlineParams = createValidatingParams(workFolder, getSample(),
+            "inline.xml");
+        inlineParams.setValidatingInline(true);
+        inlineParams.setFailOnValidationError(true);
+        final StandardXMLTransformer transformer = exec(inlineParams);
+        assertEquals("Errors", Integer.valueOf(0), Integer.valueOf(transformer.getErrorCount()));
+        assertTrue("A valid document was not imported", transformer.isOutputProduced());
+        assertSameText("SAS XML validated inline", readNormalized(new File(workFolder, "separate.xml")),
+            readNormalized(new File(workFolder, "inline.xml")));
+    }
+
+    public void testInlineInvalidDocumentImported() throws Exception {
+        final File workFolder = getWorkFolder("inlineimported");
+        final File invalid = writeInvalidSample(workFolder);
+        exec(createValidatingParams(workFolder, invalid, "separate.xml"));
+
+        final StandardXMLTransformerParams params = createValidatingParams(workFolder, invalid, "inline.xml");
+        params.setValidatingInline(true);
+        final StandardXMLTransformer transformer = exec(params);
+        assertEquals("Errors", Integer.valueOf(INVALID_ELEMENT_COUNT), Integer.valueOf(transformer.getErrorCount()));
+        assertTrue("The invalid document was not imported", transformer.isOutputProduced());
+        assertSameText("SAS XML validated inline", readNormalized(new File(workFolder, "separate.xml")),
+            readNormalized(new File(workFolder, "inline.xml")));
+    }
+
+    public void testInlineFailOnValidationError() throws Exception {
+        final File workFolder = getWorkFolder("inlinefailed");
+        final StandardXMLTransformerParams params = createValidatingParams(workFolder, writeInvalidSample(workFolder),
+            "failed.xml");
+        params.setValidatingInline(true);
+        params.setFailOnValidationError(true);
+        final StandardXMLTransformer transformer = exec(params);
+        assertEquals("Errors", Integer.valueOf(INVALID_ELEMENT_COUNT), Integer.valueOf(transformer.getErrorCount()));
+        assertTrue("The invalid document was imported", !transformer.isOutputProduced());
+        assertTrue("The invalid document was imported", !new File(workFolder, "failed.xml").exists());
+        final String[] tempFiles = workFolder.list((dir, name) -> name.endsWith(".tmp"));
+        assertEquals("Temporary files left", Integer.valueOf(0), Integer.valueOf(tempFiles.length));
+    }
+
+    private File getSample() {
+        return new File(new File(getSourceFolder(ODM_STANDARDS[2][0]), SAMPLE_SOURCE_FOLDER), "odm_sample.xml");
+    }
+
+    /**
+     * Writes the sample with an attribute the schema rejects on each element with an OID.
+     */
+    private File writeInvalidSample(final File workFolder) throws Exception {
+        final File invalid = new File(workFolder, "odm_invalid.xml");
+        final String content = read(getSample()).replace(" OID=\"", " Invalid=\"true\" OID=\"");
+        Files.write(invalid.toPath(), content.getBytes(StandardCharsets.UTF_8));
+
+        return invalid;
+    }
+
+    private StandardXMLTransformerParams createValidatingParams(final File workFolder, final File source,
+        final String outputName) throws Exception {
+        final String[] standard = ODM_STANDARDS[2];
+        final File transforms = new File(workFolder, "availabletransforms_xsl.xml");
+        writeAvailableTransforms(transforms, standard[1], "xsl");
+        final StandardXMLTransformerParams params = createImportParams(standard[0], standard[1], transforms, source,
+            new File(workFolder, outputName));
+        params.setValidatingStandardXML(true);
+        params.setValidatingInline(false);
+
+        return params;
+    }
+
+    private static StandardXMLTransformer exec(final StandardXMLTransformerParams params) throws Exception {
+        final StandardXMLTransformer transformer = StandardXMLTransformer.createTransformer(params);
+        transformer.exec();
+
+        return transformer;
+    }
+}
@@ -0,0 +1,205 @@
+package com.sas.ptc.transform.xml;
+
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.net.SocketTimeoutException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+
+import com.sas.ptc.test.ODMTestSupport;
+
+/**
+ * Copyright (c) 2022, SAS Institute Inc., Cary, NC, USA.  All Rights Reserved.
+ * SPDX-License-Identifier: Apache-2.0
+ *
+ * Runs a StandardXMLTransformService on a free local port, and submits to it with StandardXMLTransformClient: a client
+ * with the token of the service has its import run there, a client with another token is rejected, and a client
+ * finding no token file runs the import in its own JVM. An idle connection is closed, so that it does not keep the
+ * only worker of the service from other clients.
+ */
+public class StandardXMLTransformServiceTest extends ODMTestSupport {
+
+    private static final long START_TIMEOUT_MILLIS = 10000L;
+
+    public void testRoundTrip() throws Exception {
+        final File workFolder = getWorkFolder("roundtrip");
+        final RunningService service = new RunningService(workFolder, 1);
+        try {
+            final StandardXMLTransformClient client = createClient(workFolder, service, "service.xml");
+            client.exec();
+            assertTrue("The import was not run in the service", client.isRanInService());
+            assertEquals("Status", StandardXMLTransformService.STATUS_SUCCESS, client.getStatus());
+            assertEquals("Errors", Integer.valueOf(0), Integer.valueOf(client.getErrorCount()));
+            assertEquals("Jobs run by the service", Long.valueOf(1L), Long.valueOf(service.service.getJobCount()));
+
+            final StandardXMLTransformClient localClient = createClient(workFolder, service, "local.xml");
+            localClient.setUsingService(false);
+            localClient.exec();
+            assertTrue("The import was run in the service", !localClient.isRanInService());
+            assertSameText("SAS XML written by the service", readNormalized(new File(workFolder, "local.xml")),
+                readNormalized(new File(workFolder, "service.xml")));
+        } finally {
+            service.stop();
+        }
+    }
+
+    public void testBadToken() throws Exception {
+        final File workFolder = getWorkFolder("badtoken");
+        final RunningService service = new RunningService(workFolder, 1);
+        try {
+            final File badTokenFile = new File(workFolder, "bad.token");
+            Files.write(badTokenFile.toPath(), "not the token".getBytes(StandardCharsets.US_ASCII));
+            final StandardXMLTransformClient client = createClient(workFolder, service, "rejected.xml");
+            client.setTokenFilePath(badTokenFile.getPath());
+            try {
+                client.exec();
+                fail("A client with a bad token was served");
+            } catch (final IOException e) {
+                assertTrue("Unexpected failure: " + e.getMessage(), e.getMessage().contains("rejected the token"));
+            }
+            assertTrue("The import was run", !new File(workFolder, "rejected.xml").exists());
+            assertEquals("Jobs run by the service", Long.valueOf(0L), Long.valueOf(service.service.getJobCount()));
+
+            final Socket socket = service.connect();
+            try {
+                final DataOutputStream out = new DataOutputStream(new BufferedOutputStream(socket.getOutputStream()));
+                StandardXMLTransformService.writeToken(out, new byte[32]);
+                StandardXMLTransformService.writeString(out, StandardXMLTransformService.REQUEST_STATUS);
+                out.flush();
+                assertEquals("Response to a bad token", StandardXMLTransformService.STATUS_UNAUTHORIZED,
+                    StandardXMLTransformService.readString(new DataInputStream(socket.getInputStream())));
+            } finally {
+                socket.close();
+            }
+        } finally {
+            service.stop();
+        }
+    }
+
+    public void testMissingTokenFile() throws Exception {
+        final File workFolder = getWorkFolder("notoken");
+        final StandardXMLTransformClient client = createClient(workFolder, null, "local.xml");
+        client.setTokenFilePath(new File(workFolder, "missing.token").getPath());
+        client.exec();
+        assertTrue("The import was run in a service", !client.isRanInService());
+        assertEquals("Status", StandardXMLTransformService.STATUS_SUCCESS, client.getStatus());
+        assertTrue("No output", new File(workFolder, "local.xml").isFile());
+    }
+
+    public void testIdleConnection() throws Exception {
+        final File workFolder = getWorkFolder("idle");
+        final RunningService service = new RunningService(workFolder, 1, 500);
+        try {
+            // an authenticated connection sending nothing holds the only worker until the idle timeout
+            final Socket idle = service.connect();
+            try {
+                final DataOutputStream out = new DataOutputStream(new BufferedOutputStream(idle.getOutputStream()));
+                StandardXMLTransformService.writeToken(out,
+                    StandardXMLTransformService.readToken(service.service.getTokenFile()));
+                out.flush();
+
+                final StandardXMLTransformClient client = createClient(workFolder, service, "after_idle.xml");
+                client.exec();
+                assertTrue("The import was not run in the service", client.isRanInService());
+                assertEquals("Status", StandardXMLTransformService.STATUS_SUCCESS, client.getStatus());
+
+                idle.setSoTimeout((int) START_TIMEOUT_MILLIS);
+                final InputStream in = idle.getInputStream();
+                try {
+                    assertEquals("Read from an idle connection", Integer.valueOf(-1), Integer.valueOf(in.read()));
+                } catch (final SocketTimeoutException e) {
+                    fail("The idle connection was not closed by the service");
+                }
+            } finally {
+                idle.close();
+            }
+        } finally {
+            service.stop();
+        }
+    }
+
+    private StandardXMLTransformClient createClient(final File workFolder, final RunningService service,
+        final String outputName) throws Exception {
+        final String[] standard = ODM_STANDARDS[2];
+        final File transforms = new File(workFolder, "availabletransforms_xsl.xml");
+        if (!transforms.isFile()) {
+            writeAvailableTransforms(transforms, standard[1], "xsl");
+        }
+        final File source = new File(new File(getSourceFolder(standard[0]), SAMPLE_SOURCE_FOLDER), "odm_sample.xml");
+        final StandardXMLTransformClient client = new StandardXMLTransformClient(createImportParams(standard[0],
+            standard[1], transforms, source, new File(workFolder, outputName)));
+        if (service != null) {
+            client.setPort(service.port);
+            client.setTokenFilePath(service.service.getTokenFile().getPath());
+        }
+
+        return client;
+    }
+
+    private static int getFreePort() throws IOException {
+        final ServerSocket socket = new ServerSocket(0, 0, InetAddress.getLoopbackAddress());
+        try {
+            return socket.getLocalPort();
+        } finally {
+            socket.close();
+        }
+    }
+
+    /**
+     * A service running on a thread of its own, with its token file in the work folder.
+     */
+    private static final class RunningService {
+        private final int port;
+        private final StandardXMLTransformService service;
+        private final Thread thread;
+
+        RunningService(final File workFolder, final int threadCount) throws Exception {
+            this(workFolder, threadCount, StandardXMLTransformService.DEFAULT_IDLE_TIMEOUT_MILLIS);
+        }
+
+        RunningService(final File workFolder, final int threadCount, final int idleTimeoutMillis) throws Exception {
+            this.port = getFreePort();
+            this.service = new StandardXMLTransformService(this.port, threadCount);
+            this.service.setTokenFile(new File(workFolder, "service.token"));
+            this.service.setIdleTimeoutMillis(idleTimeoutMillis);
+            this.thread = new Thread(new Runnable() {
+                @Override
+                public void run() {
+                    try {
+                        RunningService.this.service.run();
+                    } catch (final IOException e) {
+                        e.printStackTrace();
+                    }
+                }
+            });
+            this.thread.setDaemon(true);
+            this.thread.start();
+
+            // the token file is written once the service listens
+            final long deadline = System.currentTimeMillis() + START_TIMEOUT_MILLIS;
+            while (!this.service.getTokenFile().isFile() || (this.service.getTokenFile().length() == 0L)) {
+                assertTrue("The service did not start", System.currentTimeMillis() < deadline);
+                Thread.sleep(20L);
+            }
+        }
+
+        Socket connect() throws IOException {
+            return new Socket(InetAddress.getLoopbackAddress(), this.port);
+        }
+
+        void stop() throws Exception {
+            StandardXMLTransformService.sendRequest(this.port, this.service.getTokenFile(),
+                StandardXMLTransformService.REQUEST_SHUTDOWN);
+            this.thread.join(START_TIMEOUT_MILLIS);
+            assertTrue("The service did not stop", !this.thread.isAlive());
+            assertTrue("The token file was not deleted", !this.service.getTokenFile().exists());
+        }
+    }
+}
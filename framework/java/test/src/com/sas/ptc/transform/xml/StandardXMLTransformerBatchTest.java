@@ -0,0 +1,105 @@
+package com.sas.ptc.transform.xml;
+
+import java.io.File;
+import java.util.List;
+
+import javax.xml.parsers.DocumentBuilderFactory;
+
+import org.w3c.dom.Document;
+import org.w3c.dom.Element;
+import org.w3c.dom.NodeList;
+
+import com.sas.ptc.test.ODMTestSupport;
+
+/**
+ * Copyright (c) 2022, SAS Institute Inc., Cary, NC, USA.  All Rights Reserved.
+ * SPDX-License-Identifier: Apache-2.0
+ *
+ * Runs a batch of imports of the ODM sample on two threads, two of which fail, one logging an error and one throwing:
+ * the others still run, each job without a log file path gets its own log next to its output, and the summary has a
+ * TransformJob row per job, in the order the jobs were added, with the failed ones reported as such.
+ */
+public class StandardXMLTransformerBatchTest extends ODMTestSupport {
+
+    public void testBatch() throws Exception {
+        final String[] standard = ODM_STANDARDS[2];
+        final File workFolder = getWorkFolder("batch");
+        final File transforms = new File(workFolder, "availabletransforms_xsl.xml");
+        writeAvailableTransforms(transforms, standard[1], "xsl");
+        final File sample = new File(new File(getSourceFolder(standard[0]), SAMPLE_SOURCE_FOLDER), "odm_sample.xml");
+
+        final StandardXMLTransformerBatch batch = new StandardXMLTransformerBatch(2);
+        batch.addJob(createJobParams(standard, transforms, sample, new File(workFolder, "first.xml")));
+        batch.addJob(createJobParams(standard, transforms, new File(workFolder, "missing.xml"),
+            new File(workFolder, "missing_output.xml")));
+        final StandardXMLTransformerParams unknownVersion = createJobParams(standard, transforms, sample,
+            new File(workFolder, "unknown.xml"));
+        unknownVersion.setStandardVersion("9.9.9");
+        batch.addJob(unknownVersion);
+        final StandardXMLTransformerParams ownLog = createJobParams(standard, transforms, sample,
+            new File(workFolder, "last.xml"));
+        ownLog.setLogFilePath(new File(workFolder, "own.log").getAbsolutePath());
+        batch.addJob(ownLog);
+        final File summary = new File(workFolder, "summary.xml");
+        batch.setSummaryFilePath(summary.getAbsolutePath());
+
+        final List<StandardXMLTransformerBatch.JobResult> results = batch.exec();
+        assertEquals("Results", Integer.valueOf(4), Integer.valueOf(results.size()));
+        final String[] statuses = { StandardXMLTransformerBatch.STATUS_SUCCESS,
+            StandardXMLTransformerBatch.STATUS_FAILED, StandardXMLTransformerBatch.STATUS_FAILED,
+            StandardXMLTransformerBatch.STATUS_SUCCESS };
+        for (int i = 0; i < statuses.length; ++i) {
+            assertEquals("Number of job " + (i + 1), Integer.valueOf(i + 1),
+                Integer.valueOf(results.get(i).getJobNumber()));
+            assertEquals("Status of job " + (i + 1), statuses[i], results.get(i).getStatus());
+        }
+        assertTrue("The job logging an error was not reported", results.get(1).getErrorCount() > 0);
+        assertTrue("The job throwing has no message", results.get(2).getMessage() != null);
+        assertTrue("No output after the failed jobs", new File(workFolder, "last.xml").isFile());
+
+        assertEquals("Default log path", new File(workFolder, "first_log.xml").getAbsolutePath(),
+            results.get(0).getParams().getLogFilePath());
+        assertTrue("No default log written", new File(workFolder, "first_log.xml").isFile());
+        assertTrue("No default log written for the failed job", new File(workFolder, "missing_output_log.xml")
+            .isFile());
+        assertTrue("The log path of the job was replaced", new File(workFolder, "own.log").isFile());
+        assertTrue("A default log was written for a job with its own", !new File(workFolder, "last_log.xml")
+            .exists());
+
+        final Document doc = DocumentBuilderFactory.newInstance().newDocumentBuilder().parse(summary);
+        assertEquals("Summary root", "TABLE", doc.getDocumentElement().getNodeName());
+        final NodeList rows = doc.getElementsByTagName("TransformJob");
+        assertEquals("Summary rows", Integer.valueOf(4), Integer.valueOf(rows.getLength()));
+        for (int i = 0; i < rows.getLength(); ++i) {
+            final Element row = (Element) rows.item(i);
+            final StandardXMLTransformerBatch.JobResult result = results.get(i);
+            assertEquals("JobNumber of row " + i, String.valueOf(i + 1), getValue(row, "JobNumber"));
+            assertEquals("Status of row " + i, result.getStatus(), getValue(row, "Status"));
+            assertEquals("ErrorCount of row " + i, String.valueOf(result.getErrorCount()), getValue(row, "ErrorCount"));
+            assertEquals("LogFilePath of row " + i, String.valueOf(result.getParams().getLogFilePath()),
+                getValue(row, "LogFilePath"));
+            assertEquals("SasXMLPath of row " + i, result.getParams().getSasXMLPath(), getValue(row, "SasXMLPath"));
+        }
+        assertEquals("Message of the job throwing", results.get(2).getMessage(),
+            getValue((Element) rows.item(2), "Message"));
+        final Element batchRow = (Element) doc.getElementsByTagName("TransformBatch").item(0);
+        assertEquals("JobCount", "4", getValue(batchRow, "JobCount"));
+        assertEquals("ThreadCount", "2", getValue(batchRow, "ThreadCount"));
+    }
+
+    /**
+     * Creates the parameters of an import with no log file path, for the batch to give one.
+     */
+    private StandardXMLTransformerParams createJobParams(final String[] standard, final File transforms,
+        final File source, final File output) {
+        final StandardXMLTransformerParams params = createImportParams(standard[0], standard[1], transforms, source,
+            output);
+        params.setLogFilePath(null);
+
+        return params;
+    }
+
+    private static String getValue(final Element parent, final String name) {
+        return parent.getElementsByTagName(name).item(0).getTextContent();
+    }
+}
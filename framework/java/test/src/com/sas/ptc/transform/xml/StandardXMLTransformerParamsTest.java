@@ -0,0 +1,74 @@
+package com.sas.ptc.transform.xml;
+
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+
+import com.sas.ptc.test.ODMTestSupport;
+
+/**
+ * Copyright (c) 2022, SAS Institute Inc., Cary, NC, USA.  All Rights Reserved.
+ * SPDX-License-Identifier: Apache-2.0
+ *
+ * Checks that a numeric parameter given a value that is not a number, in a configuration file or through a String
+ * setter, keeps its value, and is logged as an error when the transform runs rather than aborting it.
+ */
+public class StandardXMLTransformerParamsTest extends ODMTestSupport {
+
+    private static final String[] NUMERIC_PARAMETERS = { "maxValidationErrors", "maxValidationMillis",
+        "validationCacheMaxBytes", "validationCacheMaxAgeDays", "exportThreads", "importChunkSubjects",
+        "importThreads" };
+
+    public void testConfigFile() throws Exception {
+        final File config = new File(getWorkFolder("config"), "config.xml");
+        final StringBuilder sb = new StringBuilder("<Config>\n");
+        for (final String name : NUMERIC_PARAMETERS) {
+            sb.append("<Param name=\"").append(name).append("\" value=\"ten\"/>\n");
+        }
+        sb.append("<Param name=\"importThreads\" value=\" 3 \"/>\n</Config>\n");
+        Files.write(config.toPath(), sb.toString().getBytes(StandardCharsets.UTF_8));
+
+        final StandardXMLTransformerParams params = new StandardXMLTransformerParams(config.getPath());
+        assertEquals("Parameter errors", Integer.valueOf(NUMERIC_PARAMETERS.length),
+            Integer.valueOf(params.getParameterErrors().size()));
+        assertTrue("Unexpected error: " + params.getParameterErrors().get(0),
+            params.getParameterErrors().get(0).contains("'ten' of the parameter maxValidationErrors"));
+        assertEquals("maxValidationErrors", Integer.valueOf(0), Integer.valueOf(params.getMaxValidationErrors()));
+        assertEquals("validationCacheMaxAgeDays", Integer.valueOf(new StandardXMLTransformerParams()
+            .getValidationCacheMaxAgeDays()), Integer.valueOf(params.getValidationCacheMaxAgeDays()));
+        assertEquals("importThreads", Integer.valueOf(3), Integer.valueOf(params.getImportThreads()));
+    }
+
+    public void testStringSetters() {
+        final StandardXMLTransformerParams params = new StandardXMLTransformerParams();
+        params.setMaxValidationErrorsString("5");
+        params.setMaxValidationErrorsString("5x");
+        params.setMaxValidationMillisString("");
+        params.setValidationCacheMaxBytesString("1e6");
+        params.setValidationCacheMaxAgeDaysString("thirty");
+        params.setExportThreadsString("-");
+        params.setImportChunkSubjectsString("1.5");
+        params.setImportThreadsString("2");
+        assertEquals("Parameter errors", Integer.valueOf(6), Integer.valueOf(params.getParameterErrors().size()));
+        assertEquals("maxValidationErrors", Integer.valueOf(5), Integer.valueOf(params.getMaxValidationErrors()));
+        assertEquals("importThreads", Integer.valueOf(2), Integer.valueOf(params.getImportThreads()));
+    }
+
+    public void testErrorLogged() throws Exception {
+        final String[] standard = ODM_STANDARDS[2];
+        final File workFolder = getWorkFolder("logged");
+        final File transforms = new File(workFolder, "availabletransforms_xsl.xml");
+        writeAvailableTransforms(transforms, standard[1], "xsl");
+        final File source = new File(new File(getSourceFolder(standard[0]), SAMPLE_SOURCE_FOLDER), "odm_sample.xml");
+        final StandardXMLTransformerParams params = createImportParams(standard[0], standard[1], transforms, source,
+            new File(workFolder, "odm_sample.xml"));
+        params.setConfigParam("maxValidationErrors", "ten");
+
+        final StandardXMLTransformer transformer = StandardXMLTransformer.createTransformer(params);
+        transformer.exec();
+        assertEquals("Errors", Integer.valueOf(1), Integer.valueOf(transformer.getErrorCount()));
+        assertTrue("The import was not run", transformer.isOutputProduced());
+        assertTrue("The parameter error was not logged",
+            read(new File(params.getLogFilePath())).contains("'ten' of the parameter maxValidationErrors"));
+    }
+}
@@ -0,0 +1,166 @@
+package com.sas.ptc.transform.xml;
+
+import java.io.BufferedOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.jar.JarEntry;
+import java.util.jar.JarOutputStream;
+
+import com.sas.ptc.test.ODMTestSupport;
+import com.sas.ptc.util.xml.TemplatesCache;
+
+/**
+ * Copyright (c) 2022, SAS Institute Inc., Cary, NC, USA.  All Rights Reserved.
+ * SPDX-License-Identifier: Apache-2.0
+ *
+ * Precompiles the ODM stylesheets into a translet jar, as ant translets does, and imports the samples of the
+ * standards tree with the stylesheets loaded from it: the SAS XML must be that of the stylesheets compiled from source.
+ * A translet must also follow its XSL repository when moved, and no longer be used once one of its files is edited.
+ */
+public class TransletCompilerTest extends ODMTestSupport {
+
+    private static final String XSL_REPOSITORY_FOLDER = "xsl-repository";
+
+    public void testODM130Samples() throws Exception {
+        assertSameSamples(ODM_STANDARDS[0]);
+    }
+
+    public void testODM131Samples() throws Exception {
+        assertSameSamples(ODM_STANDARDS[1]);
+    }
+
+    public void testODM132Samples() throws Exception {
+        assertSameSamples(ODM_STANDARDS[2]);
+    }
+
+    public void testModifiedStylesheet() throws Exception {
+        final String[] standard = ODM_STANDARDS[2];
+        final File workFolder = getWorkFolder("modified");
+        final File transforms = new File(workFolder, "availabletransforms_xsl.xml");
+        writeAvailableTransforms(transforms, standard[1], "xsl");
+        final File jar = buildTransletJar(transforms, new File(getSourceFolder(standard[0]), XSL_REPOSITORY_FOLDER),
+            workFolder);
+
+        final File xslRepository = new File(workFolder, XSL_REPOSITORY_FOLDER);
+        copyFolder(new File(getSourceFolder(standard[0]), XSL_REPOSITORY_FOLDER), xslRepository);
+        final File source = new File(new File(getSourceFolder(standard[0]), SAMPLE_SOURCE_FOLDER), "odm_sample.xml");
+        final TemplatesCache cache = TemplatesCache.getInstance();
+        try {
+            cache.invalidateAll();
+            long transletCount = cache.getTransletCount();
+            runImport(createTransletImportParams(standard, transforms, xslRepository, jar, source,
+                new File(workFolder, "odm_sample_moved.xml")));
+            assertEquals("Translets loaded from a moved XSL repository", transletCount + 1, cache.getTransletCount());
+
+            // an included stylesheet, rather than the one named in the registry
+            final File included = new File(xslRepository, "ODM/" + standard[1] + "/import/ODM.xsl");
+            Files.write(included.toPath(), "<!-- edited -->\n".getBytes(StandardCharsets.UTF_8),
+                StandardOpenOption.APPEND);
+            cache.invalidateAll();
+            transletCount = cache.getTransletCount();
+            runImport(createTransletImportParams(standard, transforms, xslRepository, jar, source,
+                new File(workFolder, "odm_sample_edited.xml")));
+            assertEquals("Translets loaded after editing " + included, transletCount, cache.getTransletCount());
+        } finally {
+            cache.invalidateAll();
+        }
+    }
+
+    private void assertSameSamples(final String[] standard) throws Exception {
+        final File workFolder = getWorkFolder(standard[0]);
+        final File xslRepository = new File(getSourceFolder(standard[0]), XSL_REPOSITORY_FOLDER);
+        final File transforms = new File(workFolder, "availabletransforms_xsl.xml");
+        writeAvailableTransforms(transforms, standard[1], "xsl");
+        final File jar = buildTransletJar(transforms, xslRepository, workFolder);
+
+        final List<File> samples = getSamples(standard[0]);
+        final TemplatesCache cache = TemplatesCache.getInstance();
+        try {
+            // the stylesheets compiled from source first, with no translet jar
+            cache.invalidateAll();
+            for (final File sample : samples) {
+                runImport(createImportParams(standard[0], standard[1], transforms, sample, getOutput(workFolder,
+                    sample, "xsl")));
+            }
+
+            cache.invalidateAll();
+            final long transletCount = cache.getTransletCount();
+            for (final File sample : samples) {
+                final File output = getOutput(workFolder, sample, "translet");
+                runImport(createTransletImportParams(standard, transforms, xslRepository, jar, sample, output));
+                assertSameText(sample.getName() + " (ODM " + standard[1] + ") imported by the translet",
+                    readNormalized(getOutput(workFolder, sample, "xsl")), readNormalized(output));
+            }
+            assertEquals("Translets loaded for ODM " + standard[1], transletCount + 1, cache.getTransletCount());
+        } finally {
+            cache.invalidateAll();
+        }
+    }
+
+    private StandardXMLTransformerParams createTransletImportParams(final String[] standard,
+        final File availableTransforms, final File xslRepository, final File jar, final File source,
+        final File output) {
+        final StandardXMLTransformerParams params = createImportParams(standard[0], standard[1], availableTransforms,
+            source, output);
+        params.setXslBasePath(xslRepository.getAbsolutePath());
+        params.setTransletJarPath(jar.getAbsolutePath());
+
+        return params;
+    }
+
+    private static File getOutput(final File workFolder, final File sample, final String suffix) {
+        return new File(workFolder, sample.getName().replaceFirst("\\.xml$", "") + "_" + suffix + ".xml");
+    }
+
+    /**
+     * Precompiles the stylesheets of a transform registry, and packages the translets into a jar.
+     *
+     * @param availableTransforms The transform registry
+     * @param xslRepository The XSL repository folder
+     * @param workFolder The folder receiving the class files and the jar
+     * @return The translet jar
+     * @throws Exception If a stylesheet could not be compiled or the jar written
+     */
+    private static File buildTransletJar(final File availableTransforms, final File xslRepository,
+        final File workFolder) throws Exception {
+        final File classFolder = new File(workFolder, "translets");
+        final int count = new TransletCompiler(availableTransforms, Collections.singletonList(xslRepository),
+            classFolder).exec();
+        assertEquals("Stylesheets precompiled from " + availableTransforms, 2, count);
+
+        final File jar = new File(workFolder, "translets.jar");
+        final List<File> files = new ArrayList<File>();
+        listFiles(classFolder, files);
+        final JarOutputStream out = new JarOutputStream(new BufferedOutputStream(new FileOutputStream(jar)));
+        try {
+            for (final File file : files) {
+                out.putNextEntry(new JarEntry(classFolder.toPath().relativize(file.toPath()).toString()
+                    .replace(File.separatorChar, '/')));
+                Files.copy(file.toPath(), out);
+                out.closeEntry();
+            }
+        } finally {
+            out.close();
+        }
+
+        return jar;
+    }
+
+    private static void listFiles(final File folder, final List<File> files) {
+        final File[] children = folder.listFiles();
+        assertTrue("Cannot list " + folder, children != null);
+        for (final File child : children) {
+            if (child.isDirectory()) {
+                listFiles(child, files);
+            } else {
+                files.add(child);
+            }
+        }
+    }
+}
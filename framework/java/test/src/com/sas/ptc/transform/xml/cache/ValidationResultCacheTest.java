@@ -0,0 +1,263 @@
+package com.sas.ptc.transform.xml.cache;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import com.sas.ptc.test.ODMTestSupport;
+import com.sas.ptc.transform.xml.StandardXMLImporter;
+import com.sas.ptc.transform.xml.StandardXMLTransformer;
+import com.sas.ptc.transform.xml.StandardXMLTransformerParams;
+import com.sas.ptc.transform.xml.log.Log;
+import com.sas.ptc.transform.xml.log.LogEntry;
+import com.sas.ptc.transform.xml.log.LogRecording;
+import com.sas.ptc.transform.xml.log.ValidationErrorHandler;
+import com.sas.ptc.transform.xml.log.XMLValidationLogEntry;
+
+/**
+ * Copyright (c) 2022, SAS Institute Inc., Cary, NC, USA.  All Rights Reserved.
+ * SPDX-License-Identifier: Apache-2.0
+ *
+ * Checks the validation cache: a result read back holds the entries stored; a validation of an unchanged document
+ * replays the entries and error count of the first, while an edit of the document or of a schema document misses; a
+ * validation stopped by the time limit is not stored; and results are evicted by age and by size.
+ */
+public class ValidationResultCacheTest extends ODMTestSupport {
+
+    private static final Pattern VALIDATION_ENTRY = Pattern.compile("<XMLTransformLog>.*?</XMLTransformLog>",
+        Pattern.DOTALL);
+    private static final long MILLIS_PER_DAY = 24L * 60 * 60 * 1000;
+
+    public void testStoredEntries() throws Exception {
+        final ValidationResultCache cache = new ValidationResultCache(getWorkFolder("entries"),
+            ValidationResultCache.DEFAULT_MAX_BYTES, ValidationResultCache.DEFAULT_MAX_AGE_DAYS);
+        final LogRecording recording = new LogRecording();
+        recording.add(new XMLValidationLogEntry(LogEntry.SEVERITY_ERROR, LogEntry.ORIGIN_XML_VALIDATION,
+            "Invalid content <a> & \"b\"", 12, 34), 3);
+        recording.add(new LogEntry(LogEntry.SEVERITY_FATAL_ERROR, LogEntry.ORIGIN_TRANSFORMER, "Stopped",
+            LogEntry.SCOPE_SYSTEM), 1);
+        cache.put("key1", new ValidationResult(false, recording));
+
+        assertTrue("A result was found under another key", cache.get("key2") == null);
+        final ValidationResult result = cache.get("key1");
+        assertTrue("The result was valid", !result.isValid());
+        final LogRecording replayed = result.getLogRecording();
+        assertEquals("Entries", Integer.valueOf(2), Integer.valueOf(replayed.size()));
+        final XMLValidationLogEntry error = (XMLValidationLogEntry) replayed.getEntry(0);
+        assertEquals("Severity", LogEntry.SEVERITY_ERROR, error.getSeverity());
+        assertEquals("Message", "Invalid content <a> & \"b\"", error.getMessage());
+        assertEquals("Line", Integer.valueOf(12), Integer.valueOf(error.getLineNumber()));
+        assertEquals("Column", Integer.valueOf(34), Integer.valueOf(error.getColumnNumber()));
+        assertEquals("Occurrences", Integer.valueOf(3), Integer.valueOf(replayed.getOccurrenceCount(0)));
+        assertEquals("Scope", LogEntry.SCOPE_SYSTEM, replayed.getEntry(1).getScope());
+        assertEquals("Origin", LogEntry.ORIGIN_TRANSFORMER, replayed.getEntry(1).getOrigin());
+    }
+
+    public void testReplayAndEdits() throws Exception {
+        final File workFolder = getWorkFolder("replay");
+        final File cacheFolder = new File(workFolder, "cache");
+        final File schemaFolder = copyFolder(new File(getSourceFolder(ODM_STANDARDS[2][0]), "schema-repository"),
+            new File(workFolder, "schema-repository"));
+        final File document = new File(workFolder, "odm_invalid.xml");
+        final String invalid = read(getSample()).replace(" OID=\"", " Invalid=\"true\" OID=\"");
+        writeEdited(document, invalid);
+
+        final StandardXMLTransformer first = exec(createParams(workFolder, document, schemaFolder, "first"));
+        assertTrue("The first validation was replayed", !isReplayed(first));
+        assertEquals("Results stored", Integer.valueOf(1), Integer.valueOf(countResults(cacheFolder)));
+
+        final StandardXMLTransformer second = exec(createParams(workFolder, document, schemaFolder, "second"));
+        assertTrue("The second validation was not replayed", isReplayed(second));
+        assertEquals("Errors replayed", Integer.valueOf(first.getErrorCount()),
+            Integer.valueOf(second.getErrorCount()));
+        assertSameText("Entries replayed", readValidationEntries(workFolder, "first"),
+            readValidationEntries(workFolder, "second"));
+        assertEquals("Results stored", Integer.valueOf(1), Integer.valueOf(countResults(cacheFolder)));
+
+        writeEdited(document, invalid.replaceFirst(" Invalid=\"true\"", ""));
+        final StandardXMLTransformer editedDocument = exec(createParams(workFolder, document, schemaFolder,
+            "document"));
+        assertTrue("The edited document was replayed", !isReplayed(editedDocument));
+        assertEquals("Errors in the edited document", Integer.valueOf(first.getErrorCount() - 1),
+            Integer.valueOf(editedDocument.getErrorCount()));
+
+        final File foundation = new File(new File(schemaFolder, "cdisc-odm-1.3.2"), "ODM1-3-2-foundation.xsd");
+        writeEdited(foundation, read(foundation) + "<!-- edited -->\n");
+        final StandardXMLTransformer editedSchema = exec(createParams(workFolder, document, schemaFolder, "schema"));
+        assertTrue("The document was replayed after editing the schema", !isReplayed(editedSchema));
+        assertEquals("Results stored", Integer.valueOf(3), Integer.valueOf(countResults(cacheFolder)));
+    }
+
+    public void testTimeLimitNotStored() throws Exception {
+        final File workFolder = getWorkFolder("timelimit");
+        final File cacheFolder = new File(workFolder, "cache");
+        final File schemaFolder = new File(getSourceFolder(ODM_STANDARDS[2][0]), "schema-repository");
+        final File document = new File(workFolder, "odm_invalid.xml");
+        writeEdited(document, read(getSample()).replace(" OID=\"", " Invalid=\"true\" OID=\""));
+
+        final StandardXMLTransformerParams params = createParams(workFolder, document, schemaFolder, "stopped");
+        final StandardXMLImporter importer = new StandardXMLImporter(params) {
+            @Override
+            protected ValidationErrorHandler createValidationErrorHandler() {
+                final ValidationErrorHandler handler = new ValidationErrorHandler(getLog()) {
+                    @Override
+                    public synchronized void startTimer() {
+                        super.startTimer();
+                        // the time limit passes before the document is read
+                        try {
+                            Thread.sleep(20L);
+                        } catch (final InterruptedException e) {
+                            Thread.currentThread().interrupt();
+                        }
+                    }
+                };
+                handler.setTimeLimitMillis(10L);
+                return handler;
+            }
+        };
+        importer.exec();
+        assertTrue("The time limit was not logged",
+            read(new File(params.getLogFilePath())).contains("the time limit set by maxValidationMillis"));
+        assertEquals("Results stored", Integer.valueOf(0), Integer.valueOf(countResults(cacheFolder)));
+
+        final StandardXMLTransformer unlimited = exec(createParams(workFolder, document, schemaFolder, "unlimited"));
+        assertTrue("The validation stopped by the time limit was replayed", !isReplayed(unlimited));
+        assertEquals("Results stored", Integer.valueOf(1), Integer.valueOf(countResults(cacheFolder)));
+    }
+
+    public void testSizeEviction() throws Exception {
+        final File cacheFolder = getWorkFolder("size");
+        final ValidationResultCache unbounded = new ValidationResultCache(cacheFolder,
+            ValidationResultCache.DEFAULT_MAX_BYTES, ValidationResultCache.DEFAULT_MAX_AGE_DAYS);
+        final File first = putResult(unbounded, "key1");
+        final File second = putResult(unbounded, "key2");
+        final File third = putResult(unbounded, "key3");
+        final long now = System.currentTimeMillis();
+        assertTrue("Cannot touch " + first, first.setLastModified(now - 30000L));
+        assertTrue("Cannot touch " + second, second.setLastModified(now - 20000L));
+        assertTrue("Cannot touch " + third, third.setLastModified(now - 10000L));
+
+        // room for two results: the least recently used one goes, the first being used again
+        final ValidationResultCache cache = new ValidationResultCache(cacheFolder, first.length() * 5 / 2,
+            ValidationResultCache.DEFAULT_MAX_AGE_DAYS);
+        assertTrue("The first result was not found", cache.get("key1") != null);
+        cache.evict();
+        assertTrue("The result used again was evicted", first.isFile());
+        assertTrue("The least recently used result was kept", !second.exists());
+        assertTrue("The most recently stored result was evicted", third.isFile());
+    }
+
+    public void testAgeEviction() throws Exception {
+        final File cacheFolder = getWorkFolder("age");
+        final ValidationResultCache cache = new ValidationResultCache(cacheFolder,
+            ValidationResultCache.DEFAULT_MAX_BYTES, 1);
+        final File old = putResult(cache, "key1");
+        final File recent = putResult(cache, "key2");
+        final File oldTemp = new File(cacheFolder, "key3.123.tmp");
+        final File recentTemp = new File(cacheFolder, "key4.456.tmp");
+        writeEdited(oldTemp, "");
+        writeEdited(recentTemp, "");
+        final long twoDaysAgo = System.currentTimeMillis() - 2 * MILLIS_PER_DAY;
+        assertTrue("Cannot touch " + old, old.setLastModified(twoDaysAgo));
+        assertTrue("Cannot touch " + oldTemp, oldTemp.setLastModified(twoDaysAgo));
+
+        cache.evict();
+        assertTrue("The old result was kept", !old.exists());
+        assertTrue("The old temporary file was kept", !oldTemp.exists());
+        assertTrue("The recent result was evicted", recent.isFile());
+        assertTrue("A temporary file being written was deleted", recentTemp.isFile());
+    }
+
+    private File getSample() {
+        return new File(new File(getSourceFolder(ODM_STANDARDS[2][0]), SAMPLE_SOURCE_FOLDER), "odm_sample.xml");
+    }
+
+    /**
+     * Creates the parameters of a validation only, with the cache in the work folder and the log, at the info level,
+     * named after the run.
+     */
+    private StandardXMLTransformerParams createParams(final File workFolder, final File document,
+        final File schemaFolder, final String runName) throws Exception {
+        final String[] standard = ODM_STANDARDS[2];
+        final File transforms = new File(workFolder, "availabletransforms_xsl.xml");
+        if (!transforms.isFile()) {
+            writeAvailableTransforms(transforms, standard[1], "xsl");
+        }
+        final StandardXMLTransformerParams params = createImportParams(standard[0], standard[1], transforms, document,
+            new File(workFolder, runName + ".xml"));
+        params.setSchemaBasePath(schemaFolder.getAbsolutePath());
+        params.setValidatingStandardXML(true);
+        params.setValidatingInline(false);
+        params.setValidatingXMLOnly(true);
+        params.setValidationCachePath(new File(workFolder, "cache").getAbsolutePath());
+        params.setLogLevel(Log.LOG_LEVEL_INFO);
+
+        return params;
+    }
+
+    private static StandardXMLTransformer exec(final StandardXMLTransformerParams params) throws Exception {
+        final StandardXMLTransformer transformer = StandardXMLTransformer.createTransformer(params);
+        transformer.exec();
+
+        return transformer;
+    }
+
+    private static boolean isReplayed(final StandardXMLTransformer transformer) throws IOException {
+        return read(new File(transformer.getParams().getLogFilePath()))
+            .contains("replayed from the validation cache");
+    }
+
+    /**
+     * Reads the validation entries of the log of a run, without their timestamps.
+     */
+    private static String readValidationEntries(final File workFolder, final String runName) throws IOException {
+        final Matcher m = VALIDATION_ENTRY.matcher(read(new File(workFolder, runName + ".xml.log")));
+        final StringBuilder sb = new StringBuilder();
+        while (m.find()) {
+            if (m.group().contains(LogEntry.ORIGIN_XML_VALIDATION)) {
+                sb.append(m.group().replaceAll("<Timestamp>[^<]*</Timestamp>", "")).append('\n');
+            }
+        }
+        assertTrue("No validation entries logged", sb.length() > 0);
+
+        return sb.toString();
+    }
+
+    private static int countResults(final File cacheFolder) {
+        final File[] files = cacheFolder.listFiles();
+        int count = 0;
+        if (files != null) {
+            for (final File file : files) {
+                if (file.getName().endsWith(".xml")) {
+                    ++count;
+                }
+            }
+        }
+
+        return count;
+    }
+
+    private static File putResult(final ValidationResultCache cache, final String key) throws Exception {
+        final LogRecording recording = new LogRecording();
+        recording.add(new XMLValidationLogEntry(LogEntry.SEVERITY_ERROR, LogEntry.ORIGIN_XML_VALIDATION,
+            "Invalid content", 1, 1), 1);
+        cache.put(key, new ValidationResult(false, recording));
+
+        return new File(cache.getFolder(), key + ".xml");
+    }
+
+    /**
+     * Writes a file, moving its modification time forward so that an edit is seen whatever the resolution of the file
+     * system.
+     */
+    private static void writeEdited(final File file, final String content) throws IOException {
+        final long lastModified = file.lastModified();
+        Files.write(file.toPath(), content.getBytes(StandardCharsets.UTF_8));
+        if (lastModified != 0L) {
+            assertTrue("Cannot touch " + file, file.setLastModified(lastModified + 2000L));
+        }
+    }
+}
@@ -0,0 +1,82 @@
+package com.sas.ptc.transform.xml.log;
+
+import java.io.File;
+import java.io.IOException;
+
+import org.xml.sax.SAXParseException;
+
+import com.sas.ptc.test.TestSupport;
+
+/**
+ * Copyright (c) 2022, SAS Institute Inc., Cary, NC, USA.  All Rights Reserved.
+ * SPDX-License-Identifier: Apache-2.0
+ *
+ * Checks that AggregatingValidationErrorHandler logs one entry per message template and severity, and that the error
+ * and warning counts of the log still include every occurrence, grouped or not.
+ */
+public class AggregatingValidationErrorHandlerTest extends TestSupport {
+
+    public void testOccurrencesCounted() throws Exception {
+        final Log log = createLog("counted");
+        final AggregatingValidationErrorHandler handler = new AggregatingValidationErrorHandler(log);
+        for (int i = 1; i <= 50; i++) {
+            handler.error(createMessage("cvc-datatype-valid.1.2.1: '" + i + "x' is not a valid value for 'integer'.",
+                i));
+            handler.warning(createMessage("The value '" + i + "' of attribute 'ItemOID' is not used.", i));
+        }
+        handler.fatalError(createMessage("The value '1' of attribute 'ItemOID' is not used.", 51));
+        assertEquals("Errors logged before flush", Integer.valueOf(0), Integer.valueOf(log.getErrorCount()));
+        handler.flush();
+
+        assertEquals("Entries", Integer.valueOf(3), Integer.valueOf(log.getLogEntryList().size()));
+        assertEquals("Errors", Integer.valueOf(51), Integer.valueOf(log.getErrorCount()));
+        assertEquals("Warnings", Integer.valueOf(50), Integer.valueOf(log.getWarningCount()));
+        assertTrue("The document was valid", !handler.isValid());
+        assertTrue("No count in the entry: " + log.getLogEntryList().get(0).getMessage(),
+            log.getLogEntryList().get(0).getMessage().contains("(50 occurrences, at line:column 1:1, 2:1, 3:1, 4:1, "
+                + "5:1, ..., 50:1)"));
+    }
+
+    public void testUngroupedOccurrencesCounted() throws Exception {
+        final Log log = createLog("ungrouped");
+        final AggregatingValidationErrorHandler handler = new AggregatingValidationErrorHandler(log);
+        handler.setMaxGroupCount(2);
+        for (int i = 1; i <= 10; i++) {
+            handler.error(createMessage("Error of kind " + i, i));
+            handler.warning(createMessage("Warning of kind " + i, i));
+        }
+        handler.flush();
+
+        // the two groups, then one entry for the other errors and one for the other warnings
+        assertEquals("Entries", Integer.valueOf(4), Integer.valueOf(log.getLogEntryList().size()));
+        assertEquals("Errors", Integer.valueOf(10), Integer.valueOf(log.getErrorCount()));
+        assertEquals("Warnings", Integer.valueOf(10), Integer.valueOf(log.getWarningCount()));
+    }
+
+    public void testErrorLimitCountsOccurrences() throws Exception {
+        final Log log = createLog("limit");
+        final AggregatingValidationErrorHandler handler = new AggregatingValidationErrorHandler(log);
+        handler.setMaxErrorCount(5);
+        try {
+            for (int i = 1; i <= 10; i++) {
+                handler.error(createMessage("The same error", i));
+            }
+            fail("The validation was not stopped on the fifth error");
+        } catch (final ValidationLimitException e) {
+            assertEquals("Line of the error stopping the validation", Integer.valueOf(5),
+                Integer.valueOf(e.getLineNumber()));
+        }
+        handler.flush();
+
+        // the five occurrences, in one entry, and the fatal error telling why the validation stopped
+        assertEquals("Errors", Integer.valueOf(6), Integer.valueOf(log.getErrorCount()));
+    }
+
+    private Log createLog(final String name) throws IOException {
+        return new Log(new File(getWorkFolder(name), "log.xml").getPath(), Log.LOG_LEVEL_INFO);
+    }
+
+    private static SAXParseException createMessage(final String message, final int lineNumber) {
+        return new SAXParseException(message, null, "file:/document.xml", lineNumber, 1);
+    }
+}
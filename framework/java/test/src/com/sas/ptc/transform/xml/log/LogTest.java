@@ -0,0 +1,150 @@
+package com.sas.ptc.transform.xml.log;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+
+import javax.xml.parsers.DocumentBuilderFactory;
+import javax.xml.stream.XMLStreamException;
+
+import org.xml.sax.SAXParseException;
+
+import com.sas.ptc.test.TestSupport;
+
+/**
+ * Copyright (c) 2022, SAS Institute Inc., Cary, NC, USA.  All Rights Reserved.
+ * SPDX-License-Identifier: Apache-2.0
+ *
+ * Checks that a streaming log writes the same file as a log written as a DOM, and that when the log file fails to be
+ * opened or written, the failure is logged as an error and the entries from then on are still written, at the end.
+ */
+public class LogTest extends TestSupport {
+
+    private static final String TIMESTAMP = "2022-01-01T00:00:00+00:00";
+
+    public void testStreamingSameAsDOM() throws Exception {
+        final File workFolder = getWorkFolder("streaming");
+        for (final int logLevel : new int[] { Log.LOG_LEVEL_INFO, Log.LOG_LEVEL_ERROR }) {
+            final File domFile = new File(workFolder, "dom_" + logLevel + ".xml");
+            final Log dom = new Log(domFile.getPath(), logLevel, true, TIMESTAMP, false);
+            logEntries(dom, 0, 100);
+            dom.write();
+
+            final File streamedFile = new File(workFolder, "streamed_" + logLevel + ".xml");
+            final Log streamed = new Log(streamedFile.getPath(), logLevel, true, TIMESTAMP, true);
+            logEntries(streamed, 0, 10);
+            streamed.open();
+            logEntries(streamed, 10, 100);
+            streamed.write();
+
+            assertEquals("Errors", Integer.valueOf(dom.getErrorCount()), Integer.valueOf(streamed.getErrorCount()));
+            assertEquals("Warnings", Integer.valueOf(dom.getWarningCount()),
+                Integer.valueOf(streamed.getWarningCount()));
+            assertSameText("Streamed log at level " + logLevel, read(domFile), read(streamedFile));
+        }
+    }
+
+    public void testStreamingNothingLogged() throws Exception {
+        final File workFolder = getWorkFolder("empty");
+        final File domFile = new File(workFolder, "dom.xml");
+        new Log(domFile.getPath(), Log.LOG_LEVEL_INFO, true, TIMESTAMP, false).write();
+        final File streamedFile = new File(workFolder, "streamed.xml");
+        new Log(streamedFile.getPath(), Log.LOG_LEVEL_INFO, true, TIMESTAMP, true).write();
+        assertSameText("Empty streamed log", read(domFile), read(streamedFile));
+    }
+
+    public void testOpenFailure() throws Exception {
+        final File workFolder = getWorkFolder("openfailure");
+        final File domFile = new File(workFolder, "dom.xml");
+        final Log dom = new Log(domFile.getPath(), Log.LOG_LEVEL_INFO, true, TIMESTAMP, false);
+        logEntries(dom, 0, 10);
+        dom.logError("The log could not be written as entries were logged; the entries from here on were kept until "
+            + "the end: No log file");
+        logEntries(dom, 10, 20);
+        dom.write();
+
+        final File streamedFile = new File(workFolder, "streamed.xml");
+        final Log streamed = new Log(streamedFile.getPath(), Log.LOG_LEVEL_INFO, true, TIMESTAMP, true) {
+            @Override
+            protected LogStreamWriter createStreamWriter() throws IOException {
+                throw new IOException("No log file");
+            }
+        };
+        logEntries(streamed, 0, 10);
+        streamed.open();
+        logEntries(streamed, 10, 20);
+        streamed.write();
+
+        assertEquals("Errors", Integer.valueOf(dom.getErrorCount()), Integer.valueOf(streamed.getErrorCount()));
+        assertSameText("Log not opened", read(domFile), read(streamedFile));
+    }
+
+    public void testWriteFailure() throws Exception {
+        final File workFolder = getWorkFolder("writefailure");
+        final File streamedFile = new File(workFolder, "streamed.xml");
+        final Log streamed = new Log(streamedFile.getPath(), Log.LOG_LEVEL_INFO, true, TIMESTAMP, true) {
+            @Override
+            protected LogStreamWriter createStreamWriter() throws XMLStreamException {
+                return new LogStreamWriter(new FailingOutputStream(10000), true);
+            }
+        };
+        streamed.open();
+        logEntries(streamed, 0, 1000);
+        assertEquals("Errors", Integer.valueOf(334), Integer.valueOf(streamed.getErrorCount()));
+        streamed.write();
+
+        final String content = read(streamedFile);
+        DocumentBuilderFactory.newInstance().newDocumentBuilder().parse(streamedFile);
+        assertTrue("The failure was not logged", content.contains("The log could not be written as entries were "
+            + "logged; the entries from here on were kept until the end: java.io.IOException: Disk full"));
+        assertTrue("The last entry was lost", content.contains("Parameter 999: Value 999"));
+    }
+
+    /**
+     * Logs one entry of each kind in turn, numbered from start to end.
+     */
+    private static void logEntries(final Log log, final int start, final int end) {
+        for (int i = start; i < end; i++) {
+            switch (i % 6) {
+            case 0:
+                log.logInfo("Info " + i);
+                break;
+            case 1:
+                log.logWarning("Warning " + i + " with <markup> & \"quotes\"");
+                break;
+            case 2:
+                log.logError("Error " + i + "\r\nover two lines");
+                break;
+            case 3:
+                log.logParameter("Parameter " + i, "Value " + i, LogEntry.SCOPE_SYSTEM);
+                break;
+            case 4:
+                log.logValidationMessage(LogEntry.SEVERITY_ERROR,
+                    new SAXParseException("Validation error " + i, null, "file:/document.xml", i, 1));
+                break;
+            default:
+                log.logValidationMessages(LogEntry.SEVERITY_WARNING, "Validation warnings " + i, i, 2, 3);
+                break;
+            }
+        }
+    }
+
+    /**
+     * A stream failing once a number of bytes were written, as on a full disk.
+     */
+    private static final class FailingOutputStream extends OutputStream {
+        private int remaining;
+
+        FailingOutputStream(final int capacity) {
+            this.remaining = capacity;
+        }
+
+        @Override
+        public void write(final int b) throws IOException {
+            if (this.remaining <= 0) {
+                throw new IOException("Disk full");
+            }
+            --this.remaining;
+        }
+    }
+}
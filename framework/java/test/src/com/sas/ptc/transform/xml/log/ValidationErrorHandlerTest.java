@@ -0,0 +1,95 @@
+package com.sas.ptc.transform.xml.log;
+
+import java.io.File;
+import java.io.IOException;
+
+import org.xml.sax.SAXParseException;
+
+import com.sas.ptc.test.TestSupport;
+
+/**
+ * Copyright (c) 2022, SAS Institute Inc., Cary, NC, USA.  All Rights Reserved.
+ * SPDX-License-Identifier: Apache-2.0
+ *
+ * Checks the limits of ValidationErrorHandler: the validation is stopped on the error reaching maxValidationErrors,
+ * or on the first message after maxValidationMillis, and the document is then invalid, with the reason logged once as
+ * a fatal error.
+ */
+public class ValidationErrorHandlerTest extends TestSupport {
+
+    public void testErrorLimit() throws Exception {
+        final Log log = createLog("errors");
+        final ValidationErrorHandler handler = new ValidationErrorHandler(log);
+        handler.setMaxErrorCount(3);
+        handler.error(createMessage(1));
+        handler.warning(createMessage(2));
+        handler.error(createMessage(3));
+        assertTrue("A limit was reached before the third error", !handler.isLimitReached());
+        try {
+            handler.error(createMessage(4));
+            fail("The validation was not stopped on the third error");
+        } catch (final ValidationLimitException e) {
+            assertEquals("Line of the error stopping the validation", Integer.valueOf(4),
+                Integer.valueOf(e.getLineNumber()));
+        }
+        assertTrue("The limit was not reached", handler.isLimitReached());
+        assertTrue("The document was valid", !handler.isValid());
+        // the three errors and the fatal error telling why the validation stopped
+        assertEquals("Errors logged", Integer.valueOf(4), Integer.valueOf(log.getErrorCount()));
+        assertEquals("Warnings logged", Integer.valueOf(1), Integer.valueOf(log.getWarningCount()));
+    }
+
+    public void testNoErrorLimit() throws Exception {
+        final Log log = createLog("noerrorlimit");
+        final ValidationErrorHandler handler = new ValidationErrorHandler(log);
+        for (int i = 1; i <= 100; i++) {
+            handler.error(createMessage(i));
+        }
+        assertTrue("A limit was reached", !handler.isLimitReached());
+        assertEquals("Errors logged", Integer.valueOf(100), Integer.valueOf(log.getErrorCount()));
+    }
+
+    public void testTimeLimit() throws Exception {
+        final Log log = createLog("time");
+        final ValidationErrorHandler handler = new ValidationErrorHandler(log);
+        handler.setTimeLimitMillis(50L);
+        handler.startTimer();
+        handler.warning(createMessage(1));
+        assertTrue("No time left right after starting the timer", handler.getRemainingTimeMillis() > 0L);
+        Thread.sleep(100L);
+        assertEquals("Time left after the time limit", Long.valueOf(1L),
+            Long.valueOf(handler.getRemainingTimeMillis()));
+        try {
+            handler.warning(createMessage(2));
+            fail("The validation was not stopped after the time limit");
+        } catch (final ValidationLimitException e) {
+            assertTrue("Unexpected reason: " + e.getMessage(), e.getMessage().contains("maxValidationMillis"));
+        }
+        assertTrue("The limit was not reached", handler.isLimitReached());
+        assertTrue("The document was valid", !handler.isValid());
+        assertEquals("Errors logged", Integer.valueOf(1), Integer.valueOf(log.getErrorCount()));
+    }
+
+    public void testTimeLimitReached() throws Exception {
+        final Log log = createLog("reached");
+        final ValidationErrorHandler handler = new ValidationErrorHandler(log);
+        handler.setTimeLimitMillis(50L);
+        handler.startTimer();
+        assertTrue("A valid document was invalid", handler.isValid());
+
+        // as when a TimeLimitedInputStream stopped a parse reporting no messages
+        handler.timeLimitReached();
+        handler.timeLimitReached();
+        assertTrue("The limit was not reached", handler.isLimitReached());
+        assertTrue("The document was valid", !handler.isValid());
+        assertEquals("Errors logged", Integer.valueOf(1), Integer.valueOf(log.getErrorCount()));
+    }
+
+    private Log createLog(final String name) throws IOException {
+        return new Log(new File(getWorkFolder(name), "log.xml").getPath(), Log.LOG_LEVEL_INFO);
+    }
+
+    private static SAXParseException createMessage(final int lineNumber) {
+        return new SAXParseException("Message at line " + lineNumber, null, "file:/document.xml", lineNumber, 1);
+    }
+}
@@ -0,0 +1,110 @@
+package com.sas.ptc.transform.xml.odm;
+
+import java.io.File;
+
+import javax.xml.parsers.DocumentBuilderFactory;
+import javax.xml.transform.TransformerFactory;
+import javax.xml.transform.dom.DOMSource;
+import javax.xml.transform.stream.StreamResult;
+
+import org.w3c.dom.Document;
+import org.w3c.dom.Element;
+import org.w3c.dom.NodeList;
+
+import com.sas.ptc.test.ODMTestSupport;
+import com.sas.ptc.transform.xml.StandardTransformInfo;
+
+/**
+ * Copyright (c) 2022, SAS Institute Inc., Cary, NC, USA.  All Rights Reserved.
+ * SPDX-License-Identifier: Apache-2.0
+ *
+ * Imports ODM documents with the chunked engine, and compares the SAS XML with that of the XSL engine: every sample of
+ * the standards tree, and a document with several ClinicalData elements of several subjects each, at chunk sizes and
+ * thread counts that split the subjects of a ClinicalData element and run chunks out of order.
+ */
+public class ClinicalDataChunkedTransformTest extends ODMTestSupport {
+
+    private static final String ODM_NAMESPACE = "http://www.cdisc.org/ns/odm/v1.3";
+
+    /**
+     * The number of subjects of each ClinicalData element of the multi-subject document.
+     */
+    private static final int[] SUBJECTS_PER_CLINICAL_DATA = { 5, 3 };
+
+    private static final int[] CHUNK_SUBJECTS = { 1, 2, 3, 100 };
+    private static final int[] THREADS = { 1, 2, 4 };
+
+    public void testODM130Samples() throws Exception {
+        assertSameSamples(ODM_STANDARDS[0]);
+    }
+
+    public void testODM131Samples() throws Exception {
+        assertSameSamples(ODM_STANDARDS[1]);
+    }
+
+    public void testODM132Samples() throws Exception {
+        assertSameSamples(ODM_STANDARDS[2]);
+    }
+
+    public void testMultipleClinicalData() throws Exception {
+        for (final String[] standard : ODM_STANDARDS) {
+            final File workFolder = getWorkFolder("multiple_" + standard[0]);
+            final File source = new File(workFolder, "multiple.xml");
+            writeMultipleClinicalData(new File(new File(getSourceFolder(standard[0]), SAMPLE_SOURCE_FOLDER),
+                "odm_sample.xml"), source);
+            for (final int chunkSubjects : CHUNK_SUBJECTS) {
+                for (final int threads : THREADS) {
+                    assertSameImport(standard[0], standard[1], source, workFolder,
+                        StandardTransformInfo.CHUNKED_ENGINE, chunkSubjects, threads);
+                }
+            }
+        }
+    }
+
+    private void assertSameSamples(final String[] standard) throws Exception {
+        final File workFolder = getWorkFolder(standard[0]);
+        for (final File sample : getSamples(standard[0])) {
+            assertSameImport(standard[0], standard[1], sample, workFolder, StandardTransformInfo.CHUNKED_ENGINE, 1,
+                2);
+        }
+    }
+
+    /**
+     * Writes a copy of a sample whose single ClinicalData element is repeated, each copy holding a number of copies of
+     * its first subject with distinct subject keys.
+     *
+     * @param sample The sample
+     * @param file The document written
+     * @throws Exception If the sample could not be read or the document written
+     */
+    private static void writeMultipleClinicalData(final File sample, final File file) throws Exception {
+        final DocumentBuilderFactory factory = DocumentBuilderFactory.newInstance();
+        factory.setNamespaceAware(true);
+        final Document doc = factory.newDocumentBuilder().parse(sample);
+        final NodeList clinicalDataList = doc.getElementsByTagNameNS(ODM_NAMESPACE, "ClinicalData");
+        assertEquals("ClinicalData elements in " + sample, 1, clinicalDataList.getLength());
+        final Element clinicalData = (Element) clinicalDataList.item(0);
+        final NodeList subjects = clinicalData.getElementsByTagNameNS(ODM_NAMESPACE, "SubjectData");
+        final Element subject = (Element) subjects.item(0);
+        while (subjects.getLength() > 0) {
+            clinicalData.removeChild(subjects.item(0));
+        }
+
+        int subjectNumber = 0;
+        Element current = clinicalData;
+        for (int i = 0; i < SUBJECTS_PER_CLINICAL_DATA.length; ++i) {
+            if (i > 0) {
+                final Element next = (Element) clinicalData.cloneNode(false);
+                current.getParentNode().insertBefore(next, current.getNextSibling());
+                current = next;
+            }
+            for (int j = 0; j < SUBJECTS_PER_CLINICAL_DATA[i]; ++j) {
+                final Element copy = (Element) subject.cloneNode(true);
+                copy.setAttribute("SubjectKey", subject.getAttribute("SubjectKey") + "." + (++subjectNumber));
+                current.appendChild(copy);
+            }
+        }
+
+        TransformerFactory.newInstance().newTransformer().transform(new DOMSource(doc), new StreamResult(file));
+    }
+}
@@ -0,0 +1,36 @@
+package com.sas.ptc.transform.xml.odm;
+
+import java.io.File;
+
+import com.sas.ptc.test.ODMTestSupport;
+import com.sas.ptc.transform.xml.StandardTransformInfo;
+
+/**
+ * Copyright (c) 2022, SAS Institute Inc., Cary, NC, USA.  All Rights Reserved.
+ * SPDX-License-Identifier: Apache-2.0
+ *
+ * Imports every ODM sample of the standards tree with the streaming engine, and compares the SAS XML with that of the
+ * XSL engine.
+ */
+public class ClinicalDataStreamingTransformTest extends ODMTestSupport {
+
+    public void testODM130Samples() throws Exception {
+        assertSameSamples(ODM_STANDARDS[0]);
+    }
+
+    public void testODM131Samples() throws Exception {
+        assertSameSamples(ODM_STANDARDS[1]);
+    }
+
+    public void testODM132Samples() throws Exception {
+        assertSameSamples(ODM_STANDARDS[2]);
+    }
+
+    private void assertSameSamples(final String[] standard) throws Exception {
+        final File workFolder = getWorkFolder(standard[0]);
+        for (final File sample : getSamples(standard[0])) {
+            assertSameImport(standard[0], standard[1], sample, workFolder, StandardTransformInfo.STREAMING_ENGINE, 0,
+                0);
+        }
+    }
+}
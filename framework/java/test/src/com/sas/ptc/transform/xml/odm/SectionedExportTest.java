@@ -0,0 +1,78 @@
+package com.sas.ptc.transform.xml.odm;
+
+import java.io.File;
+import java.util.Arrays;
+import java.util.List;
+
+import com.sas.ptc.test.ODMTestSupport;
+import com.sas.ptc.transform.xml.StandardXMLTransformer;
+import com.sas.ptc.transform.xml.StandardXMLTransformerParams;
+import com.sas.ptc.util.xml.SectionTemplatesCache;
+
+/**
+ * Copyright (c) 2022, SAS Institute Inc., Cary, NC, USA.  All Rights Reserved.
+ * SPDX-License-Identifier: Apache-2.0
+ *
+ * Imports every ODM sample of the standards tree, then exports the SAS XML with the export stylesheet as a whole and
+ * with its sections transformed concurrently, on one thread and on several, and compares the documents written.
+ */
+public class SectionedExportTest extends ODMTestSupport {
+
+    private static final List<String> SECTIONS = Arrays.asList("Study", "AdminData", "ReferenceData", "ClinicalData",
+        "Association");
+
+    private static final int[] THREADS = { 1, 0 };
+
+    public void testODM130Samples() throws Exception {
+        assertSameSamples(ODM_STANDARDS[0]);
+    }
+
+    public void testODM131Samples() throws Exception {
+        assertSameSamples(ODM_STANDARDS[1]);
+    }
+
+    public void testODM132Samples() throws Exception {
+        assertSameSamples(ODM_STANDARDS[2]);
+    }
+
+    private void assertSameSamples(final String[] standard) throws Exception {
+        final File workFolder = getWorkFolder(standard[0]);
+        final File transforms = new File(workFolder, "availabletransforms_xsl.xml");
+        writeAvailableTransforms(transforms, standard[1], "xsl");
+        final SectionTemplatesCache cache = SectionTemplatesCache.getInstance(SECTIONS);
+        for (final File sample : getSamples(standard[0])) {
+            final String name = sample.getName().replaceFirst("\\.xml$", "");
+            final File library = new File(workFolder, name + "_library.xml");
+            runImport(createImportParams(standard[0], standard[1], transforms, sample, library));
+
+            final File whole = new File(workFolder, name + "_whole.xml");
+            runExport(createExportParams(standard[0], standard[1], transforms, library, whole));
+
+            for (final int threads : THREADS) {
+                final File sectioned = new File(workFolder, name + "_sectioned_t" + threads + ".xml");
+                final StandardXMLTransformerParams params = createExportParams(standard[0], standard[1], transforms,
+                    library, sectioned);
+                params.setExportSections(String.join(" ", SECTIONS));
+                params.setExportThreads(threads);
+                final long uses = cache.getHitCount() + cache.getMissCount();
+                runExport(params);
+                assertTrue("The sections of " + library + " were not transformed concurrently",
+                    cache.getHitCount() + cache.getMissCount() > uses);
+
+                assertSameText(sample.getName() + " (ODM " + standard[1] + ") exported by sections on "
+                    + ((threads > 0) ? threads + " threads" : "the default threads"), read(whole), read(sectioned));
+            }
+        }
+    }
+
+    /**
+     * Runs an export, failing the test if it logged an error or wrote no output.
+     */
+    private static void runExport(final StandardXMLTransformerParams params) throws Exception {
+        final StandardXMLTransformer transformer = StandardXMLTransformer.createTransformer(params);
+        transformer.exec();
+        assertEquals("Errors exporting " + params.getSasXMLPath() + ", see " + params.getLogFilePath(),
+            Integer.valueOf(0), Integer.valueOf(transformer.getErrorCount()));
+        assertTrue("No output exporting " + params.getSasXMLPath(), transformer.isOutputProduced());
+    }
+}
@@ -0,0 +1,95 @@
+package com.sas.ptc.transform.xml.plan;
+
+import java.io.File;
+import java.io.RandomAccessFile;
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.management.MemoryType;
+import java.lang.management.MemoryUsage;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import com.sas.ptc.test.TestSupport;
+import com.sas.ptc.transform.xml.StandardTransformInfo;
+
+/**
+ * Copyright (c) 2022, SAS Institute Inc., Cary, NC, USA.  All Rights Reserved.
+ * SPDX-License-Identifier: Apache-2.0
+ *
+ * Checks the memory EnginePlanner takes as available: the heap retained after the last collection is deducted, not
+ * the garbage allocated since, so that a transform that fits is not refused on a heap full of garbage, as in a
+ * long-running VM.
+ */
+public class EnginePlannerTest extends TestSupport {
+
+    private static final long MEGABYTE = 1024L * 1024L;
+    private static final long MAX_BYTES = 512L * MEGABYTE;
+
+    public void testHeapFullOfGarbage() throws Exception {
+        // 480 MB in use, of which only 20 MB were retained by the last collections
+        final List<MemoryPoolMXBean> pools = Arrays.asList(createPool(MemoryType.HEAP, 300L, Long.valueOf(0L)),
+            createPool(MemoryType.HEAP, 180L, Long.valueOf(20L)), createPool(MemoryType.NON_HEAP, 64L, null));
+        final long availableBytes = EnginePlanner.getAvailableMemory(MAX_BYTES, pools);
+        assertEquals("Available memory", Long.valueOf(492L * MEGABYTE), Long.valueOf(availableBytes));
+
+        // a 20 MB source needs an estimated 76 MB, more than the 32 MB the heap in use would leave
+        final File source = new File(getWorkFolder("garbage"), "source.xml");
+        final RandomAccessFile file = new RandomAccessFile(source, "rw");
+        try {
+            file.setLength(20L * MEGABYTE);
+        } finally {
+            file.close();
+        }
+        final EnginePlan plan = new EnginePlanner(availableBytes).planImport(source,
+            Collections.singletonList(StandardTransformInfo.XSL_ENGINE), 0, 1);
+        assertTrue("A transform needing " + plan.getEstimatedBytes() + " bytes was refused", plan.isFitting());
+        assertTrue("The estimate no longer exceeds the heap left by the garbage",
+            plan.getEstimatedBytes() > MAX_BYTES - 480L * MEGABYTE);
+    }
+
+    public void testPoolWithoutCollectionUsage() {
+        final List<MemoryPoolMXBean> pools = Arrays.asList(createPool(MemoryType.HEAP, 100L, null),
+            createPool(MemoryType.HEAP, 50L, Long.valueOf(10L)));
+        assertEquals("Available memory", Long.valueOf(402L * MEGABYTE),
+            Long.valueOf(EnginePlanner.getAvailableMemory(MAX_BYTES, pools)));
+    }
+
+    public void testRunningVM() {
+        final long availableBytes = EnginePlanner.getAvailableMemory();
+        assertTrue("Available memory " + availableBytes, availableBytes > 0L);
+        assertTrue("Available memory " + availableBytes, availableBytes <= Runtime.getRuntime().maxMemory());
+    }
+
+    /**
+     * Creates a memory pool reporting the given usage, now and after its last collection.
+     *
+     * @param type The type of the pool
+     * @param usedMegabytes The memory in use now
+     * @param collectedMegabytes The memory in use after the last collection, or null if not reported
+     * @return The pool
+     */
+    private static MemoryPoolMXBean createPool(final MemoryType type, final long usedMegabytes,
+        final Long collectedMegabytes) {
+        final MemoryUsage usage = new MemoryUsage(0L, usedMegabytes * MEGABYTE, usedMegabytes * MEGABYTE, -1L);
+        final MemoryUsage collectionUsage = (collectedMegabytes == null) ? null
+            : new MemoryUsage(0L, collectedMegabytes.longValue() * MEGABYTE, usedMegabytes * MEGABYTE, -1L);
+
+        return (MemoryPoolMXBean) Proxy.newProxyInstance(EnginePlannerTest.class.getClassLoader(),
+            new Class<?>[] { MemoryPoolMXBean.class }, new InvocationHandler() {
+                @Override
+                public Object invoke(final Object proxy, final Method method, final Object[] args) {
+                    if ("getType".equals(method.getName())) {
+                        return type;
+                    } else if ("getUsage".equals(method.getName())) {
+                        return usage;
+                    } else if ("getCollectionUsage".equals(method.getName())) {
+                        return collectionUsage;
+                    }
+                    throw new UnsupportedOperationException(method.getName());
+                }
+            });
+    }
+}
@@ -0,0 +1,213 @@
+package com.sas.ptc.util.xml;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import com.sas.ptc.test.TestSupport;
+
+/**
+ * Copyright (c) 2022, SAS Institute Inc., Cary, NC, USA.  All Rights Reserved.
+ * SPDX-License-Identifier: Apache-2.0
+ *
+ * Exercises CompiledFileCache with a cache whose artifacts are the contents of text files, which may name the files
+ * they depend upon: hits and misses, recompilation once the file or a dependency is edited or removed, eviction of the
+ * least recently used entries, and a single compilation for concurrent requests of the same file.
+ */
+public class CompiledFileCacheTest extends TestSupport {
+
+    private static final int THREADS = 8;
+
+    public void testHitsAndMisses() throws Exception {
+        final File workFolder = getWorkFolder("hits");
+        final File file = write(new File(workFolder, "a.txt"), "a");
+        final TextCache cache = new TextCache();
+        assertEquals("First get", "a", cache.get(file.getPath()));
+        assertEquals("Second get", "a", cache.get(new File(workFolder, "../hits/a.txt").getPath()));
+        assertEquals("Compilations", 1, cache.getCompileCount());
+        assertEquals("Misses", 1L, cache.getMissCount());
+        assertEquals("Hits", 1L, cache.getHitCount());
+
+        cache.invalidate(file.getPath());
+        assertEquals("Get after invalidate", "a", cache.get(file.getPath()));
+        assertEquals("Compilations after invalidate", 2, cache.getCompileCount());
+    }
+
+    public void testModifiedDependency() throws Exception {
+        final File workFolder = getWorkFolder("dependencies");
+        final File dependency = write(new File(workFolder, "b.txt"), "b");
+        final File file = write(new File(workFolder, "a.txt"), dependency.getName());
+        final TextCache cache = new TextCache();
+        cache.get(file.getPath());
+        assertEquals("Dependencies", 2, cache.getDependencies(file.getPath()).size());
+        assertEquals("Second dependency", dependency.getCanonicalFile(),
+            cache.getDependencies(file.getPath()).get(1));
+
+        touch(dependency);
+        cache.get(file.getPath());
+        assertEquals("Compilations after editing the dependency", 2, cache.getCompileCount());
+
+        touch(file);
+        cache.get(file.getPath());
+        assertEquals("Compilations after editing the file", 3, cache.getCompileCount());
+
+        cache.get(file.getPath());
+        assertEquals("Compilations of a current entry", 3, cache.getCompileCount());
+
+        assertTrue("Cannot delete " + dependency, dependency.delete());
+        try {
+            cache.get(file.getPath());
+            fail("The entry was still current after removing " + dependency);
+        } catch (final IOException e) {
+            // expected: the entry was stale, and compiling it again failed
+        }
+    }
+
+    public void testEviction() throws Exception {
+        final File workFolder = getWorkFolder("eviction");
+        final File a = write(new File(workFolder, "a.txt"), "a");
+        final File b = write(new File(workFolder, "b.txt"), "b");
+        final File c = write(new File(workFolder, "c.txt"), "c");
+        final TextCache cache = new TextCache();
+        cache.setMaxEntries(2);
+        cache.get(a.getPath());
+        cache.get(b.getPath());
+        // a becomes the most recently used, so that c evicts b
+        cache.get(a.getPath());
+        cache.get(c.getPath());
+        assertEquals("Entries", 2, cache.size());
+        assertEquals("Evictions", 1L, cache.getEvictionCount());
+
+        cache.get(a.getPath());
+        assertEquals("Compilations after getting a retained entry", 3, cache.getCompileCount());
+        cache.get(b.getPath());
+        assertEquals("Compilations after getting an evicted entry", 4, cache.getCompileCount());
+
+        cache.setMaxEntries(1);
+        assertEquals("Entries after lowering the maximum", 1, cache.size());
+        try {
+            cache.setMaxEntries(0);
+            fail("A maximum of 0 entries was accepted");
+        } catch (final IllegalArgumentException e) {
+            // expected
+        }
+    }
+
+    public void testConcurrentGet() throws Exception {
+        final File workFolder = getWorkFolder("concurrent");
+        final File file = write(new File(workFolder, "a.txt"), "a");
+        final TextCache cache = new TextCache();
+        final CountDownLatch release = new CountDownLatch(1);
+        cache.setGate(release);
+
+        final ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        try {
+            final List<Future<String>> results = new ArrayList<Future<String>>();
+            for (int i = 0; i < THREADS; ++i) {
+                results.add(executor.submit(new Callable<String>() {
+                    @Override
+                    public String call() throws Exception {
+                        return cache.get(file.getPath());
+                    }
+                }));
+            }
+            // hold the first compilation until every thread has had time to request the file
+            Thread.sleep(200L);
+            release.countDown();
+            for (final Future<String> result : results) {
+                assertEquals("Artifact", "a", result.get(30L, TimeUnit.SECONDS));
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+        assertEquals("Compilations for concurrent requests", 1, cache.getCompileCount());
+        assertEquals("Misses", 1L, cache.getMissCount());
+        assertEquals("Hits", (long) (THREADS - 1), cache.getHitCount());
+    }
+
+    public void testFailedCompilation() throws Exception {
+        final File workFolder = getWorkFolder("failed");
+        final File file = write(new File(workFolder, "a.txt"), "missing.txt");
+        final TextCache cache = new TextCache();
+        try {
+            cache.get(file.getPath());
+            fail("A missing dependency was compiled");
+        } catch (final IOException e) {
+            // expected
+        }
+        assertEquals("Entries after a failed compilation", 0, cache.size());
+
+        // a failed compilation leaves nothing behind to wait for
+        write(new File(workFolder, "missing.txt"), "b");
+        assertEquals("Get once the dependency exists", "missing.txt", cache.get(file.getPath()));
+        assertEquals("Compilations", 2, cache.getCompileCount());
+    }
+
+    private static File write(final File file, final String content) throws IOException {
+        Files.write(file.toPath(), content.getBytes(StandardCharsets.UTF_8));
+
+        return file;
+    }
+
+    /**
+     * Moves the modification time of a file forward, beyond the resolution of the file system.
+     */
+    private static void touch(final File file) {
+        assertTrue("Cannot touch " + file, file.setLastModified(file.lastModified() + 2000L));
+    }
+
+    /**
+     * A cache whose artifact is the content of a file. A line ending in .txt names a file of the same folder the
+     * artifact depends upon, and which must exist.
+     */
+    private static final class TextCache extends CompiledFileCache<String, IOException> {
+        private final AtomicInteger compileCount = new AtomicInteger();
+        private volatile CountDownLatch gate;
+
+        @Override
+        protected String compile(final File file, final Set<File> dependencies) throws IOException {
+            this.compileCount.incrementAndGet();
+            final CountDownLatch currentGate = this.gate;
+            if (currentGate != null) {
+                try {
+                    currentGate.await();
+                } catch (final InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new IOException("Interrupted compiling " + file);
+                }
+            }
+
+            final String content = new String(Files.readAllBytes(file.toPath()), StandardCharsets.UTF_8);
+            for (final String line : content.split("\n")) {
+                if (line.endsWith(".txt")) {
+                    final File dependency = new File(file.getParentFile(), line).getCanonicalFile();
+                    if (!dependency.isFile()) {
+                        throw new IOException("Missing " + dependency);
+                    }
+                    dependencies.add(dependency);
+                }
+            }
+
+            return content;
+        }
+
+        void setGate(final CountDownLatch gate) {
+            this.gate = gate;
+        }
+
+        int getCompileCount() {
+            return this.compileCount.get();
+        }
+    }
+}
@@ -0,0 +1,106 @@
+package com.sas.ptc.util.xml;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+
+import com.sas.ptc.test.TestSupport;
+
+/**
+ * Copyright (c) 2022, SAS Institute Inc., Cary, NC, USA.  All Rights Reserved.
+ * SPDX-License-Identifier: Apache-2.0
+ *
+ * Runs XMLValidator through the shared schema cache: a schema is compiled once for successive validations, and
+ * compiled again, with the edit showing in the validation result, once the schema document it includes or the one it
+ * imports is edited.
+ */
+public class SchemaCacheTest extends TestSupport {
+
+    private static final String XS_NAMESPACE = "http://www.w3.org/2001/XMLSchema";
+    private static final String TEST_NAMESPACE = "http://www.sas.com/ptc/test";
+    private static final String CODES_NAMESPACE = "http://www.sas.com/ptc/test/codes";
+
+    public void testEditedDependencies() throws Exception {
+        final File workFolder = getWorkFolder("dependencies");
+        final File included = new File(workFolder, "types.xsd");
+        final File imported = new File(new File(workFolder, "codes"), "codes.xsd");
+        assertTrue("Cannot create " + imported.getParentFile(), imported.getParentFile().mkdirs());
+        writeIncluded(included, 8);
+        writeImported(imported, "A");
+        final File schema = new File(workFolder, "root.xsd");
+        write(schema, "<xs:schema xmlns:xs=\"" + XS_NAMESPACE + "\" xmlns=\"" + TEST_NAMESPACE + "\" xmlns:c=\""
+            + CODES_NAMESPACE + "\" targetNamespace=\"" + TEST_NAMESPACE + "\" elementFormDefault=\"qualified\">\n"
+            + "<xs:include schemaLocation=\"types.xsd\"/>\n"
+            + "<xs:import namespace=\"" + CODES_NAMESPACE + "\" schemaLocation=\"codes/codes.xsd\"/>\n"
+            + "<xs:element name=\"root\"><xs:complexType><xs:sequence>\n"
+            + "<xs:element name=\"name\" type=\"Name\"/><xs:element name=\"code\" type=\"c:Code\"/>\n"
+            + "</xs:sequence></xs:complexType></xs:element>\n</xs:schema>\n");
+        final File document = new File(workFolder, "document.xml");
+        write(document, "<root xmlns=\"" + TEST_NAMESPACE + "\"><name>ABCDEF</name><code>A</code></root>\n");
+
+        final SchemaCache cache = SchemaCache.getInstance();
+        try {
+            cache.invalidateAll();
+            final long misses = cache.getMissCount();
+            final long hits = cache.getHitCount();
+            assertTrue("The document was invalid", validate(schema, document));
+            assertTrue("The document was invalid on the second validation", validate(schema, document));
+            assertEquals("Compilations of an unchanged schema", misses + 1, cache.getMissCount());
+            assertEquals("Hits of an unchanged schema", hits + 1, cache.getHitCount());
+            assertEquals("Dependencies", 3, cache.getDependencies(schema.getPath()).size());
+
+            writeIncluded(included, 4);
+            assertTrue("The document was valid after shortening the name", !validate(schema, document));
+            writeIncluded(included, 8);
+            assertTrue("The document was invalid after lengthening the name", validate(schema, document));
+            writeImported(imported, "B");
+            assertTrue("The document was valid after changing the code", !validate(schema, document));
+            assertEquals("Compilations after editing the dependencies", misses + 4, cache.getMissCount());
+        } finally {
+            cache.invalidateAll();
+        }
+    }
+
+    /**
+     * Writes the included schema document, defining a name of a maximum length.
+     */
+    private static void writeIncluded(final File file, final int maxLength) throws IOException {
+        writeEdited(file, "<xs:schema xmlns:xs=\"" + XS_NAMESPACE + "\" targetNamespace=\"" + TEST_NAMESPACE + "\">\n"
+            + "<xs:simpleType name=\"Name\"><xs:restriction base=\"xs:string\"><xs:maxLength value=\"" + maxLength
+            + "\"/></xs:restriction></xs:simpleType>\n</xs:schema>\n");
+    }
+
+    /**
+     * Writes the imported schema document, defining a code of a single value.
+     */
+    private static void writeImported(final File file, final String code) throws IOException {
+        writeEdited(file, "<xs:schema xmlns:xs=\"" + XS_NAMESPACE + "\" targetNamespace=\"" + CODES_NAMESPACE + "\">\n"
+            + "<xs:simpleType name=\"Code\"><xs:restriction base=\"xs:string\"><xs:enumeration value=\"" + code
+            + "\"/></xs:restriction></xs:simpleType>\n</xs:schema>\n");
+    }
+
+    /**
+     * Writes a file, moving its modification time forward so that an edit is seen whatever the resolution of the file
+     * system.
+     */
+    private static void writeEdited(final File file, final String content) throws IOException {
+        final long lastModified = file.lastModified();
+        write(file, content);
+        if (lastModified != 0L) {
+            assertTrue("Cannot touch " + file, file.setLastModified(lastModified + 2000L));
+        }
+    }
+
+    private static void write(final File file, final String content) throws IOException {
+        Files.write(file.toPath(), content.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static boolean validate(final File schema, final File document) throws Exception {
+        final XMLValidator validator = new XMLValidator();
+        validator.setSchemaPath(schema.getPath());
+        validator.setXmlPath(document.getAbsolutePath());
+
+        return validator.doValidate();
+    }
+}
@@ -0,0 +1,95 @@
+package com.sas.ptc.util.xml;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+
+import javax.xml.transform.Templates;
+
+import com.sas.ptc.test.TestSupport;
+
+/**
+ * Copyright (c) 2022, SAS Institute Inc., Cary, NC, USA.  All Rights Reserved.
+ * SPDX-License-Identifier: Apache-2.0
+ *
+ * Runs XSLTransform through the shared stylesheet cache: a stylesheet is compiled once for successive transforms, and
+ * compiled again, with the edit showing in the output, once the stylesheet it imports or the one it includes is
+ * edited.
+ */
+public class TemplatesCacheTest extends TestSupport {
+
+    public void testEditedDependencies() throws Exception {
+        final File workFolder = getWorkFolder("dependencies");
+        final File imported = new File(workFolder, "imported.xsl");
+        final File included = new File(new File(workFolder, "common"), "included.xsl");
+        assertTrue("Cannot create " + included.getParentFile(), included.getParentFile().mkdirs());
+        writeTemplate(imported, "imported", "1");
+        writeTemplate(included, "included", "1");
+        final File stylesheet = new File(workFolder, "root.xsl");
+        write(stylesheet, stylesheetStart() + "<xsl:import href=\"imported.xsl\"/>\n"
+            + "<xsl:include href=\"common/included.xsl\"/>\n"
+            + "<xsl:output method=\"xml\" omit-xml-declaration=\"yes\"/>\n"
+            + "<xsl:template match=\"/\"><out><xsl:call-template name=\"imported\"/>"
+            + "<xsl:call-template name=\"included\"/></out></xsl:template>\n</xsl:stylesheet>\n");
+        final File input = new File(workFolder, "input.xml");
+        write(input, "<in/>\n");
+
+        final TemplatesCache cache = TemplatesCache.getInstance();
+        try {
+            cache.invalidateAll();
+            final long misses = cache.getMissCount();
+            final long hits = cache.getHitCount();
+            assertEquals("First transform", "imported1included1", transform(stylesheet, input, workFolder));
+            assertEquals("Second transform", "imported1included1", transform(stylesheet, input, workFolder));
+            assertEquals("Compilations of an unchanged stylesheet", misses + 1, cache.getMissCount());
+            assertEquals("Hits of an unchanged stylesheet", hits + 1, cache.getHitCount());
+            assertEquals("Dependencies", 3, cache.getDependencies(stylesheet.getPath()).size());
+            final Templates templates = cache.get(stylesheet.getPath());
+            assertTrue("Another stylesheet was returned", templates == cache.get(stylesheet.getPath()));
+
+            writeTemplate(imported, "imported", "2");
+            assertEquals("Transform after editing the imported stylesheet", "imported2included1",
+                transform(stylesheet, input, workFolder));
+            writeTemplate(included, "included", "2");
+            assertEquals("Transform after editing the included stylesheet", "imported2included2",
+                transform(stylesheet, input, workFolder));
+            assertEquals("Compilations after editing the dependencies", misses + 3, cache.getMissCount());
+        } finally {
+            cache.invalidateAll();
+        }
+    }
+
+    private static String stylesheetStart() {
+        return "<?xml version=\"1.0\" encoding=\"UTF-8\"?>\n"
+            + "<xsl:stylesheet version=\"1.0\" xmlns:xsl=\"http://www.w3.org/1999/XSL/Transform\">\n";
+    }
+
+    /**
+     * Writes a stylesheet holding a named template writing its name and a version, moving its modification time
+     * forward so that an edit is seen whatever the resolution of the file system.
+     */
+    private static void writeTemplate(final File file, final String name, final String version) throws IOException {
+        final long lastModified = file.lastModified();
+        write(file, stylesheetStart() + "<xsl:template name=\"" + name + "\">" + name + version + "</xsl:template>\n"
+            + "</xsl:stylesheet>\n");
+        if (lastModified != 0L) {
+            assertTrue("Cannot touch " + file, file.setLastModified(lastModified + 2000L));
+        }
+    }
+
+    private static void write(final File file, final String content) throws IOException {
+        Files.write(file.toPath(), content.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static String transform(final File stylesheet, final File input, final File workFolder) throws Exception {
+        final File output = new File(workFolder, "output.xml");
+        final XSLTransform transform = new XSLTransform();
+        transform.setXsltPath(stylesheet.getPath());
+        transform.setSourceXmlPath(input.getPath());
+        transform.setOutputXmlPath(output.getPath());
+        transform.doTransform();
+
+        return read(output).replaceAll("</?out>|\\s", "");
+    }
+}